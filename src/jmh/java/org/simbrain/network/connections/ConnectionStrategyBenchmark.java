@@ -0,0 +1,69 @@
+package org.simbrain.network.connections;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.simbrain.network.connections.RadialGaussianKt.*;
+
+/**
+ * Creates (without adding them to the network) the synapses that connection strategies make from a grid of neurons to
+ * itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionStrategyBenchmark {
+
+    @Param({"Sparse", "RadialGaussian", "FixedDegree"})
+    public String strategy;
+
+    @Param({"100", "1000"})
+    public int neurons;
+
+    private Network network;
+
+    private List<Neuron> neuronList;
+
+    private ConnectionStrategy connectionStrategy;
+
+    @Setup
+    public void setUp() {
+        network = new Network();
+        neuronList = new ArrayList<>();
+        for (int i = 0; i < neurons; i++) {
+            Neuron neuron = new Neuron(network);
+            neuron.setLocation(50 * (i % 32), 50 * (i / 32), false);
+            neuronList.add(neuron);
+        }
+        network.addNetworkModels(new ArrayList<>(neuronList));
+        connectionStrategy = createStrategy(strategy);
+    }
+
+    private static ConnectionStrategy createStrategy(String name) {
+        switch (name) {
+            case "Sparse":
+                return new Sparse(0.1);
+            case "RadialGaussian":
+                return new RadialGaussian(DEFAULT_EE_CONST, DEFAULT_EI_CONST, DEFAULT_IE_CONST, DEFAULT_II_CONST,
+                        DEFAULT_DIST_CONST, getDEFAULT_LAMBDA());
+            case "FixedDegree":
+                return new FixedDegree(10, Direction.IN, false, 200.0, false);
+            default:
+                throw new IllegalArgumentException("No connection strategy " + name);
+        }
+    }
+
+    @Benchmark
+    public List<Synapse> connectNeurons() {
+        return connectionStrategy.connectNeurons(network, neuronList, neuronList, false);
+    }
+}
@@ -0,0 +1,82 @@
+package org.simbrain.network.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.connections.Sparse;
+import org.simbrain.network.neuron_update_rules.LinearRule;
+import org.simbrain.network.update_actions.BufferedUpdate;
+import org.simbrain.network.update_actions.CompiledUpdate;
+import org.simbrain.network.update_actions.ParallelBufferedUpdate;
+import org.simbrain.network.update_actions.PriorityUpdate;
+import org.simbrain.workspace.updater.UpdateAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates a network of loose neurons, sparsely and recurrently connected by loose synapses, with each of the network
+ * update actions that handle loose neurons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+
+    @Param({"BufferedUpdate", "PriorityUpdate", "ParallelBufferedUpdate", "CompiledUpdate"})
+    public String updateAction;
+
+    @Param({"100", "1000"})
+    public int neurons;
+
+    /**
+     * Fraction of the possible synapses between neurons that are made.
+     */
+    @Param({"0.1"})
+    public double density;
+
+    private Network network;
+
+    @Setup
+    public void setUp() {
+        network = new Network();
+        Random random = new Random(42);
+        List<Neuron> neuronList = new ArrayList<>();
+        for (int i = 0; i < neurons; i++) {
+            Neuron neuron = new Neuron(network, new LinearRule());
+            neuron.setLocation(50 * (i % 32), 50 * (i / 32), false);
+            neuron.forceSetActivation(random.nextDouble());
+            neuron.setUpdatePriority(random.nextInt(10));
+            neuronList.add(neuron);
+        }
+        network.addNetworkModels(new ArrayList<>(neuronList));
+        new Sparse(density).connectNeurons(network, neuronList, neuronList, true);
+        network.updatePriorityList();
+
+        network.getUpdateManager().clear();
+        network.getUpdateManager().addAction(createAction(updateAction));
+    }
+
+    private UpdateAction createAction(String name) {
+        switch (name) {
+            case "BufferedUpdate":
+                return new BufferedUpdate(network);
+            case "PriorityUpdate":
+                return new PriorityUpdate(network);
+            case "ParallelBufferedUpdate":
+                return new ParallelBufferedUpdate(network);
+            case "CompiledUpdate":
+                return new CompiledUpdate(network);
+            default:
+                throw new IllegalArgumentException("No update action " + name);
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        network.update();
+    }
+}
@@ -0,0 +1,58 @@
+package org.simbrain.network.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.synapse_update_rules.STDPRule;
+import org.simbrain.network.updaterules.IzhikevichRule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates two groups of spiking neurons, all to all connected by a synapse group whose synapses learn with STDP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SynapseGroup2Benchmark {
+
+    /**
+     * Number of neurons in each group.
+     */
+    @Param({"50", "200"})
+    public int neurons;
+
+    private NeuronGroup source;
+
+    private NeuronGroup target;
+
+    private SynapseGroup2 synapseGroup;
+
+    @Setup
+    public void setUp() {
+        Network network = new Network();
+        source = new NeuronGroup(network, neurons);
+        target = new NeuronGroup(network, neurons);
+        source.setNeuronType(new IzhikevichRule());
+        target.setNeuronType(new IzhikevichRule());
+        network.addNetworkModels(source, target);
+        synapseGroup = new SynapseGroup2(source, target, new AllToAll());
+        for (Synapse synapse : synapseGroup.getSynapses()) {
+            synapse.setLearningRule(new STDPRule());
+        }
+        network.addNetworkModel(synapseGroup);
+    }
+
+    /**
+     * Update the neurons, so that they spike, and then the synapses.
+     */
+    @Benchmark
+    public void update() {
+        source.update();
+        target.update();
+        synapseGroup.update();
+    }
+}
@@ -0,0 +1,61 @@
+package org.simbrain.network.matrix;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Layer;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates a neuron array with each of the neuron update rules that can update arrays, with fresh inputs each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeuronArrayBenchmark {
+
+    /**
+     * Simple name of a rule in {@link NeuronUpdateRule#RULE_LIST}.
+     */
+    @Param({"AdExIFRule", "BinaryRule", "ContinuousSigmoidalRule", "DecayRule", "FitzhughNagumo", "IACRule",
+            "IntegrateAndFireRule", "IzhikevichRule", "KuramotoRule", "LinearRule", "LogisticRule", "MorrisLecarRule",
+            "NakaRushtonRule", "ProductRule", "RandomNeuronRule", "SigmoidalRule", "SinusoidalRule",
+            "SpikingThresholdRule", "StochasticRule", "ThreeValueRule", "TimedAccumulatorRule"})
+    public String rule;
+
+    @Param({"1000"})
+    public int size;
+
+    private NeuronArray array;
+
+    private double[] inputs;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Class<?> ruleClass = NeuronUpdateRule.RULE_LIST.stream()
+                .filter(c -> c.getSimpleName().equals(rule))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No update rule " + rule));
+        if (ruleClass.getMethod("apply", Layer.class, MatrixDataHolder.class).getDeclaringClass()
+                == NeuronUpdateRule.class) {
+            throw new IllegalArgumentException(rule + " does not update arrays");
+        }
+        Network network = new Network();
+        array = new NeuronArray(network, size);
+        array.setUpdateRule((NeuronUpdateRule) ruleClass.getDeclaredConstructor().newInstance());
+        network.addNetworkModel(array);
+        inputs = new Random(42).doubles(size, -1, 1).toArray();
+    }
+
+    @Benchmark
+    public void update() {
+        array.addInputs(inputs);
+        array.update();
+    }
+}
@@ -0,0 +1,45 @@
+package org.simbrain.network.matrix;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+import smile.math.matrix.Matrix;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the output of a randomized weight matrix between two neuron arrays of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightMatrixBenchmark {
+
+    /**
+     * Size of the source and target arrays. The matrix has size * size weights.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private WeightMatrix weightMatrix;
+
+    @Setup
+    public void setUp() {
+        Network network = new Network();
+        NeuronArray source = new NeuronArray(network, size);
+        NeuronArray target = new NeuronArray(network, size);
+        Random random = new Random(42);
+        source.setActivations(random.doubles(size).toArray());
+        weightMatrix = new WeightMatrix(network, source, target);
+        weightMatrix.randomize();
+        network.addNetworkModels(source, target, weightMatrix);
+    }
+
+    @Benchmark
+    public Matrix getOutput() {
+        return weightMatrix.getOutput();
+    }
+}
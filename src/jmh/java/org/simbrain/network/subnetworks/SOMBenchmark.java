@@ -0,0 +1,74 @@
+package org.simbrain.network.subnetworks;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trains an SOM network for one epoch, either by setting the input layer and updating the SOM group for each row,
+ * with a whole data set at once, or with batch SOM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SOMBenchmark {
+
+    @Param({"Update", "Online", "Batch"})
+    public String method;
+
+    @Param({"400", "2500"})
+    public int units;
+
+    @Param({"256"})
+    public int dimension;
+
+    /**
+     * Rows in the dataset, all of which are trained on in each epoch.
+     */
+    @Param({"256"})
+    public int rows;
+
+    private SOMNetwork network;
+
+    private double[][] inputs;
+
+    @Setup
+    public void setUp() {
+        Network parent = new Network();
+        network = new SOMNetwork(parent, units, dimension);
+        parent.addNetworkModel(network);
+        network.getSom().randomizeIncomingWeights();
+
+        Random random = new Random(42);
+        inputs = new double[rows][dimension];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < dimension; j++) {
+                inputs[i][j] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public void trainEpoch() {
+        SOMGroup som = network.getSom();
+        som.reset();
+        switch (method) {
+            case "Update":
+                for (double[] row : inputs) {
+                    network.getInputLayer().forceSetActivations(row);
+                    som.update();
+                }
+                break;
+            case "Online":
+                som.train(inputs, network.getInputLayer().getNeuronList());
+                break;
+            default:
+                som.trainBatch(inputs, network.getInputLayer().getNeuronList());
+        }
+    }
+}
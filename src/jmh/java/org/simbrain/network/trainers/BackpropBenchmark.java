@@ -0,0 +1,95 @@
+package org.simbrain.network.trainers;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
+import org.simbrain.network.neuron_update_rules.LinearRule;
+import smile.math.matrix.Matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.simbrain.util.SmileUtilsKt.rowMatrixTransposed;
+
+/**
+ * Trains a 64 -> hidden -> 10 chain of linear neuron arrays for one epoch, either one row at a time on the live
+ * network, or in mini-batches with {@link BatchBackprop}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackpropBenchmark {
+
+    @Param({"PerSample", "Batch"})
+    public String method;
+
+    @Param({"32", "256"})
+    public int hidden;
+
+    /**
+     * Rows in the dataset, all of which are trained on in each epoch.
+     */
+    @Param({"1024"})
+    public int rows;
+
+    private List<WeightMatrix> weightMatrices;
+
+    private MatrixDataset dataset;
+
+    private BatchBackprop engine;
+
+    @Setup
+    public void setUp() {
+        Network network = new Network();
+        List<NeuronArray> arrays = new ArrayList<>();
+        for (int size : new int[]{64, hidden, 10}) {
+            NeuronArray array = new NeuronArray(network, size);
+            LinearRule rule = new LinearRule();
+            rule.setClipped(false);
+            array.setUpdateRule(rule);
+            arrays.add(array);
+        }
+        weightMatrices = new ArrayList<>();
+        for (int i = 0; i < arrays.size() - 1; i++) {
+            WeightMatrix weightMatrix = new WeightMatrix(network, arrays.get(i), arrays.get(i + 1));
+            weightMatrix.randomize();
+            weightMatrices.add(weightMatrix);
+        }
+        network.addNetworkModels(new ArrayList<>(arrays));
+        network.addNetworkModels(new ArrayList<>(weightMatrices));
+
+        Random random = new Random(42);
+        double[][] inputs = new double[rows][64];
+        double[][] targets = new double[rows][10];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < 64; j++) {
+                inputs[i][j] = random.nextDouble() - 0.5;
+            }
+            for (int j = 0; j < 10; j++) {
+                targets[i][j] = inputs[i][j] - inputs[i][j + 10];
+            }
+        }
+        dataset = new MatrixDataset(new Matrix(inputs), new Matrix(targets));
+        engine = new BatchBackprop(weightMatrices);
+        engine.setLearningRate(0.001);
+    }
+
+    @Benchmark
+    public void trainEpoch() {
+        if (method.equals("Batch")) {
+            engine.trainEpoch(dataset);
+            engine.sync();
+        } else {
+            for (int i = 0; i < rows; i++) {
+                TrainingUtilsKt.applyBackprop(weightMatrices, rowMatrixTransposed(dataset.getInputs(), i),
+                        rowMatrixTransposed(dataset.getTargets(), i), 0.001);
+            }
+        }
+    }
+}
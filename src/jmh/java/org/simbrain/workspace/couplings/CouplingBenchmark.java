@@ -0,0 +1,106 @@
+package org.simbrain.workspace.couplings;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.workspace.Consumer;
+import org.simbrain.workspace.MismatchedAttributesException;
+import org.simbrain.workspace.Producer;
+import org.simbrain.workspace.Workspace;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares updating couplings through compiled accessors (see {@link AttributeAccessors}), which is how the
+ * {@link CouplingManager} creates them, with updating them through reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CouplingBenchmark {
+
+    /**
+     * Number of couplings updated per invocation.
+     */
+    @Param({"1000"})
+    public int couplings;
+
+    private final List<Coupling> compiledDouble = new ArrayList<>();
+
+    private final List<Coupling> reflectiveDouble = new ArrayList<>();
+
+    private final List<Coupling> compiledArray = new ArrayList<>();
+
+    private final List<Coupling> reflectiveArray = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws NoSuchMethodException, MismatchedAttributesException {
+        Workspace workspace = new Workspace();
+        Network network = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("net", network));
+        CouplingManager couplingManager = workspace.getCouplingManager();
+
+        Method getActivation = Neuron.class.getMethod("getActivation");
+        Method forceSetActivation = Neuron.class.getMethod("forceSetActivation", double.class);
+        Method getActivationArray = NeuronArray.class.getMethod("getActivationArray");
+        Method addInputs = NeuronArray.class.getMethod("addInputs", double[].class);
+
+        for (int i = 0; i < couplings; i++) {
+            Neuron source = new Neuron(network);
+            Neuron target = new Neuron(network);
+            network.addNetworkModels(source, target);
+            compiledDouble.add(couplingManager.createCoupling(
+                    couplingManager.getProducer(source, "getActivation"),
+                    couplingManager.getConsumer(target, "forceSetActivation")));
+            reflectiveDouble.add(Coupling.Companion.create(
+                    Producer.create(source, getActivation),
+                    Consumer.create(target, forceSetActivation)));
+
+            NeuronArray sourceArray = new NeuronArray(network, 10);
+            NeuronArray targetArray = new NeuronArray(network, 10);
+            network.addNetworkModels(sourceArray, targetArray);
+            compiledArray.add(couplingManager.createCoupling(
+                    couplingManager.getProducer(sourceArray, "getActivationArray"),
+                    couplingManager.getConsumer(targetArray, "addInputs")));
+            reflectiveArray.add(Coupling.Companion.create(
+                    Producer.create(sourceArray, getActivationArray),
+                    Consumer.create(targetArray, addInputs)));
+        }
+    }
+
+    @Benchmark
+    public void compiledDouble() {
+        for (Coupling coupling : compiledDouble) {
+            coupling.update();
+        }
+    }
+
+    @Benchmark
+    public void reflectiveDouble() {
+        for (Coupling coupling : reflectiveDouble) {
+            coupling.update();
+        }
+    }
+
+    @Benchmark
+    public void compiledArray() {
+        for (Coupling coupling : compiledArray) {
+            coupling.update();
+        }
+    }
+
+    @Benchmark
+    public void reflectiveArray() {
+        for (Coupling coupling : reflectiveArray) {
+            coupling.update();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.simbrain.workspace.serialization;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.connections.Sparse;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
+import org.simbrain.workspace.MismatchedAttributesException;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.couplings.CouplingManager;
+import org.simbrain.world.odorworld.OdorWorldComponent;
+import org.simbrain.world.odorworld.entities.EntityType;
+import org.simbrain.world.odorworld.entities.OdorWorldEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and opens a workspace with a network of loose neurons and synapses, neuron arrays and a weight matrix, an
+ * odor world, and couplings between them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkspaceSerializerBenchmark {
+
+    /**
+     * Number of loose neurons, sparsely connected to each other.
+     */
+    @Param({"100", "1000"})
+    public int neurons;
+
+    private Workspace workspace;
+
+    private byte[] saved;
+
+    @Setup
+    public void setUp() throws IOException, MismatchedAttributesException {
+        workspace = new Workspace();
+        Network network = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Network", network));
+        List<Neuron> neuronList = new ArrayList<>();
+        for (int i = 0; i < neurons; i++) {
+            Neuron neuron = new Neuron(network);
+            neuron.setLocation(50 * (i % 32), 50 * (i / 32), false);
+            neuronList.add(neuron);
+        }
+        network.addNetworkModels(new ArrayList<>(neuronList));
+        new Sparse(0.1).connectNeurons(network, neuronList, neuronList, true);
+        NeuronArray source = new NeuronArray(network, 100);
+        NeuronArray target = new NeuronArray(network, 100);
+        WeightMatrix weightMatrix = new WeightMatrix(network, source, target);
+        weightMatrix.randomize();
+        network.addNetworkModels(source, target, weightMatrix);
+
+        OdorWorldComponent world = new OdorWorldComponent("World");
+        workspace.addWorkspaceComponent(world);
+        OdorWorldEntity agent = world.getWorld().addAgent();
+        world.getWorld().addEntity(100, 100, EntityType.SWISS);
+
+        CouplingManager couplingManager = workspace.getCouplingManager();
+        couplingManager.createCoupling(
+                couplingManager.getProducer(neuronList.get(0), "getActivation"),
+                couplingManager.getConsumer(agent.getEffectors().get(0), "setAmount"));
+
+        saved = save();
+    }
+
+    private byte[] save() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WorkspaceSerializer(workspace).serialize(output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return save();
+    }
+
+    @Benchmark
+    public Workspace deserialize() throws IOException {
+        Workspace loaded = new Workspace();
+        WorkspaceSerializer serializer = new WorkspaceSerializer(loaded);
+        serializer.setHeadless(true);
+        serializer.deserialize(new ByteArrayInputStream(saved));
+        return loaded;
+    }
+}
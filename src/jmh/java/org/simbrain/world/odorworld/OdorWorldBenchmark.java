@@ -0,0 +1,57 @@
+package org.simbrain.world.odorworld;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.world.odorworld.entities.EntityType;
+import org.simbrain.world.odorworld.entities.OdorWorldEntity;
+import org.simbrain.world.odorworld.sensors.SmellSensor;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates an odor world in which one in ten entities is an agent with the default object sensors and effectors and
+ * a few smell sensors, and the rest are smell sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OdorWorldBenchmark {
+
+    @Param({"20", "200"})
+    public int entities;
+
+    /**
+     * Number of smell sensors on each agent, spread around it.
+     */
+    @Param({"4"})
+    public int smellSensors;
+
+    private OdorWorld world;
+
+    @Setup
+    public void setUp() {
+        world = new OdorWorld();
+        Random random = new Random(42);
+        for (int i = 0; i < entities; i++) {
+            double x = random.nextDouble() * (world.getWidth() - 32);
+            double y = random.nextDouble() * (world.getHeight() - 32);
+            if (i % 10 == 0) {
+                world.setLastClickedPosition(new java.awt.geom.Point2D.Double(x, y));
+                OdorWorldEntity agent = world.addAgent();
+                for (int j = 0; j < smellSensors; j++) {
+                    agent.addSensor(new SmellSensor("Smell " + j, 360.0 * j / smellSensors, 20.0));
+                }
+            } else {
+                world.addEntity(x, y, i % 2 == 0 ? EntityType.SWISS : EntityType.FLOWER);
+            }
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        world.update();
+    }
+}
@@ -18,12 +18,16 @@
 package org.simbrain.network;
 
 import org.simbrain.network.core.Network;
+import org.simbrain.network.core.NetworkSnapshot;
 import org.simbrain.network.events.NetworkEvents2;
 import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.util.XStreamUtils;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.WorkspaceComponent;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
@@ -119,6 +123,37 @@ public final class NetworkComponent extends WorkspaceComponent {
         getNetworkXStream().toXML(network, output);
     }
 
+    /**
+     * Saves loose neurons and synapses in a {@link NetworkSnapshot} and the rest of the network as xml.
+     */
+    @Override
+    public boolean save(final OutputStream output, final OutputStream snapshot, final String format) {
+        network.releaseCompiledState();
+        NetworkSnapshot networkSnapshot = NetworkSnapshot.of(network);
+        if (networkSnapshot.getModels().isEmpty()) {
+            save(output, format);
+            return false;
+        }
+        getNetworkXStream(networkSnapshot.getModels()).toXML(network, output);
+        networkSnapshot.write(snapshot);
+        return true;
+    }
+
+    @Override
+    public void openSnapshot(final InputStream snapshot) throws IOException {
+        NetworkSnapshot.read(network, snapshot);
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointWriter writer) {
+        network.writeCheckpoint(writer);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointReader reader) {
+        network.readCheckpoint(reader);
+    }
+
     /**
      * Returns a copy of this NetworkComponent.
      *
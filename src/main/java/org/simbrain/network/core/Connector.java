@@ -53,6 +53,16 @@ public abstract class Connector extends NetworkModel implements EditableObject,
      */
     public abstract Matrix getOutput();
 
+    /**
+     * Add the output of this connector to a column vector in place. Subclasses should override this to avoid
+     * allocating an output matrix on each update.
+     *
+     * @param accumulator column vector the size of the target layer's input
+     */
+    public void accumulateOutput(Matrix accumulator) {
+        accumulator.add(getOutput());
+    }
+
     protected void initEvents() {
 
         // When the parents of the matrix are deleted, delete the matrix
@@ -19,7 +19,6 @@
 package org.simbrain.network.core;
 
 import org.jetbrains.annotations.NotNull;
-import org.piccolo2d.event.PInputEvent;
 import org.simbrain.network.LocatableModel;
 import org.simbrain.network.events.LocationEvents2;
 
@@ -77,9 +76,6 @@ public class NetworkTextObject extends LocatableModel {
      */
     private transient LocationEvents2 events = new LocationEvents2();
 
-    // TODO: Temporary so that when added to networkpanel the event is availalble
-    public transient PInputEvent inputEvent;
-
     /**
      * Construct the text object with initial text.
      *
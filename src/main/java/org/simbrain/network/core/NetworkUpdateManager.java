@@ -26,6 +26,9 @@ import org.simbrain.network.groups.SynapseGroup;
 import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.update_actions.BufferedUpdate;
+import org.simbrain.network.update_actions.CompiledUpdate;
+import org.simbrain.network.update_actions.EventDrivenUpdate;
+import org.simbrain.network.update_actions.ParallelBufferedUpdate;
 import org.simbrain.network.update_actions.PriorityUpdate;
 import org.simbrain.network.update_actions.UpdateNetworkModel;
 import org.simbrain.workspace.updater.UpdateAction;
@@ -34,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -46,6 +50,11 @@ import java.util.stream.Stream;
  */
 public class NetworkUpdateManager {
 
+    /**
+     * Default for {@link #parallelChunkSize}.
+     */
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 10_000;
+
     /**
      * The list of update actions, in a specific order. One run through these
      * actions constitutes a single "update" in the network.
@@ -57,6 +66,22 @@ public class NetworkUpdateManager {
      */
     private final Network network;
 
+    /**
+     * Approximate amount of work handled by each task of a {@link ParallelBufferedUpdate}, counted as the number of
+     * incoming synapses plus one for each neuron.
+     */
+    private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+
+    /**
+     * Number of threads used by {@link ParallelBufferedUpdate}.
+     */
+    private int parallelThreadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Pool used by {@link ParallelBufferedUpdate}. Created when first needed.
+     */
+    private transient ForkJoinPool forkJoinPool;
+
     /**
      * Construct a new update manager.
      */
@@ -101,6 +126,9 @@ public class NetworkUpdateManager {
         // By default these actions are always available
         availableActionList.add(new BufferedUpdate(network));
         availableActionList.add(new PriorityUpdate(network));
+        availableActionList.add(new CompiledUpdate(network));
+        availableActionList.add(new ParallelBufferedUpdate(network));
+        availableActionList.add(new EventDrivenUpdate(network));
 
         // TODO: If added, these should be removed when any corresponding object is removed
 
@@ -153,6 +181,43 @@ public class NetworkUpdateManager {
         network.getEvents().getUpdateActionsChanged().fireAndForget();
     }
 
+    public int getParallelChunkSize() {
+        // Zero when opened from a file saved before this field existed
+        return parallelChunkSize > 0 ? parallelChunkSize : DEFAULT_PARALLEL_CHUNK_SIZE;
+    }
+
+    public void setParallelChunkSize(int parallelChunkSize) {
+        if (parallelChunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
+    public int getParallelThreadCount() {
+        return parallelThreadCount > 0 ? parallelThreadCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setParallelThreadCount(int parallelThreadCount) {
+        if (parallelThreadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
+    /**
+     * Returns the pool used for parallel updates, with {@link #getParallelThreadCount()} threads.
+     */
+    public synchronized ForkJoinPool getForkJoinPool() {
+        int threadCount = getParallelThreadCount();
+        if (forkJoinPool == null || forkJoinPool.getParallelism() != threadCount) {
+            if (forkJoinPool != null) {
+                forkJoinPool.shutdown();
+            }
+            forkJoinPool = new ForkJoinPool(threadCount);
+        }
+        return forkJoinPool;
+    }
+
     /**
      * Remove all actions completely.
      */
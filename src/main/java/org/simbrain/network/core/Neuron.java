@@ -19,6 +19,7 @@
 package org.simbrain.network.core;
 
 import org.jetbrains.annotations.NotNull;
+import org.pmw.tinylog.Logger;
 import org.simbrain.network.LocatableModel;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.events.NeuronEvents2;
@@ -37,9 +38,9 @@ import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.workspace.Producible;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 
-import javax.swing.*;
-import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.List;
 import java.util.*;
@@ -203,6 +204,17 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     @UserParameter(label = "State variables", useSetter = true, isEmbeddedObject = true, order = 100)
     private ScalarDataHolder dataHolder = new EmptyScalarData();
 
+    /**
+     * Compiled network holding this neuron's activation while a
+     * {@link org.simbrain.network.update_actions.CompiledUpdate} is in use, null otherwise.
+     */
+    private transient CompiledNetwork compiledNetwork;
+
+    /**
+     * Index of this neuron in {@link #compiledNetwork}.
+     */
+    private transient int compiledIndex;
+
     /**
      * Construct a specific type of neuron.
      *
@@ -328,6 +340,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
         NeuronUpdateRule oldRule = this.updateRule;
         this.updateRule = updateRule;
         dataHolder = updateRule.createScalarData();
+        invalidateCompiledNetwork();
 
         if (getNetwork() != null) {
             getNetwork().updateTimeType();
@@ -341,6 +354,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     public void changeUpdateRule(final NeuronUpdateRule updateRule, final ScalarDataHolder data) {
         this.updateRule = updateRule;
         this.dataHolder = data;
+        invalidateCompiledNetwork();
     }
 
     @Override
@@ -381,7 +395,10 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
                 activation = act;
             }
         }
-        events.getActivationChanged().fireAndForget(lastActivation, act);
+        if (compiledNetwork != null) {
+            compiledNetwork.setActivation(compiledIndex, activation);
+        }
+        events.getActivationChanged().fireAndForget(act, lastActivation);
     }
 
     /**
@@ -396,14 +413,81 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     public void forceSetActivation(final double act) {
         lastActivation = getActivation();
         activation = act;
-        events.getActivationChanged().fireAndForget(lastActivation, act);
+        if (compiledNetwork != null) {
+            compiledNetwork.setActivation(compiledIndex, act);
+        }
+        events.getActivationChanged().fireAndForget(act, lastActivation);
     }
 
     @Producible()
     public double getActivation() {
+        if (compiledNetwork != null) {
+            activation = compiledNetwork.getActivation(compiledIndex);
+        }
         return activation;
     }
 
+    /**
+     * Hand this neuron's activation over to a compiled network, which holds it until {@link #releaseCompiled()} is
+     * called.
+     */
+    void bindCompiled(CompiledNetwork compiledNetwork, int index) {
+        this.compiledNetwork = compiledNetwork;
+        this.compiledIndex = index;
+    }
+
+    /**
+     * Take this neuron's activation back from its compiled network.
+     */
+    void releaseCompiled() {
+        if (compiledNetwork != null) {
+            activation = compiledNetwork.getActivation(compiledIndex);
+            compiledNetwork = null;
+        }
+    }
+
+    /**
+     * Write the state that changes as this neuron is updated to a workspace checkpoint.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(getActivation());
+        writer.add(inputValue);
+        writer.add(lastActivation);
+        writer.add(auxValue);
+        writer.add(spike);
+        writer.addFields(dataHolder);
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}. No events are fired.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+        activation = reader.readDouble();
+        inputValue = reader.readDouble();
+        lastActivation = reader.readDouble();
+        auxValue = reader.readDouble();
+        spike = reader.readBoolean();
+        reader.readFields(dataHolder);
+    }
+
+    /**
+     * Restore state saved in a {@link NetworkSnapshot} besides the activation. No events are fired.
+     */
+    void restoreSnapshotState(double inputValue, double lastActivation, boolean spike) {
+        this.inputValue = inputValue;
+        this.lastActivation = lastActivation;
+        this.spike = spike;
+    }
+
+    /**
+     * Called when a change to this neuron makes its compiled form out of date.
+     */
+    private void invalidateCompiledNetwork() {
+        if (compiledNetwork != null) {
+            compiledNetwork.invalidate();
+        }
+    }
+
     /**
      * @return an unmodifiable version of the fanIn list.
      */
@@ -470,6 +554,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     public void addToFanIn(final Synapse source) {
         if (fanIn != null) {
             fanIn.add(source);
+            invalidateCompiledNetwork();
         }
     }
 
@@ -480,6 +565,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     public void removeFromFanIn(final Synapse synapse) {
         if (fanIn != null) {
             fanIn.remove(synapse);
+            invalidateCompiledNetwork();
         }
     }
 
@@ -751,8 +837,8 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
         this.updatePriority = updatePriority;
         // Update the root network's priority tree map
         if (this.getNetwork() != null) {
-            // Resort the neuron in the priority sorted list
-            getNetwork().resortPriorities();
+            // Move the neuron to its new place in the priority sorted list
+            getNetwork().priorityChanged(this);
         }
     }
 
@@ -976,12 +1062,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
             String message = "x = " + test.x + " and y = " + test.y + ", resetting neuron location to (0,0)";
             test.x = (0);
             test.y = (0);
-            System.out.println(message);
-            Toolkit.getDefaultToolkit().beep();
-            JOptionPane optionPane = new JOptionPane(message, JOptionPane.WARNING_MESSAGE);
-            JDialog dialog = optionPane.createDialog("Warning!");
-            dialog.setAlwaysOnTop(true);
-            dialog.setVisible(true);
+            Logger.warn(message);
         }
     }
 
@@ -1079,7 +1160,6 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
 
     @Override
     public void delete() {
-        getNetwork().updatePriorityList();
         deleteConnectedSynapses();
         events.getDeleted().fireAndBlock(this);
     }
@@ -33,6 +33,8 @@ import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.workspace.Producible;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 
 import java.util.*;
 
@@ -176,6 +178,11 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      */
     private double[] delayManager;
 
+    /**
+     * Stands in for {@link #delayManager} in checkpoints of synapses without a delay.
+     */
+    private static final double[] NO_DELAY = new double[0];
+
     /**
      * Points to the location in the delay manager that corresponds to the current time.
      */
@@ -212,6 +219,17 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      */
     private transient SynapseEvents2 events = new SynapseEvents2();
 
+    /**
+     * Compiled network holding a copy of this synapse's strength while a
+     * {@link org.simbrain.network.update_actions.CompiledUpdate} is in use, null otherwise.
+     */
+    private transient CompiledNetwork compiledNetwork;
+
+    /**
+     * Index of this synapse's strength in {@link #compiledNetwork}.
+     */
+    private transient int compiledIndex;
+
     static {
         Properties properties = Utils.getSimbrainProperties();
         if (properties.containsKey("weightUpperBound")) {
@@ -471,6 +489,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
 
     public void forceSetStrength(final double wt) {
         strength = wt;
+        syncCompiledStrength();
         events.getStrengthUpdated().fireAndForget();
     }
 
@@ -516,6 +535,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
         if (strength > lowerBound) {
             forceSetStrength(strength - increment);
             strength -= increment;
+            syncCompiledStrength();
         }
     }
 
@@ -592,6 +612,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
         if (strength < lowerBound) {
             strength = lowerBound;
         }
+        syncCompiledStrength();
     }
 
     /**
@@ -620,6 +641,18 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
     public void setSpikeResponder(final SpikeResponder sr) {
         this.spikeResponder = sr;
         spikeResponderData = sr.createResponderData();
+        invalidateCompiledNetwork();
+    }
+
+    public ScalarDataHolder getSpikeResponderData() {
+        return spikeResponderData;
+    }
+
+    /**
+     * Set the state of the spike responder, e.g. when restoring a saved synapse.
+     */
+    void setSpikeResponderData(ScalarDataHolder spikeResponderData) {
+        this.spikeResponderData = spikeResponderData;
     }
 
     /**
@@ -632,6 +665,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
             return;
         }
         delay = dly;
+        invalidateCompiledNetwork();
 
         if (delay <= 0) {
             delayManager = null;
@@ -702,6 +736,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      */
     public void setEnabled(final boolean enabled) {
         this.enabled = enabled;
+        invalidateCompiledNetwork();
     }
 
     /**
@@ -741,6 +776,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
     public void setLearningRule(SynapseUpdateRule newLearningRule) {
         SynapseUpdateRule oldRule = learningRule;
         this.learningRule = newLearningRule.deepCopy();
+        invalidateCompiledNetwork();
         // TODO: Needed for calls to SynapseGroup.postOpenInit, which calls
         // SynapseGroup.setAndComformToTemplate. Template synapses don't seem to have
         // change support initialized.
@@ -835,6 +871,7 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      */
     public void setFrozen(boolean frozen) {
         this.frozen = frozen;
+        invalidateCompiledNetwork();
         // Trying to fire an event from here causes problems relating to
         // template synapses
         if (getNetwork() != null && !isTemplate) {
@@ -842,6 +879,69 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
         }
     }
 
+    /**
+     * Register the slot in a compiled network that mirrors this synapse's strength.
+     */
+    void bindCompiled(CompiledNetwork compiledNetwork, int index) {
+        this.compiledNetwork = compiledNetwork;
+        this.compiledIndex = index;
+    }
+
+    /**
+     * Stop mirroring this synapse's strength in a compiled network.
+     */
+    void releaseCompiled() {
+        compiledNetwork = null;
+    }
+
+    /**
+     * Write the state that changes as this synapse is updated to a workspace checkpoint.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(strength);
+        writer.add(psr);
+        writer.add(delayManager == null ? NO_DELAY : delayManager);
+        writer.add(dlyPtr);
+        writer.add(dlyVal);
+        writer.addFields(dataHolder);
+        writer.addFields(spikeResponderData);
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}. No events are fired.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+        strength = reader.readDouble();
+        psr = reader.readDouble();
+        reader.readInto(delayManager == null ? NO_DELAY : delayManager);
+        dlyPtr = reader.readInt();
+        dlyVal = reader.readDouble();
+        reader.readFields(dataHolder);
+        reader.readFields(spikeResponderData);
+    }
+
+    /**
+     * Copy the current strength to the compiled network, if any.
+     */
+    private void syncCompiledStrength() {
+        if (compiledNetwork != null) {
+            compiledNetwork.setWeight(compiledIndex, strength);
+        }
+    }
+
+    /**
+     * Called when a change to this synapse makes its compiled form out of date. Also marks the network structure as
+     * changed, so that other derived forms like {@link EventDrivenNetwork} are rebuilt.
+     */
+    private void invalidateCompiledNetwork() {
+        if (compiledNetwork != null) {
+            compiledNetwork.invalidate();
+        }
+        if (parentNetwork != null) {
+            parentNetwork.structureChanged();
+        }
+    }
+
     public double getPsr() {
         return psr;
     }
@@ -928,6 +1028,13 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
         return dataHolder;
     }
 
+    /**
+     * Set the state of the learning rule, e.g. when restoring a saved synapse.
+     */
+    void setDataHolder(ScalarDataHolder dataHolder) {
+        this.dataHolder = dataHolder;
+    }
+
     public boolean isVisible() {
         return isVisible;
     }
@@ -11,7 +11,6 @@ import org.simbrain.util.RectangleOutlines;
 import org.simbrain.util.SimbrainConstants;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
-import org.simbrain.util.math.SimbrainMath;
 import org.simbrain.util.propertyeditor.CopyableObject;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.workspace.Producible;
@@ -77,6 +76,11 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
     private boolean cachedActivationsDirty = true;
     private boolean cachedInputsDirty = true;
 
+    /**
+     * Reused to accumulate inputs from incoming connectors in {@link #updateInputs()}.
+     */
+    private transient Matrix connectorInputs;
+
     /**
      * References to neurons in this collection
      */
@@ -118,7 +122,11 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
 
     @Override
     public void addInputs(Matrix newInputs) {
-        addInputs(newInputs.col(0));
+        int size = Math.min(newInputs.nrows(), neuronList.size());
+        for (int i = 0; i < size; i++) {
+            neuronList.get(i).addInputValue(newInputs.get(i, 0));
+        }
+        invalidateCachedInputs();
     }
 
     /**
@@ -260,6 +268,10 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
      */
     protected void addNeuron(Neuron neuron) {
         neuronList.add(neuron);
+        getParentNetwork().structureChanged();
+        if (this instanceof NeuronGroup group) {
+            getParentNetwork().neuronAddedToGroup(group, neuron);
+        }
         neuron.setId(getParentNetwork().getIdManager().getAndIncrementId(Neuron.class));
         addListener(neuron);
     }
@@ -279,11 +291,13 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
         n.getEvents().getLocationChanged().on(() -> events.getLocationChanged().fireAndForget());
         // n.getEvents().onLocationChange(fireLocationChange); // TODO Reimplement when debounce is working
         n.getEvents().getDeleted().on(neuronList::remove);
-        n.getEvents().getActivationChanged().on((aold,anew) -> {
+        n.getEvents().getActivationChanged().on((anew, aold) -> {
             invalidateCachedActivations();
         });
         n.getEvents().getDeleted().on(neuron-> {
             neuronList.remove(neuron);
+            getParentNetwork().structureChanged();
+            getParentNetwork().removeFromPriorityList(neuron);
             if (isEmpty()) {
                 delete();
             }
@@ -296,14 +310,21 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
      * @param neuron the neuron to remove
      */
     public void removeNeuron(Neuron neuron) {
-        neuronList.remove(neuron);
+        if (neuronList.remove(neuron) && this instanceof NeuronGroup) {
+            getParentNetwork().removeFromPriorityList(neuron);
+        }
+        getParentNetwork().structureChanged();
     }
 
     /**
      * Remove all neurons.
      */
     public void removeAllNeurons() {
+        if (this instanceof NeuronGroup) {
+            neuronList.forEach(getParentNetwork()::removeFromPriorityList);
+        }
         neuronList.clear();
+        getParentNetwork().structureChanged();
     }
 
     /**
@@ -433,11 +454,18 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
         // }
         // inputManager.applyCurrentRow(); // TODO
 
-        double[] wtdInputs = new double[size()];
+        if (getIncomingConnectors().isEmpty()) {
+            return;
+        }
+        if (connectorInputs == null || connectorInputs.nrows() != size()) {
+            connectorInputs = new Matrix(size(), 1);
+        } else {
+            connectorInputs.fill(0);
+        }
         for (Connector c : getIncomingConnectors()) {
-            wtdInputs = SimbrainMath.addVector(wtdInputs, c.getOutput().col(0));
+            c.accumulateOutput(connectorInputs);
         }
-        addInputs(wtdInputs);
+        addInputs(connectorInputs);
     }
 
     @Override
@@ -44,7 +44,7 @@ public class NeuronCollection extends AbstractNeuronCollection {
 
         neurons.forEach(n -> {
             n.getEvents().getLocationChanged().on(() -> events.getLocationChanged());
-            n.getEvents().getActivationChanged().on((aold, anew) -> {
+            n.getEvents().getActivationChanged().on((anew, aold) -> {
                 invalidateCachedActivations();
             });
             n.getEvents().getDeleted().on(null, true, toDelete -> {
@@ -77,6 +77,8 @@ public abstract class Subnetwork extends LocatableModel implements EditableObjec
 
     public final void addModel(NetworkModel model) {
         modelList.add(model);
+        getParentNetwork().structureChanged();
+        getParentNetwork().modelAddedToSubnetwork(this, model);
         model.setId(getParentNetwork().getIdManager().getAndIncrementId(model.getClass()));
         if (model instanceof LocatableModel) {
             ((LocatableModel) model).getEvents().getLocationChanged().on(() -> {
@@ -86,6 +88,8 @@ public abstract class Subnetwork extends LocatableModel implements EditableObjec
         getEvents().getLocationChanged().fireAndForget();
         model.getEvents().getDeleted().on(null, true, m -> {
             modelList.remove(m);
+            getParentNetwork().structureChanged();
+            getParentNetwork().removeFromPriorityList(m);
             if (modelList.getSize() == 0) {
                 delete();
             }
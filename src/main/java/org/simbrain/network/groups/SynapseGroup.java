@@ -848,6 +848,7 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
      * @param synapse synapse to add
      */
     private void fireSynapseAdded(Synapse synapse) {
+        parentNetwork.structureChanged();
         events.getSynapseAdded().fireAndForget(synapse);
     }
 
@@ -857,6 +858,7 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
      * @param synapse synapse to remove
      */
     private void fireSynapseRemoved(Synapse synapse) {
+        parentNetwork.structureChanged();
         events.getSynapseRemoved().fireAndForget(synapse);
     }
 
@@ -43,6 +43,16 @@ public class TextEventHandler extends PStyledTextEventHandler implements ActionL
      */
     private NetworkPanel networkPanel;
 
+    /**
+     * Text object created by clicking on the canvas, which is edited as soon as its node is created.
+     */
+    private NetworkTextObject newText;
+
+    /**
+     * The click that created {@link #newText}.
+     */
+    private PInputEvent newTextEvent;
+
     /**
      * Construct text event handler.
      *
@@ -67,12 +77,27 @@ public class TextEventHandler extends PStyledTextEventHandler implements ActionL
         } else if (pickedNode instanceof PCamera) {
              // Make a new text object and then edit it
              NetworkTextObject text = new NetworkTextObject(networkPanel.getNetwork(), "New Text");
-             text.inputEvent = inputEvent;
+             newText = text;
+             newTextEvent = inputEvent;
              networkPanel.getNetwork().addNetworkModel(text);
              text.setLocation(inputEvent.getPosition().getX(), inputEvent.getPosition().getY());
         }
     }
 
+    /**
+     * Start editing the node of a text object if the text object was just created by clicking on the canvas.
+     *
+     * @param text       the text object
+     * @param styledText the text of its node
+     */
+    void startEditingIfNew(NetworkTextObject text, PStyledText styledText) {
+        if (text == newText) {
+            startEditing(newTextEvent, styledText);
+            newText = null;
+            newTextEvent = null;
+        }
+    }
+
     /**
      * Removes empty text objects.
      */
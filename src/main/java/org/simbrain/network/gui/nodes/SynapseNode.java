@@ -24,6 +24,7 @@ import org.piccolo2d.util.PBounds;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.network.events.SynapseEvents2;
 import org.simbrain.network.gui.NetworkPanel;
+import org.simbrain.network.gui.Renderable;
 
 import javax.swing.*;
 import java.awt.*;
@@ -39,7 +40,7 @@ import static org.simbrain.network.gui.NetworkPanelMenusKt.getSynapseContextMenu
  * <b>SynapseNode</b> is a Piccolo PNode corresponding to a Neuron in the neural
  * network model.
  */
-public final class SynapseNode extends ScreenElement {
+public final class SynapseNode extends ScreenElement implements Renderable {
 
     /**
      * The logical synapse this screen element represents.
@@ -117,6 +118,28 @@ public final class SynapseNode extends ScreenElement {
      */
     private static Color lineColor = Color.black;
 
+    /**
+     * Strength, bounds and source spike that are drawn. Taken from the synapse when the node is created and from
+     * {@link #snapshot()} by {@link #render()} afterwards.
+     */
+    private double renderedStrength;
+    private double renderedUpperBound;
+    private double renderedLowerBound;
+    private boolean renderedSpike;
+
+    /**
+     * State copied from the synapse by {@link #snapshot()} for the next {@link #render()}.
+     */
+    private double snapshotStrength;
+    private double snapshotUpperBound;
+    private double snapshotLowerBound;
+    private boolean snapshotSpike;
+
+    /**
+     * Set when the source neuron spikes, so that a spike between snapshots is still drawn.
+     */
+    private volatile boolean spikedSinceRender;
+
     /**
      * Create a new synapse node connecting a source and target neuron.
      *
@@ -134,6 +157,10 @@ public final class SynapseNode extends ScreenElement {
         source.getConnectedSynapses().add(this);
 
         this.synapse = synapse;
+        snapshot();
+        renderedStrength = snapshotStrength;
+        renderedUpperBound = snapshotUpperBound;
+        renderedLowerBound = snapshotLowerBound;
 
         updatePosition();
         this.addChild(circle);
@@ -152,19 +179,51 @@ public final class SynapseNode extends ScreenElement {
         SynapseEvents2 events = synapse.getEvents();
 
         events.getDeleted().on(Dispatchers.getMain(), s -> removeFromParent());
-        events.getStrengthUpdated().on(() -> {
-            updateColor();
-            updateDiameter();
-        });
         events.getVisbilityChanged().on((oldVisibility, newVisibility) -> setVisible(newVisibility));
         setVisible(synapse.isVisible());
         events.getClampChanged().on(this::updateClampStatus);
 
-        // Respond to spiking events
-        source.getNeuron().getEvents().getSpiked().on(s -> updateSpikeColor());
+        // Spikes are drawn by render(), since they are fired on the update thread
+        source.getNeuron().getEvents().getSpiked().on(spike -> {
+            if (spike) {
+                spikedSinceRender = true;
+            }
+        });
 
     }
 
+    @Override
+    public void snapshot() {
+        snapshotStrength = synapse.getStrength();
+        snapshotUpperBound = synapse.getUpperBound();
+        snapshotLowerBound = synapse.getLowerBound();
+        snapshotSpike = source.getNeuron().isSpike() || spikedSinceRender;
+        spikedSinceRender = false;
+    }
+
+    /**
+     * Redraw the weight and the spike on its line from the last snapshot, where they differ from what is drawn.
+     */
+    @Override
+    public boolean render() {
+        boolean changed = false;
+        if (snapshotStrength != renderedStrength || snapshotUpperBound != renderedUpperBound
+                || snapshotLowerBound != renderedLowerBound) {
+            renderedStrength = snapshotStrength;
+            renderedUpperBound = snapshotUpperBound;
+            renderedLowerBound = snapshotLowerBound;
+            updateColor();
+            updateDiameter();
+            changed = true;
+        }
+        if (snapshotSpike != renderedSpike) {
+            renderedSpike = snapshotSpike;
+            updateSpikeColor();
+            changed = true;
+        }
+        return changed;
+    }
+
     /**
      * Update position of synapse.
      */
@@ -253,9 +312,9 @@ public final class SynapseNode extends ScreenElement {
      * Positive values are (for example) red, negative values blue.
      */
     public void updateColor() {
-        if (synapse.getStrength() < 0) {
+        if (renderedStrength < 0) {
             circle.setPaint(inhibitoryColor);
-        } else if (synapse.getStrength() == 0) {
+        } else if (renderedStrength == 0) {
             circle.setPaint(zeroWeightColor);
         } else {
             circle.setPaint(excitatoryColor);
@@ -266,7 +325,7 @@ public final class SynapseNode extends ScreenElement {
      * When spiking change the color of the line.
      */
     private void updateSpikeColor() {
-        if (source.getNeuron().isSpike()) {
+        if (renderedSpike) {
             line.setStrokePaint(NeuronNode.getSpikingColor());
         } else {
             line.setStrokePaint(lineColor);
@@ -280,9 +339,9 @@ public final class SynapseNode extends ScreenElement {
     public void updateDiameter() {
         double diameter;
 
-        double upperBound = synapse.getUpperBound();
-        double lowerBound = synapse.getLowerBound();
-        double strength = synapse.getStrength();
+        double upperBound = renderedUpperBound;
+        double lowerBound = renderedLowerBound;
+        double strength = renderedStrength;
 
         // If upper or lower bound are set to zero use a proxy to prevent
         // division errors
@@ -303,9 +362,9 @@ public final class SynapseNode extends ScreenElement {
             strength = upperBound;
         }
 
-        if (synapse.getStrength() == 0) {
+        if (renderedStrength == 0) {
             diameter = minDiameter;
-        } else if (synapse.getStrength() > 0) {
+        } else if (renderedStrength > 0) {
             diameter = ((maxDiameter - minDiameter) * (strength / upperBound) + minDiameter);
         } else {
             diameter = (((maxDiameter - minDiameter) * (Math.abs(strength / lowerBound))) + minDiameter);
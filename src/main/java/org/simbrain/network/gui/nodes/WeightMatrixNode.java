@@ -6,11 +6,13 @@ import org.simbrain.network.core.Connector;
 import org.simbrain.network.events.ConnectorEvents2;
 import org.simbrain.network.gui.ImageBox;
 import org.simbrain.network.gui.NetworkPanel;
+import org.simbrain.network.gui.Renderable;
 import org.simbrain.network.gui.WeightMatrixArrow;
 import org.simbrain.network.gui.actions.edit.CopyAction;
 import org.simbrain.network.gui.actions.edit.CutAction;
 import org.simbrain.network.gui.actions.edit.DeleteAction;
 import org.simbrain.network.gui.actions.edit.PasteAction;
+import org.simbrain.network.matrix.SparseWeightMatrix;
 import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.matrix.ZoeConnector;
 import org.simbrain.util.ImageKt;
@@ -34,11 +36,16 @@ import static org.simbrain.network.gui.NetworkPanelMenusKt.createCouplingMenu;
 /**
  * A visual representation of a weight matrix
  */
-public class WeightMatrixNode extends ScreenElement implements PropertyChangeListener {
+public class WeightMatrixNode extends ScreenElement implements PropertyChangeListener, Renderable {
 
     // TODO: Make this cover other subclasses of Connector besides WeightMatrix.
     // But for now we are only using WeightMatrix
 
+    /**
+     * Sparse matrices with more entries than this are drawn as a placeholder.
+     */
+    private static final long MAX_SPARSE_RENDER_SIZE = 250_000;
+
     /**
      * The weight matrix this node represents
      */
@@ -64,6 +71,24 @@ public class WeightMatrixNode extends ScreenElement implements PropertyChangeLis
      */
     private final NetworkPanel networkPanel;
 
+    /**
+     * Set when the weights change, and cleared when they are copied by {@link #snapshot()}.
+     */
+    private volatile boolean dirty = true;
+
+    /**
+     * Pixels copied from the weights by the last {@link #snapshot()}, or null if nothing is drawn.
+     */
+    private double[] snapshotPixels;
+
+    private int snapshotWidth;
+
+    private int snapshotHeight;
+
+    /**
+     * True if a snapshot has been taken that has not been rendered yet.
+     */
+    private boolean snapshotPending;
 
    /**
     * Construct the weight matrix node.
@@ -82,7 +107,8 @@ public class WeightMatrixNode extends ScreenElement implements PropertyChangeLis
 
         imageBox = new ImageBox(imageWidth, imageHeight, 4);
         addChild(imageBox);
-        renderMatrixToImage();
+        snapshot();
+        render();
         setBounds(imageBox.getBounds());
         addPropertyChangeListener(PROPERTY_FULL_BOUNDS, this);
 
@@ -90,37 +116,70 @@ public class WeightMatrixNode extends ScreenElement implements PropertyChangeLis
 
         ConnectorEvents2 events = weightMatrix.getEvents();
         events.getDeleted().on(w -> removeFromParent());
-        events.getUpdated().on(Dispatchers.getMain(), this::renderMatrixToImage);
+        // Weights can change on the update thread, so they are copied by snapshot() rather than read here
+        events.getUpdated().on(() -> dirty = true);
         wm.getSource().getEvents().getLocationChanged().on(Dispatchers.getMain(), arrow::invalidateFullBounds);
         wm.getTarget().getEvents().getLocationChanged().on(Dispatchers.getMain(), arrow::invalidateFullBounds);
         invalidateFullBounds();
     }
 
     /**
-     * Render the weight matrix to the {@link #imageBox}.
+     * Copy the weights to be drawn, if they changed since the last snapshot.
      */
-    private void renderMatrixToImage() {
-
-        BufferedImage img = null;
-
-        if (weightMatrix.isEnableRendering()) {
-
-            if (weightMatrix instanceof ZoeConnector) {
-                // TODO: Temp representation. If there is enough divergence can break into separate classes and update
-                //  NetworkPanel.kt accordingly
-                double[] tempArray = new double[100];
-                Arrays.fill(tempArray, .1);
-                img = ImageKt.toSimbrainColorImage(tempArray, 10, 10);
+    @Override
+    public void snapshot() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        snapshotPending = true;
+
+        if (!weightMatrix.isEnableRendering()) {
+            snapshotPixels = null;
+        } else if (weightMatrix instanceof ZoeConnector) {
+            // TODO: Temp representation. If there is enough divergence can break into separate classes and update
+            //  NetworkPanel.kt accordingly
+            snapshotPlaceholder();
+        } else if (weightMatrix instanceof SparseWeightMatrix sparse) {
+            // Large sparse matrices are not expanded to dense form just to be drawn
+            if ((long) sparse.nrows() * sparse.ncols() <= MAX_SPARSE_RENDER_SIZE) {
+                snapshotPixels = Arrays.stream(sparse.toDense().toArray())
+                        .flatMapToDouble(Arrays::stream)
+                        .toArray();
+                snapshotWidth = sparse.ncols();
+                snapshotHeight = sparse.nrows();
             } else {
-                double[] pixelArray = ((WeightMatrix)weightMatrix).getWeights();
-                img = ImageKt.toSimbrainColorImage(pixelArray, ((WeightMatrix)weightMatrix).getWeightMatrix().ncols(),
-                        ((WeightMatrix)weightMatrix).getWeightMatrix().nrows());
-
+                snapshotPlaceholder();
             }
-
+        } else {
+            snapshotPixels = ((WeightMatrix) weightMatrix).getWeights();
+            snapshotWidth = ((WeightMatrix) weightMatrix).getWeightMatrix().ncols();
+            snapshotHeight = ((WeightMatrix) weightMatrix).getWeightMatrix().nrows();
         }
+    }
+
+    private void snapshotPlaceholder() {
+        snapshotPixels = new double[100];
+        Arrays.fill(snapshotPixels, .1);
+        snapshotWidth = 10;
+        snapshotHeight = 10;
+    }
 
+    /**
+     * Render the weights copied by the last snapshot to the {@link #imageBox}.
+     */
+    @Override
+    public boolean render() {
+        if (!snapshotPending) {
+            return false;
+        }
+        snapshotPending = false;
+        BufferedImage img = null;
+        if (snapshotPixels != null) {
+            img = ImageKt.toSimbrainColorImage(snapshotPixels, snapshotWidth, snapshotHeight);
+        }
         imageBox.setImage(img);
+        return true;
     }
 
     @Override
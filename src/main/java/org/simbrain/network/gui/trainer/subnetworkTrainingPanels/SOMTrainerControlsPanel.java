@@ -100,6 +100,12 @@ public class SOMTrainerControlsPanel extends JPanel {
         JButton randomizeButton = new JButton(randomizeAction);
         randomizeButton.setHideActionText(true);
         runTools.add(randomizeButton);
+        JComboBox<SOMTrainer.UpdateMethod> updateMethods = new JComboBox<>(SOMTrainer.UpdateMethod.values());
+        updateMethods.setSelectedItem(trainer.getUpdateMethod());
+        updateMethods.setToolTipText("Present rows one at a time, or average over the whole training set");
+        updateMethods.addActionListener(e -> trainer.setUpdateMethod(
+                (SOMTrainer.UpdateMethod) updateMethods.getSelectedItem()));
+        runTools.add(updateMethods);
         propsBox.add(runTools);
 
         // Separator
@@ -3,6 +3,7 @@ package org.simbrain.network.matrix;
 
 import org.jetbrains.annotations.NotNull;
 import org.simbrain.network.core.ArrayLayer;
+import org.simbrain.network.core.Connector;
 import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.core.NeuronUpdateRule;
@@ -11,10 +12,11 @@ import org.simbrain.network.neuron_update_rules.LinearRule;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
-import org.simbrain.util.math.SimbrainMath;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Producible;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 import smile.math.matrix.Matrix;
 import smile.stat.distribution.GaussianDistribution;
 
@@ -180,13 +182,30 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
     }
 
 
+    /**
+     * Set activations by copying the provided column vector. Update rules write activations in place, so the
+     * provided matrix is never shared with this array.
+     */
     public void setActivations(Matrix newActivations) {
-        activations = newActivations;
+        if (newActivations.nrows() == activations.nrows() && newActivations.ncols() == activations.ncols()) {
+            for (int i = 0; i < activations.nrows(); i++) {
+                activations.set(i, 0, newActivations.get(i, 0));
+            }
+        } else {
+            activations = newActivations.clone();
+        }
         getEvents().getUpdated().fireAndForget();
     }
 
     public void setActivations(double[] newActivations) {
-        setActivations(new Matrix(newActivations));
+        if (newActivations.length == activations.nrows()) {
+            for (int i = 0; i < newActivations.length; i++) {
+                activations.set(i, 0, newActivations[i]);
+            }
+            getEvents().getUpdated().fireAndForget();
+        } else {
+            setActivations(new Matrix(newActivations));
+        }
     }
 
     public void fireLocationChange() {
@@ -252,6 +271,24 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
         this.dataHolder = dataHolder;
     }
 
+    /**
+     * Write the state that changes as this array is updated to a workspace checkpoint.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(activations);
+        writer.add(getInputs());
+        writer.addFields(dataHolder);
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}. No events are fired.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+        reader.readInto(activations);
+        reader.readInto(getInputs());
+        reader.readFields(dataHolder);
+    }
+
     public void setGridMode(boolean gridMode) {
         this.gridMode = gridMode;
         getEvents().getUpdated().fireAndForget();
@@ -269,19 +306,57 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
         return this;
     }
 
+    /**
+     * Number of connections onto element i: non-zero entries in row i of incoming weight matrices and stored entries
+     * in row i of incoming sparse weight matrices.
+     */
+    public int getIncomingConnectionCount(int i) {
+        int count = 0;
+        for (Connector c : getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                for (int j = 0; j < weights.ncols(); j++) {
+                    if (weights.get(i, j) != 0) {
+                        count++;
+                    }
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                count += sm.getRowStarts()[i + 1] - sm.getRowStarts()[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Summed excitatory inputs to each element from incoming dense and sparse weight matrices.
+     */
     public double[] getExcitatoryInputs() {
-        return getIncomingConnectors().stream()
-                .filter(wm -> wm instanceof WeightMatrix)
-                .map(wm -> ((WeightMatrix) wm).getExcitatoryOutputs())
-                .reduce(SimbrainMath::addVector)
-                .orElse(new double[inputSize()]);
+        return getSignedInputs(true);
     }
+
+    /**
+     * Summed inhibitory inputs to each element from incoming dense and sparse weight matrices.
+     */
     public double[] getInhibitoryInputs() {
-        return getIncomingConnectors().stream()
-                .filter(wm -> wm instanceof WeightMatrix)
-                .map(wm -> ((WeightMatrix) wm).getInhibitoryOutputs())
-                .reduce(SimbrainMath::addVector)
-                .orElse(new double[inputSize()]);
+        return getSignedInputs(false);
+    }
+
+    private double[] getSignedInputs(boolean excitatory) {
+        double[] sums = new double[inputSize()];
+        for (Connector c : getIncomingConnectors()) {
+            double[] outputs;
+            if (c instanceof WeightMatrix wm) {
+                outputs = excitatory ? wm.getExcitatoryOutputs() : wm.getInhibitoryOutputs();
+            } else if (c instanceof SparseWeightMatrix sm) {
+                outputs = excitatory ? sm.getExcitatoryOutputs() : sm.getInhibitoryOutputs();
+            } else {
+                continue;
+            }
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += outputs[i];
+            }
+        }
+        return sums;
     }
 
 }
@@ -0,0 +1,443 @@
+package org.simbrain.network.matrix;
+
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.SynapseUpdateRule;
+import org.simbrain.network.spikeresponders.NonResponder;
+import org.simbrain.network.synapse_update_rules.StaticSynapseRule;
+import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder;
+import org.simbrain.network.util.EmptyMatrixData;
+import org.simbrain.network.util.MatrixDataHolder;
+import org.simbrain.util.UserParameter;
+import org.simbrain.workspace.Consumable;
+import org.simbrain.workspace.Producible;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
+import smile.math.matrix.Matrix;
+import smile.stat.distribution.GaussianDistribution;
+
+import java.util.Arrays;
+
+/**
+ * A sparse weight matrix that connects a source and target {@link Layer} object. Only the entries that were
+ * connected are stored, so large layers with low connectivity use memory in proportion to the number of connections
+ * rather than to the product of the layer sizes. Usually created by a connection strategy, e.g.
+ * {@link org.simbrain.network.connections.Sparse#connectLayers}.
+ *
+ * Like {@link WeightMatrix} the matrix has as many rows as the target layer and as many columns as the source layer.
+ * Entries are stored in compressed sparse row (CSR) form: the entries of row i are at positions
+ * {@code rowStarts[i]} to {@code rowStarts[i+1] - 1} of {@link #getColumnIndices()} and {@link #getValues()}, in
+ * increasing column order.
+ *
+ * Spike responders and learning rules operate on the stored entries. Per entry state of spike responders is held in
+ * a 1 x entries data holder, with column k corresponding to entry k.
+ */
+public class SparseWeightMatrix extends Connector {
+
+    @UserParameter(label = "Increment amount", increment = .1, order = 20)
+    private double increment = .1;
+
+    @UserParameter(label = "Learning Rule", useSetter = true, isObjectType = true, order = 100)
+    SynapseUpdateRule prototypeRule = new StaticSynapseRule();
+
+    /**
+     * Only used if source connector's rule is spiking.
+     */
+    @UserParameter(label = "Spike Responder", isObjectType = true,
+            useSetter = true, showDetails = false, order = 200)
+    private SpikeResponder spikeResponder = new NonResponder();
+
+    /**
+     * Holds data for prototype rule.
+     */
+    private MatrixDataHolder dataHolder = new EmptyMatrixData();
+
+    /**
+     * Holds data for spike responder.
+     */
+    public MatrixDataHolder spikeResponseData = new EmptyMatrixData();
+
+    /**
+     * Number of columns, i.e. the size of the source layer.
+     */
+    private final int ncols;
+
+    /**
+     * Start of each row in {@link #columnIndices} and {@link #values}. Has one more entry than there are rows.
+     */
+    private final int[] rowStarts;
+
+    /**
+     * Column of each stored entry.
+     */
+    private int[] columnIndices;
+
+    /**
+     * Value of each stored entry.
+     */
+    private double[] values;
+
+    /**
+     * Post synaptic response of each stored entry. Only used with spike responders.
+     */
+    private final double[] psrs;
+
+    /**
+     * Construct a matrix with no entries.
+     *
+     * @param net parent network
+     * @param source source layer
+     * @param target target layer
+     */
+    public SparseWeightMatrix(Network net, Layer source, Layer target) {
+        this(net, source, target, new int[0], new int[0], new double[0]);
+    }
+
+    /**
+     * Construct a matrix from a list of entries in any order. Entry k connects column {@code sources[k]} (an index
+     * in the source layer) to row {@code targets[k]} (an index in the target layer) with value {@code strengths[k]}.
+     * Entries given more than once for the same row and column are merged into one entry holding the sum of their
+     * values.
+     *
+     * @param net parent network
+     * @param source source layer
+     * @param target target layer
+     * @param targets row of each entry
+     * @param sources column of each entry
+     * @param strengths value of each entry
+     */
+    public SparseWeightMatrix(Network net, Layer source, Layer target, int[] targets, int[] sources,
+                              double[] strengths) {
+        super(source, target, net);
+        if (targets.length != sources.length || targets.length != strengths.length) {
+            throw new IllegalArgumentException("Entry arrays must have the same length");
+        }
+        int nrows = target.inputSize();
+        ncols = source.outputSize();
+
+        // Counting sort by row
+        rowStarts = new int[nrows + 1];
+        for (int row : targets) {
+            if (row < 0 || row >= nrows) {
+                throw new IllegalArgumentException("Row " + row + " out of range for " + nrows + " rows");
+            }
+            rowStarts[row + 1]++;
+        }
+        for (int i = 0; i < nrows; i++) {
+            rowStarts[i + 1] += rowStarts[i];
+        }
+        int[] next = Arrays.copyOf(rowStarts, nrows);
+        columnIndices = new int[targets.length];
+        values = new double[targets.length];
+        for (int k = 0; k < targets.length; k++) {
+            if (sources[k] < 0 || sources[k] >= ncols) {
+                throw new IllegalArgumentException("Column " + sources[k] + " out of range for " + ncols + " columns");
+            }
+            int pos = next[targets[k]]++;
+            columnIndices[pos] = sources[k];
+            values[pos] = strengths[k];
+        }
+        for (int i = 0; i < nrows; i++) {
+            sortRow(rowStarts[i], rowStarts[i + 1]);
+        }
+        mergeDuplicates();
+        psrs = new double[values.length];
+
+        source.addOutgoingConnector(this);
+        target.addIncomingConnector(this);
+    }
+
+    /**
+     * Insertion sort of the entries in one row by column. Rows are short relative to the matrix.
+     */
+    private void sortRow(int start, int end) {
+        for (int k = start + 1; k < end; k++) {
+            int col = columnIndices[k];
+            double val = values[k];
+            int m = k - 1;
+            while (m >= start && columnIndices[m] > col) {
+                columnIndices[m + 1] = columnIndices[m];
+                values[m + 1] = values[m];
+                m--;
+            }
+            columnIndices[m + 1] = col;
+            values[m + 1] = val;
+        }
+    }
+
+    /**
+     * Merge adjacent entries of a row with the same column, which follow each other once rows are sorted, summing
+     * their values.
+     */
+    private void mergeDuplicates() {
+        int kept = 0;
+        int start = 0;
+        for (int i = 0; i < nrows(); i++) {
+            int end = rowStarts[i + 1];
+            for (int k = start; k < end; k++) {
+                if (kept > rowStarts[i] && columnIndices[kept - 1] == columnIndices[k]) {
+                    values[kept - 1] += values[k];
+                } else {
+                    columnIndices[kept] = columnIndices[k];
+                    values[kept] = values[k];
+                    kept++;
+                }
+            }
+            start = end;
+            rowStarts[i + 1] = kept;
+        }
+        if (kept < values.length) {
+            columnIndices = Arrays.copyOf(columnIndices, kept);
+            values = Arrays.copyOf(values, kept);
+        }
+    }
+
+    public int nrows() {
+        return rowStarts.length - 1;
+    }
+
+    public int ncols() {
+        return ncols;
+    }
+
+    /**
+     * Number of stored entries.
+     */
+    public int getEntryCount() {
+        return values.length;
+    }
+
+    public int[] getRowStarts() {
+        return rowStarts;
+    }
+
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    /**
+     * The stored values, in the order of {@link #getColumnIndices()}. Changes to the array change the matrix.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    public double[] getPsrs() {
+        return psrs;
+    }
+
+    /**
+     * Write the state that changes as this matrix is updated to a workspace checkpoint.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(values);
+        writer.add(psrs);
+        writer.addFields(dataHolder);
+        writer.addFields(spikeResponseData);
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}. No events are fired.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+        reader.readInto(values);
+        reader.readInto(psrs);
+        reader.readFields(dataHolder);
+        reader.readFields(spikeResponseData);
+    }
+
+    /**
+     * Returns the position of entry (i, j) in {@link #getValues()}, or -1 if it is not stored.
+     */
+    public int indexOf(int i, int j) {
+        int k = Arrays.binarySearch(columnIndices, rowStarts[i], rowStarts[i + 1], j);
+        return k >= 0 ? k : -1;
+    }
+
+    /**
+     * Returns the value of entry (i, j), which is 0 if it is not stored.
+     */
+    public double get(int i, int j) {
+        int k = indexOf(i, j);
+        return k >= 0 ? values[k] : 0;
+    }
+
+    /**
+     * Set the value of a stored entry. Entries that are not stored cannot be set.
+     */
+    public void set(int i, int j, double value) {
+        int k = indexOf(i, j);
+        if (k < 0) {
+            throw new IllegalArgumentException("Entry (" + i + ", " + j + ") is not stored in this sparse matrix");
+        }
+        values[k] = value;
+    }
+
+    /**
+     * The stored values. Use {@link #toDense()} to get all entries of the matrix.
+     */
+    @Producible
+    public double[] getWeights() {
+        return values.clone();
+    }
+
+    /**
+     * Set the stored values, in the order of {@link #getValues()}.
+     */
+    @Consumable
+    public void setWeights(double[] newWeights) {
+        System.arraycopy(newWeights, 0, values, 0, Math.min(values.length, newWeights.length));
+        getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Returns a dense copy of this matrix.
+     */
+    public Matrix toDense() {
+        Matrix dense = new Matrix(nrows(), ncols);
+        for (int i = 0; i < nrows(); i++) {
+            for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                dense.set(i, columnIndices[k], values[k]);
+            }
+        }
+        return dense;
+    }
+
+    @Override
+    public void update() {
+        if (!(prototypeRule instanceof StaticSynapseRule)) {
+            prototypeRule.apply(this, dataHolder);
+            getEvents().getUpdated().fireAndForget();
+        }
+    }
+
+    /**
+     * Returns the product of this matrix and its source activations, or the summed psr's if a spike responder is
+     * used.
+     *
+     * @see WeightMatrix#getOutput()
+     */
+    @Override
+    public Matrix getOutput() {
+        Matrix output = new Matrix(nrows(), 1);
+        accumulateOutput(output);
+        return output;
+    }
+
+    @Override
+    public void accumulateOutput(Matrix accumulator) {
+        if (spikeResponder instanceof NonResponder) {
+            Matrix sourceOutputs = source.getOutputs();
+            for (int i = 0; i < nrows(); i++) {
+                double sum = 0;
+                for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                    sum += values[k] * sourceOutputs.get(columnIndices[k], 0);
+                }
+                accumulator.add(i, 0, sum);
+            }
+        } else {
+            spikeResponder.apply(this, spikeResponseData);
+            for (int i = 0; i < nrows(); i++) {
+                double sum = 0;
+                for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                    sum += psrs[k];
+                }
+                accumulator.add(i, 0, sum);
+            }
+        }
+    }
+
+    /**
+     * Returns an array representing the sum of the psr's for all excitatory (> 0) stored entries of each row.
+     *
+     * @see WeightMatrix#getExcitatoryOutputs()
+     */
+    public double[] getExcitatoryOutputs() {
+        return getSignedOutputs(true);
+    }
+
+    /**
+     * Returns an array representing the sum of the psr's for all inhibitory (< 0) stored entries of each row.
+     *
+     * @see WeightMatrix#getInhibitoryOutputs()
+     */
+    public double[] getInhibitoryOutputs() {
+        return getSignedOutputs(false);
+    }
+
+    private double[] getSignedOutputs(boolean excitatory) {
+        boolean connectionist = spikeResponder instanceof NonResponder;
+        Matrix outputs = source.getOutputs();
+        double[] sums = new double[nrows()];
+        for (int i = 0; i < nrows(); i++) {
+            double sum = 0;
+            for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                double w = values[k];
+                if (excitatory ? w > 0 : w < 0) {
+                    sum += connectionist ? w * outputs.get(columnIndices[k], 0) : psrs[k];
+                }
+            }
+            sums[i] = sum;
+        }
+        return sums;
+    }
+
+    public SynapseUpdateRule getPrototypeRule() {
+        return prototypeRule;
+    }
+
+    public void setPrototypeRule(SynapseUpdateRule prototypeRule) {
+        this.prototypeRule = prototypeRule;
+    }
+
+    public SpikeResponder getSpikeResponder() {
+        return spikeResponder;
+    }
+
+    public void setSpikeResponder(SpikeResponder spikeResponder) {
+        this.spikeResponder = spikeResponder;
+        spikeResponseData = spikeResponder.createMatrixData(1, values.length);
+        Arrays.fill(psrs, 0);
+    }
+
+    @Override
+    public void randomize() {
+        GaussianDistribution distribution = new GaussianDistribution(0, 1);
+        for (int k = 0; k < values.length; k++) {
+            values[k] = distribution.rand();
+        }
+        getEvents().getUpdated().fireAndForget();
+    }
+
+    @Override
+    public void increment() {
+        for (int k = 0; k < values.length; k++) {
+            values[k] += increment;
+        }
+        getEvents().getUpdated().fireAndForget();
+    }
+
+    @Override
+    public void decrement() {
+        for (int k = 0; k < values.length; k++) {
+            values[k] -= increment;
+        }
+        getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Set all stored entries to 0.
+     */
+    public void hardClear() {
+        Arrays.fill(values, 0);
+        getEvents().getUpdated().fireAndForget();
+    }
+
+    @Override
+    public String toString() {
+        return getId()
+                + " (" + nrows() + "x" + ncols + ", " + values.length + " entries) "
+                + "connecting " + source.getId() + " to " + target.getId();
+    }
+}
@@ -9,6 +9,9 @@ import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.workspace.Producible;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
+import smile.math.blas.Transpose;
 import smile.math.matrix.Matrix;
 import smile.stat.distribution.GaussianDistribution;
 
@@ -64,18 +67,6 @@ public class WeightMatrix extends Connector {
      */
     private Matrix psrMatrix;
 
-    /**
-     * A binary matrix with 1s corresponding to entries of the weight matrix that are greater than 1 and thus
-     * excitatory, and 0s otherwise. Used by {@link #getExcitatoryOutputs()}
-     */
-    private transient Matrix excitatoryMask;
-
-    /**
-     * A binary matrix with 1s corresponding to entries of the weight matrix that are less than 1 and thus
-     * inhibitory, and 0s otherwise. Used by {@link #getInhibitoryOutputs()} }
-     */
-    private transient Matrix inhibitoryMask;
-
     /**
      * Construct the matrix.
      *
@@ -93,13 +84,6 @@ public class WeightMatrix extends Connector {
         diagonalize();
 
         psrMatrix = new Matrix(target.inputSize(), source.outputSize());
-
-        getEvents().getUpdated().on(null, true, () -> {
-           updateExcitatoryMask();
-           updateInhibitoryMask();
-        });
-        updateExcitatoryMask();
-        updateInhibitoryMask();
     }
 
     public Matrix getWeightMatrix() {
@@ -173,6 +157,27 @@ public class WeightMatrix extends Connector {
         }
     }
 
+    /**
+     * Accumulates weights times source outputs (or summed psr's) into the provided vector without allocating.
+     */
+    @Override
+    public void accumulateOutput(Matrix accumulator) {
+        if (spikeResponder instanceof NonResponder) {
+            // accumulator = weights * outputs + accumulator
+            weightMatrix.mm(Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, 1.0, source.getOutputs(), 1.0,
+                    accumulator);
+        } else {
+            spikeResponder.apply(this, spikeResponseData);
+            for (int i = 0; i < psrMatrix.nrows(); i++) {
+                double sum = 0;
+                for (int j = 0; j < psrMatrix.ncols(); j++) {
+                    sum += psrMatrix.get(i, j);
+                }
+                accumulator.add(i, 0, sum);
+            }
+        }
+    }
+
     /**
      * Update the psr matrix in the connectionist case.
      */
@@ -192,48 +197,40 @@ public class WeightMatrix extends Connector {
         }
     }
 
-    private void updateExcitatoryMask() {
-        excitatoryMask = weightMatrix.clone();
-        for (int i = 0; i <  excitatoryMask.nrows(); i++) {
-            for (int j = 0; j < excitatoryMask.ncols(); j++) {
-                var newVal = (excitatoryMask.get(i,j) > 0) ? 1 : 0;
-                excitatoryMask.set(i,j, newVal);
-            }
-        }
-    }
-
-    private void updateInhibitoryMask() {
-        inhibitoryMask = weightMatrix.clone();
-        for (int i = 0; i <  inhibitoryMask.nrows(); i++) {
-            for (int j = 0; j < inhibitoryMask.ncols(); j++) {
-                var newVal = (inhibitoryMask.get(i,j) < 0) ? 1 : 0;
-                inhibitoryMask.set(i,j, newVal);
-            }
-        }
-    }
-
     /**
      * Returns an array representing the sum of the psr's for all excitatory (> 0) pre-synaptic weights
      */
     public double[] getExcitatoryOutputs() {
-        updateConnectionistPSR();
-        if (excitatoryMask == null) {
-            updateExcitatoryMask();
-        }
-        return excitatoryMask.clone().mul(psrMatrix).rowSums();
+        return getSignedOutputs(true);
     }
 
     /**
      * Returns an array representing the sum of the psr's for all inhibitory (< 0) pre-synaptic weights
      */
     public double[] getInhibitoryOutputs() {
-        updateConnectionistPSR();
-        if (inhibitoryMask == null) {
-            updateInhibitoryMask();
-        }
-        return inhibitoryMask.clone().mul(psrMatrix).rowSums();
+        return getSignedOutputs(false);
     }
 
+    /**
+     * Sum the psr's of excitatory or inhibitory weights for each row in one pass, selecting entries by the sign of
+     * their weight rather than through mask matrices. In the connectionist case psr's are computed on the fly.
+     */
+    private double[] getSignedOutputs(boolean excitatory) {
+        boolean connectionist = spikeResponder instanceof NonResponder;
+        Matrix outputs = source.getOutputs();
+        double[] sums = new double[weightMatrix.nrows()];
+        for (int i = 0; i < weightMatrix.nrows(); i++) {
+            double sum = 0;
+            for (int j = 0; j < weightMatrix.ncols(); j++) {
+                double w = weightMatrix.get(i, j);
+                if (excitatory ? w > 0 : w < 0) {
+                    sum += connectionist ? w * outputs.get(j, 0) : psrMatrix.get(i, j);
+                }
+            }
+            sums[i] = sum;
+        }
+        return sums;
+    }
 
     public SynapseUpdateRule getPrototypeRule() {
         return prototypeRule;
@@ -282,6 +279,26 @@ public class WeightMatrix extends Connector {
         return psrMatrix;
     }
 
+    /**
+     * Write the state that changes as this matrix is updated to a workspace checkpoint.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(weightMatrix);
+        writer.add(psrMatrix);
+        writer.addFields(dataHolder);
+        writer.addFields(spikeResponseData);
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}. No events are fired.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+        reader.readInto(weightMatrix);
+        reader.readInto(psrMatrix);
+        reader.readFields(dataHolder);
+        reader.readFields(spikeResponseData);
+    }
+
     public void setSpikeResponder(SpikeResponder spikeResponder) {
         this.spikeResponder = spikeResponder;
         spikeResponseData = spikeResponder.createMatrixData(weightMatrix.nrows(), weightMatrix.ncols());
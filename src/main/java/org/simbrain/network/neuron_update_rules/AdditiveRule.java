@@ -18,14 +18,20 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>AdditiveNeuron</b> See Haykin (2002), section 14.5. Used with continuous
@@ -93,6 +99,37 @@ public class AdditiveRule extends NeuronUpdateRule implements NoisyUpdateRule {
         neuron.addInputValue(0);
     }
 
+    /**
+     * Array version. Weighted sums are taken over incoming weight matrices.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        double dt = array.getNetwork().getTimeStep();
+        double[] wtdSums = new double[array.size()];
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                Matrix sources = wm.getSource().getOutputs();
+                for (int j = 0; j < weights.ncols(); j++) {
+                    double gSource = g(sources.get(j, 0));
+                    for (int i = 0; i < weights.nrows(); i++) {
+                        wtdSums[i] += weights.get(i, j) * gSource;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < array.size(); i++) {
+            double act = activations.get(i, 0);
+            double val = act + dt * (-act / resistance + wtdSums[i]);
+            if (addNoise) {
+                val += noiseGenerator.sampleDouble();
+            }
+            activations.set(i, 0, val);
+        }
+    }
+
     /**
      * Implements a Hopfield type sigmoidal function.
      *
@@ -92,12 +92,12 @@ public class BinaryRule extends NeuronUpdateRule {
     @Override
     public void apply(Layer arr, MatrixDataHolder data) {
         var array = (NeuronArray) arr;
-        // TODO: Implement using matrix operations
-        double[] vals = new double[array.size()];
-        for (int i = 0; i < vals.length ; i++) {
-            vals[i] = binaryRule(array.getInputs().col(0)[i], ((BiasedMatrixData)data).getBiases()[i]);
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double[] biases = ((BiasedMatrixData)data).getBiases();
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, binaryRule(inputs.get(i, 0), biases[i]));
         }
-        array.setActivations(new Matrix(vals));
     }
 
     @Override
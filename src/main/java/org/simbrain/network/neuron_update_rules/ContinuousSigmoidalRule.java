@@ -18,13 +18,18 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
-import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
+import org.simbrain.network.core.Network;
 import org.simbrain.network.core.Neuron;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.util.ContinuousSigmoidalMatrixData;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.SquashingFunctionEnum;
 import org.simbrain.util.stats.ProbabilityDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>Continuous Sigmoidal Rule</b> provides various squashing function
@@ -136,6 +141,32 @@ public class ContinuousSigmoidalRule extends AbstractSigmoidalRule {
 
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        double[] netActivations = ((ContinuousSigmoidalMatrixData) data).getNetActivations();
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double dt = array.getNetwork().getTimeStep();
+        double decay = 1 - (leak * dt / tau);
+        double upperBound = getUpperBound();
+        double lowerBound = getLowerBound();
+        double slope = getSlope();
+        for (int i = 0; i < array.size(); i++) {
+            double in = inputs.get(i, 0) + bias;
+            if (addNoise) {
+                in += noiseGenerator.sampleDouble();
+            }
+            netActivations[i] = netActivations[i] * decay + (dt / tau) * in;
+            activations.set(i, 0, sFunction.valueOf(netActivations[i], upperBound, lowerBound, slope));
+        }
+    }
+
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        return new ContinuousSigmoidalMatrixData(size);
+    }
+
     public int getNoBytes() { // bump to interface...
         // [ buff | netInp | netAct | leak | tau | UB | LB | slope ]
         return 56 + 8; // Do some reflection here... 8 is for buffer
@@ -18,14 +18,22 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.util.HodgkinHuxleyMatrixData;
+import org.simbrain.network.util.HodgkinHuxleyScalarData;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
+
+import java.util.Arrays;
 
 // TODO: deal with ENa, EK
 /**
@@ -59,9 +67,6 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
      */
     private double resting_v = 65;
 
-    /** */
-    private double dv;
-
     /**
      * Membrane Capacitance
      */
@@ -72,42 +77,11 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
      */
     private double gk, gna, gl;
 
-    /**
-     * voltage-dependent gating parameters
-     */
-    private double n, m, h;
-
-    /**
-     * corresponding deltas
-     */
-    private double dn, dm, dh;
-
-    /**
-     * // rate constants
-     */
-    private double an, bn, am, bm, ah, bh;
-
     /**
      * Ek-Er, Ena - Er, Eleak - Er
      */
     private double vk, vna, vl;
 
-    /** */
-    private double n4;
-
-    /** */
-    private double m3h;
-
-    /**
-     * Sodium current
-     */
-    private double na_current;
-
-    /**
-     * Potassium current
-     */
-    private double k_current;
-
     /** */
     private double temp = 0;
 
@@ -129,32 +103,46 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
+        HodgkinHuxleyScalarData gates;
+        if (data instanceof HodgkinHuxleyScalarData hhData) {
+            gates = hhData;
+        } else {
+            // E.g. a neuron saved before the gating variables moved off the rule
+            gates = (HodgkinHuxleyScalarData) createScalarData();
+            neuron.setDataHolder(gates);
+        }
 
         // Advances the model by dt and returns the new voltage
 
+        double dt = neuron.getNetwork().getTimeStep();
         double v = neuron.getInput();
-        bh = 1 / (Math.exp((v + 30) / 10) + 1);
-        ah = 0.07 * Math.exp(v / 20);
-        dh = (ah * (1 - h) - bh * h) * neuron.getNetwork().getTimeStep();
-        bm = 4 * Math.exp(v / 18);
-        am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
-        bn = 0.125 * Math.exp(v / 80);
-        an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
-        dm = (am * (1 - m) - bm * m) * neuron.getNetwork().getTimeStep();
-        dn = (an * (1 - n) - bn * n) * neuron.getNetwork().getTimeStep();
-
-        n4 = n * n * n * n;
-        m3h = m * m * m * h;
-
-        na_current = gna * m3h * (v - vna);
-        k_current = gk * n4 * (v - vk);
-
-        dv = -1 * neuron.getNetwork().getTimeStep() * (k_current + na_current + gl * (v - vl)) / cm;
+        double n = gates.getN();
+        double m = gates.getM();
+        double h = gates.getH();
+        double bh = 1 / (Math.exp((v + 30) / 10) + 1);
+        double ah = 0.07 * Math.exp(v / 20);
+        double dh = (ah * (1 - h) - bh * h) * dt;
+        double bm = 4 * Math.exp(v / 18);
+        double am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
+        double bn = 0.125 * Math.exp(v / 80);
+        double an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
+        double dm = (am * (1 - m) - bm * m) * dt;
+        double dn = (an * (1 - n) - bn * n) * dt;
+
+        double n4 = n * n * n * n;
+        double m3h = m * m * m * h;
+
+        double naCurrent = gna * m3h * (v - vna);
+        double kCurrent = gk * n4 * (v - vk);
+        gates.setNaCurrent(naCurrent);
+        gates.setKCurrent(kCurrent);
+
+        double dv = -1 * dt * (kCurrent + naCurrent + gl * (v - vl)) / cm;
 
         neuron.setActivation(-1 * (v + dv + resting_v));
-        h += dh;
-        m += dm;
-        n += dn;
+        gates.setH(h + dh);
+        gates.setM(m + dm);
+        gates.setN(n + dn);
 
         // if (vClampOn)
         // v = vClampValue;
@@ -163,33 +151,82 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
 
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        var gates = (HodgkinHuxleyMatrixData) data;
+        double[] n = gates.getN();
+        double[] m = gates.getM();
+        double[] h = gates.getH();
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double dt = array.getNetwork().getTimeStep();
+        for (int i = 0; i < array.size(); i++) {
+            double v = inputs.get(i, 0);
+            double bh = 1 / (Math.exp((v + 30) / 10) + 1);
+            double ah = 0.07 * Math.exp(v / 20);
+            double bm = 4 * Math.exp(v / 18);
+            double am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
+            double bn = 0.125 * Math.exp(v / 80);
+            double an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
+            double dh = (ah * (1 - h[i]) - bh * h[i]) * dt;
+            double dm = (am * (1 - m[i]) - bm * m[i]) * dt;
+            double dn = (an * (1 - n[i]) - bn * n[i]) * dt;
+            double n4 = n[i] * n[i] * n[i] * n[i];
+            double m3h = m[i] * m[i] * m[i] * h[i];
+            double dv = -1 * dt * (gk * n4 * (v - vk) + gna * m3h * (v - vna) + gl * (v - vl)) / cm;
+            activations.set(i, 0, -1 * (v + dv + resting_v));
+            h[i] += dh;
+            m[i] += dm;
+            n[i] += dn;
+        }
+    }
+
+    /**
+     * Gating variables start in steady state.
+     */
+    @Override
+    public ScalarDataHolder createScalarData() {
+        double[] gates = steadyStateGates();
+        return new HodgkinHuxleyScalarData(gates[0], gates[1], gates[2]);
+    }
+
+    /**
+     * Gating variables start in steady state, as in the scalar rule.
+     */
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        var data = new HodgkinHuxleyMatrixData(size);
+        double[] gates = steadyStateGates();
+        Arrays.fill(data.getN(), gates[0]);
+        Arrays.fill(data.getM(), gates[1]);
+        Arrays.fill(data.getH(), gates[2]);
+        return data;
+    }
+
+    /**
+     * Steady state values of n, m and h at an arbitrary starting voltage of -70.
+     */
+    private static double[] steadyStateGates() {
+        double v = -70;
+        double bh = 1 / (Math.exp((v + 30) / 10) + 1);
+        double ah = 0.07 * Math.exp(v / 20);
+        double bm = 4 * Math.exp(v / 18);
+        double am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
+        double bn = 0.125 * Math.exp(v / 80);
+        double an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
+        return new double[]{an / (an + bn), am / (am + bm), ah / (ah + bh)};
+    }
+
     // Initializer quickly hacked from old init. Zoë this is in your hands to fix! :)
     {
         cm = 1.0;
-        double v = -70; // Arbitrary starting voltage
-        double dv = .001; // Arbitrary starting dv.  Not sure how to set.
         vna = -115;
         vk = 12;
         vl = -10.613;
         gna = perNaChannels * 120 / 100;
         gk = perKChannels * 36 / 100;
         gl = 0.3;
-
-        bh = 1 / (Math.exp((v + 30) / 10) + 1);
-        ah = 0.07 * Math.exp(v / 20);
-        bm = 4 * Math.exp(v / 18);
-        am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
-        bn = 0.125 * Math.exp(v / 80);
-        an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
-        dh = (ah * (1 - h) - bh * h) * dv;
-        dm = (am * (1 - m) - bm * m) * dv;
-        dn = (an * (1 - n) - bn * n) * dv;
-
-        // start these parameters in steady state
-        n = an / (an + bn);
-        m = am / (am + bm);
-        h = ah / (ah + bh);
-
     }
 
     @Override
@@ -197,14 +234,6 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
         return TimeType.CONTINUOUS;
     }
 
-    public double get_n4() {
-        return n4;
-    }
-
-    public double get_m3h() {
-        return m3h;
-    }
-
     public synchronized float getEna() {
         return (float) (-1 * (vna + resting_v));
     }
@@ -221,16 +250,6 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
         vk = -1 * Ek - resting_v;
     }
 
-    // The -1 is to correct for the fact that in the H & H paper, the currents
-    // are reversed.
-    public double get_na_current() {
-        return -1 * na_current;
-    }
-
-    public double get_k_current() {
-        return -1 * k_current;
-    }
-
     // negative values set to zero
     public synchronized void setPerNaChannels(float perNaChannels) {
         if (perNaChannels < 0) {
@@ -271,18 +290,6 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
         return cm;
     }
 
-    public double getN() {
-        return n;
-    }
-
-    public double getM() {
-        return m;
-    }
-
-    public double getH() {
-        return h;
-    }
-
     /**
      * Converts a voltage from the modern convention to the convention used by
      * the program.
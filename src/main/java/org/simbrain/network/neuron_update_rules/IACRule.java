@@ -18,17 +18,24 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeightMatrix;
+import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.ClippableUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>IACNeuron</b> implements an Interactive Activation and Competition neuron.
@@ -143,6 +150,64 @@ public class IACRule extends NeuronUpdateRule implements BoundedUpdateRule, Clip
         neuron.setActivation(act);
     }
 
+    /**
+     * Array version. As in the scalar rule, the weighted outputs of active (positive) sources of incoming weight
+     * matrices and sparse weight matrices are added to the summed input. They are added to the array's inputs for
+     * all elements before any activation changes, so recurrent connections read the previous activations.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double timeStep = array.getNetwork().getTimeStep();
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                Matrix sources = wm.getSource().getOutputs();
+                for (int j = 0; j < weights.ncols(); j++) {
+                    double source = sources.get(j, 0);
+                    if (source > 0) {
+                        for (int i = 0; i < weights.nrows(); i++) {
+                            inputs.add(i, 0, weights.get(i, j) * source);
+                        }
+                    }
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                int[] rowStarts = sm.getRowStarts();
+                int[] columns = sm.getColumnIndices();
+                double[] values = sm.getValues();
+                Matrix sources = sm.getSource().getOutputs();
+                for (int i = 0; i < sm.nrows(); i++) {
+                    for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                        double source = sources.get(columns[k], 0);
+                        if (source > 0) {
+                            inputs.add(i, 0, values[k] * source);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < array.size(); i++) {
+            double netInput = inputs.get(i, 0);
+            double activation = activations.get(i, 0);
+            double effect;
+            if (netInput >= 0) {
+                effect = (getUpperBound() - activation) * netInput;
+            } else {
+                effect = (activation - getLowerBound()) * netInput;
+            }
+            double act = activation + timeStep * (effect - decay * (activation - rest));
+            if (addNoise) {
+                act += noiseGenerator.sampleDouble();
+            }
+            if (clipping) {
+                act = clip(act);
+            }
+            activations.set(i, 0, act);
+        }
+    }
+
     @Override
     public double clip(double val) {
         if (val > getUpperBound()) {
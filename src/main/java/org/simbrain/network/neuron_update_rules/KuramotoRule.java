@@ -1,14 +1,21 @@
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeightMatrix;
+import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.neuron_update_rules.interfaces.*;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * TODO
@@ -106,6 +113,55 @@ public class KuramotoRule extends NeuronUpdateRule implements BiasedUpdateRule,
         neuron.setActivation(theta);
     }
 
+    /**
+     * Array version. Each non-zero weight of an incoming weight matrix, and each stored entry of an incoming sparse
+     * weight matrix, couples an element to a source element. The summed input is not used by this rule, so the
+     * coupling terms are summed in the array's inputs before any activation changes.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        Matrix sums = array.getInputs();
+        double dt = array.getNetwork().getTimeStep();
+        sums.fill(0);
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                Matrix sources = wm.getSource().getOutputs();
+                for (int i = 0; i < weights.nrows(); i++) {
+                    double theta = activations.get(i, 0);
+                    double sum = 0;
+                    for (int j = 0; j < weights.ncols(); j++) {
+                        double w = weights.get(i, j);
+                        if (w != 0) {
+                            sum += w * Math.sin(sources.get(j, 0) - theta);
+                        }
+                    }
+                    sums.add(i, 0, sum);
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                int[] rowStarts = sm.getRowStarts();
+                int[] columns = sm.getColumnIndices();
+                double[] values = sm.getValues();
+                Matrix sources = sm.getSource().getOutputs();
+                for (int i = 0; i < sm.nrows(); i++) {
+                    double theta = activations.get(i, 0);
+                    double sum = 0;
+                    for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                        sum += values[k] * Math.sin(sources.get(columns[k], 0) - theta);
+                    }
+                    sums.add(i, 0, sum);
+                }
+            }
+        }
+        for (int i = 0; i < array.size(); i++) {
+            double thetaDot = naturalFrequency + sums.get(i, 0) / Math.max(array.getIncomingConnectionCount(i), 1);
+            // Clipped like Neuron.setActivation clips neurons using this rule
+            activations.set(i, 0, clip((activations.get(i, 0) + dt * thetaDot) % (2 * Math.PI)));
+        }
+    }
+
     @Override
     public double clip(double val) {
         if (val > getUpperBound()) {
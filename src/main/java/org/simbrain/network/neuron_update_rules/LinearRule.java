@@ -94,13 +94,13 @@ public class LinearRule extends NeuronUpdateRule implements DifferentiableUpdate
     @Override
     public void apply(Layer arr, MatrixDataHolder data) {
         var array = (NeuronArray) arr;
-        // TODO: Implement using matrix operations
-        double[] vals = new double[array.size()];
-        for (int i = 0; i < vals.length ; i++) {
-            vals[i] = linearRule(array.getInputs().col(0)[i],
-                    ((BiasedMatrixData)data).getBiases()[i]);
+        // Activations are updated in place to avoid allocating on each update
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double[] biases = ((BiasedMatrixData)data).getBiases();
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, linearRule(inputs.get(i, 0), biases[i]));
         }
-        array.setActivations(new Matrix(vals));
     }
 
     @Override
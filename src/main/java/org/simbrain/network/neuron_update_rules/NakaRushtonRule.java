@@ -157,15 +157,13 @@ public class NakaRushtonRule extends NeuronUpdateRule implements BoundedUpdateRu
     @Override
     public void apply(Layer arr, MatrixDataHolder data) {
         var array = (NeuronArray) arr;
-        double[] vals = new double[array.size()];
-        for (int i = 0; i < vals.length ; i++) {
-            vals[i] = nakaRushtonRule(
-                    array.getInputs().col(0)[i],
-                    array.getActivations().col(0)[i],
-                    array.getNetwork().getTimeStep(),
-                    ((NakaMatrixData)data).getA()[i]);
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double timeStep = array.getNetwork().getTimeStep();
+        double[] a = ((NakaMatrixData)data).getA();
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, nakaRushtonRule(inputs.get(i, 0), activations.get(i, 0), timeStep, a[i]));
         }
-        array.setActivations(new Matrix(vals));
     }
 
     @Override
@@ -18,15 +18,21 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.BiasedUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
+import org.simbrain.network.util.PointNeuronMatrixData;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.math.SimbrainMath;
+import smile.math.matrix.Matrix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -349,6 +355,60 @@ public class PointNeuronRule extends NeuronUpdateRule implements BiasedUpdateRul
         // printState(neuron);
     }
 
+    /**
+     * Array version. Excitatory and inhibitory inputs are the summed psr's of positive and negative weights of
+     * incoming weight matrices.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        var state = (PointNeuronMatrixData) data;
+        double[] excitatoryConductances = state.getExcitatoryConductances();
+        double[] inhibitoryConductances = state.getInhibitoryConductances();
+        double[] membranePotentials = state.getMembranePotentials();
+        double[] excitatoryInputs = array.getExcitatoryInputs();
+        double[] inhibitoryInputs = array.getInhibitoryInputs();
+        Matrix activations = array.getActivations();
+        for (int i = 0; i < array.size(); i++) {
+            excitatoryConductances[i] = (1 - netTimeConstant) * excitatoryConductances[i]
+                    + netTimeConstant * excitatoryInputs[i];
+            inhibitoryConductances[i] = (1 - netTimeConstant) * inhibitoryConductances[i]
+                    + netTimeConstant * inhibitoryInputs[i];
+            double v = membranePotentials[i];
+            double netCurrent = leakConductance * leakMaxConductance * (v - leakReversal)
+                    + excitatoryConductances[i] * excitatoryMaxConductance * (v - excitatoryReversal)
+                    + inhibitoryConductances[i] * inhibitoryMaxConductance * (v - inhibitoryReversal);
+            v += -potentialTimeConstant * netCurrent;
+            double act;
+            if (outputFunction == OutputFunction.DISCRETE_SPIKING) {
+                if (v > thresholdPotential) {
+                    act = 1;
+                    v = refractoryPotential;
+                } else {
+                    act = 0;
+                }
+            } else if (outputFunction == OutputFunction.RATE_CODE) {
+                double positive = gain * getPositiveComponent(v - thresholdPotential);
+                act = positive / (positive + 1) + bias;
+            } else if (outputFunction == OutputFunction.LINEAR) {
+                act = gain * getPositiveComponent(v - thresholdPotential) + bias;
+            } else if (outputFunction == OutputFunction.NOISY_RATE_CODE) {
+                act = 1;
+            } else {
+                act = v;
+            }
+            membranePotentials[i] = v;
+            activations.set(i, 0, act);
+        }
+    }
+
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        var data = new PointNeuronMatrixData(size);
+        Arrays.fill(data.getMembranePotentials(), DEFAULT_MEMBRANE_POTENTIAL);
+        return data;
+    }
+
     @Override
     public double getRandomValue() {
         Random rand = new Random();
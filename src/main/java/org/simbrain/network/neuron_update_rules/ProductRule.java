@@ -18,10 +18,17 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeightMatrix;
+import org.simbrain.network.matrix.WeightMatrix;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>Product rule</b> units compute the product of the activations of incoming
@@ -87,6 +94,55 @@ public class ProductRule extends LinearRule {
         neuron.setActivation(val);
     }
 
+    /**
+     * Array version. Multiplies over the non-zero weights of incoming weight matrices and the stored entries of
+     * incoming sparse weight matrices, using source outputs or, if weights are used, outputs times weights. The
+     * summed input is not used by this rule, so the products are formed in the array's inputs before any activation
+     * changes.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        Matrix products = array.getInputs();
+        products.fill(1);
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                Matrix sources = wm.getSource().getOutputs();
+                for (int i = 0; i < weights.nrows(); i++) {
+                    for (int j = 0; j < weights.ncols(); j++) {
+                        double w = weights.get(i, j);
+                        if (w != 0) {
+                            products.mul(i, 0, useWeights ? w * sources.get(j, 0) : sources.get(j, 0));
+                        }
+                    }
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                int[] rowStarts = sm.getRowStarts();
+                int[] columns = sm.getColumnIndices();
+                double[] values = sm.getValues();
+                Matrix sources = sm.getSource().getOutputs();
+                for (int i = 0; i < sm.nrows(); i++) {
+                    for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                        double source = sources.get(columns[k], 0);
+                        products.mul(i, 0, useWeights ? values[k] * source : source);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < array.size(); i++) {
+            double val = array.getIncomingConnectionCount(i) > 0 ? products.get(i, 0) : 0;
+            if (getAddNoise()) {
+                val += getNoiseGenerator().sampleDouble();
+            }
+            if (isClipped()) {
+                val = clip(val);
+            }
+            activations.set(i, 0, val);
+        }
+    }
+
     public boolean getUseWeights() {
         return useWeights;
     }
@@ -18,10 +18,14 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>RunningAverageNeuron</b> keeps a running average of current and past
@@ -66,6 +70,19 @@ public class RunningAverageRule extends NeuronUpdateRule {
         neuron.setActivation(val);
     }
 
+    /**
+     * The previous value of each element is its activation.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, rateConstant * inputs.get(i, 0) + (1 - rateConstant) * activations.get(i, 0));
+        }
+    }
+
     /**
      * @return Rate constant.
      */
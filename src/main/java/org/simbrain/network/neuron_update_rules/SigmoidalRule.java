@@ -18,10 +18,14 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.math.SquashingFunctionEnum;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>SigmoidalRule</b> provides various implementations of a standard sigmoidal
@@ -69,6 +73,23 @@ public class SigmoidalRule extends AbstractSigmoidalRule {
         neuron.setActivation(val);
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        double upperBound = getUpperBound();
+        double lowerBound = getLowerBound();
+        double slope = getSlope();
+        for (int i = 0; i < array.size(); i++) {
+            double val = inputs.get(i, 0) + bias;
+            if (addNoise) {
+                val += noiseGenerator.sampleDouble();
+            }
+            activations.set(i, 0, sFunction.valueOf(val, upperBound, lowerBound, slope));
+        }
+    }
+
     @Override
     public final SigmoidalRule deepCopy() {
         SigmoidalRule sr = new SigmoidalRule();
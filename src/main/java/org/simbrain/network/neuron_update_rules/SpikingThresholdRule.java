@@ -70,18 +70,17 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
     @Override
     public void apply(Layer arr, MatrixDataHolder data) {
         var array = (NeuronArray) arr;
-        // TODO: Implement using matrix operations
-        double[] vals = new double[array.size()];
-        for (int i = 0; i < vals.length; i++) {
-            if (spikingThresholdRule(array.getInputs().col(0)[i])) {
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        for (int i = 0; i < array.size(); i++) {
+            if (spikingThresholdRule(inputs.get(i, 0))) {
                 ((SpikingMatrixData) data).setHasSpiked(i, true, array.getNetwork().getTime());
-                vals[i] = 1;
+                activations.set(i, 0, 1);
             } else {
                 ((SpikingMatrixData) data).setHasSpiked(i, false, array.getNetwork().getTime());
-                vals[i] = 0;
+                activations.set(i, 0, 0);
             }
         }
-        array.setActivations(new Matrix(vals));
     }
 
     @Override
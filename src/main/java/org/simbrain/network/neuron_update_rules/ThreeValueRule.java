@@ -18,11 +18,15 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
 
 import java.util.Random;
 
@@ -125,6 +129,23 @@ public class ThreeValueRule extends NeuronUpdateRule {
         }
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix inputs = array.getInputs();
+        Matrix activations = array.getActivations();
+        for (int i = 0; i < array.size(); i++) {
+            double wtdInput = inputs.get(i, 0);
+            if (wtdInput < lowerThreshold) {
+                activations.set(i, 0, lowerValue);
+            } else if (wtdInput > upperThreshold) {
+                activations.set(i, 0, upperValue);
+            } else {
+                activations.set(i, 0, middleValue);
+            }
+        }
+    }
+
     @Override
     public double getRandomValue() {
         Random rand = new Random();
@@ -1,9 +1,18 @@
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Connector;
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeightMatrix;
+import org.simbrain.network.matrix.WeightMatrix;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.network.util.TimedAccumulatorMatrixData;
 import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
 
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -78,16 +87,6 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
     )
     private double kappa = DEFAULT_KAPPA;
 
-    /**
-     * Sum of all weights when exponentiated: exp(weights * b)
-     */
-    private double expSum = 0;
-
-    /**
-     * Number of incoming connections.
-     */
-    private int fanInSize = 0;
-
     /**
      * A timing variable to keep track of refractory periods.
      */
@@ -115,18 +114,19 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
             neuron.setSpike(true);
             return;
         }
-        expSum = 0;
-        for(int ii=0; ii<fanInSize; ++ii) {
-            if(!neuron.getFanInUnsafe().get(ii).isFrozen())
-                expSum += Math.exp(b * neuron.getFanInUnsafe().get(ii).getStrength());
+        // Sum of all weights when exponentiated: exp(weights * b)
+        double expSum = 0;
+        for (Synapse s : neuron.getFanInUnsafe()) {
+            if (!s.isFrozen()) {
+                expSum += Math.exp(b * s.getStrength());
+            }
         }
-        for (int ii = 0; ii < fanInSize; ++ii) {
+        for (Synapse s : neuron.getFanInUnsafe()) {
             // Skip if pre-synaptic node is off...
-            if (neuron.getFanIn().get(ii).getSource().getActivation() == 1) {
-                // Using the exp weight value stored in the PSR from before
-                // divide that by the exp sum to get the softmax value
+            if (s.getSource().getActivation() == 1) {
+                // Divide the exp weight value by the exp sum to get the softmax value
                 // then set this to a 1 state from a 0 with that probability.
-                if (ThreadLocalRandom.current().nextDouble() < kappa * neuron.getFanInUnsafe().get(ii).getPsr() / expSum) {
+                if (ThreadLocalRandom.current().nextDouble() < kappa * Math.exp(b * s.getStrength()) / expSum) {
                     currentState++;
                     neuron.setActivation(1);
                     neuron.setSpike(true);
@@ -138,15 +138,107 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
         neuron.setSpike(false);
     }
 
-//    public void init(Neuron neuron) {
-//        fanInSize = neuron.getFanIn().size();
-//        // Obtain the exponential sum for the denominator
-//        for (Synapse s : neuron.getFanIn()) {
-//            double expVal = Math.exp(s.getStrength() * b);
-//            expSum += expVal;
-//            s.setPsr(expVal); // Store the exp val of the weight for later use
-//        }
-//    }
+    /**
+     * Array version. Non-zero weights of incoming weight matrices and stored entries of incoming sparse weight
+     * matrices take the place of the scalar rule's fan-in. The summed input is not used by this rule, so the array's
+     * inputs hold the softmax denominator of each element that can still fire from its inputs in this update, and -1
+     * for the other elements.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        var spikeData = (TimedAccumulatorMatrixData) data;
+        int[] states = spikeData.getStates();
+        Matrix activations = array.getActivations();
+        Matrix expSums = array.getInputs();
+        double time = array.getNetwork().getTime();
+        for (int i = 0; i < array.size(); i++) {
+            expSums.set(i, 0, -1);
+            if (states[i] >= 1) {
+                states[i]++;
+                if (states[i] > maxState) {
+                    states[i] = 0;
+                }
+                activations.set(i, 0, states[i]);
+                spikeData.setHasSpiked(i, false, time);
+            } else if (ThreadLocalRandom.current().nextDouble() < baseProb) {
+                states[i]++;
+                activations.set(i, 0, 1);
+                spikeData.setHasSpiked(i, true, time);
+            } else {
+                activations.set(i, 0, 0);
+                spikeData.setHasSpiked(i, false, time);
+                expSums.set(i, 0, 0);
+            }
+        }
+
+        // Sum of all weights when exponentiated: exp(weights * b)
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                for (int i = 0; i < weights.nrows(); i++) {
+                    if (expSums.get(i, 0) >= 0) {
+                        for (int j = 0; j < weights.ncols(); j++) {
+                            if (weights.get(i, j) != 0) {
+                                expSums.add(i, 0, Math.exp(b * weights.get(i, j)));
+                            }
+                        }
+                    }
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                int[] rowStarts = sm.getRowStarts();
+                double[] values = sm.getValues();
+                for (int i = 0; i < sm.nrows(); i++) {
+                    if (expSums.get(i, 0) >= 0) {
+                        for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                            expSums.add(i, 0, Math.exp(b * values[k]));
+                        }
+                    }
+                }
+            }
+        }
+
+        // Each connection from a source at 1 fires the element with the softmax value of its weight
+        for (Connector c : array.getIncomingConnectors()) {
+            if (c instanceof WeightMatrix wm) {
+                Matrix weights = wm.getWeightMatrix();
+                Matrix sources = wm.getSource().getOutputs();
+                for (int i = 0; i < weights.nrows(); i++) {
+                    for (int j = 0; j < weights.ncols() && expSums.get(i, 0) > 0; j++) {
+                        double w = weights.get(i, j);
+                        if (w != 0 && sources.get(j, 0) == 1 && ThreadLocalRandom.current().nextDouble()
+                                < kappa * Math.exp(b * w) / expSums.get(i, 0)) {
+                            states[i]++;
+                            activations.set(i, 0, 1);
+                            spikeData.setHasSpiked(i, true, time);
+                            expSums.set(i, 0, -1);
+                        }
+                    }
+                }
+            } else if (c instanceof SparseWeightMatrix sm) {
+                int[] rowStarts = sm.getRowStarts();
+                int[] columns = sm.getColumnIndices();
+                double[] values = sm.getValues();
+                Matrix sources = sm.getSource().getOutputs();
+                for (int i = 0; i < sm.nrows(); i++) {
+                    for (int k = rowStarts[i]; k < rowStarts[i + 1] && expSums.get(i, 0) > 0; k++) {
+                        if (sources.get(columns[k], 0) == 1 && ThreadLocalRandom.current().nextDouble()
+                                < kappa * Math.exp(b * values[k]) / expSums.get(i, 0)) {
+                            states[i]++;
+                            activations.set(i, 0, 1);
+                            spikeData.setHasSpiked(i, true, time);
+                            expSums.set(i, 0, -1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        return new TimedAccumulatorMatrixData(size);
+    }
 
     @Override
     public TimedAccumulatorRule deepCopy() {
@@ -18,14 +18,18 @@
  */
 package org.simbrain.network.neuron_update_rules.activity_generators;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.ClippableUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>LogisticNeuron</b> updates using the logistic equation, which is chaotic
@@ -88,6 +92,18 @@ public class LogisticRule extends NeuronUpdateRule implements ActivityGenerator,
         neuron.setActivation(clip(x));
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        double range = getUpperBound() - getLowerBound();
+        for (int i = 0; i < array.size(); i++) {
+            double y = (activations.get(i, 0) - getLowerBound()) / range;
+            y = growthRate * y * (1 - y);
+            activations.set(i, 0, clip(range * y + getLowerBound()));
+        }
+    }
+
     public double getGrowthRate() {
         return growthRate;
     }
@@ -18,15 +18,19 @@
  */
 package org.simbrain.network.neuron_update_rules.activity_generators;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>RandomNeuron</b> produces random activations within specified parameters.
@@ -68,6 +72,15 @@ public class RandomNeuronRule extends NeuronUpdateRule implements ActivityGenera
         neuron.setActivation(randomizer.sampleDouble());
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, randomizer.sampleDouble());
+        }
+    }
+
     @Override
     public String getName() {
         return "Random";
@@ -18,16 +18,20 @@
  */
 package org.simbrain.network.neuron_update_rules.activity_generators;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>SinusoidalNeuron</b> produces a sine wave.
@@ -101,6 +105,21 @@ public class SinusoidalRule extends NeuronUpdateRule implements ActivityGenerato
         neuron.setActivation(val);
     }
 
+    /**
+     * All elements of an array oscillate in phase.
+     */
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        Matrix activations = array.getActivations();
+        double range = getUpperBound() - getLowerBound();
+        double val = ((range / 2) * Math.sin(frequency * array.getNetwork().getTime() + phase))
+                + ((getUpperBound() + getLowerBound()) / 2);
+        for (int i = 0; i < array.size(); i++) {
+            activations.set(i, 0, addNoise ? val + noiseGenerator.sampleDouble() : val);
+        }
+    }
+
     @Override
     public ProbabilityDistribution getNoiseGenerator() {
         return noiseGenerator;
@@ -18,12 +18,17 @@
  */
 package org.simbrain.network.neuron_update_rules.activity_generators;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.SpikingNeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.network.util.SpikingMatrixData;
 import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
 
 /**
  * <b>StochasticNeuron</b> is a simple type of random neuron which takes the
@@ -73,6 +78,19 @@ public class StochasticRule extends SpikingNeuronUpdateRule implements ActivityG
         }
     }
 
+    @Override
+    public void apply(Layer arr, MatrixDataHolder data) {
+        var array = (NeuronArray) arr;
+        var spikeData = (SpikingMatrixData) data;
+        Matrix activations = array.getActivations();
+        double time = array.getNetwork().getTime();
+        for (int i = 0; i < array.size(); i++) {
+            boolean spiked = Math.random() > 1 - firingProbability;
+            spikeData.setHasSpiked(i, spiked, time);
+            activations.set(i, 0, spiked ? 1 : 0);
+        }
+    }
+
     public double getFiringProbability() {
         return firingProbability;
     }
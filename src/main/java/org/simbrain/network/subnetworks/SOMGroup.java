@@ -25,7 +25,6 @@ import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.network.layouts.HexagonalGridLayout;
 import org.simbrain.network.layouts.Layout;
 import org.simbrain.network.neuron_update_rules.LinearRule;
-import org.simbrain.network.util.SimnetUtils;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
 
@@ -92,15 +91,26 @@ public class SOMGroup extends NeuronGroup {
     private double initNeighborhoodSize = DEFAULT_INIT_NSIZE;
 
     /**
-     * MinDistance, distance and val are changing variables used in the update
-     * method.
+     * Reference to winning neuron.
      */
-    private double winDistance, distance, val;
+    Neuron winner;
 
     /**
-     * Reference to winning neuron.
+     * Weight vectors of the SOM neurons in array form, rebuilt when the
+     * network structure changes.
      */
-    Neuron winner;
+    private transient SOMPrototypes prototypes;
+
+    /**
+     * Value of {@link Network#getStructureVersion()} when {@link #prototypes}
+     * was built.
+     */
+    private transient long prototypesVersion = -1;
+
+    /**
+     * Buffer for the current input vector.
+     */
+    private transient double[] input;
 
     /**
      * The number of epochs run in a given batch.
@@ -153,9 +163,6 @@ public class SOMGroup extends NeuronGroup {
         this.initAlpha = oldNet.getInitAlpha();
         this.alpha = oldNet.getAlpha();
         this.neighborhoodSize = oldNet.getNeighborhoodSize();
-        this.winDistance = oldNet.winDistance;
-        this.distance = oldNet.distance;
-        this.val = oldNet.val;
         this.batchSize = oldNet.getBatchSize();
         this.alphaDecayRate = oldNet.getAlphaDecayRate();
         this.neighborhoodDecayAmount = oldNet.getNeighborhoodDecayAmount();
@@ -184,6 +191,36 @@ public class SOMGroup extends NeuronGroup {
         }
     }
 
+    /**
+     * The weight vectors of the SOM neurons. Built from the incoming synapses
+     * on first use and again when the network structure changes. Training
+     * writes changed weights back to the synapses.
+     */
+    public SOMPrototypes getPrototypes() {
+        long version = getParentNetwork().getStructureVersion();
+        if (prototypes == null || prototypesVersion != version) {
+            prototypes = new SOMPrototypes(getNeuronList());
+            prototypesVersion = version;
+            input = new double[prototypes.getDimension()];
+        }
+        return prototypes;
+    }
+
+    /**
+     * The weight vectors with the current strengths and bounds of the
+     * synapses, for one update or round of training. Strengths can change
+     * between rounds in many ways, e.g. edits, randomization or a checkpoint
+     * being restored, so they are read again each time, in one pass.
+     */
+    private SOMPrototypes loadPrototypes() {
+        SOMPrototypes cached = prototypes;
+        SOMPrototypes loaded = getPrototypes();
+        if (loaded == cached) {
+            loaded.reload();
+        }
+        return loaded;
+    }
+
     /**
      * Pushes the weight values of an SOM neuron onto the input neurons.
      */
@@ -229,91 +266,92 @@ public class SOMGroup extends NeuronGroup {
      */
     @Override
     public void update() {
-
-        winDistance = Double.POSITIVE_INFINITY;
-        // winner = 0;
-        double physicalDistance;
-
-        // Determine Winner and update neurons: The SOM Neuron with the lowest
-        // distance between  its weight vector and the input neurons's weight
-        // vector.
-        winner = calculateWinner();
-        for (int i = 0; i < getNeuronList().size(); i++) {
-            Neuron n = getNeuronList().get(i);
-            if (n == winner) {
-                n.setActivation(1);
-            } else {
-                n.setActivation(0);
-            }
-        }
-
-        // TODO: Just getting rid of the npc. Need to diagnose later.
+        SOMPrototypes prototypes = loadPrototypes();
+        int winnerIndex = prototypes.findWinner(prototypes.readInput(input));
+        setWinner(winnerIndex);
         if (winner == null) {
             return;
         }
 
-        // Update Synapses of the neurons within the radius of the winning
+        // Update the weights of the neurons within the radius of the winning
         // neuron.
-        for (int i = 0; i < getNeuronList().size(); i++) {
-            Neuron neuron = getNeuronList().get(i);
-            physicalDistance = SimnetUtils.getEuclideanDist(neuron, winner);
-            // The center of the neuron is within the update region.
-            if (physicalDistance <= neighborhoodSize) {
-                for (Synapse incoming : neuron.getFanIn()) {
-                    val = incoming.getStrength() + alpha * (incoming.getSource().getActivation() - incoming.getStrength());
-                    incoming.setStrength(val);
-                }
-            }
-        }
+        prototypes.readLattice();
+        prototypes.update(winnerIndex, input, alpha, neighborhoodSize);
+        prototypes.flush();
 
-        // Update alpha and neighborhood size
-        alpha -= alpha * alphaDecayRate;
-        if (neighborhoodSize - neighborhoodDecayAmount > 0) {
-            neighborhoodSize -= neighborhoodDecayAmount;
-        } else {
-            neighborhoodSize = 0;
-        }
-
-        // For box
-        String stateInfo = "Learning rate (" + Utils.round(getAlpha(), 2) +
-                ") N-size (" + Utils.round(getNeighborhoodSize(), 2) + ")";
-        setStateInfo(stateInfo);
-        events.getLabelChanged().fireAndForget("" , stateInfo);
+        decay(1);
     }
 
     /**
-     * Find the SOM neuron which is closest to the input vector.
+     * Present each row of a data set to the SOM in turn, as {@link #update()}
+     * does, but without setting the input neurons or writing synapse strengths
+     * until all rows have been presented.
      *
-     * @return winner
+     * @param inputs  rows of input values
+     * @param columns the input neurons whose values are in the columns of
+     *                inputs
      */
-    private Neuron calculateWinner() {
-        Neuron winner = null;
-        for (int i = 0; i < getNeuronList().size(); i++) {
-            Neuron n = getNeuronList().get(i);
-            distance = findDistance(n);
-            if (distance < winDistance) {
-                winDistance = distance;
-                winner = n;
+    public void train(double[][] inputs, List<Neuron> columns) {
+        SOMPrototypes prototypes = loadPrototypes();
+        double[][] rows = prototypes.arrange(inputs, columns);
+        prototypes.readLattice();
+        int winnerIndex = -1;
+        for (double[] row : rows) {
+            winnerIndex = prototypes.findWinner(row);
+            if (winnerIndex < 0) {
+                break;
             }
+            prototypes.update(winnerIndex, row, alpha, neighborhoodSize);
+            decay(1);
         }
-        return winner;
+        prototypes.flush();
+        setWinner(winnerIndex);
     }
 
     /**
-     * Calculates the Euclidian distance between the SOM neuron's weight vector
-     * and the input vector.
+     * One epoch of batch SOM training. The winners of all rows are found with
+     * the current weights, and then each neuron's weights are set to the mean
+     * of the rows won by neurons within the neighborhood size of it. Alpha is
+     * not used, and alpha and the neighborhood size decay as they would if the
+     * rows were presented one at a time.
      *
-     * @param n The SOM neuron one wishes to find the for.
-     * @return distance.
+     * @param inputs  rows of input values
+     * @param columns the input neurons whose values are in the columns of
+     *                inputs
+     */
+    public void trainBatch(double[][] inputs, List<Neuron> columns) {
+        SOMPrototypes prototypes = loadPrototypes();
+        prototypes.readLattice();
+        int[] winners = prototypes.trainBatch(prototypes.arrange(inputs, columns), neighborhoodSize);
+        prototypes.flush();
+        setWinner(winners.length == 0 ? -1 : winners[winners.length - 1]);
+        decay(inputs.length);
+    }
+
+    /**
+     * Make the neuron at an index the winner, with an activation of 1, and set
+     * the other activations to 0.
      */
-    private double findDistance(final Neuron n) {
-        double ret = 0;
-        for (Synapse incoming : n.getFanIn()) {
-            ret += Math.pow(incoming.getStrength() - incoming.getSource().getActivation(), 2);
+    private void setWinner(int winnerIndex) {
+        winner = winnerIndex < 0 ? null : getNeuronList().get(winnerIndex);
+        for (int i = 0; i < getNeuronList().size(); i++) {
+            getNeuronList().get(i).setActivation(i == winnerIndex ? 1 : 0);
         }
-        return ret;
     }
 
+    /**
+     * Decay alpha and the neighborhood size as for a number of updates.
+     */
+    private void decay(int updates) {
+        alpha *= Math.pow(1 - alphaDecayRate, updates);
+        neighborhoodSize = Math.max(0, neighborhoodSize - updates * neighborhoodDecayAmount);
+
+        // For box
+        String stateInfo = "Learning rate (" + Utils.round(getAlpha(), 2) +
+                ") N-size (" + Utils.round(getNeighborhoodSize(), 2) + ")";
+        setStateInfo(stateInfo);
+        events.getLabelChanged().fireAndForget("" , stateInfo);
+    }
 
     /**
      * get Alpha.
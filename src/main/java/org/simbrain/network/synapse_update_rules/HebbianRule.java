@@ -22,6 +22,7 @@ import org.simbrain.network.core.Connector;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.network.core.SynapseUpdateRule;
 import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeightMatrix;
 import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
@@ -62,6 +63,20 @@ public class HebbianRule extends SynapseUpdateRule {
             Matrix tar = ((NeuronArray)connector.getTarget()).getActivations();
             // weights += Learning rate * outer-product(src,tar)
             wm.add(src.mt(tar).mul(learningRate));
+        } else if (connector instanceof SparseWeightMatrix) {
+            // Only stored entries are updated, so the matrix stays sparse
+            SparseWeightMatrix swm = (SparseWeightMatrix) connector;
+            Matrix src = connector.getSource().getOutputs();
+            Matrix tar = connector.getTarget().getOutputs();
+            int[] rowStarts = swm.getRowStarts();
+            int[] cols = swm.getColumnIndices();
+            double[] values = swm.getValues();
+            for (int i = 0; i < swm.nrows(); i++) {
+                double post = tar.get(i, 0);
+                for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                    values[k] += learningRate * src.get(cols[k], 0) * post;
+                }
+            }
         }
     }
 
@@ -22,20 +22,19 @@ import org.simbrain.network.core.Neuron;
 import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.subnetworks.BackpropNetwork;
+import org.simbrain.network.util.BiasedMatrixData;
 import org.simbrain.util.UserParameter;
-import smile.math.matrix.Matrix;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Array-backed backprop. To be supplanted by new Smile objects, but still allows backprop with "loose" neurons and old
- * style neuron groups, which has some pedagogical purpose.
+ * Array-backed backprop, using {@link BatchBackprop} to train the weight matrices and biases of a
+ * {@link BackpropNetwork} on whole batches of rows at once.
  * <p>
- *
- *  NOTE: This is likely to be replaced. It is not properly implemented now. It was quickly converted from ND4J to
- *  Smile to help debug other parts of the code and facilitate design.
+ * Training works on copies of the weights and biases, which are copied into the network at the end of each epoch
+ * (after each iteration for the epoch and mini-batch methods, and after as many iterations as there are rows for the
+ * single row methods), and when changes are committed.
  *
  * @author Zoë Tosi
  * @author Jeff Yoshimi
@@ -53,81 +52,19 @@ public class BackpropTrainer extends IterableTrainer {
     public static final double DEFAULT_MOMENTUM = 0.2;
 
     /**
-     * The backprop network to be trained.
-     */
-    private BackpropNetwork net;
-
-    /**
-     * Memory of last weight updates for momentum.
-     */
-    private List<Matrix> lastWeightUpdates = new ArrayList<>();
-
-    /**
-     * Memory of last bias updates for momentum.
-     */
-    private List<Matrix> lastBiasUpdates = new ArrayList<>();
-
-    /**
-     * Activation vectors.
-     */
-    private List<Matrix> activations = new ArrayList<>();
-
-    private List<NeuronArray> layers = new ArrayList<>();
-
-    /**
-     * Net inputs.
-     */
-    private List<Matrix> netInputs = new ArrayList<>();
-
-    /**
-     * Biases.
-     */
-    private List<Matrix> biases = new ArrayList<>();
-
-    /**
-     * Errors for a single input row.
-     */
-    private Matrix errors;
-
-    /**
-     * Aggregate errors for a batch of input rows.
-     */
-    private Matrix batchErrors;
-
-    /**
-     * Deltas on on the neurons of the network (error times derivative).
+     * Default number of rows per mini-batch.
      */
-    private List<Matrix> deltas = new ArrayList<Matrix>();
+    public static final int DEFAULT_BATCH_SIZE = 32;
 
     /**
-     * Holder for derivatives.
-     */
-    private List<Matrix> derivs = new ArrayList<Matrix>();
-
-    /**
-     * Input layer. Holds current input vector from input dataset. Separate for simpler indexing on other lists.
-     */
-    private Matrix inputLayer;
-
-    /**
-     * Current target vector.
-     */
-    private Matrix targetVector;
-
-    /**
-     * Inputs.
+     * The backprop network to be trained.
      */
-    private Matrix inputData;
+    private BackpropNetwork net;
 
     /**
-     * Targets.
+     * Trains copies of the network's weights and biases.
      */
-    private Matrix targetData;
-
-    // /**
-    //  * List of activation functions for easy reference.
-    //  */
-    // private List<TransferFunction> updateRules = new ArrayList<TransferFunction>();
+    private BatchBackprop engine;
 
     @UserParameter(label = "Learning Rate", description = "Learning Rate", minimumValue = 0, maximumValue = 10,
             order = 1)
@@ -139,6 +76,13 @@ public class BackpropTrainer extends IterableTrainer {
     @UserParameter(label = "Update Method", description = "Update Method", order = 10)
     private UpdateMethod updateMethod = UpdateMethod.SINGLE;
 
+    /**
+     * Number of rows per weight update for {@link UpdateMethod#MINI_BATCH}.
+     */
+    @UserParameter(label = "Batch Size", description = "Rows per weight update when training in mini-batches",
+            minimumValue = 1, order = 20)
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
     /**
      * Specifies the method for batching data when calculating network outputs and errors.
      */
@@ -147,6 +91,10 @@ public class BackpropTrainer extends IterableTrainer {
             public String toString() {
                 return "Epoch (whole dataset per iteration)";
             }
+        }, MINI_BATCH {
+            public String toString() {
+                return "Mini-batch (shuffled dataset in batches per iteration)";
+            }
         }, STOCHASTIC {
             public String toString() {
                 return "Stochastic (random row per iteration)";
@@ -157,7 +105,6 @@ public class BackpropTrainer extends IterableTrainer {
             }
         }
     }
-    // TODO: Mini-batch
 
     /**
      * Momentum. Must be between 0 and 1.
@@ -186,35 +133,7 @@ public class BackpropTrainer extends IterableTrainer {
      */
     public BackpropTrainer(BackpropNetwork network) {
         net = network;
-
-        // Weight Matrix group list is ordered from input to output layers
-        for (WeightMatrix wm : net.getModelList().get(WeightMatrix.class)) {
-            lastWeightUpdates.add(new Matrix(wm.getWeightMatrix().nrows(), wm.getWeightMatrix().ncols()));
-        }
-
-        // Initialize layers
-        int ii = 0;
-        for (NeuronArray na : net.getModelList().get(NeuronArray.class)) {
-            if (ii > 0) {
-                activations.add(new Matrix(1,na.size()));
-                netInputs.add(new Matrix(1, na.size()));
-                deltas.add(new Matrix(1, na.size()));
-                // Matrix bs = new Matrix(wm.getBiases())
-                //         .reshape(1, wm.getBiases().length);
-                Matrix biasVector = new Matrix(1, na.size());
-                biases.add(biasVector);
-                // lastBiasUpdates.add(Nd4j.zeros(bs.rows(), bs.columns()));
-                lastBiasUpdates.add(biasVector.clone());
-                // updateRules.add((TransferFunction) neuronGroup.getNeuronList().get(0).getUpdateRule());
-                layers.add(na);
-                derivs.add(new Matrix(1,na.size()));
-            } else {
-                inputLayer = new Matrix(1,na.size());
-            }
-            ii++;
-        }
-        errors = new Matrix(1, getOutputLayer().ncols());
-        batchErrors = new Matrix(1, getOutputLayer().ncols());
+        engine = new BatchBackprop(network);
         setLearningRate(DEFAULT_LEARNING_RATE);
         setMomentum(DEFAULT_MOMENTUM);
     }
@@ -222,173 +141,42 @@ public class BackpropTrainer extends IterableTrainer {
     @Override
     public void apply() {
         // Apply one training step according to the currently selected update method
-        mse = 0;
         int numTrainingExamples = getMinimumNumRows();
+        engine.setLearningRate(learningRate);
+        engine.setMomentum(momentum);
+        boolean endOfEpoch = true;
         if (updateMethod == UpdateMethod.EPOCH) {
-            mse = trainRows(0, numTrainingExamples);
-        } else if (updateMethod == UpdateMethod.STOCHASTIC) {
-            int rowNum = ThreadLocalRandom.current().nextInt(numTrainingExamples);
-            mse = trainRow(rowNum);
-        } else if (updateMethod == UpdateMethod.SINGLE) {
-            mse = trainRow(getIteration() % numTrainingExamples);
+            engine.setBatchSize(numTrainingExamples);
+            mse = engine.trainEpoch(getTrainingSet(), false);
+        } else if (updateMethod == UpdateMethod.MINI_BATCH) {
+            engine.setBatchSize(batchSize);
+            mse = engine.trainEpoch(getTrainingSet());
+        } else {
+            int rowNum = updateMethod == UpdateMethod.STOCHASTIC
+                    ? ThreadLocalRandom.current().nextInt(numTrainingExamples)
+                    : getIteration() % numTrainingExamples;
+            mse = engine.trainBatch(getTrainingSet(), new int[]{rowNum});
+            endOfEpoch = (getIteration() + 1) % numTrainingExamples == 0;
+        }
+        if (endOfEpoch) {
+            engine.sync();
         }
         incrementIteration();
         getEvents().getErrorUpdated().fireAndForget(mse);
     }
 
     /**
-     * Backpropagate error on a single row of the dataset.
-     *
-     * @param row Which row of the dataset to use for this update.
-     * @return mean squared error of the row
-     */
-    private double trainRow(int row) {
-        batchErrors.mul(0);
-        // Get the inputs and feed them forward
-        inputLayer = net.getTrainingSet().getInputs().row(new int[]{row});
-        updateNetwork();
-        // Backpropagate error
-        targetVector = targetData.row(new int[]{row});
-        targetVector = getOutputLayer().sub(errors);
-        batchErrors.add(errors);
-        backpropagateError();
-        // Update weights and biases
-        updateParameters();
-        // Return the MSE for the row
-        return (double) batchErrors.mul(batchErrors).sum() /getOutputLayer().size();
-    }
-
-    /**
-     * Backpropagate errors for all rows in the dataset.
-     *
-     * @return mean squared error
-     */
-    private double trainRows(int firstRow, int lastRow) {
-        // Get inputs and feed them forward row-by-row
-        batchErrors.mul(0);
-        for (int row = firstRow; row < lastRow; row++) {
-
-            // Get the inputs and feed them forward
-            inputLayer = inputData.row(new int[]{row});
-            updateNetwork();
-            targetVector = targetData.row(new int[]{row});
-            targetVector = getOutputLayer().sub(errors);
-
-            // Calculate batch errors
-            batchErrors.add(errors);
-            System.out.println(batchErrors);
-        }
-        batchErrors.div(lastRow - firstRow);
-        // Back propagate batch errors
-        backpropagateError();
-        // Update weights and biases
-        updateParameters();
-        // Return the MSE for the batch
-        return (double) batchErrors.mul(batchErrors).sum() / getOutputLayer().size();
-    }
-
-    /**
-     * Update the array-based "shadow" network.
+     * Train for one epoch on a dataset streamed from disk, in batches of {@link #batchSize} rows, instead of the
+     * training set of the network.
      */
-    private void updateNetwork() {
-
-        for (int i = 0; i < net.getModelList().get(WeightMatrix.class).size(); i++) {
-
-            // Set up variables for easy reading
-            Matrix netInput = netInputs.get(i);
-            Matrix biasVec = biases.get(i);
-            Matrix weights = net.getModelList().get(WeightMatrix.class).stream().toList().get(i).getWeightMatrix();
-
-            // Set inputs
-            Matrix inputs;
-            if (i == 0) {
-                inputs = inputLayer;
-            } else {
-                inputs = activations.get(i - 1);
-            }
-
-            // Multiply weight matrix times inputs and store in next layer netInput
-            inputs = weights.mm(netInput);
-
-            // Add biases to the net input
-            netInput.add(biasVec);
-
-            // Apply the transfer function to net input to get the activation values for the next layer and store
-            // that value in the activations vector, also calculate derivatives.
-            // updateRules.get(i).applyFunctionAndDerivative(netInput, activations.get(i), derivs.get(i));
-        }
-    }
-
-    /**
-     * Set error values using backprop (roughly output errors times intervening weights, going "backwards" from output
-     * towards input).
-     */
-    private void backpropagateError() {
-        int maxLayerIndex = activations.size() - 1;
-
-        // Calculate output deltas from error and derivative
-        batchErrors = derivs.get(maxLayerIndex).mul(deltas.get(maxLayerIndex));
-        Matrix wts = net.getModelList().get(WeightMatrix.class).stream().toList().get(maxLayerIndex).getWeightMatrix();
-        deltas.set(maxLayerIndex, wts.transpose().mm(deltas.get(maxLayerIndex - 1)));
-
-        // Deltas for 2nd to last layer
-        deltas.set(maxLayerIndex - 1, deltas.get(maxLayerIndex - 1).mm(derivs.get(maxLayerIndex - 1)));
-        // For multiple hidden layers
-        for (int layerIndex = maxLayerIndex - 1; layerIndex > 0; layerIndex--) {
-            wts = net.getModelList().get(WeightMatrix.class).stream().toList().get(layerIndex).getWeightMatrix();
-            deltas.set(layerIndex, wts.transpose().mm(deltas.get(layerIndex - 1)));
-            deltas.set(layerIndex - 1, deltas.get(layerIndex - 1).mm(derivs.get(layerIndex - 1)));
-        }
-    }
-
-    /**
-     * Apply weight and bias updates.
-     */
-    private void updateParameters() {
-        int layerIndex = 0;
-        for (WeightMatrix weightMatrix : net.getModelList().get(WeightMatrix.class)) {
-            Matrix wm = weightMatrix.getWeightMatrix();
-            Matrix prevLayer;
-            Matrix lastDeltas = lastWeightUpdates.get(layerIndex);
-            Matrix lastBiasDeltas = lastBiasUpdates.get(layerIndex);
-
-            if (layerIndex == 0) {
-                prevLayer = inputLayer;
-            } else {
-                prevLayer = activations.get(layerIndex - 1);
-            }
-            Matrix biasVector = biases.get(layerIndex);
-            Matrix currentLayer = activations.get(layerIndex);
-
-            // Update weights, traversing along weight matrix in column-major order
-            int kk = 0;
-            for (int ii = 0; ii < prevLayer.ncols(); ii++) {
-                for (int jj = 0; jj < currentLayer.ncols(); jj++) {
-                    float deltaVal =
-                            (float) (learningRate * deltas.get(layerIndex).get(jj, 0) * prevLayer.get(ii, 0)
-                                    + (momentum * lastDeltas.get(kk, 0)));
-                    wm.set(kk, 0, wm.get(kk, 0) + deltaVal);
-                    lastDeltas.set(kk, 0, deltaVal);
-                    kk++;
-                }
-            }
-            // // Update biases
-            // for (int ii = 0; ii < biasVector.ncols(); ii++) {
-            //     float deltaVal =
-            //             (float) (learningRate * deltas.get(layerIndex).getDouble(ii) + (momentum * lastBiasDeltas.getDouble(ii)));
-            //     biasVector.putScalar(ii, biasVector.getDouble(ii) + deltaVal);
-            //     lastBiasDeltas.putScalar(ii, deltaVal);
-            // }
-            weightMatrix.getEvents().getUpdated().fireAndForget();
-            layerIndex++;
-        }
-    }
-
-    /**
-     * Helper to get output layer.
-     */
-    private Matrix getOutputLayer() {
-        return activations.get(activations.size() - 1);
+    public void apply(StreamingDataset source) {
+        engine.setLearningRate(learningRate);
+        engine.setMomentum(momentum);
+        engine.setBatchSize(batchSize);
+        mse = engine.trainEpoch(source);
+        engine.sync();
+        incrementIteration();
+        getEvents().getErrorUpdated().fireAndForget(mse);
     }
 
     @Override
@@ -401,12 +189,14 @@ public class BackpropTrainer extends IterableTrainer {
         // Randomize weights
         net.getModelList().get(WeightMatrix.class).forEach(WeightMatrix::randomize);
         // Randomize biases
-        // TODO: Move randomization of ndarrays to utility method
-        for (int kk = 0; kk < biases.size(); ++kk) {
-            for (int ii = 0; ii < biases.get(kk).ncols(); ii++) {
-                biases.get(kk).set(ii, 0, (Math.random() * 0.1) - 0.05);
+        for (NeuronArray na : net.getModelList().get(NeuronArray.class)) {
+            if (na.getDataHolder() instanceof BiasedMatrixData data) {
+                for (int ii = 0; ii < data.getBiases().length; ii++) {
+                    data.getBiases()[ii] = (Math.random() * 0.1) - 0.05;
+                }
             }
         }
+        engine.reset();
     }
 
     @Override
@@ -414,67 +204,16 @@ public class BackpropTrainer extends IterableTrainer {
         return net.getTrainingSet();
     }
 
-    // /**
-    //  * Print debug info.
-    //  */
-    // public void printDebugInfo() {
-    //     System.out.println("---------------------------");
-    //     System.out.println("Node Layer 1");
-    //     System.out.println("\tActivations:" + inputLayer);
-    //     for (int i = 0; i < activations.size(); i++) {
-    //         System.out.println("Weight Layer " + (i + 1) + " --> " + (i + 2));
-    //         System.out.println("\tWeights:" + net.getWeightMatrixList().get(i));
-    //         System.out.println("Node Layer " + (i + 2));
-    //         System.out.println("\tActivations: " + activations.get(i));
-    //         System.out.println("\tBiases: " + biases.get(i));
-    //         System.out.println("\tDeltas: " + deltas.get(i));
-    //         System.out.println("\tNet inputs: " + netInputs.get(i));
-    //         System.out.println("\tDerivatives: " + derivs.get(i));
-    //     }
-    //     System.out.println("MSE:" + getError());
-    // }
-    //
-    // public void printShapes() {
-    //     System.out.println("---------------------------");
-    //     System.out.println("Node Layer 1");
-    //     System.out.println("\tActivations:" + Utils.shapeString(inputLayer));
-    //     for (int i = 0; i < activations.size(); i++) {
-    //         System.out.println("Weight Layer " + (i + 1) + " --> " + (i + 2));
-    //         System.out.println("\tWeights:" + Utils.shapeString(net.getWeightMatrixList().get(i).getWeightMatrix()));
-    //         System.out.println("Node Layer " + (i + 2));
-    //         System.out.println("\tActivations: " + Utils.shapeString(activations.get(i)));
-    //         System.out.println("\tBiases: " + Utils.shapeString(biases.get(i)));
-    //         System.out.println("\tDeltas: " + Utils.shapeString(deltas.get(i)));
-    //         System.out.println("\tNet inputs: " + Utils.shapeString(netInputs.get(i)));
-    //         System.out.println("\tDerivatives: " + Utils.shapeString(derivs.get(i)));
-    //     }
-    //     System.out.println("MSE:" + getError());
-    // }
-
     @Override
     public void commitChanges() {
-        for (int ii = 0; ii < activations.size(); ++ii) {
-            for (int jj = 0; jj < layers.get(ii).size(); ++jj) {
-                layers.get(ii).setActivations(activations.get(ii));
-                // TODO
-                // ((BiasedUpdateRule) layers.get(ii).getNeuron(jj).getUpdateRule()).setBias(biases.get(ii).get(jj
-                //         , 0));
-            }
-        }
+        engine.sync();
     }
 
     /**
-     * Initialize input and target datasets ND4J matrices.
+     * Use the current weights and biases of the network, e.g. after they have been edited.
      */
     public void initData() {
-        // TODO
-        // // Store data as columns since that's what everything else deals with so there is no need to transpose later.
-        // if (network.getTrainingSet().getInputData() != null) {
-        //     inputData = Nd4j.create(Utils.castToFloat(network.getTrainingSet().getInputData()));
-        // }
-        // if (network.getTrainingSet().getTargetData() != null) {
-        //     targetData = Nd4j.create(Utils.castToFloat(network.getTrainingSet().getTargetData()));
-        // }
+        engine.reset();
     }
 
     public double getLearningRate() {
@@ -489,8 +228,12 @@ public class BackpropTrainer extends IterableTrainer {
         this.momentum = momentum;
     }
 
-    public List<Matrix> getBiases() {
-        return biases;
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
     }
 
     public void setUpdateMethod(UpdateMethod updateMethod) {
@@ -500,4 +243,4 @@ public class BackpropTrainer extends IterableTrainer {
     public BackpropNetwork getNetwork() {
         return net;
     }
-}
\ No newline at end of file
+}
@@ -18,8 +18,11 @@
  */
 package org.simbrain.network.trainers;
 
+import org.simbrain.network.core.Neuron;
 import org.simbrain.network.subnetworks.SOMNetwork;
 
+import java.util.List;
+
 /**
  * A trainer for SOM Networks. Just goes through input data sets input node and
  * updates the SOM Group, which has the training code built in.
@@ -46,6 +49,28 @@ public class SOMTrainer extends Trainer {
      */
     private int iteration = 0;
 
+    /**
+     * How the rows of the training set are used in an epoch.
+     */
+    public enum UpdateMethod {
+        /**
+         * Present rows one at a time, updating the winner's neighborhood after
+         * each.
+         */
+        ONLINE,
+
+        /**
+         * Find the winners of all rows, then set each weight vector to the mean
+         * of the rows won in its neighborhood.
+         */
+        BATCH
+    }
+
+    /**
+     * Current update method.
+     */
+    private UpdateMethod updateMethod = UpdateMethod.ONLINE;
+
     /**
      * Construct the UnsupervisedNeuronGroupTrainer trainer.
      *
@@ -65,11 +90,15 @@ public class SOMTrainer extends Trainer {
             throw new DataNotInitializedException("Input data not initalized");
         }
 
-        int numRows = network.getTrainingSet().getInputData().length;
-        for (int row = 0; row < numRows; row++) {
-            double[] inputs = network.getTrainingSet().getInputData()[row];
-            network.getInputLayer().forceSetActivations(inputs);
-            network.getSom().update(); // Call a function here to be overriden in subclasses?
+        double[][] inputs = network.getTrainingSet().getInputData();
+        List<Neuron> inputNeurons = network.getInputLayer().getNeuronList();
+        if (updateMethod == UpdateMethod.BATCH) {
+            network.getSom().trainBatch(inputs, inputNeurons);
+        } else {
+            network.getSom().train(inputs, inputNeurons);
+        }
+        if (inputs.length > 0) {
+            network.getInputLayer().forceSetActivations(inputs[inputs.length - 1]);
         }
         incrementIteration();
 
@@ -78,6 +107,14 @@ public class SOMTrainer extends Trainer {
 
     }
 
+    public UpdateMethod getUpdateMethod() {
+        return updateMethod;
+    }
+
+    public void setUpdateMethod(UpdateMethod updateMethod) {
+        this.updateMethod = updateMethod;
+    }
+
     /**
      * @return boolean updated completed.
      */
@@ -24,7 +24,7 @@ import org.simbrain.network.core.Synapse;
 import org.simbrain.network.neuron_update_rules.LinearRule;
 import org.simbrain.network.synapse_update_rules.StaticSynapseRule;
 
-import java.awt.*;
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -63,7 +63,7 @@ public final class CascadingNetworkBuilder {
     /**
      * Initial position of the root neuron in the cascade.
      */
-    private Point initialPosition = new Point(50, 50);
+    private Point2D initialPosition = new Point2D.Double(50, 50);
 
     /**
      * Reference to root network.
@@ -125,7 +125,7 @@ public final class CascadingNetworkBuilder {
                 double initialXOffset = branchWidth / 2;
                 for (int j = 0; j < numBrachesPerNeuron; j++) {
                     Neuron targetNeuron = new Neuron(network, new LinearRule()); // TODO;
-                    targetNeuron.setLocation(baseNeuron.getX() - initialXOffset + (j * layerSpacing), initialPosition.y - (layerIndex * verticalSpacing));
+                    targetNeuron.setLocation(baseNeuron.getX() - initialXOffset + (j * layerSpacing), initialPosition.getY() - (layerIndex * verticalSpacing));
                     tempList.add(targetNeuron);
                     network.addNetworkModel(targetNeuron);
                     targetNeuron.setUpdatePriority(layerIndex);
@@ -197,14 +197,14 @@ public final class CascadingNetworkBuilder {
     /**
      * @return the initialPosition
      */
-    public Point getInitialPosition() {
+    public Point2D getInitialPosition() {
         return initialPosition;
     }
 
     /**
      * @param initialPosition the initialPosition to set
      */
-    public void setInitialPosition(Point initialPosition) {
+    public void setInitialPosition(Point2D initialPosition) {
         this.initialPosition = initialPosition;
     }
 }
@@ -56,52 +56,56 @@ public class AbstractComponentFactory {
     private Map<String, Supplier<WorkspaceComponent>> workspaceComponentFactories = new HashMap<>();
     private Map<Class<?>, GuiComponentFactory> guiComponentFactories = new HashMap<>();
     private Workspace workspace;
+    private boolean guiFactoriesRegistered = false;
 
     public AbstractComponentFactory(Workspace workspace) {
         this.workspace = workspace;
 
         // World components
         putWorkspaceComponentFactory("3D World", () -> ThreeDWorldComponent.create(workspace, ""));
-        putGuiComponentFactory(ThreeDWorldComponent.class, ThreeDDesktopComponent::new);
-
         putWorkspaceComponentFactory("Odor World", () -> new OdorWorldComponent(""));
-        putGuiComponentFactory(OdorWorldComponent.class, OdorWorldDesktopComponent::new);
-
         putWorkspaceComponentFactory("Data Table", () -> DataWorldComponent.createDataWorld(new NumericTable(), ""));
-        putGuiComponentFactory(DataWorldComponent.class, DataWorldDesktopComponent::new);
-
         putWorkspaceComponentFactory("Text World", () -> new TextWorldComponent(""));
-        putGuiComponentFactory(TextWorldComponent.class, TextWorldDesktopComponent::new);
-
         putWorkspaceComponentFactory("Image World", ImageWorldComponent::new);
-        putGuiComponentFactory(ImageWorldComponent.class, ImageWorldDesktopComponent::new);
-
         // putWorkspaceComponentFactory("Pixel Plot", PixelPlotComponent::new);
-        // putGuiComponentFactory(PixelPlotComponent.class, PixelPlotDesktopComponent::new);
-
         putWorkspaceComponentFactory("Device Interaction", () -> new DeviceInteractionComponent(""));
-        putGuiComponentFactory(DeviceInteractionComponent.class, DeviceInteractionDesktopComponent::new);
 
         // Plot components
         putWorkspaceComponentFactory("Bar Chart", () -> new BarChartComponent(""));
-        putGuiComponentFactory(BarChartComponent.class, BarChartDesktopComponent::new);
-
         putWorkspaceComponentFactory("Histogram", () -> new HistogramComponent(""));
-        putGuiComponentFactory(HistogramComponent.class, HistogramDesktopComponent::new);
-
         putWorkspaceComponentFactory("Pie Chart", () -> new PieChartComponent(""));
-        putGuiComponentFactory(PieChartComponent.class, PieChartDesktopComponent::new);
-
         putWorkspaceComponentFactory("Pixel Plot", () -> new PixelPlotComponent(""));
-        putGuiComponentFactory(PixelPlotComponent.class, PixelPlotDesktopComponent::new);
-
         putWorkspaceComponentFactory("Projection Plot", () -> new ProjectionComponent(""));
-        putGuiComponentFactory(ProjectionComponent.class, ProjectionDesktopComponent::new);
-
         putWorkspaceComponentFactory("Time Series", () -> new TimeSeriesPlotComponent(""));
-        putGuiComponentFactory(TimeSeriesPlotComponent.class, TimeSeriesDesktopComponent::new);
-
         putWorkspaceComponentFactory("Raster Plot", () -> new RasterPlotComponent(""));
+    }
+
+    /**
+     * Register the factories for gui components. Done when the first gui component is created rather than in the
+     * constructor, so that a workspace without a desktop does not load desktop component classes.
+     */
+    private void registerGuiComponentFactories() {
+        if (guiFactoriesRegistered) {
+            return;
+        }
+        guiFactoriesRegistered = true;
+
+        // World components
+        putGuiComponentFactory(ThreeDWorldComponent.class, ThreeDDesktopComponent::new);
+        putGuiComponentFactory(OdorWorldComponent.class, OdorWorldDesktopComponent::new);
+        putGuiComponentFactory(DataWorldComponent.class, DataWorldDesktopComponent::new);
+        putGuiComponentFactory(TextWorldComponent.class, TextWorldDesktopComponent::new);
+        putGuiComponentFactory(ImageWorldComponent.class, ImageWorldDesktopComponent::new);
+        // putGuiComponentFactory(PixelPlotComponent.class, PixelPlotDesktopComponent::new);
+        putGuiComponentFactory(DeviceInteractionComponent.class, DeviceInteractionDesktopComponent::new);
+
+        // Plot components
+        putGuiComponentFactory(BarChartComponent.class, BarChartDesktopComponent::new);
+        putGuiComponentFactory(HistogramComponent.class, HistogramDesktopComponent::new);
+        putGuiComponentFactory(PieChartComponent.class, PieChartDesktopComponent::new);
+        putGuiComponentFactory(PixelPlotComponent.class, PixelPlotDesktopComponent::new);
+        putGuiComponentFactory(ProjectionComponent.class, ProjectionDesktopComponent::new);
+        putGuiComponentFactory(TimeSeriesPlotComponent.class, TimeSeriesDesktopComponent::new);
         putGuiComponentFactory(RasterPlotComponent.class, RasterPlotDesktopComponent::new);
 
         // Other
@@ -116,6 +120,7 @@ public class AbstractComponentFactory {
     }
 
     public <S extends WorkspaceComponent> void putGuiComponentFactory(Class<S> type, BiFunction<GenericFrame, S, DesktopComponent<S>> factory) {
+        registerGuiComponentFactories();
         guiComponentFactories.put(type, (frame, component) -> factory.apply(frame, (S) component));
     }
 
@@ -128,6 +133,7 @@ public class AbstractComponentFactory {
     }
 
     public DesktopComponent createGuiComponent(GenericFrame frame, WorkspaceComponent workspaceComponent) {
+        registerGuiComponentFactories();
         if (guiComponentFactories.containsKey(workspaceComponent.getClass())) {
             GuiComponentFactory factory = guiComponentFactories.get(workspaceComponent.getClass());
             return factory.apply(frame, workspaceComponent);
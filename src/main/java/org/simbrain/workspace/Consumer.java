@@ -5,6 +5,8 @@ import org.simbrain.workspace.couplings.Coupling;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * The part of a {@link Coupling} that receives values from a {@link Producer}.
@@ -12,6 +14,18 @@ import java.lang.reflect.Type;
  */
 public class Consumer extends Attribute {
 
+    /**
+     * Compiled version of the setter, or null to call it using reflection.
+     * See {@link org.simbrain.workspace.couplings.AttributeAccessors}.
+     */
+    private BiConsumer<Object, Object> setter;
+
+    /**
+     * Compiled version of the setter that takes doubles without boxing them,
+     * or null if the setter does not take a double or is not compiled.
+     */
+    private ObjDoubleConsumer<Object> doubleSetter;
+
     /**
      * Contruct a consumer.
      *
@@ -39,6 +53,10 @@ public class Consumer extends Attribute {
      * @param value the value to set
      */
     public void setValue(Object value) {
+        if (setter != null) {
+            setter.accept(baseObject, value);
+            return;
+        }
         try {
             method.invoke(baseObject, value);
         } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
@@ -47,6 +65,20 @@ public class Consumer extends Attribute {
         }
     }
 
+    /**
+     * Update a consumer of doubles, without boxing the value if the setter is
+     * compiled.
+     *
+     * @param value the value to set
+     */
+    public void setDoubleValue(double value) {
+        if (doubleSetter != null) {
+            doubleSetter.accept(baseObject, value);
+        } else {
+            setValue(value);
+        }
+    }
+
     @Override
     public Type getType() {
         return method.getGenericParameterTypes()[0];
@@ -83,6 +115,19 @@ public class Consumer extends Attribute {
             product = new Consumer(baseObject, method);
         }
 
+        /**
+         * Set compiled versions of the setter.
+         *
+         * @param setter       the setter
+         * @param doubleSetter the setter for doubles, or null if it does not take a double
+         * @return the Builder instance (for use in chained initialization)
+         */
+        public ConsumerBuilder accessors(BiConsumer<Object, Object> setter, ObjDoubleConsumer<Object> doubleSetter) {
+            product.setter = setter;
+            product.doubleSetter = doubleSetter;
+            return this;
+        }
+
         @Override
         protected Consumer product() {
             return product;
@@ -5,6 +5,8 @@ import org.simbrain.workspace.couplings.Coupling;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * The part of a {@link Coupling} that send values to a {@link Consumable}.
@@ -19,6 +21,18 @@ public class Producer extends Attribute {
      */
     private Method arrayDescriptionMethod;
 
+    /**
+     * Compiled version of the getter, or null to call it using reflection.
+     * See {@link org.simbrain.workspace.couplings.AttributeAccessors}.
+     */
+    private Function<Object, Object> getter;
+
+    /**
+     * Compiled version of the getter that returns doubles without boxing them,
+     * or null if the getter does not return a double or is not compiled.
+     */
+    private ToDoubleFunction<Object> doubleGetter;
+
     /**
      * Contruct a producer.
      *
@@ -46,6 +60,9 @@ public class Producer extends Attribute {
      * @return current value
      */
     public Object getValue() {
+        if (getter != null) {
+            return getter.apply(baseObject);
+        }
         try {
             return method.invoke(baseObject);
         } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
@@ -54,6 +71,19 @@ public class Producer extends Attribute {
         }
     }
 
+    /**
+     * Return the value of a producer of doubles, without boxing it if the
+     * getter is compiled.
+     *
+     * @return current value
+     */
+    public double getDoubleValue() {
+        if (doubleGetter != null) {
+            return doubleGetter.applyAsDouble(baseObject);
+        }
+        return (Double) getValue();
+    }
+
     @Override
     public Type getType() {
         return method.getReturnType();
@@ -119,6 +149,19 @@ public class Producer extends Attribute {
             return this;
         }
 
+        /**
+         * Set compiled versions of the getter.
+         *
+         * @param getter       the getter
+         * @param doubleGetter the getter for doubles, or null if it does not return a double
+         * @return the Builder instance (for use in chained initialization)
+         */
+        public ProducerBuilder accessors(Function<Object, Object> getter, ToDoubleFunction<Object> doubleGetter) {
+            product.getter = getter;
+            product.doubleGetter = doubleGetter;
+            return this;
+        }
+
         @Override
         protected Producer product() {
             return product;
@@ -19,12 +19,17 @@
 package org.simbrain.workspace;
 
 import org.pmw.tinylog.Logger;
+import org.simbrain.util.LatencyHistogram;
+import org.simbrain.util.Metrics;
 import org.simbrain.workspace.couplings.CouplingManager;
 import org.simbrain.workspace.events.WorkspaceComponentEvents2;
 import org.simbrain.workspace.gui.ComponentPanel;
 import org.simbrain.workspace.gui.DesktopComponent;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -77,6 +82,13 @@ public abstract class WorkspaceComponent {
      */
     private String name = "";
 
+    /**
+     * Histograms of the time taken to update this component and the couplings into it. Resolved from the name when
+     * first used, and again when the name changes.
+     */
+    private transient LatencyHistogram updateLatency;
+    private transient LatencyHistogram couplingsLatency;
+
     /**
      * Current file. Used when "saving" a component. Subclasses can provide a
      * default value using User Preferences.
@@ -108,6 +120,51 @@ public abstract class WorkspaceComponent {
      */
     public abstract void save(OutputStream output, String format);
 
+    /**
+     * Used when saving a workspace. Saves like {@link #save(OutputStream, String)}, but parts of the component that
+     * have a compact binary form can be written to a separate snapshot instead. The default is to write no
+     * snapshot.
+     *
+     * @param output   the stream to write the main data to.
+     * @param snapshot the stream to write the binary snapshot to.
+     * @param format   a key used to define the requested format.
+     * @return true if a snapshot was written, which must then be passed to {@link #openSnapshot(InputStream)}
+     * when the component is opened.
+     */
+    public boolean save(OutputStream output, OutputStream snapshot, String format) {
+        save(output, format);
+        return false;
+    }
+
+    /**
+     * Used when opening a workspace. Read a snapshot written by {@link #save(OutputStream, OutputStream, String)}
+     * into a component that has been opened from its main data.
+     *
+     * @param snapshot the stream to read the snapshot from.
+     * @throws IOException if the snapshot cannot be read.
+     */
+    public void openSnapshot(InputStream snapshot) throws IOException {
+    }
+
+    /**
+     * Used by {@link org.simbrain.workspace.updater.CheckpointAction}. Write the numeric state that changes as the
+     * component is updated, e.g. activations and weights, but not its structure. Called on the update thread. The
+     * default is to write nothing.
+     *
+     * @param writer the checkpoint to write to.
+     */
+    public void writeCheckpoint(CheckpointWriter writer) {
+    }
+
+    /**
+     * Read state written by {@link #writeCheckpoint(CheckpointWriter)}, in the same order, back into this
+     * component. The component must have the structure it had when the checkpoint was written.
+     *
+     * @param reader the checkpoint to read from.
+     */
+    public void readCheckpoint(CheckpointReader reader) {
+    }
+
     /**
      * Returns a list of the formats that this component supports. The default
      * behavior is to return a list containing the default format.
@@ -190,6 +247,28 @@ public abstract class WorkspaceComponent {
 
     public void setName(String name) {
         this.name = name;
+        updateLatency = null;
+        couplingsLatency = null;
+    }
+
+    /**
+     * Returns the histogram the time taken to update this component is recorded in.
+     */
+    public LatencyHistogram getUpdateLatency() {
+        if (updateLatency == null) {
+            updateLatency = Metrics.histogram("Updating Component " + name);
+        }
+        return updateLatency;
+    }
+
+    /**
+     * Returns the histogram the time taken to update the couplings into this component is recorded in.
+     */
+    public LatencyHistogram getCouplingsLatency() {
+        if (couplingsLatency == null) {
+            couplingsLatency = Metrics.histogram("Updating Couplings into " + name);
+        }
+        return couplingsLatency;
     }
 
     @Override
@@ -195,7 +195,7 @@ class ArchivedWorkspace {
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        } else if (serializedAction instanceof UpdateAllAction) {
+        } else if (serializedAction instanceof UpdateAllAction || serializedAction instanceof PipelinedUpdateAction) {
             try {
                 Class<? extends UpdateAction> type = serializedAction.getClass();
                 action = type.getConstructor(WorkspaceUpdater.class).newInstance(workspace.getUpdater());
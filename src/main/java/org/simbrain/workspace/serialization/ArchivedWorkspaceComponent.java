@@ -2,7 +2,6 @@ package org.simbrain.workspace.serialization;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import org.simbrain.workspace.WorkspaceComponent;
-import org.simbrain.workspace.gui.DesktopComponent;
 
 /**
  * Represents the data used to store components in the archive.
@@ -38,6 +37,12 @@ final class ArchivedWorkspaceComponent {
      */
     private final String format;
 
+    /**
+     * The uri for the binary snapshot of the component, or null if it has none. Always null in archives saved before
+     * snapshots were added.
+     */
+    private String snapshotUri;
+
     /**
      * The desktop component associated with the component (if there is
      * one).
@@ -58,14 +63,26 @@ final class ArchivedWorkspaceComponent {
         this.uri = "components/" + id + '_' + name.replaceAll("\\s", "_") + '.' + format;
     }
 
+    /**
+     * Records that the component has a binary snapshot.
+     *
+     * @return The uri for the snapshot.
+     */
+    String addSnapshot() {
+        return snapshotUri = "snapshots/" + id + '_' + name.replaceAll("\\s", "_") + ".bin";
+    }
+
     /**
      * Adds a desktop component to this component entry.
      *
-     * @param dc The desktop component to add an entry for.
+     * Takes the class name rather than the desktop component itself, so that reading an archive without a desktop
+     * does not load gui classes.
+     *
+     * @param desktopClassName The class name of the desktop component to add an entry for.
      * @return The entry for the desktop component.
      */
-    ArchivedWorkspaceComponent.ArchivedDesktopComponent addDesktopComponent(final DesktopComponent<?> dc) {
-        return desktopComponent = new ArchivedDesktopComponent(this, dc);
+    ArchivedWorkspaceComponent.ArchivedDesktopComponent addDesktopComponent(final String desktopClassName) {
+        return desktopComponent = new ArchivedDesktopComponent(this, desktopClassName);
     }
 
     /**
@@ -94,12 +111,12 @@ final class ArchivedWorkspaceComponent {
         /**
          * Creates a new instance.
          *
-         * @param parent The parent component entry.
-         * @param dc     The desktop component this instance represents.
+         * @param parent    The parent component entry.
+         * @param className The class name of the desktop component this instance represents.
          */
-        private ArchivedDesktopComponent(final ArchivedWorkspaceComponent parent, final DesktopComponent<?> dc) {
-            this.className = dc.getClass().getCanonicalName();
-            this.format = dc.getWorkspaceComponent().getDefaultFormat();
+        private ArchivedDesktopComponent(final ArchivedWorkspaceComponent parent, final String className) {
+            this.className = className;
+            this.format = parent.format;
             this.uri = "guis/" + parent.id + '_' + parent.name.replaceAll("\\s", "_") + '.' + format;
         }
 
@@ -146,6 +163,13 @@ final class ArchivedWorkspaceComponent {
         return format;
     }
 
+    /**
+     * @return the snapshotUri
+     */
+    public String getSnapshotUri() {
+        return snapshotUri;
+    }
+
     /**
      * @return the desktopComponent
      */
@@ -23,6 +23,13 @@ public class WorkspaceComponentSerializer {
      */
     private final Map<WorkspaceComponent, Integer> componentIds = new IdentityHashMap<WorkspaceComponent, Integer>();
 
+    /**
+     * If true, components can save parts of themselves as binary snapshots (see
+     * {@link WorkspaceComponent#save(OutputStream, OutputStream, String)}). Otherwise components are saved entirely
+     * as xml.
+     */
+    private boolean snapshotsEnabled = true;
+
     /**
      * Returns the id associated with a component.
      *
@@ -51,4 +58,30 @@ public class WorkspaceComponentSerializer {
         return getId(component);
     }
 
+    /**
+     * Serializes a component to the provided stream, with the parts of it that have a binary form written to a
+     * snapshot stream. If snapshots are disabled the whole component is written to the main stream.
+     *
+     * @param component The component to serialize.
+     * @param stream    The stream to write to
+     * @param snapshot  The stream to write the snapshot to
+     * @return true if a snapshot was written.
+     */
+    boolean serializeComponent(WorkspaceComponent component, OutputStream stream, OutputStream snapshot) {
+        if (!snapshotsEnabled) {
+            serializeComponent(component, stream);
+            return false;
+        }
+        getId(component);
+        return component.save(stream, snapshot, null);
+    }
+
+    public boolean isSnapshotsEnabled() {
+        return snapshotsEnabled;
+    }
+
+    public void setSnapshotsEnabled(boolean snapshotsEnabled) {
+        this.snapshotsEnabled = snapshotsEnabled;
+    }
+
 }
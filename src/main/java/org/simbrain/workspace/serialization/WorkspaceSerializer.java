@@ -34,7 +34,12 @@ import java.io.*;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -65,9 +70,14 @@ import java.util.zip.ZipOutputStream;
 public class WorkspaceSerializer {
 
     /**
-     * The number of bytes to attempt to read at a time from an InputStream.
+     * Size of the buffer between the zip stream and the output stream it writes to.
      */
-    private static final int BUFFER_SIZE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Name of the zip entry holding the {@link ArchivedWorkspace}.
+     */
+    private static final String CONTENTS_FILE = "contents.xml";
 
     /**
      * The current workspace.
@@ -75,9 +85,15 @@ public class WorkspaceSerializer {
     private Workspace workspace;
 
     /**
-     * The desktop component for the workspace.
+     * If true, desktop components are neither saved nor restored and errors are thrown rather than shown in a dialog,
+     * so that workspaces can be saved and opened without Swing.
+     */
+    private boolean headless = false;
+
+    /**
+     * If false, components are saved entirely as xml (see {@link WorkspaceComponentSerializer#setSnapshotsEnabled}).
      */
-    private SimbrainDesktop desktop;
+    private boolean snapshotsEnabled = true;
 
     /**
      * Creates a new serializer.
@@ -86,12 +102,37 @@ public class WorkspaceSerializer {
      */
     public WorkspaceSerializer(Workspace workspace) {
         this.workspace = workspace;
-        this.desktop = SimbrainDesktop.getDesktop(workspace);
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    /**
+     * Returns the desktop of the workspace, or null if it has none or the serializer is headless.
+     */
+    private SimbrainDesktop getDesktop() {
+        return headless ? null : SimbrainDesktop.getDesktop(workspace);
+    }
+
+    public boolean isSnapshotsEnabled() {
+        return snapshotsEnabled;
+    }
+
+    public void setSnapshotsEnabled(boolean snapshotsEnabled) {
+        this.snapshotsEnabled = snapshotsEnabled;
     }
 
     /**
      * Serializes the workspace to a zip compressed stream.
      *
+     * Components are serialized concurrently, each to its own byte stream, and then written to the zip in order, after
+     * contents.xml, so that {@link #deserialize(InputStream)} can parse each component as it reads it.
+     *
      * @param output The output stream to write to.
      * @throws IOException If there is an IO error.
      */
@@ -102,8 +143,10 @@ public class WorkspaceSerializer {
         // Each zipentry corresponds to a single file in the zip archive, a
         // String with the relative path in the archive to the entry (e.g.
         // "gui/network.xml"), and a bytearray for the file itself.
-        ZipOutputStream zipStream = new ZipOutputStream(output);
+        BufferedOutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+        ZipOutputStream zipStream = new ZipOutputStream(buffered);
         WorkspaceComponentSerializer serializer = new WorkspaceComponentSerializer();
+        serializer.setSnapshotsEnabled(snapshotsEnabled);
 
         // This archive object saves all the information about the workspace. It
         // will be saved as a zipentry "contents.xml"
@@ -112,29 +155,59 @@ public class WorkspaceSerializer {
         // Currently sorts components by a serialization priority
         workspace.preSerializationInit();
 
-        serializeComponents(serializer, archive, zipStream);
+        List<WorkspaceComponent> components = new ArrayList<>(workspace.getComponentList());
+        List<SerializedComponent> serialized = serializeComponents(serializer, archive, components);
         serializeCouplings(archive);
         // serializeUpdateActions(archive);
 
-        ZipEntry entry = new ZipEntry("contents.xml");
+        ZipEntry entry = new ZipEntry(CONTENTS_FILE);
         zipStream.putNextEntry(entry);
         archive.toXml(zipStream);
+        for (int i = 0; i < components.size(); i++) {
+            writeComponent(components.get(i), serialized.get(i), zipStream);
+        }
         zipStream.finish();
+        buffered.flush();
     }
 
     /**
-     * Serializes all the components to the given archive and zipstream.
+     * Serializes all the components and adds them to the given archive.
      *
      * @param serializer The serializer for the components.
      * @param archive    The archive contents to update.
-     * @param zipStream  The zipstream to write to.
-     * @throws IOException If there is an IO error.
+     * @param components The components to serialize.
+     * @return the serialized components, in the same order
      */
-    private void serializeComponents(WorkspaceComponentSerializer serializer, ArchivedWorkspace archive, ZipOutputStream zipStream) throws IOException {
-        List<WorkspaceComponent> components = sortComponentsByPriority();
-        for (WorkspaceComponent component : workspace.getComponentList()) {
-            serializeComponent(serializer, archive, component, zipStream);
+    private List<SerializedComponent> serializeComponents(WorkspaceComponentSerializer serializer, ArchivedWorkspace archive, List<WorkspaceComponent> components) {
+        // Entries are created first, so ids follow the component order
+        List<ArchivedWorkspaceComponent> entries = new ArrayList<>();
+        for (WorkspaceComponent component : components) {
+            entries.add(archive.addComponent(component));
+        }
+        List<CompletableFuture<SerializedComponent>> futures = new ArrayList<>();
+        for (WorkspaceComponent component : components) {
+            futures.add(CompletableFuture.supplyAsync(() -> serializeComponent(serializer, component)));
         }
+        List<SerializedComponent> serialized = new ArrayList<>();
+        SimbrainDesktop desktop = getDesktop();
+        for (int i = 0; i < components.size(); i++) {
+            SerializedComponent component = futures.get(i).join();
+            ArchivedWorkspaceComponent archiveComp = entries.get(i);
+            component.uri = archiveComp.getUri();
+            if (component.snapshot != null) {
+                component.snapshotUri = archiveComp.addSnapshot();
+            }
+            if (desktop != null) {
+                // Makes it possible to save a non-GUI simulation
+                component.desktopComponent = desktop.getDesktopComponent(components.get(i));
+                if (component.desktopComponent != null) {
+                    component.desktopUri = archiveComp.addDesktopComponent(
+                            component.desktopComponent.getClass().getCanonicalName()).getUri();
+                }
+            }
+            serialized.add(component);
+        }
+        return serialized;
     }
 
     private List<WorkspaceComponent> sortComponentsByPriority() {
@@ -149,28 +222,69 @@ public class WorkspaceSerializer {
     }
 
     /**
-     * Serialize one component to the zip stream
+     * The serialized data of a component: its main data and, if it has one, its snapshot, with the archive entries
+     * they are written to.
+     */
+    private static final class SerializedComponent {
+
+        private final ByteArrayOutputStream data;
+
+        /**
+         * The snapshot, or null if the component did not write one.
+         */
+        private final ByteArrayOutputStream snapshot;
+
+        private String uri;
+
+        private String snapshotUri;
+
+        /**
+         * The desktop component saved with the component, or null if there is none.
+         */
+        private DesktopComponent<?> desktopComponent;
+
+        private String desktopUri;
+
+        private SerializedComponent(ByteArrayOutputStream data, ByteArrayOutputStream snapshot) {
+            this.data = data;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Serialize one component to byte streams. Called concurrently for different components.
      *
      * @param serializer The serializer for the components.
-     * @param archive    The archive contents to update.
      * @param component  the component to serialize
+     * @return the serialized component
+     */
+    private static SerializedComponent serializeComponent(WorkspaceComponentSerializer serializer, WorkspaceComponent component) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        boolean hasSnapshot = serializer.serializeComponent(component, data, snapshot);
+        return new SerializedComponent(data, hasSnapshot ? snapshot : null);
+    }
+
+    /**
+     * Write one serialized component, its snapshot and its desktop component to the zip stream, in the order
+     * {@link #deserializeComponents} reads them.
+     *
+     * @param component  the component
+     * @param serialized the serialized component
      * @param zipStream  The zipstream to write to.
      */
-    private void serializeComponent(WorkspaceComponentSerializer serializer, ArchivedWorkspace archive, WorkspaceComponent component, ZipOutputStream zipStream) {
-        ArchivedWorkspaceComponent archiveComp = archive.addComponent(component);
-        ZipEntry entry = new ZipEntry(archiveComp.getUri());
+    private void writeComponent(WorkspaceComponent component, SerializedComponent serialized, ZipOutputStream zipStream) {
+        ZipEntry entry = new ZipEntry(serialized.uri);
         try {
             zipStream.putNextEntry(entry);
-            serializer.serializeComponent(component, zipStream);
-            if (SimbrainDesktop.getDesktop(workspace) != null) {
-                DesktopComponent<?> desktopComponent = SimbrainDesktop.getDesktop(workspace).getDesktopComponent(component);
-                // Makes it possible to save a non-GUI simulation
-                if (desktopComponent != null) {
-                    ArchivedWorkspaceComponent.ArchivedDesktopComponent dc = archiveComp.addDesktopComponent(desktopComponent);
-                    entry = new ZipEntry(dc.getUri());
-                    zipStream.putNextEntry(entry);
-                    desktopComponent.save(zipStream);
-                }
+            serialized.data.writeTo(zipStream);
+            if (serialized.snapshotUri != null) {
+                zipStream.putNextEntry(new ZipEntry(serialized.snapshotUri));
+                serialized.snapshot.writeTo(zipStream);
+            }
+            if (serialized.desktopUri != null) {
+                zipStream.putNextEntry(new ZipEntry(serialized.desktopUri));
+                serialized.desktopComponent.save(zipStream);
             }
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -227,94 +341,210 @@ public class WorkspaceSerializer {
     }
 
     /**
-     * Creates a workspace from a zip compressed input stream.
-     *
-     * @param stream The stream to read from. This is expected to be zip compressed.
-     * @throws IOException if an IO error occurs.
+     * Source of the entries of a workspace archive, relative to the location of contents.xml in the archive.
      */
-    @SuppressWarnings("unchecked")
-    public void deserialize(InputStream stream) throws IOException {
-        Map<String, byte[]> byteArrays = processInputStream(stream);
-        ArchivedWorkspace archive = (ArchivedWorkspace) ArchivedWorkspace.xstream().fromXML(new ByteArrayInputStream(byteArrays.get("contents.xml")));
+    private interface ArchiveEntries {
+
+        /**
+         * Returns a stream for the entry, which may be called concurrently for different entries if
+         * {@link #isConcurrent()}.
+         */
+        InputStream open(String uri) throws IOException;
+
+        /**
+         * Whether entries can be read concurrently. If not, they are opened one at a time, in archive order.
+         */
+        default boolean isConcurrent() {
+            return true;
+        }
+    }
 
-        WorkspaceComponentDeserializer deserializer = new WorkspaceComponentDeserializer();
-        deserializeComponents(archive, deserializer, byteArrays);
+    /**
+     * Entries of a zip compressed stream, read as it is parsed. An entry is returned as a view of the stream itself, so
+     * components and snapshots, which {@link #serialize} writes in the order they are parsed, are never held in
+     * memory. Entries passed over to reach a later one are kept in memory until opened: the small desktop component
+     * entries, which are read after all components, and every entry of older archives that put contents.xml last.
+     */
+    private static final class ZipStreamEntries implements ArchiveEntries {
 
-        deserializeCouplings(archive);
-        // deserializeUpdateActions(archive, deserializer);
-        deserializeWorkspaceParameters(archive);
+        private final ZipInputStream zip;
 
-    }
+        /**
+         * Entries passed over so far, by their full names.
+         */
+        private final Map<String, byte[]> skipped = new HashMap<>();
 
-    private Map<String, byte[]> processInputStream(InputStream stream) throws IOException {
-        // Populate the byte stream BUFFER_SIZE at a time and create a zip input
-        // stream (currently 1 kb at a time).
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        byte[] buffer = new byte[BUFFER_SIZE];
-        for (int read; (read = stream.read(buffer)) >= 0; ) {
-            bytes.write(buffer, 0, read);
-        }
-        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()));
-
-        // Populate a map from zip entries (strings containing path+file info in
-        // zip archive) to the associated data
-        Map<String, byte[]> byteArrays = new HashMap<String, byte[]>();
-        ZipEntry entry = zip.getNextEntry();
-        // Initialize byte arrays
-        for (ZipEntry next; entry != null; entry = next) {
-            next = zip.getNextEntry();
-            byteArrays.put(entry.getName(), new byte[(int) entry.getSize()]);
+        /**
+         * Location of contents.xml in the archive, which entry uris are relative to. Null until contents.xml is found.
+         */
+        private String contentsPath;
+
+        private ZipStreamEntries(InputStream stream) {
+            zip = new ZipInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
         }
-        zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()));
-        // Populate byte arrays
-        while ((entry = zip.getNextEntry()) != null) {
-            byte[] data = byteArrays.get(entry.getName());
-            read(zip, data);
+
+        @Override
+        public InputStream open(String uri) throws IOException {
+            if (contentsPath == null) {
+                for (String name : skipped.keySet()) {
+                    if (matches(name, uri)) {
+                        return new ByteArrayInputStream(skipped.remove(name));
+                    }
+                }
+            } else {
+                byte[] bytes = skipped.remove(contentsPath + uri);
+                if (bytes != null) {
+                    return new ByteArrayInputStream(bytes);
+                }
+            }
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                if (matches(entry.getName(), uri)) {
+                    // Parsers close their input, which must not close the zip stream
+                    return new FilterInputStream(zip) {
+                        @Override
+                        public void close() {
+                        }
+                    };
+                }
+                skipped.put(entry.getName(), zip.readAllBytes());
+            }
+            throw new FileNotFoundException(uri);
         }
 
-        // Find the contents.xml file and set the zip entries relative to that
-        Set<String> zipEntries = new HashSet<String>(byteArrays.keySet());
-        String contentsFile = "contents.xml";
-        String contentsPath = "";
-        for (String entryName : zipEntries) {
-            if (entryName.endsWith(contentsFile)) {
-                contentsPath = entryName.substring(0, entryName.length() - contentsFile.length());
+        /**
+         * Whether the entry with the given full name is the one at uri, which sets the location of contents.xml when
+         * it is found.
+         */
+        private boolean matches(String name, String uri) {
+            if (contentsPath == null) {
+                if (uri.equals(CONTENTS_FILE) && name.endsWith(CONTENTS_FILE)) {
+                    contentsPath = name.substring(0, name.length() - CONTENTS_FILE.length());
+                    return true;
+                }
+                return false;
             }
+            return name.equals(contentsPath + uri);
         }
 
-        // Remove the contents path from all entries that have it
-        if (!contentsPath.isEmpty()) {
-            for (String entryName : zipEntries) {
-                if (entryName.startsWith(contentsPath)) {
-                    byteArrays.put(entryName.replace(contentsPath, ""), byteArrays.get(entryName));
-                    byteArrays.remove(entryName);
+        @Override
+        public boolean isConcurrent() {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a workspace from a zip compressed input stream. Entries are parsed as they are read, and since a stream
+     * can only be read in order, components are parsed one at a time; see {@link ZipStreamEntries}. Prefer
+     * {@link #deserialize(File)} for files.
+     *
+     * @param stream The stream to read from. This is expected to be zip compressed.
+     * @throws IOException if an IO error occurs.
+     */
+    public void deserialize(InputStream stream) throws IOException {
+        deserialize(new ZipStreamEntries(stream));
+    }
+
+    /**
+     * Creates a workspace from a zip file. Entries are read directly from the file, without first reading the
+     * whole archive into memory.
+     *
+     * @param file The zip file to read from.
+     * @throws IOException if an IO error occurs.
+     */
+    public void deserialize(File file) throws IOException {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            String contentsPath = "";
+            for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(CONTENTS_FILE)) {
+                    contentsPath = entryName.substring(0, entryName.length() - CONTENTS_FILE.length());
                 }
             }
+            String path = contentsPath;
+            deserialize(uri -> {
+                ZipEntry entry = zipFile.getEntry(path + uri);
+                if (entry == null) {
+                    throw new FileNotFoundException(uri);
+                }
+                return new BufferedInputStream(zipFile.getInputStream(entry), BUFFER_SIZE);
+            });
+        }
+    }
+
+    private void deserialize(ArchiveEntries entries) throws IOException {
+        ArchivedWorkspace archive;
+        try (InputStream contents = entries.open(CONTENTS_FILE)) {
+            archive = (ArchivedWorkspace) ArchivedWorkspace.xstream().fromXML(contents);
         }
-        return byteArrays;
+
+        WorkspaceComponentDeserializer deserializer = new WorkspaceComponentDeserializer();
+        deserializeComponents(archive, deserializer, entries);
+
+        deserializeCouplings(archive);
+        // deserializeUpdateActions(archive, deserializer);
+        deserializeWorkspaceParameters(archive);
+
     }
 
-    private void deserializeComponents(ArchivedWorkspace archive, WorkspaceComponentDeserializer deserializer, Map<String, byte[]> byteArrays) {
+    /**
+     * Components are parsed concurrently if the entries allow it, then added to the workspace in archive order.
+     */
+    private void deserializeComponents(ArchivedWorkspace archive, WorkspaceComponentDeserializer deserializer, ArchiveEntries entries) {
         if (archive.getArchivedComponents() != null) {
+            // Sequential entries are parsed by the calling thread as each future is created
+            Executor executor = entries.isConcurrent() ? ForkJoinPool.commonPool() : Runnable::run;
+            List<CompletableFuture<WorkspaceComponent>> parsed = new ArrayList<>();
             for (ArchivedWorkspaceComponent archivedComponent : archive.getArchivedComponents()) {
+                parsed.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return deserializeComponent(archivedComponent, deserializer, entries);
+                    } catch (Exception ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, executor));
+            }
+            SimbrainDesktop desktop = getDesktop();
+            for (int i = 0; i < parsed.size(); i++) {
+                ArchivedWorkspaceComponent archivedComponent = archive.getArchivedComponents().get(i);
                 try {
-                    WorkspaceComponent wc = deserializer.deserializeWorkspaceComponent(archivedComponent, new ByteArrayInputStream(byteArrays.get(archivedComponent.getUri())));
+                    WorkspaceComponent wc = parsed.get(i).join();
                     workspace.addWorkspaceComponent(wc);
-                    if (archivedComponent.getDesktopComponent() != null) {
-                        Rectangle bounds =
-                                (Rectangle) XStreamUtils.getSimbrainXStream().fromXML(new ByteArrayInputStream(byteArrays.get(archivedComponent.getDesktopComponent().getUri())));
+                    if (archivedComponent.getDesktopComponent() != null && desktop != null) {
+                        Rectangle bounds;
+                        try (InputStream input = entries.open(archivedComponent.getDesktopComponent().getUri())) {
+                            bounds = (Rectangle) XStreamUtils.getSimbrainXStream().fromXML(input);
+                        }
                         DesktopComponent<?> desktopComponent = desktop.getDesktopComponent(wc);
                         desktopComponent.getParentFrame().setBounds(bounds);
                     }
                 } catch (Exception ex) {
-                    ex.printStackTrace();
                     String message = String.format("Failed to deserialize component %s.", archivedComponent.getName());
+                    if (headless) {
+                        throw new IllegalStateException(message, ex);
+                    }
+                    ex.printStackTrace();
                     JOptionPane.showMessageDialog(null, message);
                 }
             }
         }
     }
 
+    /**
+     * Parse one component, and its snapshot if it has one. Called concurrently for different components.
+     */
+    private static WorkspaceComponent deserializeComponent(ArchivedWorkspaceComponent archivedComponent, WorkspaceComponentDeserializer deserializer, ArchiveEntries entries) throws Exception {
+        WorkspaceComponent wc;
+        try (InputStream input = entries.open(archivedComponent.getUri())) {
+            wc = deserializer.deserializeWorkspaceComponent(archivedComponent, input);
+        }
+        if (archivedComponent.getSnapshotUri() != null) {
+            try (InputStream snapshot = entries.open(archivedComponent.getSnapshotUri())) {
+                wc.openSnapshot(snapshot);
+            }
+        }
+        return wc;
+    }
+
     private void deserializeCouplings(ArchivedWorkspace archive) {
         if (archive.getArchivedCouplings() != null) {
             for (ArchivedCoupling archivedCoupling : archive.getArchivedCouplings()) {
@@ -330,7 +560,11 @@ public class WorkspaceSerializer {
         manager.clear();
         if (archive.getArchivedActions() != null) {
             for (ArchivedUpdateAction archivedAction : archive.getArchivedActions()) {
-                manager.addAction(archive.createUpdateAction(workspace, deserializer, archivedAction));
+                // Actions tied to a session, like a CheckpointAction, are not recreated
+                UpdateAction action = archive.createUpdateAction(workspace, deserializer, archivedAction);
+                if (action != null) {
+                    manager.addAction(action);
+                }
             }
         }
     }
@@ -343,24 +577,6 @@ public class WorkspaceSerializer {
         }
     }
 
-    /**
-     * Helper method that will read the InputStream repeatedly until the given array is filled.
-     *
-     * @param istream the InputStream to read from.
-     * @param bytes   the array to write to
-     * @throws IOException if there is an IO error
-     */
-    private static void read(InputStream istream, byte[] bytes) throws IOException {
-        int pos = 0;
-        while (pos < bytes.length) {
-            int read = istream.read(bytes, pos, bytes.length - pos);
-            if (read < 0) {
-                throw new RuntimeException("premature EOF");
-            }
-            pos += read;
-        }
-    }
-
     public static <T> WorkspaceComponent showOpenComponentDialog(Class<T> type) {
         String defaultDirectory = SimbrainPreferences.getString("workspace" + type.getSimpleName() + "Directory");
         SFileChooser chooser = new SFileChooser(defaultDirectory, "XML File", "xml");
@@ -307,6 +307,9 @@ public class UpdateActionManager {
         // Default updater
         availableActionList.add(new UpdateAllAction(workspaceUpdater));
 
+        // Same results as the default, with components updated as soon as their couplings are
+        availableActionList.add(new PipelinedUpdateAction(workspaceUpdater));
+
         // Add update actions for all components available
         for (WorkspaceComponent component : workspaceUpdater.getComponents()) {
             availableActionList.add(new UpdateComponent(component));
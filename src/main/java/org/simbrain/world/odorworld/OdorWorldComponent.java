@@ -24,6 +24,8 @@ import org.simbrain.util.piccolo.TileMap;
 import org.simbrain.util.piccolo.TiledDataConverter;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.WorkspaceComponent;
+import org.simbrain.workspace.updater.CheckpointReader;
+import org.simbrain.workspace.updater.CheckpointWriter;
 import org.simbrain.world.odorworld.entities.OdorWorldEntity;
 
 import java.io.InputStream;
@@ -121,6 +123,36 @@ public class OdorWorldComponent extends WorkspaceComponent {
         return world;
     }
 
+    /**
+     * Writes the location, heading and movement of each entity.
+     */
+    @Override
+    public void writeCheckpoint(CheckpointWriter writer) {
+        writer.add(world.getEntityList().size());
+        for (OdorWorldEntity entity : world.getEntityList()) {
+            writer.add(entity.getX());
+            writer.add(entity.getY());
+            writer.add(entity.getHeading());
+            writer.add(entity.getMovement().getSpeed());
+            writer.add(entity.getMovement().getDtheta());
+        }
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointReader reader) {
+        int count = reader.readInt();
+        if (count != world.getEntityList().size()) {
+            throw new IllegalStateException("Checkpoint has " + count + " entities but the world has "
+                    + world.getEntityList().size());
+        }
+        for (OdorWorldEntity entity : world.getEntityList()) {
+            entity.setLocation(reader.readDouble(), reader.readDouble());
+            entity.setHeading(reader.readDouble());
+            entity.getMovement().setSpeed(reader.readDouble());
+            entity.getMovement().setDtheta(reader.readDouble());
+        }
+    }
+
     @Override
     public List<AttributeContainer> getAttributeContainers() {
         List<AttributeContainer> models = new ArrayList<>();
@@ -22,7 +22,6 @@ import org.simbrain.world.odorworld.entities.EntityType
 import org.simbrain.world.odorworld.entities.OdorWorldEntity
 import org.simbrain.world.odorworld.sensors.TileSensor
 import java.awt.Dimension
-import java.io.FileInputStream
 import java.io.IOException
 import kotlin.random.Random
 
@@ -338,7 +337,7 @@ val grazingCows = newSim {
                         if (simFile != null) {
                             workspace.removeAllComponents()
                             workspace.updater.updateManager.reset()
-                            serializer.deserialize(FileInputStream(simFile))
+                            serializer.deserialize(simFile)
                         }
                     } catch (e: IOException) {
                         e.printStackTrace()
@@ -261,7 +261,7 @@ val evolveAvoider = newSim {
 
             // Called when evolution finishes. evolutionWorkspace is the "winning" sim.
             onPeek {
-                workspace.openFromZipData(evolutionWorkspace.zipData)
+                workspace.openFrom(evolutionWorkspace)
             }
         }
 
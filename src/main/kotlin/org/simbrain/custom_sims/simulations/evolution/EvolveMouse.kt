@@ -183,7 +183,7 @@ val evolveMouse = newSim {
             }
 
             onPeek {
-                workspace.openFromZipData(evolutionWorkspace.zipData)
+                workspace.openFrom(evolutionWorkspace)
             }
 
         }
@@ -376,7 +376,7 @@ val evolveMultiAgentResourcePursuer = newSim {
 
             // Called when evolution finishes. evolutionWorkspace is the "winning" sim.
             onPeek {
-                workspace.openFromZipData(evolutionWorkspace.zipData)
+                workspace.openFrom(evolutionWorkspace)
                 val worldComponent = workspace.componentList.filterIsInstance<OdorWorldComponent>().first()
                 val world = worldComponent.world
                 val newMice = world.entityList.filter { it.entityType == EntityType.MOUSE }
@@ -220,7 +220,7 @@ val evolvePursuer = newSim {
             }
 
             onPeek {
-                workspace.openFromZipData(evolutionWorkspace.zipData)
+                workspace.openFrom(evolutionWorkspace)
             }
 
         }
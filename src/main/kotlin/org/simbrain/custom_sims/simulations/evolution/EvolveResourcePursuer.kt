@@ -320,7 +320,7 @@ val evolveResourcePursuer = newSim {
 
             // Called when evolution finishes. evolutionWorkspace is the "winning" sim.
             onPeek {
-                workspace.openFromZipData(evolutionWorkspace.zipData)
+                workspace.openFrom(evolutionWorkspace)
                 val worldComponent = workspace.componentList.filterIsInstance<OdorWorldComponent>().first()
                 val world = worldComponent.world
                 val newMouse = world.entityList.first()
@@ -18,17 +18,19 @@
  */
 package org.simbrain.network.connections
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.network.groups.AbstractNeuronCollection
 import org.simbrain.network.groups.SynapseGroup
-import org.simbrain.network.gui.ConnectionStrategyPanel
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.util.UserParameter
-import org.simbrain.util.displayInDialog
 import org.simbrain.util.propertyeditor.CopyableObject
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.NormalDistribution
+import java.util.*
 
 /**
  * Maintains a specific strategy for creating connections between two groups of neurons. Subclasses correspond to
@@ -107,6 +109,69 @@ abstract class ConnectionStrategy : CopyableObject {
     val stringDescription: String
         get() = "" + this.javaClass.simpleName
 
+    /**
+     * Connect two layers with a [SparseWeightMatrix] instead of individual synapses, which uses much less memory for
+     * large layers. By default the synapses [connectNeurons] would make between the layers' neurons are created
+     * without adding them to the network, and converted to matrix entries with the same strengths. Layers that are not
+     * neuron collections are stood in for by unplaced neurons, so strategies that depend on neuron locations connect
+     * them as if all were at the same point. Strategies that can pick entries by index override this to avoid creating
+     * synapses at all.
+     *
+     * @param network parent network
+     * @param source  source layer
+     * @param target  target layer
+     * @param addToNetwork if true, add the matrix to the network
+     * @return the sparse weight matrix
+     */
+    @JvmOverloads
+    open fun connectLayers(
+        network: Network,
+        source: Layer,
+        target: Layer,
+        addToNetwork: Boolean = true
+    ): SparseWeightMatrix {
+        fun neuronsOf(layer: Layer, size: Int) =
+            (layer as? AbstractNeuronCollection)?.neuronList ?: List(size) { Neuron(network) }
+        val sourceNeurons = neuronsOf(source, source.outputSize())
+        val targetNeurons = if (source === target) sourceNeurons else neuronsOf(target, target.inputSize())
+        val sourceIndex = IdentityHashMap<Neuron, Int>().apply { sourceNeurons.forEachIndexed { j, n -> put(n, j) } }
+        val targetIndex = IdentityHashMap<Neuron, Int>().apply { targetNeurons.forEachIndexed { i, n -> put(n, i) } }
+        val synapses = connectNeurons(network, sourceNeurons, targetNeurons, false)
+        return SparseWeightMatrix(
+            network, source, target,
+            IntArray(synapses.size) { targetIndex[synapses[it].target]!! },
+            IntArray(synapses.size) { sourceIndex[synapses[it].source]!! },
+            DoubleArray(synapses.size) { synapses[it].strength }
+        ).also {
+            if (addToNetwork) {
+                network.addNetworkModel(it)
+            }
+        }
+    }
+
+    /**
+     * Create a [SparseWeightMatrix] with the provided entries, polarized using [percentExcitatory].
+     */
+    protected fun createSparseWeightMatrix(
+        network: Network,
+        source: Layer,
+        target: Layer,
+        entries: SparseEntries,
+        addToNetwork: Boolean
+    ): SparseWeightMatrix {
+        val targets = entries.targets.copyOf(entries.size)
+        val sources = entries.sources.copyOf(entries.size)
+        val sourceNeurons = (source as? AbstractNeuronCollection)?.neuronList
+        val strengths = polarizedStrengths(entries.size, percentExcitatory) { k ->
+            sourceNeurons?.get(sources[k])?.let { if (it.isPolarized) it.polarity else null }
+        }
+        return SparseWeightMatrix(network, source, target, targets, sources, strengths).also {
+            if (addToNetwork) {
+                network.addNetworkModel(it)
+            }
+        }
+    }
+
     companion object {
         /**
          * Called via reflection using [UserParameter.typeListMethod].
@@ -138,8 +203,3 @@ class ConnectionSelector(cs: ConnectionStrategy = AllToAll()) : EditableObject {
     override val name = "Connection Strategy"
 
 }
-
-
-fun main() {
-    ConnectionStrategyPanel(ConnectionSelector(Sparse())).displayInDialog()
-}
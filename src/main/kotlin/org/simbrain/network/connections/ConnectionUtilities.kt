@@ -19,6 +19,7 @@
 package org.simbrain.network.connections
 
 import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.util.SimbrainConstants.Polarity
 
 /**
@@ -48,41 +49,54 @@ const val DEFAULT_INHIBITORY_STRENGTH = -1.0
  * @param percentExcitatory the percent of the synapses to make excitatory
  */
 fun polarizeSynapses(synapses: Collection<Synapse>, percentExcitatory: Double) {
+    val synapseList = synapses.toList()
+    val strengths = polarizedStrengths(synapseList.size, percentExcitatory) { i ->
+        synapseList[i].source.let { if (it.isPolarized) it.polarity else null }
+    }
+    synapseList.forEachIndexed { i, s -> s.strength = strengths[i] }
+}
+
+/**
+ * Returns strengths for [count] connections so that [percentExcitatory] of them are excitatory, following the same
+ * rules as [polarizeSynapses]. [sourcePolarity] returns the polarity of the source of a connection, or null if the
+ * source is not polarized. Used for connections that are not synapses, like the entries of a [SparseWeightMatrix].
+ */
+fun polarizedStrengths(count: Int, percentExcitatory: Double, sourcePolarity: (Int) -> Polarity?): DoubleArray {
     // Computations are done using ratios
     var excitatoryRatio = percentExcitatory / 100
     if (excitatoryRatio > 1 || excitatoryRatio < 0) {
         throw IllegalArgumentException("Randomization had failed." + " The ratio of excitatory synapses " + " cannot be greater than 1 or less than 0.")
-    } else {
-        var exciteCount = (excitatoryRatio * synapses.size).toInt()
-        var inhibCount = synapses.size - exciteCount
-        var remaining = synapses.size
-        var excitatory = false
-        for (s in synapses) {
-            excitatory = shouldBeExcitatory(excitatoryRatio, exciteCount, inhibCount, s)
-            // Set the strength based on the polarity.
-            if (excitatory) {
-                s.strength = DEFAULT_EXCITATORY_STRENGTH
-                exciteCount--
-                // Change the excitatoryRatio to maintain balance
-                excitatoryRatio = exciteCount / remaining.toDouble()
-            } else {
-                s.strength = DEFAULT_INHIBITORY_STRENGTH
-                inhibCount--
-                // Change the excitatoryRatio to maintain balance.
-                excitatoryRatio = (remaining - inhibCount) / remaining.toDouble()
-            }
-            remaining--
+    }
+    val strengths = DoubleArray(count)
+    var exciteCount = (excitatoryRatio * count).toInt()
+    var inhibCount = count - exciteCount
+    var remaining = count
+    for (i in 0 until count) {
+        val excitatory = shouldBeExcitatory(excitatoryRatio, exciteCount, inhibCount, sourcePolarity(i))
+        // Set the strength based on the polarity.
+        if (excitatory) {
+            strengths[i] = DEFAULT_EXCITATORY_STRENGTH
+            exciteCount--
+            // Change the excitatoryRatio to maintain balance
+            excitatoryRatio = exciteCount / remaining.toDouble()
+        } else {
+            strengths[i] = DEFAULT_INHIBITORY_STRENGTH
+            inhibCount--
+            // Change the excitatoryRatio to maintain balance.
+            excitatoryRatio = (remaining - inhibCount) / remaining.toDouble()
         }
+        remaining--
     }
+    return strengths
 }
 
 /**
- * Should the provided synapse be excitatory.
+ * Should a connection from a source with the provided polarity (null if not polarized) be excitatory.
  */
-private fun shouldBeExcitatory(excitatoryRatio: Double, exciteCount: Int, inhibCount: Int, s: Synapse): Boolean {
+private fun shouldBeExcitatory(excitatoryRatio: Double, exciteCount: Int, inhibCount: Int, polarity: Polarity?): Boolean {
     var excitatory = false
-    if (s.source.isPolarized) {
-        excitatory = Polarity.EXCITATORY === s.source.polarity
+    if (polarity != null) {
+        excitatory = Polarity.EXCITATORY === polarity
     } else {
         if (exciteCount <= 0 || inhibCount <= 0) {
             if (exciteCount <= 0) {
@@ -97,4 +111,30 @@ private fun shouldBeExcitatory(excitatoryRatio: Double, exciteCount: Int, inhibC
         }
     }
     return excitatory
-}
\ No newline at end of file
+}
+
+/**
+ * Growable lists of (target, source) index pairs, used by connection strategies to build a [SparseWeightMatrix]
+ * without creating synapses.
+ */
+class SparseEntries {
+
+    var targets = IntArray(16)
+        private set
+
+    var sources = IntArray(16)
+        private set
+
+    var size = 0
+        private set
+
+    fun add(target: Int, source: Int) {
+        if (size == targets.size) {
+            targets = targets.copyOf(size * 2)
+            sources = sources.copyOf(size * 2)
+        }
+        targets[size] = target
+        sources[size] = source
+        size++
+    }
+}
@@ -17,9 +17,13 @@
  */
 package org.simbrain.network.connections
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.network.groups.AbstractNeuronCollection
+import org.simbrain.network.matrix.SparseWeightMatrix
+import org.simbrain.network.util.SimnetUtils
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -94,6 +98,45 @@ class FixedDegree(
         return syns
     }
 
+    /**
+     * With [Direction.IN] each target unit receives [degree] connections from source units; with [Direction.OUT]
+     * each source unit sends [degree] connections to target units. A radius can only be used with neuron
+     * collections, since other layers have no positions.
+     */
+    override fun connectLayers(
+        network: Network,
+        source: Layer,
+        target: Layer,
+        addToNetwork: Boolean
+    ): SparseWeightMatrix {
+        val excludeSelf = source === target && !allowSelfConnections
+        val entries = SparseEntries()
+        if (useRadius) {
+            require(source is AbstractNeuronCollection && target is AbstractNeuronCollection) {
+                "Fixed degree connections within a radius require neuron collections"
+            }
+            val (units, others) = if (direction == Direction.IN) {
+                target.neuronList to source.neuronList
+            } else {
+                source.neuronList to target.neuronList
+            }
+            units.forEachIndexed { i, neuron ->
+                others.indices
+                    .filter { SimnetUtils.getEuclideanDist(neuron, others[it]) < radius && !(excludeSelf && it == i) }
+                    .shuffled()
+                    .take(degree)
+                    .forEach { if (direction == Direction.IN) entries.add(i, it) else entries.add(it, i) }
+            }
+        } else if (direction == Direction.IN) {
+            forEachRandomSubset(target.inputSize(), source.outputSize(), excludeSelf, kotlin.random.Random.Default,
+                { degree }) { i, j -> entries.add(i, j) }
+        } else {
+            forEachRandomSubset(source.outputSize(), target.inputSize(), excludeSelf, kotlin.random.Random.Default,
+                { degree }) { j, i -> entries.add(i, j) }
+        }
+        return createSparseWeightMatrix(network, source, target, entries, addToNetwork)
+    }
+
     override val name = "Fixed degree"
 
     override fun toString(): String {
@@ -17,9 +17,12 @@
  */
 package org.simbrain.network.connections
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.network.groups.AbstractNeuronCollection
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.util.SimbrainConstants.Polarity
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
@@ -147,6 +150,45 @@ class RadialGaussian(
         return syns
     }
 
+    /**
+     * Connection probabilities depend on neuron positions, so both layers must be neuron collections.
+     */
+    override fun connectLayers(
+        network: Network,
+        source: Layer,
+        target: Layer,
+        addToNetwork: Boolean
+    ): SparseWeightMatrix {
+        require(source is AbstractNeuronCollection && target is AbstractNeuronCollection) {
+            "Radial connections require neuron collections"
+        }
+        val sourceNeurons = source.neuronList
+        val targetNeurons = target.neuronList
+        val entries = SparseEntries()
+        targetNeurons.forEachIndexed { i, tar ->
+            sourceNeurons.forEachIndexed { j, src ->
+                if (Math.random() < connectionProbability(src, tar)) {
+                    entries.add(i, j)
+                }
+            }
+        }
+        return createSparseWeightMatrix(network, source, target, entries, addToNetwork)
+    }
+
+    /**
+     * Probability of connecting [src] to [tar], using the constant for their polarities.
+     */
+    private fun connectionProbability(src: Neuron, tar: Neuron): Double {
+        val constant = when {
+            src.polarity === Polarity.EXCITATORY && tar.polarity === Polarity.EXCITATORY -> eeDistConst
+            src.polarity === Polarity.EXCITATORY && tar.polarity === Polarity.INHIBITORY -> eiDistConst
+            src.polarity === Polarity.INHIBITORY && tar.polarity === Polarity.EXCITATORY -> ieDistConst
+            src.polarity === Polarity.INHIBITORY && tar.polarity === Polarity.INHIBITORY -> iiDistConst
+            else -> distConst
+        }
+        return calcConnectProb(src, tar, constant, lambda)
+    }
+
     public override fun toString(): String {
         return "Radial (Gaussian)"
     }
@@ -17,12 +17,16 @@
  */
 package org.simbrain.network.connections
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.util.cartesianProduct
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.sampleWithoutReplacement
+import kotlin.math.floor
+import kotlin.math.ln
 import kotlin.math.roundToInt
 
 /**
@@ -108,6 +112,27 @@ class Sparse @JvmOverloads constructor(
         }
     }
 
+    /**
+     * Connect two layers by index, without creating synapses. Each possible entry is made with probability
+     * [connectionDensity], or if [equalizeEfferents] is set, each source connects to the same number of targets.
+     * When a layer is connected to itself, entries from a unit to itself are only made if [allowSelfConnection] is
+     * set.
+     */
+    override fun connectLayers(
+        network: Network,
+        source: Layer,
+        target: Layer,
+        addToNetwork: Boolean
+    ): SparseWeightMatrix {
+        val excludeDiagonal = source === target && !allowSelfConnection
+        val entries = if (equalizeEfferents) {
+            sparseEqualizedEntries(target.inputSize(), source.outputSize(), connectionDensity, excludeDiagonal)
+        } else {
+            sparseEntries(target.inputSize(), source.outputSize(), connectionDensity, excludeDiagonal)
+        }
+        return createSparseWeightMatrix(network, source, target, entries, addToNetwork)
+    }
+
     override val name = "Sparse"
 
     override fun toString() = name
@@ -210,4 +235,88 @@ sealed interface ConnectionsResult {
     data class Add(val connectionsToAdd: List<Synapse>) : ConnectionsResult
     data class Remove(val connectionsToRemove: List<Synapse>): ConnectionsResult
     data class Reset(val resultConnections: List<Synapse>): ConnectionsResult
-}
\ No newline at end of file
+}
+
+/**
+ * Entries of a [rows] x [cols] matrix, each made with probability [density]. Takes time proportional to the number
+ * of entries made, by skipping a geometrically distributed number of positions between entries.
+ */
+fun sparseEntries(
+    rows: Int,
+    cols: Int,
+    density: Double,
+    excludeDiagonal: Boolean = false,
+    random: kotlin.random.Random = kotlin.random.Random.Default
+): SparseEntries {
+    val entries = SparseEntries()
+    if (density <= 0) {
+        return entries
+    }
+    val logComplement = ln(1 - density)
+    for (i in 0 until rows) {
+        var j = -1.0
+        while (true) {
+            val skip = if (density >= 1) 0.0 else floor(ln(1 - random.nextDouble()) / logComplement)
+            j += 1 + skip
+            if (j >= cols) {
+                break
+            }
+            if (!excludeDiagonal || j.toInt() != i) {
+                entries.add(i, j.toInt())
+            }
+        }
+    }
+    return entries
+}
+
+/**
+ * Entries of a [rows] x [cols] matrix where each column (source) has the same number of entries, [density] times
+ * the number of rows (targets) it can connect to.
+ */
+fun sparseEqualizedEntries(
+    rows: Int,
+    cols: Int,
+    density: Double,
+    excludeDiagonal: Boolean = false,
+    random: kotlin.random.Random = kotlin.random.Random.Default
+): SparseEntries {
+    val entries = SparseEntries()
+    forEachRandomSubset(cols, rows, excludeDiagonal, random, { (density * it).roundToInt() }) { j, i ->
+        entries.add(i, j)
+    }
+    return entries
+}
+
+/**
+ * For each of [groups] indices j, choose distinct random indices i in 0 until [poolSize] and pass each (j, i) pair to
+ * [action]. [count] returns how many to choose given how many are available; if [excludeSame] is set, i = j is not
+ * available.
+ */
+fun forEachRandomSubset(
+    groups: Int,
+    poolSize: Int,
+    excludeSame: Boolean,
+    random: kotlin.random.Random,
+    count: (available: Int) -> Int,
+    action: (j: Int, i: Int) -> Unit
+) {
+    val permutation = IntArray(poolSize) { it }
+    for (j in 0 until groups) {
+        val available = if (excludeSame && j < poolSize) poolSize - 1 else poolSize
+        val toMake = count(available).coerceIn(0, available)
+        // Partial Fisher-Yates shuffle; the array stays a permutation so it can be reused for the next group
+        var made = 0
+        var n = 0
+        while (made < toMake) {
+            val r = n + random.nextInt(poolSize - n)
+            val tmp = permutation[n]
+            permutation[n] = permutation[r]
+            permutation[r] = tmp
+            if (!excludeSame || permutation[n] != j) {
+                action(j, permutation[n])
+                made++
+            }
+            n++
+        }
+    }
+}
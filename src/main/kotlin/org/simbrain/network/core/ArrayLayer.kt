@@ -38,12 +38,13 @@ abstract class ArrayLayer(
         return inputs.size().toInt()
     }
 
+    /**
+     * Connector outputs are accumulated directly into [inputs], so no matrices are allocated.
+     */
     override fun updateInputs() {
-        val wtdInputs = Matrix(inputSize(), 1)
         for (c in incomingConnectors) {
-            wtdInputs.add(c.output)
+            c.accumulateOutput(inputs)
         }
-        addInputs(wtdInputs)
     }
 
     override fun addInputs(newInputs: Matrix) {
@@ -51,8 +52,11 @@ abstract class ArrayLayer(
     }
 
     @Consumable
-    fun addInputs(inputs: DoubleArray?) {
-        addInputs(Matrix(inputs))
+    fun addInputs(inputs: DoubleArray) {
+        require(inputs.size == inputSize()) { "Expected ${inputSize()} inputs but got ${inputs.size}" }
+        for (i in inputs.indices) {
+            this.inputs.add(i, 0, inputs[i])
+        }
     }
 
     override fun randomize() {
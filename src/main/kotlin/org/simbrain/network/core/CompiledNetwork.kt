@@ -0,0 +1,266 @@
+package org.simbrain.network.core
+
+import org.simbrain.network.NetworkModel
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.spikeresponders.NonResponder
+import org.simbrain.network.synapse_update_rules.StaticSynapseRule
+import org.simbrain.network.util.BiasedScalarData
+import java.util.*
+
+/**
+ * Flattened form of the free neurons and synapses of a [Network], used by
+ * [org.simbrain.network.update_actions.CompiledUpdate].
+ *
+ * Free neuron activations are held in [activations] and incoming connections in compressed sparse row (CSR) form:
+ * the incoming entries of neuron i are at indices `rowStart[i] until rowStart[i+1]` of [sourceIndex] and [weights].
+ * Connectionist synapses between free neurons are stored as a source index and a weight. Anything else (spike
+ * responders, delays, disabled synapses, sources outside the free neurons) is kept as a reference to the [Synapse]
+ * object, encoded as a negative source index, and updated the usual way.
+ *
+ * While compiled, neurons read and write their activation through this object and synapses copy their strength into
+ * it, so model objects stay consistent without being touched on every update. Activation events for neurons updated
+ * from the arrays are only fired by [fireActivationEvents].
+ *
+ * The structure is invalidated when connectivity, update rules or synapse properties that affect the layout change,
+ * and when models are added to or removed from the network (see [Network.structureVersion]).
+ */
+class CompiledNetwork(val network: Network) {
+
+    /**
+     * Value of [Network.structureVersion] when this was compiled.
+     */
+    val version = network.structureVersion
+
+    /**
+     * False once a change has made this out of date.
+     */
+    var isValid = true
+        private set
+
+    /**
+     * The compiled free neurons.
+     */
+    private val neurons: Array<Neuron> = network.freeNeurons.toTypedArray()
+
+    /**
+     * Activations of [neurons].
+     */
+    private val activations = DoubleArray(neurons.size) { neurons[it].activation }
+
+    /**
+     * Activations as of the last call to [fireActivationEvents].
+     */
+    private val firedActivations = activations.copyOf()
+
+    /**
+     * Weighted inputs computed in [updateInputs] and consumed in [update].
+     */
+    private val weightedInputs = DoubleArray(neurons.size)
+
+    /**
+     * Linear rules of neurons updated directly from the arrays; null for neurons updated using their own update rule.
+     */
+    private val linearRules = arrayOfNulls<LinearRule>(neurons.size)
+
+    /**
+     * Start of each neuron's row in [sourceIndex] and [weights]. Has one more entry than there are neurons.
+     */
+    private val rowStart = IntArray(neurons.size + 1)
+
+    /**
+     * Index of the source neuron of each entry, or -(k+1) for the k-th entry of [objectSynapses].
+     */
+    private val sourceIndex: IntArray
+
+    /**
+     * Strength of each entry that refers to a source neuron.
+     */
+    private val weights: DoubleArray
+
+    /**
+     * Synapses that are updated as objects.
+     */
+    private val objectSynapses: Array<Synapse>
+
+    /**
+     * Free synapses bound to this object, so that they can be released.
+     */
+    private val boundSynapses: MutableSet<Synapse> = Collections.newSetFromMap(IdentityHashMap())
+
+    /**
+     * Models that are not compiled, in network order, whose update comes before the free neurons.
+     */
+    private val modelsBeforeNeurons = ArrayList<NetworkModel>()
+
+    /**
+     * Models that are not compiled, in network order, whose update comes after the free neurons.
+     */
+    private val modelsAfterNeurons = ArrayList<NetworkModel>()
+
+    init {
+        val neuronIndex = IdentityHashMap<Neuron, Int>(neurons.size)
+        neurons.forEachIndexed { i, neuron -> neuronIndex[neuron] = i }
+        val freeSynapses = network.freeSynapses
+        val objectSynapseList = ArrayList<Synapse>()
+
+        sourceIndex = IntArray(neurons.sumOf { it.fanInUnsafe.size })
+        weights = DoubleArray(sourceIndex.size)
+        var k = 0
+        neurons.forEachIndexed { i, neuron ->
+            rowStart[i] = k
+            val rule = neuron.updateRule
+            if (rule.javaClass == LinearRule::class.java) {
+                linearRules[i] = rule as LinearRule
+            }
+            for (synapse in neuron.fanInUnsafe) {
+                val source = neuronIndex[synapse.source]
+                val isFree = synapse in freeSynapses
+                if (linearRules[i] != null && isFree && source != null && synapse.isEnabled &&
+                    synapse.spikeResponder is NonResponder && synapse.delay == 0
+                ) {
+                    sourceIndex[k] = source
+                    weights[k] = synapse.strength
+                    synapse.bindCompiled(this, k)
+                    boundSynapses.add(synapse)
+                } else {
+                    objectSynapseList.add(synapse)
+                    sourceIndex[k] = -objectSynapseList.size
+                }
+                k++
+            }
+        }
+        rowStart[neurons.size] = k
+        objectSynapses = objectSynapseList.toTypedArray()
+
+        // Remaining free synapses are bound without a weight slot so that changes to them still invalidate this
+        for (synapse in freeSynapses) {
+            if (boundSynapses.add(synapse)) {
+                synapse.bindCompiled(this, -1)
+            }
+        }
+
+        // Activations are read from the neurons above, so they are only bound now
+        neurons.forEachIndexed { i, neuron -> neuron.bindCompiled(this, i) }
+
+        // Preserve the order of Network.bufferedUpdate() for everything else
+        var neuronsSeen = false
+        for (model in network.allModels) {
+            when {
+                model is Neuron && model in neuronIndex -> neuronsSeen = true
+                model is Synapse && model.isFrozen -> {}
+                model is Synapse && model.learningRule is StaticSynapseRule -> {}
+                neuronsSeen -> modelsAfterNeurons.add(model)
+                else -> modelsBeforeNeurons.add(model)
+            }
+        }
+    }
+
+    /**
+     * Mark this as out of date.
+     */
+    fun invalidate() {
+        isValid = false
+    }
+
+    /**
+     * Hand state back to the model objects and unbind them. Called before this is replaced.
+     */
+    fun release() {
+        neurons.forEach { it.releaseCompiled() }
+        boundSynapses.forEach { it.releaseCompiled() }
+    }
+
+    fun getActivation(index: Int) = activations[index]
+
+    fun setActivation(index: Int, activation: Double) {
+        activations[index] = activation
+    }
+
+    fun setWeight(index: Int, weight: Double) {
+        if (index >= 0) {
+            weights[index] = weight
+        }
+    }
+
+    /**
+     * Buffered update equivalent to [Network.bufferedUpdate].
+     */
+    fun bufferedUpdate() {
+        updateInputs()
+        modelsBeforeNeurons.forEach { it.updateInputs() }
+        modelsAfterNeurons.forEach { it.updateInputs() }
+        modelsBeforeNeurons.forEach { it.update() }
+        update()
+        modelsAfterNeurons.forEach { it.update() }
+    }
+
+    /**
+     * Compute weighted inputs to all free neurons from the activations at the start of the update.
+     */
+    private fun updateInputs() {
+        for (i in neurons.indices) {
+            var wtdSum = 0.0
+            for (k in rowStart[i] until rowStart[i + 1]) {
+                val source = sourceIndex[k]
+                wtdSum += if (source >= 0) {
+                    activations[source] * weights[k]
+                } else {
+                    val synapse = objectSynapses[-source - 1]
+                    synapse.updateOutput()
+                    synapse.psr
+                }
+            }
+            weightedInputs[i] = wtdSum
+        }
+    }
+
+    /**
+     * Update the free neurons. Linear neurons are updated in place, others are handed their input and updated using
+     * [Neuron.update].
+     */
+    private fun update() {
+        for (i in neurons.indices) {
+            val neuron = neurons[i]
+            val rule = linearRules[i]
+            val data = neuron.dataHolder
+            if (rule == null || data !is BiasedScalarData) {
+                neuron.addInputValue(weightedInputs[i])
+                neuron.update()
+                continue
+            }
+            if (neuron.isSpike) {
+                neuron.isSpike = false
+            }
+            if (neuron.isClamped) {
+                neuron.addInputValue(weightedInputs[i])
+                continue
+            }
+            activations[i] = rule.clip(rule.linearRule(neuron.input + weightedInputs[i], data.bias))
+            neuron.clearInput()
+        }
+    }
+
+    /**
+     * Fire activation events for neurons whose activations have changed in the arrays since the last call. Used by
+     * the GUI, which only needs to be told about changes when it repaints.
+     */
+    fun fireActivationEvents() {
+        for (i in neurons.indices) {
+            val activation = activations[i]
+            if (activation != firedActivations[i]) {
+                if (linearRules[i] != null) {
+                    neurons[i].events.activationChanged.fireAndForget(activation, firedActivations[i])
+                }
+                firedActivations[i] = activation
+            }
+        }
+    }
+
+    /**
+     * Number of entries stored as indices and weights rather than synapse objects.
+     */
+    val compiledSynapseCount get() = rowStart[neurons.size] - objectSynapses.size
+
+    override fun toString() = "Compiled network: ${neurons.size} neurons, $compiledSynapseCount compiled synapses, " +
+            "${objectSynapses.size} object synapses"
+}
@@ -0,0 +1,468 @@
+package org.simbrain.network.core
+
+import org.simbrain.network.NetworkModel
+import org.simbrain.network.spikeresponders.ConvolvedJumpAndDecay
+import org.simbrain.network.spikeresponders.JumpAndDecay
+import org.simbrain.network.spikeresponders.RiseAndDecay
+import org.simbrain.network.spikeresponders.RiseAndDecayData
+import org.simbrain.network.synapse_update_rules.StaticSynapseRule
+import java.util.*
+import kotlin.math.abs
+import kotlin.math.pow
+
+/**
+ * Event driven form of the free neurons and synapses of a [Network], used by
+ * [org.simbrain.network.update_actions.EventDrivenUpdate].
+ *
+ * Synapses between free neurons using a [JumpAndDecay], [ConvolvedJumpAndDecay] or [RiseAndDecay] responder are
+ * "event synapses". They are only touched when a spike from their source arrives, so the cost of an update scales
+ * with the number of spikes rather than the number of synapses:
+ *
+ * - Between spikes the response of a jump and decay synapse decays geometrically toward its baseline, so the
+ *   responses of all such synapses onto a neuron with the same time constant are summed in one "channel" which
+ *   decays by a single multiplication per update. A synapse's own response is only computed, in closed form from
+ *   the time of its last spike, when a new spike arrives.
+ * - Rise and decay has no closed form, so those synapses are stepped like in [Synapse.updateOutput], but only
+ *   while they are active, i.e. from a spike until their response and recovery fall below [REST_THRESHOLD].
+ *
+ * Spikes are delivered after a synapse's delay through a ring buffer of pending synapse indices shared by all
+ * synapses (the "delay wheel"), in place of the per-synapse delay queues. Other synapses onto free neurons are
+ * updated every step as objects, and other models are updated the usual way. Unlike a delay queue, which starts
+ * out filled with zeros, a delayed synapse here shows its baseline response from the first update.
+ *
+ * Responses are only written back to the synapses in [sync]. Spikes still in flight are not stored on the synapses;
+ * they can be read with [pendingSpikes] and passed to a new event driven network. The structure is rebuilt when
+ * [Network.structureVersion] or the time step changes.
+ *
+ * @param pending spikes in flight to schedule, as returned by [pendingSpikes]
+ */
+class EventDrivenNetwork(val network: Network, pending: List<Pair<Synapse, Int>> = emptyList()) {
+
+    /**
+     * Value of [Network.structureVersion] when this was built.
+     */
+    val version = network.structureVersion
+
+    /**
+     * Time step used to compute decay factors.
+     */
+    val timeStep = network.timeStep
+
+    /**
+     * The free neurons.
+     */
+    private val neurons: Array<Neuron> = network.freeNeurons.toTypedArray()
+
+    /**
+     * Summed baselines of the jump and decay synapses onto each neuron.
+     */
+    private val baselineSums = DoubleArray(neurons.size)
+
+    /**
+     * Start of each neuron's channels in [channelDeviations]. Has one more entry than there are neurons.
+     */
+    private val channelStart = IntArray(neurons.size + 1)
+
+    /**
+     * Summed deviation from baseline of the synapses in each channel.
+     */
+    private val channelDeviations: DoubleArray
+
+    /**
+     * Factor by which each channel decays in one update.
+     */
+    private val channelDecay: DoubleArray
+
+    /**
+     * Start of each neuron's synapses in [objectSynapses]. Has one more entry than there are neurons.
+     */
+    private val objectStart = IntArray(neurons.size + 1)
+
+    /**
+     * Synapses onto free neurons that are not event synapses.
+     */
+    private val objectSynapses: Array<Synapse>
+
+    /**
+     * The event synapses.
+     */
+    private val synapses: Array<Synapse>
+
+    /**
+     * Index of the target neuron of each event synapse.
+     */
+    private val targets: IntArray
+
+    /**
+     * Channel of each jump and decay synapse, or -1 for rise and decay synapses.
+     */
+    private val channels: IntArray
+
+    /**
+     * Response of each event synapse as of [lastUpdated].
+     */
+    private val responses: DoubleArray
+
+    /**
+     * Step in which each jump and decay synapse last received a spike, or -1.
+     */
+    private val lastUpdated: LongArray
+
+    /**
+     * Recovery variable of each rise and decay synapse.
+     */
+    private val recoveries: DoubleArray
+
+    /**
+     * Rise and decay synapses that are being stepped, and a flag per synapse for membership.
+     */
+    private val activeSynapses: IntArray
+    private var activeCount = 0
+    private val isActive: BooleanArray
+
+    /**
+     * Rise and decay synapses which received a spike in the current step.
+     */
+    private val spikedThisStep: BooleanArray
+
+    /**
+     * Indices of neurons with outgoing event synapses, and the start of each one's synapses in [fanOut].
+     */
+    private val spikeSources: IntArray
+    private val fanOutStart: IntArray
+    private val fanOut: IntArray
+
+    /**
+     * Pending spike arrivals. Slot `step % wheel.size` holds the synapses whose spike arrives in that step.
+     */
+    private val wheel: Array<IntArray>
+    private val wheelCounts: IntArray
+
+    /**
+     * Weighted inputs computed in [updateInputs] and consumed in [update].
+     */
+    private val weightedInputs = DoubleArray(neurons.size)
+
+    /**
+     * Number of completed steps.
+     */
+    private var step = 0L
+
+    /**
+     * Models that are not handled here, in network order, whose update comes before the free neurons.
+     */
+    private val modelsBeforeNeurons = ArrayList<NetworkModel>()
+
+    /**
+     * Models that are not handled here, in network order, whose update comes after the free neurons.
+     */
+    private val modelsAfterNeurons = ArrayList<NetworkModel>()
+
+    init {
+        val neuronIndex = IdentityHashMap<Neuron, Int>(neurons.size)
+        neurons.forEachIndexed { i, neuron -> neuronIndex[neuron] = i }
+        val freeSynapses = Collections.newSetFromMap(IdentityHashMap<Synapse, Boolean>()).apply {
+            addAll(network.freeSynapses)
+        }
+
+        val eventSynapses = ArrayList<Synapse>()
+        val eventTargets = ArrayList<Int>()
+        val eventChannels = ArrayList<Int>()
+        val objectSynapseList = ArrayList<Synapse>()
+        val decays = ArrayList<Double>()
+        neurons.forEachIndexed { i, neuron ->
+            channelStart[i] = decays.size
+            objectStart[i] = objectSynapseList.size
+            // Channels of this neuron, keyed by time constant
+            val neuronChannels = HashMap<Double, Int>()
+            for (synapse in neuron.fanInUnsafe) {
+                val responder = synapse.spikeResponder
+                val isEvent = synapse in freeSynapses && synapse.isEnabled && synapse.source in neuronIndex &&
+                        (responder.javaClass == JumpAndDecay::class.java ||
+                                responder.javaClass == ConvolvedJumpAndDecay::class.java ||
+                                responder.javaClass == RiseAndDecay::class.java && synapse.spikeResponderData is RiseAndDecayData)
+                if (!isEvent) {
+                    objectSynapseList.add(synapse)
+                    continue
+                }
+                eventSynapses.add(synapse)
+                eventTargets.add(i)
+                eventChannels.add(
+                    when (responder) {
+                        is JumpAndDecay -> neuronChannels.getOrPut(responder.timeConstant) {
+                            decays.add(1 - timeStep / responder.timeConstant)
+                            decays.size - 1
+                        }.also { baselineSums[i] += responder.baseLine }
+                        is ConvolvedJumpAndDecay -> neuronChannels.getOrPut(responder.timeConstant) {
+                            decays.add(1 - timeStep / responder.timeConstant)
+                            decays.size - 1
+                        }.also { baselineSums[i] += responder.baseLine }
+                        else -> -1
+                    }
+                )
+            }
+        }
+        channelStart[neurons.size] = decays.size
+        objectStart[neurons.size] = objectSynapseList.size
+        objectSynapses = objectSynapseList.toTypedArray()
+        channelDecay = decays.toDoubleArray()
+        channelDeviations = DoubleArray(decays.size)
+
+        synapses = eventSynapses.toTypedArray()
+        targets = eventTargets.toIntArray()
+        channels = eventChannels.toIntArray()
+        responses = DoubleArray(synapses.size) { synapses[it].psr }
+        lastUpdated = LongArray(synapses.size) { -1 }
+        recoveries = DoubleArray(synapses.size) { k ->
+            (synapses[k].spikeResponderData as? RiseAndDecayData)?.recovery ?: 0.0
+        }
+        activeSynapses = IntArray(synapses.size)
+        isActive = BooleanArray(synapses.size)
+        spikedThisStep = BooleanArray(synapses.size)
+        for (k in synapses.indices) {
+            val channel = channels[k]
+            if (channel >= 0) {
+                channelDeviations[channel] += responses[k] - baseline(k)
+            } else if (responses[k] != 0.0 || recoveries[k] != 0.0) {
+                activate(k)
+            }
+        }
+
+        // Outgoing event synapses, grouped by source
+        val bySource = synapses.indices.groupBy { neuronIndex[synapses[it].source]!! }.toSortedMap()
+        spikeSources = bySource.keys.toIntArray()
+        fanOutStart = IntArray(spikeSources.size + 1)
+        fanOut = IntArray(synapses.size)
+        var k = 0
+        bySource.values.forEachIndexed { s, outgoing ->
+            fanOutStart[s] = k
+            outgoing.forEach { fanOut[k++] = it }
+        }
+        fanOutStart[spikeSources.size] = k
+
+        val maxDelay = synapses.maxOfOrNull { it.delay } ?: 0
+        wheel = Array(maxDelay + 1) { IntArray(4) }
+        wheelCounts = IntArray(maxDelay + 1)
+
+        // Preserve the order of Network.bufferedUpdate() for everything else
+        var neuronsSeen = false
+        for (model in network.allModels) {
+            when {
+                model is Neuron && model in neuronIndex -> neuronsSeen = true
+                model is Synapse && model.isFrozen -> {}
+                model is Synapse && model.learningRule is StaticSynapseRule -> {}
+                neuronsSeen -> modelsAfterNeurons.add(model)
+                else -> modelsBeforeNeurons.add(model)
+            }
+        }
+
+        schedule(pending)
+    }
+
+    private fun baseline(k: Int) = when (val responder = synapses[k].spikeResponder) {
+        is JumpAndDecay -> responder.baseLine
+        is ConvolvedJumpAndDecay -> responder.baseLine
+        else -> 0.0
+    }
+
+    private fun activate(k: Int) {
+        if (!isActive[k]) {
+            isActive[k] = true
+            activeSynapses[activeCount++] = k
+        }
+    }
+
+    /**
+     * Response of jump and decay synapse k at the end of step [at].
+     */
+    private fun responseAt(k: Int, at: Long): Double {
+        val base = baseline(k)
+        return base + (responses[k] - base) * channelDecay[channels[k]].pow((at - lastUpdated[k]).toDouble())
+    }
+
+    /**
+     * Buffered update equivalent to [Network.bufferedUpdate].
+     */
+    fun bufferedUpdate() {
+        deliverSpikes()
+        updateInputs()
+        modelsBeforeNeurons.forEach { it.updateInputs() }
+        modelsAfterNeurons.forEach { it.updateInputs() }
+        modelsBeforeNeurons.forEach { it.update() }
+        update()
+        modelsAfterNeurons.forEach { it.update() }
+        scheduleSpikes()
+        step++
+    }
+
+    /**
+     * Decay all channels by one step and apply the spikes arriving in this step.
+     */
+    private fun deliverSpikes() {
+        for (c in channelDeviations.indices) {
+            channelDeviations[c] *= channelDecay[c]
+        }
+        val slot = (step % wheel.size).toInt()
+        val arriving = wheel[slot]
+        for (n in 0 until wheelCounts[slot]) {
+            val k = arriving[n]
+            val channel = channels[k]
+            if (channel < 0) {
+                spikedThisStep[k] = true
+                activate(k)
+                continue
+            }
+            val synapse = synapses[k]
+            val base = baseline(k)
+            val previous = responseAt(k, step - 1)
+            val response = when (val responder = synapse.spikeResponder) {
+                is JumpAndDecay -> responder.jumpHeight * synapse.strength
+                else -> previous + synapse.strength
+            }
+            // The channel has already decayed this synapse's previous deviation
+            channelDeviations[channel] += (response - base) - (previous - base) * channelDecay[channel]
+            responses[k] = response
+            lastUpdated[k] = step
+        }
+        wheelCounts[slot] = 0
+    }
+
+    /**
+     * Compute weighted inputs to all free neurons, stepping active rise and decay synapses.
+     */
+    private fun updateInputs() {
+        for (i in neurons.indices) {
+            var wtdSum = baselineSums[i]
+            for (c in channelStart[i] until channelStart[i + 1]) {
+                wtdSum += channelDeviations[c]
+            }
+            for (j in objectStart[i] until objectStart[i + 1]) {
+                val synapse = objectSynapses[j]
+                synapse.updateOutput()
+                wtdSum += synapse.psr
+            }
+            weightedInputs[i] = wtdSum
+        }
+        var n = 0
+        while (n < activeCount) {
+            val k = activeSynapses[n]
+            val responder = synapses[k].spikeResponder as RiseAndDecay
+            val rate = timeStep / responder.timeConstant
+            var recovery = if (spikedThisStep[k]) 1.0 else recoveries[k]
+            spikedThisStep[k] = false
+            recovery -= rate * recovery
+            var psr = responses[k]
+            psr += rate * (Math.E * responder.maximumResponse * recovery * (1 - psr) - psr)
+            psr *= synapses[k].strength
+            if (abs(psr) < REST_THRESHOLD && abs(recovery) < REST_THRESHOLD) {
+                psr = 0.0
+                recovery = 0.0
+                isActive[k] = false
+                activeSynapses[n] = activeSynapses[--activeCount]
+            } else {
+                n++
+            }
+            responses[k] = psr
+            recoveries[k] = recovery
+            weightedInputs[targets[k]] += psr
+        }
+    }
+
+    /**
+     * Update the free neurons as objects.
+     */
+    private fun update() {
+        for (i in neurons.indices) {
+            neurons[i].addInputValue(weightedInputs[i])
+            neurons[i].update()
+        }
+    }
+
+    /**
+     * Put the outgoing event synapses of neurons that spiked in this step on the delay wheel.
+     */
+    private fun scheduleSpikes() {
+        for (s in spikeSources.indices) {
+            if (!neurons[spikeSources[s]].isSpike) {
+                continue
+            }
+            for (n in fanOutStart[s] until fanOutStart[s + 1]) {
+                val k = fanOut[n]
+                // A spike read in the next step, then held back by the synapse's delay
+                addToWheel(k, 1 + synapses[k].delay)
+            }
+        }
+    }
+
+    /**
+     * Deliver a spike to event synapse [k] [stepsAhead] steps after the current one.
+     */
+    private fun addToWheel(k: Int, stepsAhead: Int) {
+        val slot = ((step + stepsAhead) % wheel.size).toInt()
+        if (wheelCounts[slot] == wheel[slot].size) {
+            wheel[slot] = wheel[slot].copyOf(wheel[slot].size * 2)
+        }
+        wheel[slot][wheelCounts[slot]++] = k
+    }
+
+    /**
+     * Spikes in flight, as pairs of a synapse and the number of updates after the next one at which the spike
+     * arrives, in order of arrival.
+     */
+    fun pendingSpikes(): List<Pair<Synapse, Int>> {
+        val pending = ArrayList<Pair<Synapse, Int>>()
+        for (stepsAhead in wheel.indices) {
+            val slot = ((step + stepsAhead) % wheel.size).toInt()
+            for (n in 0 until wheelCounts[slot]) {
+                pending.add(synapses[wheel[slot][n]] to stepsAhead)
+            }
+        }
+        return pending
+    }
+
+    /**
+     * Put spikes returned by [pendingSpikes] on the delay wheel. Spikes to synapses that are no longer event synapses
+     * are dropped, and spikes due later than the longest delay now allows arrive after that delay.
+     */
+    private fun schedule(pending: List<Pair<Synapse, Int>>) {
+        if (pending.isEmpty()) {
+            return
+        }
+        val synapseIndex = IdentityHashMap<Synapse, Int>(synapses.size)
+        synapses.forEachIndexed { k, synapse -> synapseIndex[synapse] = k }
+        for ((synapse, stepsAhead) in pending) {
+            val k = synapseIndex[synapse] ?: continue
+            addToWheel(k, stepsAhead.coerceIn(0, wheel.size - 1))
+        }
+    }
+
+    /**
+     * Write the current responses back to the synapses, e.g. before this is replaced or the network is saved.
+     */
+    fun sync() {
+        for (k in synapses.indices) {
+            if (channels[k] >= 0) {
+                synapses[k].psr = responseAt(k, step - 1)
+            } else {
+                synapses[k].psr = responses[k]
+                (synapses[k].spikeResponderData as RiseAndDecayData).recovery = recoveries[k]
+            }
+        }
+    }
+
+    /**
+     * Number of synapses updated only when spikes arrive.
+     */
+    val eventSynapseCount get() = synapses.size
+
+    override fun toString() = "Event driven network: ${neurons.size} neurons, ${synapses.size} event synapses, " +
+            "${objectSynapses.size} object synapses, ${channelDecay.size} channels"
+
+    companion object {
+        /**
+         * Rise and decay synapses whose response and recovery are both below this are considered at rest and set to
+         * zero.
+         */
+        const val REST_THRESHOLD = 1e-12
+    }
+}
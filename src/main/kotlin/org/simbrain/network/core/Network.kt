@@ -11,18 +11,24 @@ import org.simbrain.network.groups.NeuronCollection
 import org.simbrain.network.groups.NeuronGroup
 import org.simbrain.network.groups.Subnetwork
 import org.simbrain.network.groups.SynapseGroup
-import org.simbrain.network.gui.PlacementManager
 import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.network.matrix.WeightMatrix
 import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.update_actions.CompiledUpdate
+import org.simbrain.network.update_actions.EventDrivenUpdate
 import org.simbrain.util.*
 import org.simbrain.util.math.SimbrainMath
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.UniformRealDistribution
+import org.simbrain.workspace.updater.CheckpointReader
+import org.simbrain.workspace.updater.CheckpointWriter
 import org.simbrain.workspace.updater.PerformanceMonitor
 import org.simbrain.workspace.updater.UpdateAction
 import java.awt.geom.Point2D
+import java.util.*
 import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.coroutines.EmptyCoroutineContext
 import kotlin.math.abs
 import kotlin.math.ceil
 import kotlin.math.ln
@@ -125,6 +131,12 @@ class Network: CoroutineScope {
      */
     private var timeType = TimeType.DISCRETE
 
+    /**
+     * If true, activation events fired during an update reach handlers that do not run inline, e.g. those of the GUI,
+     * once per neuron when the update ends. See [EventCoalescer].
+     */
+    var isCoalesceEvents = false
+
     /**
      * Whether network has been updated yet; used by thread.
      */
@@ -132,13 +144,51 @@ class Network: CoroutineScope {
     private var updateCompleted = AtomicBoolean(false)
 
     /**
-     * List of neurons sorted by their update priority. Used in priority based update.
-     * Lower numbers updated first, as in first priority, second priority, etc.
+     * The neurons of [flatNeuronList] by update priority. Kept up to date as neurons are added and removed and their
+     * priorities change, rather than resorted. See [prioritySortedNeuronList].
      */
     @Transient
-    var prioritySortedNeuronList: ArrayList<Neuron> = ArrayList()
+    private var priorityBuckets = TreeMap<Int, LinkedHashSet<Neuron>>()
+
+    /**
+     * The priority each neuron in [priorityBuckets] is filed under.
+     */
+    @Transient
+    private var filedPriorities = HashMap<Neuron, Int>()
+
+    /**
+     * Neuron groups whose neurons are in [priorityBuckets]: those in the network and in its subnetworks.
+     */
+    @Transient
+    private var prioritizedGroups = HashSet<NeuronGroup>()
+
+    /**
+     * The neurons of [priorityBuckets] in order, or null if they changed since it was last copied.
+     */
+    @Transient
+    private var prioritySortedNeurons: Array<Neuron>? = null
+
+    /**
+     * Incremented whenever a model is added to or removed from the network or one of its groups, or a synapse
+     * property that affects how it is updated changes, so that structures derived from the model list (e.g.
+     * [CompiledNetwork], [EventDrivenNetwork] and the flat lists below) can tell when they are out of date.
+     */
+    @Transient
+    var structureVersion = 0L
         private set
 
+    /**
+     * Caches for the flat lists below, recomputed when [structureVersion] changes.
+     */
+    @Transient
+    private var flatNeuronCache = VersionedList<Neuron>()
+
+    @Transient
+    private var flatSynapseCache = VersionedList<Synapse>()
+
+    @Transient
+    private var flatNeuronGroupCache = VersionedList<NeuronGroup>()
+
     /**
      * Manage ids for all network elements.
      */
@@ -152,6 +202,12 @@ class Network: CoroutineScope {
     @Transient
     var placementManager = PlacementManager()
 
+    /**
+     * Models added during a [batch] whose added event has not yet been fired. Null when not in a batch.
+     */
+    @Transient
+    private var batchedModels: ArrayList<NetworkModel>? = null
+
     /**
      * Returns a linked hash set of models of the specified type.
      */
@@ -182,13 +238,18 @@ class Network: CoroutineScope {
     fun update(name: String = "") {
 
         // Main update
-        updateManager.actionList.forEach {
-            runBlocking {
-                PerformanceMonitor.record(it, "${name}:${it.description}") {
-                    it.run()
+        val coalescer = if (isCoalesceEvents) EventCoalescer() else null
+        val context = coalescer?.contextElement() ?: EmptyCoroutineContext
+        val runActions = {
+            updateManager.actionList.forEach {
+                runBlocking(context) {
+                    PerformanceMonitor.record(it.latency(name)) {
+                        it.run()
+                    }
                 }
             }
         }
+        if (coalescer != null) coalescer.tick(runActions) else runActions()
 
         updateTime()
         setUpdateCompleted(true)
@@ -196,25 +257,114 @@ class Network: CoroutineScope {
     }
 
     /**
-     * Update the priority list used for priority based update.
+     * Note that models were added to or removed from the network or one of its groups or subnetworks. Invalidates
+     * cached views of the network like [flatNeuronList].
+     */
+    fun structureChanged() {
+        structureVersion++
+    }
+
+    /**
+     * Neurons sorted by their update priority. Used in priority based update. Lower numbers updated first, as in
+     * first priority, second priority, etc. Neurons with the same priority are in the order they were added or given
+     * that priority.
+     */
+    val prioritySortedNeuronList: List<Neuron>
+        get() = getPrioritySortedNeurons().asList()
+
+    private fun getPrioritySortedNeurons(): Array<Neuron> {
+        return prioritySortedNeurons ?: priorityBuckets.values.flatten().toTypedArray().also {
+            prioritySortedNeurons = it
+        }
+    }
+
+    /**
+     * Rebuild the priority list used for priority based update from [flatNeuronList], e.g. after the network is
+     * opened. It is otherwise kept up to date as models are added and removed.
      */
     fun updatePriorityList() {
         // TODO: Uses flat neuron list, but does this make sense? NeuronGroups should handle their own update orders.
-        prioritySortedNeuronList = ArrayList(flatNeuronList)
-        resortPriorities()
+        priorityBuckets.clear()
+        filedPriorities.clear()
+        prioritizedGroups.clear()
+        prioritizedGroups.addAll(flatNeuronGroupList)
+        flatNeuronList.forEach { fileByPriority(it) }
+        prioritySortedNeurons = null
+    }
+
+    /**
+     * Move a neuron to its new place in the priority list after its update priority changed.
+     */
+    fun priorityChanged(neuron: Neuron) {
+        if (unfileByPriority(neuron)) {
+            fileByPriority(neuron)
+        }
+    }
+
+    /**
+     * Add the neurons of a model added to the network, or to one of its groups or subnetworks, to the priority list.
+     */
+    fun addToPriorityList(model: NetworkModel) {
+        when (model) {
+            is Neuron -> fileByPriority(model)
+            is NeuronGroup -> if (prioritizedGroups.add(model)) model.neuronList.forEach { fileByPriority(it) }
+            is Subnetwork -> model.modelList.get<NeuronGroup>().forEach { addToPriorityList(it) }
+        }
+    }
+
+    /**
+     * Remove the neurons of a model removed from the network, or from one of its groups or subnetworks, from the
+     * priority list.
+     */
+    fun removeFromPriorityList(model: NetworkModel) {
+        when (model) {
+            is Neuron -> unfileByPriority(model)
+            is NeuronGroup -> if (prioritizedGroups.remove(model)) model.neuronList.forEach { unfileByPriority(it) }
+            is Subnetwork -> model.modelList.get<NeuronGroup>().forEach { removeFromPriorityList(it) }
+        }
+    }
+
+    /**
+     * Add a neuron to a neuron group, adding it to the priority list if the group's neurons are in it.
+     */
+    fun neuronAddedToGroup(group: NeuronGroup, neuron: Neuron) {
+        if (group in prioritizedGroups) {
+            fileByPriority(neuron)
+        }
     }
 
     /**
-     * Resort the neurons according to their update priorities.
+     * Add a model to a subnetwork, adding its neurons to the priority list if the subnetwork is in this network.
      */
-    fun resortPriorities() {
-        prioritySortedNeuronList.sortWith { neuron1, neuron2 ->
-            val priority1 = neuron1.updatePriority
-            val priority2 = neuron2.updatePriority
-            priority1.compareTo(priority2)
+    fun modelAddedToSubnetwork(subnetwork: Subnetwork, model: NetworkModel) {
+        if (subnetwork in networkModels.get<Subnetwork>()) {
+            addToPriorityList(model)
         }
     }
 
+    private fun fileByPriority(neuron: Neuron) {
+        if (neuron in filedPriorities) {
+            return
+        }
+        priorityBuckets.getOrPut(neuron.updatePriority) { LinkedHashSet() }.add(neuron)
+        filedPriorities[neuron] = neuron.updatePriority
+        prioritySortedNeurons = null
+    }
+
+    /**
+     * Remove a neuron from the priority list. Returns false if it was not in it.
+     */
+    private fun unfileByPriority(neuron: Neuron): Boolean {
+        val priority = filedPriorities.remove(neuron) ?: return false
+        val bucket = priorityBuckets.getValue(priority)
+        bucket.remove(neuron)
+        if (bucket.isEmpty()) {
+            priorityBuckets.remove(priority)
+        }
+        prioritySortedNeurons = null
+        return true
+    }
+
     /**
      * This function is used to update the neuron and sub-network activation values if the user chooses to set different
      * priority values for a subset of neurons and sub-networks. The priority value determines the order in which the
@@ -222,7 +372,7 @@ class Network: CoroutineScope {
      * value elements.
      */
     fun updateNeuronsByPriority() {
-        for (neuron in prioritySortedNeuronList) {
+        for (neuron in getPrioritySortedNeurons()) {
             neuron.updateInputs()
             neuron.update()
         }
@@ -296,15 +446,17 @@ class Network: CoroutineScope {
      * @return the flat list
      */
     val flatNeuronList: List<Neuron>
-        get() = sequence {
-            yieldAll(networkModels.get<Neuron>())
-            for (neuronGroup in networkModels.get<NeuronGroup>()) {
-                yieldAll(neuronGroup.neuronList)
-            }
-            for (subnetwork in networkModels.get<Subnetwork>()) {
-                yieldAll(subnetwork.modelList.get<NeuronGroup>().flatMap { it.neuronList })
-            }
-        }.toList()
+        get() = flatNeuronCache.get(structureVersion) {
+            sequence {
+                yieldAll(networkModels.get<Neuron>())
+                for (neuronGroup in networkModels.get<NeuronGroup>()) {
+                    yieldAll(neuronGroup.neuronList)
+                }
+                for (subnetwork in networkModels.get<Subnetwork>()) {
+                    yieldAll(subnetwork.modelList.get<NeuronGroup>().flatMap { it.neuronList })
+                }
+            }.toList()
+        }
 
     /**
      * Create "flat" list of synapses, which includes the top-level synapses plus all subnet synapses.
@@ -312,22 +464,26 @@ class Network: CoroutineScope {
      * @return the flat list
      */
     val flatSynapseList: List<Synapse>
-        get() = sequence {
-            yieldAll(networkModels.get<Synapse>())
-            yieldAll(networkModels.get<SynapseGroup2>().flatMap { sg -> sg.synapses })
-            yieldAll(networkModels.get<Subnetwork>().flatMap { subnetwork ->
-                subnetwork.modelList.get<SynapseGroup>().flatMap { it.allSynapses }
-            })
-        }.toList()
+        get() = flatSynapseCache.get(structureVersion) {
+            sequence {
+                yieldAll(networkModels.get<Synapse>())
+                yieldAll(networkModels.get<SynapseGroup2>().flatMap { sg -> sg.synapses })
+                yieldAll(networkModels.get<Subnetwork>().flatMap { subnetwork ->
+                    subnetwork.modelList.get<SynapseGroup>().flatMap { it.allSynapses }
+                })
+            }.toList()
+        }
 
     /**
      * Returns a list of all neuron groups including those in subnetworks.
      */
     val flatNeuronGroupList: List<NeuronGroup>
-        get() = sequence {
-            yieldAll(networkModels.get<NeuronGroup>())
-            yieldAll(networkModels.get<Subnetwork>().flatMap { it.modelList.get() })
-        }.toList()
+        get() = flatNeuronGroupCache.get(structureVersion) {
+            sequence {
+                yieldAll(networkModels.get<NeuronGroup>())
+                yieldAll(networkModels.get<Subnetwork>().flatMap { it.modelList.get() })
+            }.toList()
+        }
 
     /**
      * Returns a list of all synapse groups including those in subnetworks.
@@ -353,21 +509,66 @@ class Network: CoroutineScope {
     fun addNetworkModel(model: NetworkModel): Job? {
         if (model.shouldAdd()) {
             model.id = idManager.getAndIncrementId(model.javaClass)
-            networkModels.add(model)
-            if (model is LocatableModel && model.shouldBePlaced) {
-                placementManager.placeObject(model)
-            }
-            model.events.deleted.on(wait = true) {
-                networkModels.remove(it)
-                events.modelRemoved.fireAndForget(it)
-            }
-            val job = events.modelAdded.fireAndSuspend(model)
-            if (model is Neuron) updatePriorityList()
-            return job
+            return addModelWithId(model)
         }
         return null
     }
 
+    /**
+     * Add a model whose id has been set. Inside a [batch] the added event is deferred and null is returned.
+     */
+    private fun addModelWithId(model: NetworkModel): Job? {
+        networkModels.add(model)
+        structureChanged()
+        addToPriorityList(model)
+        if (model is LocatableModel && model.shouldBePlaced) {
+            placementManager.placeObject(model)
+        }
+        model.events.deleted.on(wait = true) {
+            networkModels.remove(it)
+            structureChanged()
+            removeFromPriorityList(it)
+            events.modelRemoved.fireAndForget(it)
+        }
+        val batch = batchedModels
+        if (batch != null) {
+            batch.add(model)
+            return null
+        }
+        return events.modelAdded.fireAndSuspend(model)
+    }
+
+    /**
+     * Run a block that adds many models, e.g. when building a large network from a script. Models added inside the
+     * block are announced in one [NetworkEvents2.modelAdded] event when the block completes, rather than one event
+     * per model. Batches can be nested; the event is fired when the outermost batch completes.
+     *
+     * Ex: network.batch { repeat(1000) { addNeuron() } }
+     */
+    fun <T> batch(block: Network.() -> T): T = batchForJob(block).first
+
+    /**
+     * Run a batch and also return the job for the added event, or null if nothing was added or the batch is
+     * nested in another one.
+     */
+    private fun <T> batchForJob(block: Network.() -> T): Pair<T, Job?> {
+        if (batchedModels != null) {
+            return block() to null
+        }
+        val added = ArrayList<NetworkModel>()
+        batchedModels = added
+        var job: Job? = null
+        val result = try {
+            block()
+        } finally {
+            batchedModels = null
+            if (added.isNotEmpty()) {
+                job = events.modelAdded.fireAllAndSuspend(added)
+            }
+        }
+        return result to job
+    }
+
     /**
      * Create a [NeuronCollection] from a provided list of neurons
      */
@@ -414,6 +615,92 @@ class Network: CoroutineScope {
         return getNetworkXStream().fromXML(xmlRepresentation) as Network
     }
 
+    /**
+     * Write state held by compiled update actions (see [CompiledUpdate] and [EventDrivenUpdate]) to the model
+     * objects. The compiled structures are rebuilt on the next update.
+     */
+    fun releaseCompiledState() {
+        updateManager.actionList.filterIsInstance<CompiledUpdate>().forEach { it.release() }
+        eventDrivenUpdates.forEach { it.release() }
+    }
+
+    private val eventDrivenUpdates get() = updateManager.actionList.filterIsInstance<EventDrivenUpdate>()
+
+    /**
+     * Write the numeric state of the network to a workspace checkpoint: its time, the state of its neurons,
+     * synapses, neuron arrays and weight matrices, and spikes in flight in an [EventDrivenUpdate]. See
+     * [org.simbrain.workspace.updater.CheckpointAction]. Compiled update state is synced to the model objects
+     * without being discarded, so the run continues unchanged.
+     */
+    fun writeCheckpoint(writer: CheckpointWriter) {
+        eventDrivenUpdates.forEach { it.sync() }
+        writer.add(time)
+        writer.add(flatNeuronList.size)
+        flatNeuronList.forEach { it.writeCheckpoint(writer) }
+        writer.add(flatSynapseList.size)
+        flatSynapseList.forEach { it.writeCheckpoint(writer) }
+        writer.add(getModels<NeuronArray>().size)
+        getModels<NeuronArray>().forEach { it.writeCheckpoint(writer) }
+        writer.add(getModels<WeightMatrix>().size)
+        getModels<WeightMatrix>().forEach { it.writeCheckpoint(writer) }
+        writer.add(getModels<SparseWeightMatrix>().size)
+        getModels<SparseWeightMatrix>().forEach { it.writeCheckpoint(writer) }
+        val synapseIndex = IdentityHashMap<Synapse, Int>()
+        flatSynapseList.forEachIndexed { k, synapse -> synapseIndex[synapse] = k }
+        eventDrivenUpdates.forEach { action ->
+            val pending = action.pendingSpikes()
+            writer.add(pending.size)
+            pending.forEach { (synapse, stepsAhead) ->
+                writer.add(synapseIndex[synapse]!!)
+                writer.add(stepsAhead)
+            }
+        }
+    }
+
+    /**
+     * Read state written by [writeCheckpoint] into a network with the same structure.
+     */
+    fun readCheckpoint(reader: CheckpointReader) {
+        fun checkCount(type: String, count: Int) {
+            val saved = reader.readInt()
+            if (saved != count) {
+                throw IllegalStateException("Checkpoint has $saved $type but the network has $count")
+            }
+        }
+        releaseCompiledState()
+        time = reader.readDouble()
+        checkCount("neurons", flatNeuronList.size)
+        flatNeuronList.forEach { it.readCheckpoint(reader) }
+        checkCount("synapses", flatSynapseList.size)
+        flatSynapseList.forEach { it.readCheckpoint(reader) }
+        checkCount("neuron arrays", getModels<NeuronArray>().size)
+        getModels<NeuronArray>().forEach { it.readCheckpoint(reader) }
+        checkCount("weight matrices", getModels<WeightMatrix>().size)
+        getModels<WeightMatrix>().forEach { it.readCheckpoint(reader) }
+        checkCount("sparse weight matrices", getModels<SparseWeightMatrix>().size)
+        getModels<SparseWeightMatrix>().forEach { it.readCheckpoint(reader) }
+        eventDrivenUpdates.forEach { action ->
+            action.restore(List(reader.readInt()) { flatSynapseList[reader.readInt()] to reader.readInt() })
+        }
+        events.updated.fireAndForget()
+    }
+
+    /**
+     * Make sure state held by compiled update actions is written to the model objects before serializing.
+     */
+    private fun writeReplace(): Any {
+        releaseCompiledState()
+        return this
+    }
+
+    /**
+     * Fire change events for model state held by compiled update actions (see [CompiledUpdate]), which otherwise
+     * only reaches the model objects when they are read. Called by the GUI before repainting.
+     */
+    fun fireCompiledUpdateEvents() {
+        updateManager.actionList.filterIsInstance<CompiledUpdate>().forEach { it.fireEvents() }
+    }
+
     /**
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
@@ -427,12 +714,18 @@ class Network: CoroutineScope {
 
         events = NetworkEvents2()
         updateCompleted = AtomicBoolean(false)
-        updatePriorityList();
+        flatNeuronCache = VersionedList()
+        flatSynapseCache = VersionedList()
+        flatNeuronGroupCache = VersionedList()
+        priorityBuckets = TreeMap()
+        filedPriorities = HashMap()
+        prioritizedGroups = HashSet()
 
         // Initialize update manager
         updateManager.postOpenInit()
         networkModels.allInReconstructionOrder.forEach { it.postOpenInit() }
         idManager = SimpleIdManager ({ cls -> networkModels.getRawModelSet(cls).size + 1 })
+        updatePriorityList()
         return this
     }
 
@@ -551,12 +844,25 @@ class Network: CoroutineScope {
     }
 
     /**
-     * Adds a list of network elements to this network. Used in copy / paste.
+     * Adds a collection of network elements to this network, as a [batch]. Ids are assigned for each type in one
+     * step and a single added event is fired for all of them. Used in copy / paste and by connection strategies.
      *
-     * @param toAdd list of objects to add.
+     * @param toAdd objects to add.
+     * @return the job for the added event, or null if nothing was added or this is called within a batch
+     */
+    fun addNetworkModels(toAdd: Collection<NetworkModel>): Job? {
+        val models = toAdd.filter { it.shouldAdd() }
+        models.groupBy { it.javaClass }.forEach { (cls, modelsOfClass) ->
+            idManager.getAndIncrementIds(cls, modelsOfClass.size).forEachIndexed { i, id -> modelsOfClass[i].id = id }
+        }
+        return batchForJob { models.forEach { addModelWithId(it) } }.second
+    }
+
+    /**
+     * Add models that already have ids, e.g. when restoring a saved network, as a [batch].
      */
-    fun addNetworkModels(toAdd: List<NetworkModel>) {
-        toAdd.forEach { addNetworkModel(it) }
+    fun restoreNetworkModels(toAdd: Collection<NetworkModel>): Job? {
+        return batchForJob { toAdd.forEach { addModelWithId(it) } }.second
     }
 
     /**
@@ -565,7 +871,7 @@ class Network: CoroutineScope {
      * Ex: addNetworkModels(synapse1, synapse2, neuron1, neuron2, ...)
      */
     fun addNetworkModels(vararg toAdd: NetworkModel) {
-        toAdd.forEach { addNetworkModel(it) }
+        addNetworkModels(toAdd.asList())
     }
 
     /**
@@ -608,7 +914,7 @@ class Network: CoroutineScope {
     fun addNeuron(x: Int, y: Int) = Neuron(this)
         .also{
             addNetworkModel(it)
-            it.location = point(x,y)
+            it.location = point(x.toDouble(), y.toDouble())
         }
 
     fun addSynapse(source: Neuron, target: Neuron, block: Synapse.() -> Unit = { }) = Synapse(source, target)
@@ -9,6 +9,7 @@ import com.thoughtworks.xstream.io.HierarchicalStreamWriter
 import org.simbrain.network.NetworkModel
 import org.simbrain.network.groups.AbstractNeuronCollection
 import org.simbrain.network.groups.Subnetwork
+import java.util.*
 
 /**
  * The main data structure for [NetworkModel]s. Wraps a map from classes to ordered sets of those objects.
@@ -26,6 +27,12 @@ class NetworkModelList {
 
     private val shouldAsync: HashMap<Boolean, LinkedHashSet<NetworkModel>> = HashMap()
 
+    /**
+     * Cached value of [all]. Null when models have been added or removed since it was computed.
+     */
+    @Transient
+    private var allCache: List<NetworkModel>? = null
+
     @Suppress("UNCHECKED_CAST")
     fun <T : NetworkModel> put(modelClass: Class<T>, model: T) {
         if (modelClass in networkModels) {
@@ -35,6 +42,7 @@ class NetworkModelList {
             newSet.add(model)
             networkModels[modelClass] = newSet as LinkedHashSet<NetworkModel>
         }
+        allCache = null
         if (model is ArrayLayer || model is AbstractNeuronCollection) {
             shouldAsync.getOrPut(true) { LinkedHashSet() }
         } else {
@@ -54,6 +62,7 @@ class NetworkModelList {
             newSet.add(model)
             networkModels[modelClass] = newSet
         }
+        allCache = null
         if (model is ArrayLayer || model is AbstractNeuronCollection) {
             shouldAsync.getOrPut(true) { LinkedHashSet() }
         } else {
@@ -106,8 +115,12 @@ class NetworkModelList {
         }
     }
 
+    /**
+     * All models, grouped by type. The returned list is not changed by later additions or removals.
+     */
     val all: List<NetworkModel>
-        get() = networkModels.values.flatMap { it?.map { item -> item } ?: listOf() }
+        get() = allCache ?: Collections.unmodifiableList(networkModels.values.flatMap { it ?: listOf() })
+            .also { allCache = it }
 
     /**
      * Returns a list of network models in the order required for proper reconstruction of all network models.
@@ -123,6 +136,8 @@ class NetworkModelList {
         } else {
             networkModels[model.javaClass]?.remove(model)
         }
+        shouldAsync.values.forEach { it.remove(model) }
+        allCache = null
     }
 
     fun getAsyncModels() = shouldAsync[true] ?: LinkedHashSet()
@@ -137,14 +152,16 @@ class NetworkModelList {
 
 /**
  * Custom serializer that stores [Network.networkModels], which is a map, as a flat list of [NetworkModel]s.
+ *
+ * @param excluded models that are not written, e.g. because they are saved in a [NetworkSnapshot]
  */
-class NetworkModelListConverter : Converter {
+class NetworkModelListConverter(private val excluded: Set<NetworkModel> = emptySet()) : Converter {
 
     override fun canConvert(type: Class<*>?) = NetworkModelList::class.java == type
 
     override fun marshal(source: Any?, writer: HierarchicalStreamWriter, context: MarshallingContext) {
         val modelList = source as NetworkModelList
-        modelList.allInReconstructionOrder.forEach { model ->
+        modelList.allInReconstructionOrder.filter { it !in excluded }.forEach { model ->
             writer.startNode(model::class.java.name)
             context.convertAnother(model)
             writer.endNode()
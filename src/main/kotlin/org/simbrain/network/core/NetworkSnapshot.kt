@@ -0,0 +1,380 @@
+package org.simbrain.network.core
+
+import com.thoughtworks.xstream.XStream
+import org.simbrain.network.NetworkModel
+import org.simbrain.network.groups.NeuronCollection
+import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder
+import org.simbrain.network.util.ScalarDataHolder
+import org.simbrain.util.SimbrainConstants.Polarity
+import java.io.*
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.nio.ByteBuffer
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Compact binary form of the loose neurons and synapses of a [Network], written next to the XML of the rest of the
+ * network when a workspace is saved (see [org.simbrain.network.NetworkComponent.saveSnapshot]).
+ *
+ * Neuron and synapse properties are stored as columns of primitive arrays, and connectivity in compressed sparse
+ * row (CSR) form, with the incoming synapses of neuron i at `rowStart[i] until rowStart[i+1]`. Update rules,
+ * learning rules, spike responders and data holders are dictionary encoded: each distinct value is stored once as
+ * XML and models refer to it by index. On reading each value is parsed once and copied into the models using it.
+ *
+ * All loose synapses are included, and all loose neurons except those in neuron collections, which stay in the XML
+ * with their collections. Synapses connected to those neurons refer to them by id.
+ */
+class NetworkSnapshot private constructor(
+    val neurons: List<Neuron>,
+    val synapses: List<Synapse>,
+    /**
+     * Neurons saved in the XML that synapses in the snapshot are connected to.
+     */
+    private val externalNeurons: List<Neuron>
+) {
+
+    /**
+     * The models in this snapshot, which should be left out of the XML.
+     */
+    val models: Set<NetworkModel> = Collections.newSetFromMap(IdentityHashMap<NetworkModel, Boolean>()).apply {
+        addAll(neurons)
+        addAll(synapses)
+    }
+
+    /**
+     * Write the snapshot.
+     */
+    fun write(output: OutputStream) {
+        val out = DataOutputStream(BufferedOutputStream(output, BUFFER_SIZE))
+        val xstream = getNetworkXStream()
+        val dictionary = Dictionary(xstream)
+        // Rows of the CSR structure are the neurons in the snapshot followed by the external neurons
+        val rows = neurons + externalNeurons
+        val neuronIndex = IdentityHashMap<Neuron, Int>(rows.size)
+        rows.forEachIndexed { i, neuron -> neuronIndex[neuron] = i }
+
+        // Synapses in CSR order, grouped by target. order[k] is the position of the k-th synapse in network order.
+        val rowStart = IntArray(rows.size + 1)
+        synapses.forEach { rowStart[neuronIndex[it.target]!! + 1]++ }
+        for (i in rows.indices) {
+            rowStart[i + 1] += rowStart[i]
+        }
+        val next = rowStart.copyOf(rows.size)
+        val order = IntArray(synapses.size)
+        synapses.forEachIndexed { position, synapse -> order[next[neuronIndex[synapse.target]!!]++] = position }
+        val csr = order.map { synapses[it] }
+
+        // Dictionary indices are collected first so the dictionary can be written before the columns
+        val neuronRules = IntArray(neurons.size) { dictionary.indexOf(neurons[it].updateRule) }
+        val neuronData = IntArray(neurons.size) { dictionary.indexOf(neurons[it].dataHolder) }
+        val learningRules = IntArray(csr.size) { dictionary.indexOf(csr[it].learningRule) }
+        val learningData = IntArray(csr.size) { dictionary.indexOf(csr[it].dataHolder) }
+        val responders = IntArray(csr.size) { dictionary.indexOf(csr[it].spikeResponder) }
+        val responderData = IntArray(csr.size) { dictionary.indexOf(csr[it].spikeResponderData) }
+
+        out.writeInt(MAGIC)
+        out.writeInt(VERSION)
+        out.writeInt(dictionary.entries.size)
+        dictionary.entries.forEach { out.writeString(it) }
+
+        out.writeInt(neurons.size)
+        neurons.forEach { out.writeString(it.id) }
+        neurons.forEach { out.writeString(it.label) }
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].x })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].y })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].z })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].activation })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].increment })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].auxValue })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].input })
+        out.writeDoubles(DoubleArray(neurons.size) { neurons[it].lastActivation })
+        out.write(ByteArray(neurons.size) { if (neurons[it].isSpike) 1 else 0 })
+        out.writeInts(IntArray(neurons.size) { neurons[it].updatePriority })
+        out.writeInts(IntArray(neurons.size) { neurons[it].polarity.ordinal })
+        out.write(ByteArray(neurons.size) { if (neurons[it].isClamped) 1 else 0 })
+        out.writeInts(neuronRules)
+        out.writeInts(neuronData)
+
+        out.writeInt(externalNeurons.size)
+        externalNeurons.forEach { out.writeString(it.id) }
+
+        out.writeInt(csr.size)
+        out.writeInts(rowStart)
+        out.writeInts(IntArray(csr.size) { neuronIndex[csr[it].source]!! })
+        out.writeInts(order)
+        csr.forEach { out.writeString(it.id) }
+        csr.forEach { out.writeString(it.label) }
+        out.writeDoubles(DoubleArray(csr.size) { csr[it].strength })
+        out.writeDoubles(DoubleArray(csr.size) { csr[it].psr })
+        out.writeDoubles(DoubleArray(csr.size) { csr[it].increment })
+        out.writeDoubles(DoubleArray(csr.size) { csr[it].upperBound })
+        out.writeDoubles(DoubleArray(csr.size) { csr[it].lowerBound })
+        out.writeInts(IntArray(csr.size) { csr[it].delay })
+        out.write(ByteArray(csr.size) {
+            val synapse = csr[it]
+            ((if (synapse.isEnabled) ENABLED else 0) or (if (synapse.isFrozen) FROZEN else 0) or
+                    (if (synapse.isVisible) VISIBLE else 0)).toByte()
+        })
+        out.writeInts(learningRules)
+        out.writeInts(learningData)
+        out.writeInts(responders)
+        out.writeInts(responderData)
+        out.flush()
+    }
+
+    companion object {
+
+        private const val MAGIC = 0x53424e53 // "SBNS"
+
+        private const val VERSION = 2
+
+        private const val BUFFER_SIZE = 1 shl 16
+
+        private const val ENABLED = 1
+        private const val FROZEN = 2
+        private const val VISIBLE = 4
+
+        /**
+         * Collect the loose neurons and synapses of a network that can be stored in a snapshot.
+         */
+        @JvmStatic
+        fun of(network: Network): NetworkSnapshot {
+            val collected = Collections.newSetFromMap(IdentityHashMap<Neuron, Boolean>()).apply {
+                network.getModels<NeuronCollection>().forEach { addAll(it.neuronList) }
+            }
+            val synapses = network.freeSynapses.toList()
+            val external = Collections.newSetFromMap(IdentityHashMap<Neuron, Boolean>())
+            synapses.forEach { synapse ->
+                if (synapse.source in collected) external.add(synapse.source)
+                if (synapse.target in collected) external.add(synapse.target)
+            }
+            return NetworkSnapshot(network.freeNeurons.filter { it !in collected }, synapses, external.toList())
+        }
+
+        /**
+         * Read a snapshot and add its models to a network.
+         */
+        @JvmStatic
+        fun read(network: Network, input: InputStream): NetworkSnapshot {
+            val inp = DataInputStream(BufferedInputStream(input, BUFFER_SIZE))
+            if (inp.readInt() != MAGIC) {
+                throw IOException("Not a network snapshot")
+            }
+            val version = inp.readInt()
+            if (version !in 1..VERSION) {
+                throw IOException("Unsupported network snapshot version $version")
+            }
+            val xstream = getNetworkXStream()
+            val dictionary = Array(inp.readInt()) { xstream.fromXML(inp.readString()) }
+
+            val neuronCount = inp.readInt()
+            val neuronIds = Array(neuronCount) { inp.readString() }
+            val neuronLabels = Array(neuronCount) { inp.readString() }
+            val x = inp.readDoubles(neuronCount)
+            val y = inp.readDoubles(neuronCount)
+            val z = inp.readDoubles(neuronCount)
+            val activations = inp.readDoubles(neuronCount)
+            val neuronIncrements = inp.readDoubles(neuronCount)
+            val auxValues = inp.readDoubles(neuronCount)
+            // Version 1 did not have input values, last activations and spikes
+            val inputValues = if (version > 1) inp.readDoubles(neuronCount) else DoubleArray(neuronCount)
+            val lastActivations = if (version > 1) inp.readDoubles(neuronCount) else DoubleArray(neuronCount)
+            val spikes = ByteArray(neuronCount).also { if (version > 1) inp.readFully(it) }
+            val priorities = inp.readInts(neuronCount)
+            val polarities = inp.readInts(neuronCount)
+            val clamped = ByteArray(neuronCount).also { inp.readFully(it) }
+            val neuronRules = inp.readInts(neuronCount)
+            val neuronData = inp.readInts(neuronCount)
+            val polarityValues = Polarity.values()
+            val neurons = List(neuronCount) { i ->
+                Neuron(network, (dictionary[neuronRules[i]] as NeuronUpdateRule).deepCopy()).apply {
+                    id = neuronIds[i]
+                    label = neuronLabels[i]
+                    shouldBePlaced = false
+                    setLocation(x[i], y[i], false)
+                    setZ(z[i])
+                    dataHolder = (dictionary[neuronData[i]] as ScalarDataHolder).copy()
+                    isClamped = clamped[i].toInt() != 0
+                    increment = neuronIncrements[i]
+                    auxValue = auxValues[i]
+                    updatePriority = priorities[i]
+                    polarity = polarityValues[polarities[i]]
+                    forceSetActivation(activations[i])
+                    restoreSnapshotState(inputValues[i], lastActivations[i], spikes[i].toInt() != 0)
+                }
+            }
+
+            val externalIds = Array(inp.readInt()) { inp.readString() }
+            val networkNeurons = network.freeNeurons.associateBy { it.id }
+            val externalNeurons = externalIds.map {
+                networkNeurons[it] ?: throw IOException("Neuron $it is not in the network")
+            }
+            val rows = neurons + externalNeurons
+
+            val synapseCount = inp.readInt()
+            val rowStart = inp.readInts(rows.size + 1)
+            val sources = inp.readInts(synapseCount)
+            val order = inp.readInts(synapseCount)
+            val synapseIds = Array(synapseCount) { inp.readString() }
+            val synapseLabels = Array(synapseCount) { inp.readString() }
+            val strengths = inp.readDoubles(synapseCount)
+            val psrs = inp.readDoubles(synapseCount)
+            val synapseIncrements = inp.readDoubles(synapseCount)
+            val upperBounds = inp.readDoubles(synapseCount)
+            val lowerBounds = inp.readDoubles(synapseCount)
+            val delays = inp.readInts(synapseCount)
+            val flags = ByteArray(synapseCount).also { inp.readFully(it) }
+            val learningRules = inp.readInts(synapseCount)
+            val learningData = inp.readInts(synapseCount)
+            val responders = inp.readInts(synapseCount)
+            val responderData = inp.readInts(synapseCount)
+
+            // Targets from the row starts, then synapses are created in network order
+            val targets = IntArray(synapseCount)
+            for (i in rows.indices) {
+                targets.fill(i, rowStart[i], rowStart[i + 1])
+            }
+            val csrIndex = IntArray(synapseCount)
+            order.forEachIndexed { k, position -> csrIndex[position] = k }
+            val synapses = List(synapseCount) { position ->
+                val k = csrIndex[position]
+                Synapse(rows[sources[k]], rows[targets[k]]).apply {
+                    id = synapseIds[k]
+                    label = synapseLabels[k]
+                    upperBound = upperBounds[k]
+                    lowerBound = lowerBounds[k]
+                    increment = synapseIncrements[k]
+                    forceSetStrength(strengths[k])
+                    learningRule = dictionary[learningRules[k]] as SynapseUpdateRule
+                    setDataHolder((dictionary[learningData[k]] as ScalarDataHolder).copy())
+                    spikeResponder = (dictionary[responders[k]] as SpikeResponder).deepCopy()
+                    setSpikeResponderData((dictionary[responderData[k]] as ScalarDataHolder).copy())
+                    delay = delays[k]
+                    psr = psrs[k]
+                    isEnabled = flags[k].toInt() and ENABLED != 0
+                    isFrozen = flags[k].toInt() and FROZEN != 0
+                    if (flags[k].toInt() and VISIBLE == 0) {
+                        isVisible = false
+                    }
+                }
+            }
+
+            network.restoreNetworkModels(neurons + synapses)
+            network.updateTimeType()
+            return NetworkSnapshot(neurons, synapses, externalNeurons)
+        }
+    }
+}
+
+/**
+ * Dictionary of values stored as XML. Values made up only of primitives, strings, enums and other such values are
+ * keyed by their field values, so the XML is only produced once for each distinct value. Other values are keyed by
+ * their XML.
+ */
+private class Dictionary(val xstream: XStream) {
+
+    val entries = ArrayList<String>()
+
+    private val indices = HashMap<Any, Int>()
+
+    fun indexOf(value: Any): Int {
+        val key = flatKey(value, 0) ?: xstream.toXML(value)
+        return indices.getOrPut(key) {
+            entries.add(xstream.toXML(value))
+            entries.size - 1
+        }
+    }
+
+    /**
+     * A list of the class and field values of [value], or null if it contains something other than primitives,
+     * strings, enums and nested values of the same kind.
+     */
+    private fun flatKey(value: Any?, depth: Int): Any? {
+        if (value == null || value is Number || value is Boolean || value is Char || value is String ||
+            value is Enum<*>
+        ) {
+            return value ?: NULL
+        }
+        if (depth > MAX_DEPTH || value.javaClass.isArray) {
+            return null
+        }
+        val fields = fieldsOf(value.javaClass) ?: return null
+        val key = ArrayList<Any?>(fields.size + 1)
+        key.add(value.javaClass)
+        for (field in fields) {
+            key.add(flatKey(field.get(value), depth + 1) ?: return null)
+        }
+        return key
+    }
+
+    /**
+     * Fields of a class, or null if its values should not be compared field by field.
+     */
+    private fun fieldsOf(cls: Class<*>): List<Field>? = fieldCache.computeIfAbsent(cls) {
+        if (!cls.name.startsWith("org.simbrain")) {
+            NOT_FLAT
+        } else {
+            generateSequence(cls) { it.superclass }
+                .takeWhile { it != Any::class.java }
+                .flatMap { it.declaredFields.asSequence() }
+                .filter { !Modifier.isStatic(it.modifiers) && !Modifier.isTransient(it.modifiers) }
+                .onEach { it.isAccessible = true }
+                .toList()
+        }
+    }.takeIf { it !== NOT_FLAT }
+
+    companion object {
+        private const val MAX_DEPTH = 3
+        private val NULL = Any()
+        /**
+         * Shared by snapshots written at the same time, since workspace components are serialized concurrently.
+         */
+        private val fieldCache = ConcurrentHashMap<Class<*>, List<Field>>()
+
+        /**
+         * Cached for classes that are not compared field by field.
+         */
+        private val NOT_FLAT = ArrayList<Field>(0)
+    }
+}
+
+private fun DataOutputStream.writeString(value: String?) {
+    if (value == null) {
+        writeInt(-1)
+    } else {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+}
+
+private fun DataInputStream.readString(): String? {
+    val length = readInt()
+    if (length < 0) {
+        return null
+    }
+    return String(ByteArray(length).also { readFully(it) }, Charsets.UTF_8)
+}
+
+private fun DataOutputStream.writeDoubles(values: DoubleArray) {
+    val buffer = ByteBuffer.allocate(values.size * 8)
+    buffer.asDoubleBuffer().put(values)
+    write(buffer.array())
+}
+
+private fun DataOutputStream.writeInts(values: IntArray) {
+    val buffer = ByteBuffer.allocate(values.size * 4)
+    buffer.asIntBuffer().put(values)
+    write(buffer.array())
+}
+
+private fun DataInputStream.readDoubles(count: Int): DoubleArray {
+    val bytes = ByteArray(count * 8).also { readFully(it) }
+    return DoubleArray(count).also { ByteBuffer.wrap(bytes).asDoubleBuffer().get(it) }
+}
+
+private fun DataInputStream.readInts(count: Int): IntArray {
+    val bytes = ByteArray(count * 4).also { readFully(it) }
+    return IntArray(count).also { ByteBuffer.wrap(bytes).asIntBuffer().get(it) }
+}
@@ -95,9 +95,13 @@ var List<Neuron>.auxValues: List<Double>
 val List<Synapse>.lengths: List<Double>
     get() = map { it.length }
 
-fun getNetworkXStream(): XStream {
+/**
+ * XStream for networks. Models in [excluded] are left out of the network model list.
+ */
+@JvmOverloads
+fun getNetworkXStream(excluded: Set<NetworkModel> = emptySet()): XStream {
     val xstream = getSimbrainXStream()
-    xstream.registerConverter(NetworkModelListConverter())
+    xstream.registerConverter(NetworkModelListConverter(excluded))
     xstream.registerConverter(DoubleArrayConverter())
     xstream.registerConverter(MatrixConverter())
     return xstream
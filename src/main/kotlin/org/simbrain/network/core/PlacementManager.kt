@@ -1,7 +1,6 @@
-package org.simbrain.network.gui
+package org.simbrain.network.core
 
 import org.simbrain.network.*
-import org.simbrain.network.core.Neuron
 import org.simbrain.network.groups.NeuronCollection
 import org.simbrain.network.groups.NeuronGroup
 import org.simbrain.network.groups.Subnetwork
@@ -45,17 +44,17 @@ class PlacementManager() {
      * convenient for creating "paste trails". Initialized to defaults for each object type.
      */
     var deltaDragMap = mutableMapOf<KClass<out LocatableModel>, Point2D> (
-        Neuron::class to point(45, 0),
-        NeuronGroup::class to point(400, 0),
-        NeuronArray::class to point(300,0),
-        Hopfield::class to point(300,0),
-        CompetitiveNetwork::class to point(300,0),
-        Subnetwork::class to point(220,0))
+        Neuron::class to point(45.0, 0.0),
+        NeuronGroup::class to point(400.0, 0.0),
+        NeuronArray::class to point(300.0, 0.0),
+        Hopfield::class to point(300.0, 0.0),
+        CompetitiveNetwork::class to point(300.0, 0.0),
+        Subnetwork::class to point(220.0, 0.0))
 
     /**
      * Set last location clicked on screen.
      */
-    var lastClickedLocation: Point2D = point(0, 0)
+    var lastClickedLocation: Point2D = point(0.0, 0.0)
         set(point) {
             field = point
             useLastClickedLocation = true
@@ -93,7 +92,7 @@ class PlacementManager() {
             useLastClickedLocation = false
             offsetFromAnchor(models, point(0.0,0.0))
         } else {
-            val offset = deltaDragMap.getOrDefault(models.first()::class, point(45,0))
+            val offset = deltaDragMap.getOrDefault(models.first()::class, point(45.0, 0.0))
             offsetFromAnchor(models, offset)
         }
     }
@@ -6,7 +6,6 @@ import org.simbrain.network.connections.ConnectionSelector
 import org.simbrain.network.connections.ConnectionStrategy
 import org.simbrain.network.events.SynapseGroup2Events2
 import org.simbrain.network.groups.AbstractNeuronCollection
-import org.simbrain.network.gui.nodes.SynapseNode
 import org.simbrain.network.util.SimnetUtils
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.UniformRealDistribution
@@ -51,7 +50,7 @@ class SynapseGroup2 @JvmOverloads constructor(
      * Flag for whether synapses should be displayed in a GUI representation of this object.
      *
      * Individual synapse visibility is handled via the isVisible field. Changes to visibility
-     * fire an event which is received by [SynapseNode].
+     * fire an event which is received by [org.simbrain.network.gui.nodes.SynapseNode].
      */
     var displaySynapses = false
         set(value) {
@@ -87,11 +86,13 @@ class SynapseGroup2 @JvmOverloads constructor(
     fun addSynapse(syn: Synapse) {
         syn.isVisible = displaySynapses
         this.synapses.add(syn)
+        source.network.structureChanged()
         events.synapseAdded.fireAndForget(syn)
     }
 
     fun removeSynapse(syn: Synapse) {
         this.synapses.remove(syn)
+        source.network.structureChanged()
         events.synapseRemoved.fireAndForget(syn)
     }
 
@@ -8,7 +8,7 @@ import org.simbrain.util.Events2
  */
 class NeuronEvents2: LocationEvents2() {
 
-    val activationChanged = ChangedEvent<Double>()
+    val activationChanged = ChangedEvent<Double>(coalesce = true)
     val spiked = AddedEvent<Boolean>()
     val colorChanged = NoArgEvent()
     val updateRuleChanged = ChangedEvent<NeuronUpdateRule>()
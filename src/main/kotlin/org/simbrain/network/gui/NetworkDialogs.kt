@@ -22,6 +22,7 @@ import org.simbrain.network.smile.SmileClassifier
 import org.simbrain.util.StandardDialog
 import org.simbrain.util.createDialog
 import org.simbrain.util.display
+import org.simbrain.util.displayInDialog
 import org.simbrain.util.piccolo.SceneGraphBrowser
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor
 import org.simbrain.util.propertyeditor.ObjectTypeEditor
@@ -274,4 +275,8 @@ class ConnectionStrategyPanel(val connectionSelector: ConnectionSelector): Edita
             return true
         }
 
-}
\ No newline at end of file
+}
+
+fun main() {
+    ConnectionStrategyPanel(ConnectionSelector(Sparse())).displayInDialog()
+}
@@ -72,10 +72,16 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
     /**
      * Associates neurons with neuron nodes for use mainly in creating synapse nodes.
      */
-    val neuronNodeMapping: Map<Neuron, NeuronNode> = HashMap()
+    val neuronNodeMapping: Map<Neuron, NeuronNode> get() = _neuronNodeMapping
+    private val _neuronNodeMapping = HashMap<Neuron, NeuronNode>()
 
     val timeLabel = TimeLabel(this).apply { update() }
 
+    /**
+     * Repaints the panel at a fixed frame rate while it is showing. Network updates do not wait for it.
+     */
+    val renderScheduler = RenderScheduler(this)
+
     var autoZoom = true
         set(value) {
             field = value
@@ -209,6 +215,16 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
 
     }
 
+    override fun addNotify() {
+        super.addNotify()
+        renderScheduler.start()
+    }
+
+    override fun removeNotify() {
+        renderScheduler.stop()
+        super.removeNotify()
+    }
+
     /**
      * Returns all nodes in the canvas.
      */
@@ -221,6 +237,11 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
     fun <T : ScreenElement> filterScreenElements(clazz: Class<T>) =
         canvas.layer.allNodes.filterIsInstance(clazz)
 
+    /**
+     * True while nodes for a batch of added models are created, so the page is rezoomed once at the end.
+     */
+    private var creatingNodes = false
+
     /**
      * Add a screen element to the network panel and rezoom the page.
      */
@@ -233,7 +254,13 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
                 selectionManager.add(node)
             }
         }
-        network.events.zoomToFitPage.fireAndForget()
+        if (node is Renderable) {
+            renderScheduler.add(node)
+            node.model.events.deleted.on(Dispatchers.Swing) { renderScheduler.remove(node) }
+        }
+        if (!creatingNodes) {
+            network.events.zoomToFitPage.fireAndForget()
+        }
     }
 
     private fun createNode(model: NetworkModel): ScreenElement {
@@ -266,7 +293,8 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
         })
         Neuron.tempDebugNan(neuron)
         NeuronNode(this, neuron).also {
-            (neuronNodeMapping as HashMap)[neuron] = it
+            _neuronNodeMapping[neuron] = it
+            neuron.events.deleted.on(Dispatchers.Swing) { _neuronNodeMapping.remove(neuron) }
             selectionManager.set(it)
         }
     }
@@ -322,9 +350,7 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
 
     fun createNode(text: NetworkTextObject) = addScreenElement {
         TextNode(this, text).apply {
-            if (text.inputEvent != null) {
-                textHandle.startEditing(text.inputEvent, this.pStyledText);
-            }
+            textHandle.startEditingIfNew(text, this.pStyledText)
         }
     }
 
@@ -660,16 +686,18 @@ class NetworkPanel constructor(val networkComponent: NetworkComponent) : JPanel(
     private fun initEventHandlers() {
         val event = network.events
         event.modelAdded.on(Dispatchers.Swing) { list ->
-            list.forEach { createNode(it) }
+            creatingNodes = true
+            try {
+                list.forEach { createNode(it) }
+            } finally {
+                creatingNodes = false
+            }
+            network.events.zoomToFitPage.fireAndForget()
         }
         event.modelRemoved.on(Dispatchers.Swing) {
             network.events.zoomToFitPage.fireAndForget()
         }
         event.updateActionsChanged.on(Dispatchers.Swing) { timeLabel.update() }
-        event.updated.on(Dispatchers.Swing, wait = true) {
-            repaint()
-            timeLabel.update()
-        }
         network.events.zoomToFitPage.on(Dispatchers.Swing) {
             if (autoZoom && editMode.isSelection) {
                 val filtered = canvas.layer.getUnionOfChildrenBounds(null)
@@ -1,11 +1,11 @@
-package org.simbrain.network.events
+package org.simbrain.network.gui
 
 import org.simbrain.network.gui.nodes.ScreenElement
 import org.simbrain.util.Events2
 
 /**
- * Handles dragging and clicking to select network objects. Can think of this as an internal service  of
- * [NetworkPanel] but leaving it here in the event package anyway.
+ * Handles dragging and clicking to select network objects. An internal service of [NetworkPanel], so it lives with
+ * the gui rather than in the model's event package.
  *
  * @see [Events2]
  */
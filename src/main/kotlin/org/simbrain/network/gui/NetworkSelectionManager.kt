@@ -1,7 +1,6 @@
 package org.simbrain.network.gui
 
 import org.simbrain.network.NetworkModel
-import org.simbrain.network.events.NetworkSelectionEvent2
 import org.simbrain.network.gui.nodes.ScreenElement
 import java.util.concurrent.CopyOnWriteArraySet
 
@@ -0,0 +1,241 @@
+package org.simbrain.network.gui
+
+import org.simbrain.util.EventObjectHandler
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+import javax.swing.Timer
+
+/**
+ * A screen element drawn by a [RenderScheduler] from snapshots of its model.
+ */
+interface Renderable {
+
+    /**
+     * Copy the model state that [render] draws. Called on the network's update thread between updates, or on the
+     * event dispatch thread when the network is not running. Must not touch the screen.
+     */
+    fun snapshot()
+
+    /**
+     * Draw the state copied by the last [snapshot], if it differs from what is drawn. Called on the event dispatch
+     * thread. Returns true if anything was redrawn.
+     */
+    fun render(): Boolean
+}
+
+/**
+ * Repaints a [NetworkPanel] at a fixed frame rate, independently of network updates.
+ *
+ * Network updates do not wait for the panel. Instead, after each frame the scheduler requests a snapshot, which the
+ * update thread takes once the current update has finished, so that every [Renderable] is copied from the same
+ * network state. The next frame draws that snapshot on the event dispatch thread, refreshing only the screen elements
+ * that changed, so that one update or a hundred between frames cost the same to draw. Piccolo repaints the refreshed
+ * elements together once the frame is done. When the network is not running, e.g. while it is edited, the snapshot is
+ * taken by the event dispatch thread itself.
+ *
+ * Also measures how fast the network is running: see [ticksPerSecond], [achievedFramesPerSecond] and
+ * [droppedFrames], which are shown in the tool tip of the panel's [TimeLabel].
+ */
+class RenderScheduler(private val networkPanel: NetworkPanel, framesPerSecond: Int = 30) {
+
+    /**
+     * Target number of frames rendered per second.
+     */
+    var framesPerSecond = framesPerSecond
+        set(value) {
+            field = value.coerceIn(1, 1000)
+            timer.delay = 1000 / field
+        }
+
+    private val timer = Timer(1000 / framesPerSecond) { renderFrame() }.apply { isCoalesce = true }
+
+    /**
+     * Network updates since the scheduler was created. Counted on the update thread.
+     */
+    private val ticks = AtomicLong()
+
+    private var ticksRendered = -1L
+
+    /**
+     * Screen elements drawn each frame. Only used on the event dispatch thread.
+     */
+    private val renderables = LinkedHashSet<Renderable>()
+
+    /**
+     * Elements to snapshot after the next update, set by the event dispatch thread and claimed by whichever thread
+     * takes the snapshot.
+     */
+    private val requested = AtomicReference<Array<Renderable>?>()
+
+    /**
+     * Elements whose snapshots are ready to render, with the number of updates when they were taken.
+     */
+    private val ready = AtomicReference<Snapshot?>()
+
+    private class Snapshot(val renderables: Array<Renderable>, val ticks: Long)
+
+    /**
+     * Whether a snapshot has been requested and not yet rendered, so that snapshots and renders alternate.
+     */
+    private var awaitingSnapshot = false
+
+    private var lastFrameTime = 0L
+
+    private var windowStart = 0L
+
+    private var windowTicks = 0L
+
+    private var windowFrames = 0
+
+    /**
+     * Frames rendered since the scheduler was started.
+     */
+    var renderedFrames = 0L
+        private set
+
+    /**
+     * Frames that were due but not rendered, because the event dispatch thread was busy or the previous frame took
+     * longer than the frame budget.
+     */
+    var droppedFrames = 0L
+        private set
+
+    /**
+     * Network updates per second, measured over about the last second.
+     */
+    var ticksPerSecond = 0.0
+        private set
+
+    /**
+     * Frames rendered per second, measured over about the last second.
+     */
+    var achievedFramesPerSecond = 0.0
+        private set
+
+    /**
+     * Number of screen elements refreshed by the last frame.
+     */
+    var changedLastFrame = 0
+        private set
+
+    val isRunning get() = timer.isRunning
+
+    /**
+     * Handler of network updates, registered while the scheduler is running so that a closed panel is not kept by
+     * the network.
+     */
+    private var updatedHandler: EventObjectHandler? = null
+
+    /**
+     * Draw [renderable] from the next frame on. Must be called on the event dispatch thread.
+     */
+    fun add(renderable: Renderable) {
+        renderables.add(renderable)
+    }
+
+    /**
+     * Stop drawing [renderable]. Must be called on the event dispatch thread.
+     */
+    fun remove(renderable: Renderable) {
+        renderables.remove(renderable)
+    }
+
+    private fun takeSnapshot(toSnapshot: Array<Renderable>, currentTicks: Long) {
+        // Compiled updates fire their model events only when asked, so that elements see the current state
+        networkPanel.network.fireCompiledUpdateEvents()
+        toSnapshot.forEach { it.snapshot() }
+        ready.set(Snapshot(toSnapshot, currentTicks))
+    }
+
+    fun start() {
+        if (updatedHandler == null) {
+            updatedHandler = networkPanel.network.events.updated.on(handler = Runnable {
+                val currentTicks = ticks.incrementAndGet()
+                requested.getAndSet(null)?.let { takeSnapshot(it, currentTicks) }
+            })
+        }
+        lastFrameTime = 0L
+        windowStart = System.nanoTime()
+        windowTicks = ticks.get()
+        windowFrames = 0
+        timer.start()
+    }
+
+    /**
+     * Stop rendering and stop listening to the network, e.g. when the panel is closed.
+     */
+    fun stop() {
+        timer.stop()
+        updatedHandler?.let { networkPanel.network.events.updated.off(it) }
+        updatedHandler = null
+        // A snapshot requested before stopping is not rendered, so request a new one after starting again
+        requested.set(null)
+        ready.set(null)
+        awaitingSnapshot = false
+    }
+
+    /**
+     * Render one frame. Must be called on the event dispatch thread.
+     */
+    fun renderFrame() {
+        val now = System.nanoTime()
+        val period = 1_000_000_000L / framesPerSecond
+        if (lastFrameTime != 0L) {
+            droppedFrames += maxOf(0L, (now - lastFrameTime) / period - 1)
+        }
+        lastFrameTime = now
+        renderedFrames++
+        windowFrames++
+        updateRates(now)
+
+        if (!networkPanel.guiOn) {
+            changedLastFrame = 0
+            return
+        }
+        var snapshot = ready.getAndSet(null)
+        if (snapshot == null && !networkPanel.networkComponent.isRunning) {
+            // No update is coming to take the requested snapshot, and models can change between updates, e.g. when
+            // edited, so take it here
+            requested.getAndSet(null)?.let { takeSnapshot(it, ticks.get()) }
+            snapshot = ready.getAndSet(null)
+        }
+        var changed = 0
+        if (snapshot != null) {
+            awaitingSnapshot = false
+            // Elements removed since the snapshot was requested are not drawn
+            for (renderable in snapshot.renderables) {
+                if (renderable in renderables && renderable.render()) {
+                    changed++
+                }
+            }
+            if (snapshot.ticks != ticksRendered) {
+                ticksRendered = snapshot.ticks
+                networkPanel.timeLabel.update()
+            }
+        }
+        changedLastFrame = changed
+        // Elements added since the last request are snapshotted from the next one on
+        if (!awaitingSnapshot) {
+            awaitingSnapshot = true
+            requested.set(renderables.toTypedArray())
+        }
+    }
+
+    private fun updateRates(now: Long) {
+        val elapsed = now - windowStart
+        if (elapsed < 1_000_000_000L) {
+            return
+        }
+        val currentTicks = ticks.get()
+        ticksPerSecond = (currentTicks - windowTicks) * 1e9 / elapsed
+        achievedFramesPerSecond = windowFrames * 1e9 / elapsed
+        windowStart = now
+        windowTicks = currentTicks
+        windowFrames = 0
+        networkPanel.timeLabel.toolTipText = toString()
+    }
+
+    override fun toString() = "%.1f updates/s, %.1f of %d frames/s, %d dropped frames".format(
+        ticksPerSecond, achievedFramesPerSecond, framesPerSecond, droppedFrames
+    )
+}
@@ -4,6 +4,7 @@ import net.miginfocom.swing.MigLayout
 import org.simbrain.network.core.Network
 import org.simbrain.network.gui.NetworkPanel
 import org.simbrain.network.kotlindl.*
+import org.simbrain.network.trainers.MatrixDataset
 import org.simbrain.util.StandardDialog
 import org.simbrain.util.math.SimbrainMath
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor
@@ -12,6 +13,7 @@ import org.simbrain.util.propertyeditor.ObjectTypeEditor
 import org.simbrain.util.stats.distributions.UniformIntegerDistribution
 import org.simbrain.util.table.*
 import org.simbrain.util.widgets.EditableList
+import smile.math.matrix.Matrix
 import java.awt.BorderLayout
 import java.awt.Dimension
 import java.awt.FlowLayout
@@ -156,7 +158,7 @@ fun showDeepNetTrainingDialog(deepNet: DeepNet) {
 
         // Data Panels
         val inputPanel = SimbrainDataViewer(
-            createFromFloatArray(deepNet.inputData), useDefaultToolbarAndMenu =
+            MatrixDataWrapper(deepNet.trainingData.inputs), useDefaultToolbarAndMenu =
             false
         ).apply {
             addFixedColumnActions()
@@ -164,7 +166,7 @@ fun showDeepNetTrainingDialog(deepNet: DeepNet) {
         }
 
         val targetPanel = SimbrainDataViewer(
-            createFromColumn(deepNet.targetData), useDefaultToolbarAndMenu =
+            MatrixDataWrapper(deepNet.trainingData.targets), useDefaultToolbarAndMenu =
             false
         ).apply {
             addFixedColumnActions()
@@ -181,10 +183,14 @@ fun showDeepNetTrainingDialog(deepNet: DeepNet) {
         // Trainer
         val trainingParams = AnnotatedPropertyEditor(deepNet.trainingParams)
 
-        // Helper to commit data from data tables
+        // Helper to commit data from data tables. The tables wrap the training data, so it is only replaced when
+        // importing a file has replaced a table's matrix
         fun commitData() {
-            deepNet.inputData = inputPanel.model.getFloat2DArray()
-            deepNet.targetData = targetPanel.model.getFloatColumn(0)
+            val inputs = inputPanel.model.getDoubleMatrix()
+            val targets = targetPanel.model.getDoubleMatrix()
+            if (inputs !== deepNet.trainingData.inputs || targets !== deepNet.trainingData.targets) {
+                deepNet.trainingData = MatrixDataset(inputs, targets)
+            }
             deepNet.initializeDatasets()
         }
 
@@ -272,8 +278,12 @@ fun testTrainingDialog() {
         4
     )
     // XOR
-    dn.inputData = arrayOf(floatArrayOf(0f, 0f), floatArrayOf(1f, 0f), floatArrayOf(0f, 1f), floatArrayOf(1f, 1f))
-    dn.targetData = floatArrayOf(0f, 1f, 1f, 0f)
+    dn.trainingData = MatrixDataset(
+        Matrix(arrayOf(
+            doubleArrayOf(0.0, 0.0), doubleArrayOf(1.0, 0.0), doubleArrayOf(0.0, 1.0), doubleArrayOf(1.0, 1.0)
+        )),
+        Matrix(doubleArrayOf(0.0, 1.0, 1.0, 0.0))
+    )
     dn.initializeDatasets()
     showDeepNetTrainingDialog(dn)
 }
@@ -5,6 +5,7 @@ import org.simbrain.network.NetworkComponent
 import org.simbrain.network.gui.NetworkPanel
 import org.simbrain.network.gui.nodes.LMSNetworkNode
 import org.simbrain.network.subnetworks.LMSNetwork
+import org.simbrain.network.trainers.MatrixDataset
 import org.simbrain.util.StandardDialog
 import org.simbrain.util.createDialog
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor
@@ -40,6 +41,19 @@ fun LMSNetwork.getTrainingDialog(): StandardDialog {
         val targets = MatrixEditor(trainingSet.targets)
         val addRemoveRows = AddRemoveRows(inputs.table, targets.table)
 
+        // Adding or removing rows and importing files replace the tables' matrices, so train on the new ones once
+        // both tables have the same number of rows
+        fun commitData() {
+            val inputMatrix = inputs.model.getDoubleMatrix()
+            val targetMatrix = targets.model.getDoubleMatrix()
+            if ((inputMatrix !== trainingSet.inputs || targetMatrix !== trainingSet.targets) &&
+                inputMatrix.nrows() == targetMatrix.nrows()) {
+                trainingSet = MatrixDataset(inputMatrix, targetMatrix)
+            }
+        }
+        inputs.model.addTableModelListener { commitData() }
+        targets.model.addTableModelListener { commitData() }
+
         trainer.events.beginTraining.on {
             trainerProps.commitChanges()
         }
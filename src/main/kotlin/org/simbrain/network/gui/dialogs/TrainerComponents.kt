@@ -57,6 +57,12 @@ class TrainerControls(lmsTrainer: LMSTrainer, errorText: String = "Error") : JPa
         lmsTrainer.iterate()
     }
 
+    private val solveAction = createSuspendAction(
+        "menu_icons/Wand.png", description = "Set weights and biases to the least squares solution."
+    ) {
+        lmsTrainer.solve()
+    }
+
     private val randomizeAction = createAction(
         "menu_icons/Rand.png", description = "Randomize network.",
     ) {
@@ -78,6 +84,7 @@ class TrainerControls(lmsTrainer: LMSTrainer, errorText: String = "Error") : JPa
             }
         })
         runTools.add(JButton(stepAction))
+        runTools.add(JButton(solveAction))
         val randomizeButton = JButton(randomizeAction)
         randomizeButton.hideActionText = true
         runTools.add(randomizeButton)
@@ -24,6 +24,7 @@ import org.piccolo2d.PNode
 import org.piccolo2d.nodes.PImage
 import org.piccolo2d.nodes.PText
 import org.simbrain.network.gui.NetworkPanel
+import org.simbrain.network.gui.Renderable
 import org.simbrain.network.gui.actions.edit.CopyAction
 import org.simbrain.network.gui.actions.edit.CutAction
 import org.simbrain.network.gui.actions.edit.DeleteAction
@@ -48,7 +49,21 @@ import kotlin.math.sqrt
  * subclasses of Layer.
  */
 class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray) :
-    ArrayLayerNode(networkPanel, neuronArray) {
+    ArrayLayerNode(networkPanel, neuronArray), Renderable {
+
+    /**
+     * Activations and spikes that are drawn. Taken from the array when the node is created and from [snapshot] by
+     * [render] afterwards. Spikes are null if the array does not spike.
+     */
+    private var renderedActivations = neuronArray.outputs.col(0)
+    private var renderedSpikes = (neuronArray.dataHolder as? SpikingMatrixData)?.spikes?.copyOf()
+
+    /**
+     * State copied from the array by [snapshot] for the next [render]. Swapped with the rendered arrays when drawn,
+     * so that no arrays are allocated while the array's size stays the same.
+     */
+    private var snapshotActivations = renderedActivations.copyOf()
+    private var snapshotSpikes = renderedSpikes?.copyOf()
 
     /**
      * Main pixel image for activations.
@@ -124,10 +139,6 @@ class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray)
         events.labelChanged.on(Dispatchers.Swing) { o, n -> updateTextLabel() }
         updateTextLabel()
 
-        events.updated.on(Dispatchers.Swing) {
-            updateActivationImage()
-            updateInfoText()
-        }
         events.updateRuleChanged.on(Dispatchers.Swing) {
             if (!neuronArray.updateRule.isSpikingRule) {
                 mainNode.removeChild(spikeImage)
@@ -141,9 +152,41 @@ class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray)
 
     }
 
+    override fun snapshot() {
+        val outputs = neuronArray.outputs
+        if (snapshotActivations.size != outputs.nrows()) {
+            snapshotActivations = DoubleArray(outputs.nrows())
+        }
+        for (i in snapshotActivations.indices) {
+            snapshotActivations[i] = outputs[i, 0]
+        }
+        val spikes = (neuronArray.dataHolder as? SpikingMatrixData)?.spikes
+        if (spikes == null) {
+            snapshotSpikes = null
+        } else {
+            val copy = snapshotSpikes?.takeIf { it.size == spikes.size } ?: BooleanArray(spikes.size)
+            spikes.copyInto(copy)
+            snapshotSpikes = copy
+        }
+    }
+
+    /**
+     * Redraw the activation image and info text from the last [snapshot] if it differs from what is drawn.
+     */
+    override fun render(): Boolean {
+        if (snapshotActivations.contentEquals(renderedActivations) && snapshotSpikes.contentEquals(renderedSpikes)) {
+            return false
+        }
+        snapshotActivations = renderedActivations.also { renderedActivations = snapshotActivations }
+        snapshotSpikes = renderedSpikes.also { renderedSpikes = snapshotSpikes }
+        updateActivationImage()
+        updateInfoText()
+        return true
+    }
+
     private fun updateActivationImage() {
         activationImage.removeAllChildren()
-        val activations = neuronArray.outputs.col(0)
+        val activations = renderedActivations
         if (gridMode) {
             // "Grid" case
             val len = sqrt(activations.size.toDouble()).toInt()
@@ -153,8 +196,7 @@ class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray)
                 0.0, 0.0,
                 infoText.width, infoText.width
             )
-            if (neuronArray.updateRule.isSpikingRule) {
-                val spikes = (neuronArray.dataHolder as SpikingMatrixData).spikes
+            renderedSpikes?.let { spikes ->
                 spikeImage.image = spikes.toOverlay(len, len, NeuronNode.spikingColor)
                 spikeImage.setBounds(
                     0.0, 0.0,
@@ -170,8 +212,7 @@ class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray)
                 infoText.width, flatPixelArrayHeight.toDouble()
             )
             activationImage.addBorder()
-            if (neuronArray.updateRule.isSpikingRule) {
-                val spikes = (neuronArray.dataHolder as SpikingMatrixData).spikes
+            renderedSpikes?.let { spikes ->
                 spikeImage.image = spikes.toOverlay(activations.size, 1, NeuronNode.spikingColor)
                 spikeImage.setBounds(
                     0.0, 0.0,
@@ -184,7 +225,7 @@ class NeuronArrayNode(networkPanel: NetworkPanel, val neuronArray: NeuronArray)
 
     private fun computeInfoText() = """
             ${neuronArray.id}    nodes: ${neuronArray.size()}
-            mean activation: ${neuronArray.activations.col(0).average().format(4)}
+            mean activation: ${renderedActivations.average().format(4)}
             """.trimIndent()
 
     /**
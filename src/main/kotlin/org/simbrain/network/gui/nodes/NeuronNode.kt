@@ -27,6 +27,7 @@ import org.simbrain.network.NetworkModel
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.NeuronUpdateRule
 import org.simbrain.network.gui.NetworkPanel
+import org.simbrain.network.gui.Renderable
 import org.simbrain.network.gui.neuronContextMenu
 import org.simbrain.network.gui.neuronDialog
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator
@@ -41,6 +42,7 @@ import java.awt.Font
 import java.awt.geom.Point2D
 import java.beans.PropertyChangeEvent
 import java.beans.PropertyChangeListener
+import java.util.function.Consumer
 import javax.swing.JDialog
 import javax.swing.JPopupMenu
 
@@ -48,7 +50,7 @@ import javax.swing.JPopupMenu
  * **NeuronNode** is a Piccolo PNode corresponding to a Neuron in the neural
  * network model.
  */
-class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), PropertyChangeListener {
+class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), PropertyChangeListener, Renderable {
 
     private val mainShape: PPath
         get() = if (neuron.updateRule is ActivityGenerator) square else circle
@@ -109,6 +111,27 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
      */
     private var customStrokeColor = false
 
+    /**
+     * Activation, graphical value and spike state that are drawn. Taken from the neuron when the node is created and
+     * from [snapshot] by [render] afterwards.
+     */
+    private var renderedActivation = neuron.activation
+    private var renderedGraphicalValue = neuron.updateRule.getGraphicalValue(neuron)
+    private var renderedSpike = neuron.isSpike
+
+    /**
+     * State copied from the neuron by [snapshot] for the next [render].
+     */
+    private var snapshotActivation = renderedActivation
+    private var snapshotGraphicalValue = renderedGraphicalValue
+    private var snapshotSpike = renderedSpike
+
+    /**
+     * Set when the neuron spikes, so that a spike that starts and ends between two frames is still drawn.
+     */
+    @Volatile
+    private var spikedSinceRender = false
+
     /**
      * Create a new neuron node.
      */
@@ -135,11 +158,7 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
         // Handle events
         val events = neuron.events
         events.deleted.on(Dispatchers.Swing) { n: NetworkModel? -> removeFromParent() }
-        events.activationChanged.on(Dispatchers.Swing) { _, _ ->
-            updateColor()
-            updateText()
-        }
-        events.spiked.on { updateSpikeColor() }
+        events.spiked.on(handler = Consumer { spike -> if (spike) spikedSinceRender = true })
         events.colorChanged.on { updateColor() }
         events.labelChanged.on { _, _ ->
             updateTextLabel()
@@ -150,6 +169,38 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
         events.updateRuleChanged.on { _, _ -> updateShape() }
     }
 
+    override fun snapshot() {
+        snapshotActivation = neuron.activation
+        snapshotGraphicalValue = neuron.updateRule.getGraphicalValue(neuron)
+        snapshotSpike = neuron.isSpike || spikedSinceRender
+        spikedSinceRender = false
+    }
+
+    /**
+     * Redraw the activation and spike state of the last [snapshot] if they differ from what is drawn.
+     */
+    override fun render(): Boolean {
+        if (snapshotActivation.toRawBits() == renderedActivation.toRawBits() &&
+            snapshotGraphicalValue.toRawBits() == renderedGraphicalValue.toRawBits() &&
+            snapshotSpike == renderedSpike) {
+            return false
+        }
+        val wasSpiking = renderedSpike
+        renderedActivation = snapshotActivation
+        renderedGraphicalValue = snapshotGraphicalValue
+        renderedSpike = snapshotSpike
+        if (renderedSpike) {
+            updateSpikeColor(true)
+        } else {
+            if (wasSpiking) {
+                updateSpikeColor(false)
+            }
+            updateColor()
+        }
+        updateText()
+        return true
+    }
+
     /**
      * Update the shape (square or circle) of the neuron based on whether it's an activity generator or not.
      */
@@ -187,18 +238,18 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
             return
         }
         // Todo: a bit of a performance drain.
-        val act = neuron.activation
+        val act = renderedActivation
         activationText.scale = 1.0
         setActivationTextPosition()
         priorityText.scale = 1.0
         setPriorityTextPosition()
         priorityText.text = "" + neuron.updatePriority // todo: respond
         // to listener
-        if (java.lang.Double.isNaN(neuron.activation)) {
+        if (java.lang.Double.isNaN(act)) {
             activationText.text = "NaN"
             activationText.scale(.7)
             activationText.translate(-4.0, 3.0)
-        } else if (act > 0 && neuron.activation < 1) { // Between 0 and
+        } else if (act > 0 && act < 1) { // Between 0 and
             // 1
             activationText.font = NEURON_FONT_BOLD
             var text = Utils.round(act, 1)
@@ -277,10 +328,10 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
      * Sets the color of this neuron based on its activation level.
      */
     private fun updateColor() {
-        if (neuron.isSpike) {
+        if (renderedSpike) {
             return
         }
-        val activation = neuron.updateRule.getGraphicalValue(neuron)
+        val activation = renderedGraphicalValue
         // Force to blank if 0 (or close to it)
         val gLow = neuron.updateRule.graphicalLowerBound
         val gUp = neuron.updateRule.graphicalUpperBound
@@ -316,10 +367,12 @@ class NeuronNode(net: NetworkPanel?, val neuron: Neuron) : ScreenElement(net), P
 
     /**
      * When spiking change the color of the line around the node.
+     *
+     * @param spike whether to draw the node as spiking
      */
-    private fun updateSpikeColor() {
+    private fun updateSpikeColor(spike: Boolean) {
         if (!customStrokeColor) {
-            if (neuron.isSpike) {
+            if (spike) {
                 mainShape.strokePaint = spikingColor
                 mainShape.paint = spikingColor
             } else {
@@ -0,0 +1,63 @@
+package org.simbrain.network.kotlindl
+
+import org.jetbrains.kotlinx.dl.dataset.DataBatch
+import org.jetbrains.kotlinx.dl.dataset.Dataset
+import org.jetbrains.kotlinx.dl.dataset.OnHeapDataset
+import org.simbrain.network.trainers.BinaryDataset
+import org.simbrain.network.trainers.MatrixDataset
+import org.simbrain.network.trainers.prefetchExecutor
+import java.util.concurrent.Future
+
+/**
+ * A KotlinDL [Dataset] over rows [from] until [to] of a [BinaryDataset], which reads each batch from disk as it is
+ * needed and reads the next one in the background meanwhile. Rows are used in the order they are in the file, which
+ * should be shuffled when it is written. Labels are the first target column.
+ */
+class BinaryDatasetView(
+    val dataset: BinaryDataset,
+    private val from: Long = 0,
+    private val to: Long = dataset.rows
+) : Dataset() {
+
+    /**
+     * The batch being read ahead, and where it starts.
+     */
+    private var prefetched: Pair<Int, Future<DataBatch>>? = null
+
+    override fun xSize() = (to - from).toInt()
+
+    override fun getX(idx: Int): FloatArray = readRows(idx, 1).floatInputRow(0)
+
+    override fun getY(idx: Int) = readRows(idx, 1).targets[0, 0].toFloat()
+
+    override fun shuffle() = this
+
+    override fun split(splitRatio: Double): Pair<BinaryDatasetView, BinaryDatasetView> {
+        if (splitRatio !in 0.0..1.0) {
+            throw IllegalArgumentException("Split ratio $splitRatio is not between 0 and 1")
+        }
+        val splitRow = from + ((to - from) * splitRatio).toLong()
+        return BinaryDatasetView(dataset, from, splitRow) to BinaryDatasetView(dataset, splitRow, to)
+    }
+
+    @Synchronized
+    override fun createDataBatch(batchStart: Int, batchLength: Int): DataBatch {
+        val batch = prefetched?.takeIf { it.first == batchStart }?.second?.get() ?: readBatch(batchStart, batchLength)
+        prefetched = (batchStart + batchLength).takeIf { it < xSize() }?.let { next ->
+            next to prefetchExecutor.submit<DataBatch> { readBatch(next, batchLength) }
+        }
+        return batch
+    }
+
+    private fun readRows(start: Int, count: Int) = MatrixDataset.wrap(count, dataset.nInputs, dataset.nOutputs).also {
+        dataset.read(from + start, count, it)
+    }
+
+    private fun readBatch(start: Int, length: Int): DataBatch {
+        val rows = readRows(start, minOf(length, xSize() - start))
+        // DataBatch can only be created by KotlinDL itself, so go through a dataset holding just this batch
+        return OnHeapDataset.create(Array(rows.size) { rows.floatInputRow(it) }, FloatArray(rows.size) {
+            rows.targets[it, 0].toFloat()
+        }).batchIterator(rows.size).next()
+    }
+}
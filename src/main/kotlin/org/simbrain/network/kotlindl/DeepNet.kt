@@ -6,10 +6,11 @@ import org.jetbrains.kotlinx.dl.api.core.history.TrainingHistory
 import org.jetbrains.kotlinx.dl.api.core.loss.Losses
 import org.jetbrains.kotlinx.dl.api.core.metric.Metrics
 import org.jetbrains.kotlinx.dl.dataset.Dataset
-import org.jetbrains.kotlinx.dl.dataset.OnHeapDataset
 import org.simbrain.network.core.ArrayLayer
 import org.simbrain.network.core.Network
 import org.simbrain.network.events.TrainerEvents2
+import org.simbrain.network.trainers.BinaryDataset
+import org.simbrain.network.trainers.MatrixDataset
 import org.simbrain.util.*
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.workspace.AttributeContainer
@@ -33,6 +34,7 @@ class DeepNet(
     /**
      * Main deep network object.
      */
+    @Transient
     lateinit var deepNetLayers: Sequential
 
     /**
@@ -68,21 +70,31 @@ class DeepNet(
         get() = outputs?.col(0) ?: DoubleArray(outputSize())
 
     /**
-     * The training data that can be edited by the user.
+     * The training data that can be edited by the user. The first target column holds the class labels.
      */
-    var inputData: Array<FloatArray>
-    var targetData: FloatArray
+    var trainingData: MatrixDataset
+
+    /**
+     * Training inputs and class labels of deep nets saved before [trainingData] replaced them. Only set while such a
+     * net is opened, and moved into [trainingData] by [readResolve].
+     */
+    private var inputData: Array<FloatArray>? = null
+    private var targetData: FloatArray? = null
 
     /**
      * The data used internally by KotlinDL.
      */
+    @Transient
     lateinit var trainingDataset: Dataset
+    @Transient
     lateinit var testingDataset: Dataset
 
     /**
      * Events specific to training, as contrasted with [events] which are common to all [NetworkModel]s.
      */
-    val trainerEvents = TrainerEvents2()
+    @Transient
+    var trainerEvents = TrainerEvents2()
+        private set
 
     /**
      * Parameters editable using an [AnnotatedPropertyEditor]
@@ -105,8 +117,7 @@ class DeepNet(
         label = network.idManager.getProposedId(this.javaClass)
         buildNetwork()
         outputs = Matrix(outputSize(), 1)
-        inputData = Array(nsamples) { FloatArray(inputSize()) }
-        targetData = FloatArray(nsamples)
+        trainingData = MatrixDataset.wrap(nsamples, inputSize(), 1)
         activations = deepNetLayers.layers.dropLast(1).filter { it.hasActivation }.map {
             if (it.outputShape.rank() == 4) {
                 val filters = it.outputShape[3].toInt()
@@ -130,11 +141,23 @@ class DeepNet(
         }
     }
 
-    fun initializeDatasets() {
-        val data = OnHeapDataset.create(inputData, targetData)
+    /**
+     * Train and validate on rows of [dataset], by default the [trainingData]. The data is not copied; rows are
+     * converted to floats a batch at a time. The first target column holds the class labels.
+     */
+    fun initializeDatasets(dataset: MatrixDataset = trainingData) {
         // TODO: Make split ratio settable
-        data.shuffle()
-        val (train, test) = data.split(.7)
+        val (train, test) = MatrixDatasetView(dataset).shuffle().split(.7)
+        trainingDataset = train
+        testingDataset = test
+    }
+
+    /**
+     * Train and validate on rows of a binary dataset on disk, which is read a batch at a time. The first 70% of the
+     * rows are used for training and the rest for validation, so the rows should be shuffled in the file.
+     */
+    fun initializeDatasets(dataset: BinaryDataset) {
+        val (train, test) = BinaryDatasetView(dataset).split(.7)
         trainingDataset = train
         testingDataset = test
     }
@@ -245,15 +268,37 @@ class DeepNet(
     }
 
     /**
-     * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
+     * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}. The KotlinDL model is not
+     * saved, so it is rebuilt untrained from [tfLayers].
      */
     override fun readResolve(): Any {
         // Probably use deepNetLayers.saveModelConfiguration()
         super.readResolve()
+        trainerEvents = TrainerEvents2()
+        buildNetwork()
+        @Suppress("SENSELESS_COMPARISON") // Null in nets saved before trainingData was added
+        if (trainingData == null) {
+            trainingData = legacyTrainingData()
+        }
+        inputData = null
+        targetData = null
         initializeDatasets()
         return this
     }
 
+    /**
+     * [trainingData] rebuilt from the [inputData] and [targetData] of an older save, or an empty dataset shaped to
+     * the input and output layers if there are none.
+     */
+    private fun legacyTrainingData(): MatrixDataset {
+        val inputRows = inputData ?: return MatrixDataset.wrap(0, inputSize(), 1)
+        val targets = targetData ?: FloatArray(inputRows.size)
+        return MatrixDataset.wrap(inputRows.size, inputSize(), 1).apply {
+            inputRows.forEachIndexed { i, row -> row.forEachIndexed { j, value -> inputs[i, j] = value.toDouble() } }
+            targets.forEachIndexed { i, label -> this.targets[i, 0] = label.toDouble() }
+        }
+    }
+
     /**
      * Helper class for creating new deep networks.
      */
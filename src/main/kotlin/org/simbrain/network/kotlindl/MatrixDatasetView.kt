@@ -0,0 +1,43 @@
+package org.simbrain.network.kotlindl
+
+import org.jetbrains.kotlinx.dl.dataset.DataBatch
+import org.jetbrains.kotlinx.dl.dataset.Dataset
+import org.jetbrains.kotlinx.dl.dataset.OnHeapDataset
+import org.simbrain.network.trainers.MatrixDataset
+
+/**
+ * A KotlinDL [Dataset] over rows of a [MatrixDataset], which only converts rows to floats as batches are created.
+ * Shuffling and splitting rearrange the row indices rather than the data. Labels are the first target column.
+ */
+class MatrixDatasetView(
+    val dataset: MatrixDataset,
+    private val rows: IntArray = dataset.order.copyOf()
+) : Dataset() {
+
+    override fun xSize() = rows.size
+
+    override fun getX(idx: Int): FloatArray = dataset.floatInputRow(rows[idx])
+
+    override fun getY(idx: Int) = dataset.targets[rows[idx], 0].toFloat()
+
+    override fun shuffle(): MatrixDatasetView {
+        rows.shuffle()
+        return this
+    }
+
+    override fun split(splitRatio: Double): Pair<MatrixDatasetView, MatrixDatasetView> {
+        if (splitRatio !in 0.0..1.0) {
+            throw IllegalArgumentException("Split ratio $splitRatio is not between 0 and 1")
+        }
+        val splitIndex = (rows.size * splitRatio).toInt()
+        return MatrixDatasetView(dataset, rows.copyOfRange(0, splitIndex)) to
+                MatrixDatasetView(dataset, rows.copyOfRange(splitIndex, rows.size))
+    }
+
+    override fun createDataBatch(batchStart: Int, batchLength: Int): DataBatch {
+        val size = minOf(batchLength, rows.size - batchStart)
+        // DataBatch can only be created by KotlinDL itself, so go through a dataset holding just this batch
+        return OnHeapDataset.create(Array(size) { getX(batchStart + it) }, FloatArray(size) { getY(batchStart + it) })
+            .batchIterator(size).next()
+    }
+}
@@ -9,6 +9,7 @@ import org.simbrain.util.propertyeditor.CopyableObject
  */
 abstract class OptimizerWrapper() : CopyableObject {
 
+    @Transient
     lateinit var optimizer: Optimizer
 
     /**
@@ -16,6 +17,11 @@ abstract class OptimizerWrapper() : CopyableObject {
      */
     abstract override fun copy(): OptimizerWrapper
 
+    /**
+     * The optimizer holds tensor flow state and is not saved, so a fresh wrapper is created in place of the saved one.
+     */
+    protected open fun readResolve(): Any = copy()
+
     /**
      * To get a static method
      */
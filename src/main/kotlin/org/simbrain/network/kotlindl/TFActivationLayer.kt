@@ -12,6 +12,7 @@ class TFActivationLayer(val size: Int = 5) : TFLayer<ActivationLayer>() {
     @UserParameter(label = "Activation function", order = 20)
     var activations = Activations.Relu
 
+    @Transient
     override var layer: ActivationLayer? = null
 
     override fun create() : ActivationLayer {
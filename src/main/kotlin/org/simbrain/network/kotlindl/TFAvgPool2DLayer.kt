@@ -18,6 +18,7 @@ class TFAvgPool2DLayer : TFLayer<AvgPool2D>() {
     @UserParameter(label = "Padding",  conditionalEnablingMethod = "creationMode", order = 80)
     var padding = ConvPadding.SAME
 
+    @Transient
     override var layer: AvgPool2D? = null
 
     override fun create() : AvgPool2D {
@@ -38,6 +38,7 @@ class TFConv2DLayer : TFLayer<Conv2D>() {
 
     var biasInitializer: Initializer = HeUniform()
 
+    @Transient
     override var layer: Conv2D? = null
 
     override fun create() : Conv2D {
@@ -21,6 +21,7 @@ class TFDenseLayer(val size: Int = 5) : TFLayer<Dense>() {
     @UserParameter(label = "Bias initializer",  conditionalEnablingMethod = "creationMode", order = 40)
     var biasInitializer = ""
 
+    @Transient
     override var layer: Dense? = null
 
     override fun create() : Dense {
@@ -16,6 +16,7 @@ class TFFlattenLayer : TFLayer<Flatten>() {
     @UserParameter(label = "Activation function", order = 20)
     var activations = Activations.Relu
 
+    @Transient
     override var layer: Flatten? = null
 
     override fun create() : Flatten {
@@ -14,6 +14,7 @@ class TFInputLayer(
     @UserParameter(label = "Channels",  conditionalEnablingMethod = "creationMode", order = 40)
     var channels: Int = 1) : TFLayer<Input>() {
 
+    @Transient
     override var layer: Input? = null
 
     override fun create() : Input {
@@ -1,19 +1,17 @@
 package org.simbrain.network.smile
 
 import org.simbrain.util.Utils
-import smile.io.Read
 import smile.math.matrix.Matrix
 import smile.nlp.normalizer.SimpleNormalizer
 import smile.nlp.stemmer.PorterStemmer
 import smile.nlp.tokenizer.SimpleSentenceSplitter
 import smile.nlp.tokenizer.SimpleTokenizer
-import smile.plot.swing.BoxPlot
 
 // To see examples of basic Smile matrix operations see
-// SmileNLPSandbox, SmileTest, SmileTestKt, SmileUtils, SpikeResponderMatrixTest
+// SmileNLPSandbox, SmileTest, SmileTestKt, SmileUtils, SpikeResponderMatrixTest. Plots are in
+// org.simbrain.plot.SmilePlotSandbox
 
 fun main() {
-    // boxPlot()
     // nlpBasics()
     matrixBasics()
 }
@@ -54,16 +52,3 @@ fun nlpBasics() {
     // println(porter.stem("Awesomeness"))
 
 }
-
-fun boxPlot() {
-    val iris = Read.arff("simulations/tables/iris.arff")
-    // val canvas = ScatterPlot.of(iris, "sepallength", "sepalwidth", "class", '*').canvas();
-    val canvas = BoxPlot.of(
-        iris.floatVector(0).toDoubleArray(),
-        iris.floatVector(1).toDoubleArray(),
-        iris.floatVector(2).toDoubleArray(),
-        iris.floatVector(3).toDoubleArray()
-    ).canvas();
-    // canvas.setAxisLabels("sepallength", "sepalwidth")
-    canvas.window()
-}
\ No newline at end of file
@@ -21,6 +21,7 @@ package org.simbrain.network.spikeresponders
 import org.simbrain.network.core.Connector
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.network.matrix.WeightMatrix
 import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder
 import org.simbrain.network.util.MatrixDataHolder
@@ -64,6 +65,26 @@ class RiseAndDecay : SpikeResponder() {
     }
 
     override fun apply(conn: Connector, data: MatrixDataHolder) {
+        if (conn is SparseWeightMatrix) {
+            val na = conn.source.let { if (it is NeuronArray) it else return }
+            val responseData = data.let { if (it is RiseAndDecayMatrixData) it else return }
+            val spikeData = na.dataHolder.let { if (it is SpikingMatrixData) it else return }
+            if (na.updateRule.isSpikingRule) {
+                // Entry k of the sparse matrix uses column k of the 1 x entries response data
+                for (k in 0 until conn.entryCount) {
+                    val (psr, recovery) = riseAndDecay(
+                        spikeData.spikes[conn.columnIndices[k]],
+                        conn.psrs[k],
+                        responseData.recoveryMatrix[0, k],
+                        conn.values[k],
+                        na.network.timeStep
+                    )
+                    conn.psrs[k] = psr
+                    responseData.recoveryMatrix.set(0, k, recovery)
+                }
+            }
+            return
+        }
         val wm = conn.let { if (it is WeightMatrix) it else return }
         val na = conn.source.let { if (it is NeuronArray) it else return }
         val responseData = data.let { if (it is RiseAndDecayMatrixData) it else return }
@@ -21,6 +21,7 @@ package org.simbrain.network.spikeresponders
 import org.simbrain.network.core.Connector
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.SparseWeightMatrix
 import org.simbrain.network.matrix.WeightMatrix
 import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder
 import org.simbrain.network.util.MatrixDataHolder
@@ -53,6 +54,27 @@ class StepResponder(
 ) : SpikeResponder() {
 
     override fun apply(conn: Connector, data: MatrixDataHolder) {
+        if (conn is SparseWeightMatrix) {
+            val na = conn.source.let { if (it is NeuronArray) it else return }
+            val stepResponseData = data.let { if (it is StepMatrixData) it else return }
+            val spikeData = na.dataHolder.let { if (it is SpikingMatrixData) it else return }
+            if (na.updateRule.isSpikingRule) {
+                // Entry k of the sparse matrix uses column k of the 1 x entries counter matrix
+                val counters = stepResponseData.counterMatrix
+                for (k in 0 until conn.entryCount) {
+                    if (spikeData.spikes[conn.columnIndices[k]]) {
+                        counters.set(0, k, responseDuration.toDouble())
+                        conn.psrs[k] = responseHeight * conn.values[k]
+                    } else {
+                        counters.set(0, k, (counters.get(0, k) - 1).coerceAtLeast(0.0))
+                    }
+                    if (counters.get(0, k) <= 0) {
+                        conn.psrs[k] = 0.0
+                    }
+                }
+            }
+            return
+        }
         val wm = conn.let { if (it is WeightMatrix) it else return }
         val na = conn.source.let { if (it is NeuronArray) it else return }
         val stepResponseData = data.let { if (it is StepMatrixData) it else return }
@@ -27,7 +27,7 @@ import java.awt.geom.Point2D
 class BackpropNetwork(network: Network, nodesPerLayer: IntArray, initialPosition: Point2D?) :
     FeedForward(network, nodesPerLayer, initialPosition), Trainable2 {
 
-    override val trainingSet: MatrixDataset
+    override var trainingSet: MatrixDataset
 
     init {
         layerList.forEach { it.updateRule = LinearRule() }
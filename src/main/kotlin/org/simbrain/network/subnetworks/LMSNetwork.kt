@@ -31,7 +31,7 @@ import java.awt.geom.Point2D
 class LMSNetwork(network: Network, nInputs: Int, nOutputs: Int, initialPosition: Point2D? = null) :
     FeedForward(network, intArrayOf(nInputs, nOutputs), initialPosition), Trainable2 {
 
-    override val trainingSet: MatrixDataset
+    override var trainingSet: MatrixDataset
 
     val trainer =  LMSTrainer(this)
 
@@ -0,0 +1,344 @@
+package org.simbrain.network.subnetworks
+
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.util.columnMajorMatrix
+import smile.math.blas.Transpose
+import smile.math.matrix.Matrix
+import java.util.stream.IntStream
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * The weight vectors of a [SOMGroup], copied from its incoming synapses into one column-major matrix with a column
+ * per unit, so that the winning unit can be found with a single matrix-vector product and whole training sets can be
+ * processed without touching synapse objects.
+ *
+ * Inputs are the distinct sources of the units' incoming synapses, in the order first seen. A unit with no synapse from
+ * a source has a fixed weight of 0 for it. Weights are kept within the bounds and polarity of their synapses, and
+ * weights of frozen synapses do not change. Synapse strengths are written back by [flush], for the units changed
+ * since the last flush.
+ */
+class SOMPrototypes(val units: List<Neuron>) {
+
+    /**
+     * Source neurons of the incoming synapses, which provide the input vector.
+     */
+    val sources: List<Neuron>
+
+    /**
+     * Input vector size.
+     */
+    val dimension: Int
+
+    /**
+     * Unit j's weight for input i is at `j * dimension + i`.
+     */
+    private val weights: DoubleArray
+
+    /**
+     * The synapse behind each entry of [weights], or null where there is none.
+     */
+    private val synapses: Array<Synapse?>
+
+    /**
+     * Range each entry of [weights] is clipped to, combining the bounds and polarity of its synapse. Both ends are the
+     * current strength for frozen synapses, and 0 where there is no synapse.
+     */
+    private val lowerBounds: DoubleArray
+    private val upperBounds: DoubleArray
+
+    /**
+     * Squared norm of each unit's weight vector.
+     */
+    private val norms = DoubleArray(units.size)
+
+    /**
+     * Units whose weights have changed since the last [flush].
+     */
+    private val dirty = BooleanArray(units.size)
+
+    /**
+     * Lattice coordinates of the units, read from their locations by [readLattice].
+     */
+    private val xs = DoubleArray(units.size)
+    private val ys = DoubleArray(units.size)
+
+    /**
+     * Scratch space for the product of the weights with an input.
+     */
+    private val products = DoubleArray(units.size)
+
+    /**
+     * Scratch space for [trainBatch] and [findWinners], kept between epochs since it can be large.
+     */
+    private var sums: DoubleArray? = null
+    private var blockInputs: Matrix? = null
+    private var blockProducts: Matrix? = null
+
+    init {
+        val sourceIndex = LinkedHashMap<Neuron, Int>()
+        units.forEach { unit -> unit.fanIn.forEach { sourceIndex.getOrPut(it.source) { sourceIndex.size } } }
+        sources = sourceIndex.keys.toList()
+        dimension = sources.size
+        weights = DoubleArray(dimension * units.size)
+        synapses = arrayOfNulls(weights.size)
+        lowerBounds = DoubleArray(weights.size)
+        upperBounds = DoubleArray(weights.size)
+        units.forEachIndexed { j, unit ->
+            unit.fanIn.forEach { synapses[j * dimension + sourceIndex[it.source]!!] = it }
+        }
+        reload()
+    }
+
+    /**
+     * [weights] as a (dimension, units) matrix.
+     */
+    private val matrix = columnMajorMatrix(dimension, units.size, weights)
+
+    /**
+     * Copy the synapse strengths and bounds into the weights again, e.g. after they were edited or randomized.
+     */
+    fun reload() {
+        synapses.forEachIndexed { k, synapse ->
+            weights[k] = synapse?.strength ?: 0.0
+            readBounds(k)
+        }
+        units.indices.forEach { updateNorm(it) }
+        dirty.fill(false)
+    }
+
+    /**
+     * Set the range of weight k from its synapse. [Synapse.setStrength] clips to the polarity and then to the bounds,
+     * which comes to a single clip to the range computed here.
+     */
+    private fun readBounds(k: Int) {
+        val synapse = synapses[k]
+        if (synapse == null || synapse.isFrozen) {
+            lowerBounds[k] = weights[k]
+            upperBounds[k] = weights[k]
+            return
+        }
+        val polarity = synapse.source.polarity
+        val polarityLower = polarity.clip(Double.NEGATIVE_INFINITY)
+        val polarityUpper = polarity.clip(Double.POSITIVE_INFINITY)
+        lowerBounds[k] = min(max(polarityLower, synapse.lowerBound), synapse.upperBound)
+        upperBounds[k] = max(min(polarityUpper, synapse.upperBound), synapse.lowerBound)
+    }
+
+    private fun clip(k: Int, weight: Double) = min(max(weight, lowerBounds[k]), upperBounds[k])
+
+    /**
+     * Read the current activations of the [sources] into [into].
+     */
+    fun readInput(into: DoubleArray = DoubleArray(dimension)): DoubleArray {
+        sources.forEachIndexed { i, source -> into[i] = source.activation }
+        return into
+    }
+
+    /**
+     * Rows of [inputs] with values in the order of [sources], where the columns of [inputs] hold the activations of
+     * [columns]. Sources that are not among [columns], or beyond the end of a row, take their current activation.
+     * Returns [inputs] itself when the orders already match.
+     */
+    fun arrange(inputs: Array<DoubleArray>, columns: List<Neuron>): Array<DoubleArray> {
+        if (columns == sources && inputs.all { it.size == dimension }) {
+            return inputs
+        }
+        val columnIndex = columns.withIndex().associate { (c, neuron) -> neuron to c }
+        val current = readInput()
+        return Array(inputs.size) { row ->
+            DoubleArray(dimension) { i ->
+                columnIndex[sources[i]]?.takeIf { it < inputs[row].size }?.let { inputs[row][it] } ?: current[i]
+            }
+        }
+    }
+
+    /**
+     * Index of the unit whose weights are closest to [input] in Euclidean distance, or -1 if there are no units. Uses
+     * |w - x|² = |w|² - 2 w·x + |x|², dropping |x|², which is the same for all units.
+     */
+    fun findWinner(input: DoubleArray): Int {
+        if (units.isEmpty() || dimension == 0) {
+            return units.size.coerceAtMost(1) - 1
+        }
+        matrix.mv(Transpose.TRANSPOSE, 1.0, input, 0.0, products)
+        var winner = -1
+        var winDistance = Double.POSITIVE_INFINITY
+        for (j in units.indices) {
+            val distance = norms[j] - 2 * products[j]
+            if (distance < winDistance) {
+                winDistance = distance
+                winner = j
+            }
+        }
+        return winner
+    }
+
+    /**
+     * Copy the unit locations into the lattice coordinates used to find neighborhoods.
+     */
+    fun readLattice() {
+        units.forEachIndexed { j, unit ->
+            xs[j] = unit.x
+            ys[j] = unit.y
+        }
+    }
+
+    private fun isNeighbor(j: Int, k: Int, radiusSquared: Double): Boolean {
+        val dx = xs[j] - xs[k]
+        val dy = ys[j] - ys[k]
+        return dx * dx + dy * dy <= radiusSquared
+    }
+
+    /**
+     * Move the weights of the units within [radius] of [winner] on the lattice a fraction [alpha] of the way towards
+     * [input]. Call [readLattice] first.
+     */
+    fun update(winner: Int, input: DoubleArray, alpha: Double, radius: Double) {
+        val radiusSquared = radius * radius
+        for (j in units.indices) {
+            if (!isNeighbor(j, winner, radiusSquared)) {
+                continue
+            }
+            val offset = j * dimension
+            for (i in 0 until dimension) {
+                val k = offset + i
+                weights[k] = clip(k, weights[k] + alpha * (input[i] - weights[k]))
+            }
+            updateNorm(j)
+            dirty[j] = true
+        }
+    }
+
+    /**
+     * One epoch of batch SOM training: find the winner for every row of [inputs], then set the weights of each unit to
+     * the mean of the rows whose winner is within [radius] of it on the lattice. Units with no such rows keep their
+     * weights. Winners are found a block of rows at a time with a matrix product, and units are updated in parallel.
+     * Call [readLattice] first. Returns the winner of each row.
+     */
+    fun trainBatch(inputs: Array<DoubleArray>, radius: Double): IntArray {
+        val winners = findWinners(inputs)
+
+        // Sum and count the rows won by each unit
+        val sums = sums ?: DoubleArray(weights.size).also { sums = it }
+        sums.fill(0.0)
+        val counts = IntArray(units.size)
+        inputs.forEachIndexed { row, input ->
+            val offset = winners[row] * dimension
+            for (i in 0 until dimension) {
+                sums[offset + i] += input[i]
+            }
+            counts[winners[row]]++
+        }
+        val occupied = units.indices.filter { counts[it] > 0 }.toIntArray()
+
+        val radiusSquared = radius * radius
+        IntStream.range(0, units.size).parallel().forEach { j ->
+            val count = occupied.sumOf { k -> if (isNeighbor(j, k, radiusSquared)) counts[k] else 0 }
+            if (count == 0) {
+                return@forEach
+            }
+            val offset = j * dimension
+            weights.fill(0.0, offset, offset + dimension)
+            for (k in occupied) {
+                if (isNeighbor(j, k, radiusSquared)) {
+                    val sumOffset = k * dimension
+                    for (i in 0 until dimension) {
+                        weights[offset + i] += sums[sumOffset + i]
+                    }
+                }
+            }
+            for (i in 0 until dimension) {
+                weights[offset + i] = clip(offset + i, weights[offset + i] / count)
+            }
+            updateNorm(j)
+            dirty[j] = true
+        }
+        return winners
+    }
+
+    /**
+     * The winning unit for each row of [inputs].
+     */
+    fun findWinners(inputs: Array<DoubleArray>): IntArray {
+        val winners = IntArray(inputs.size)
+        if (units.isEmpty() || dimension == 0) {
+            winners.fill(units.size.coerceAtMost(1) - 1)
+            return winners
+        }
+        val block = minOf(BLOCK_SIZE, inputs.size).coerceAtLeast(1)
+        if (blockInputs?.ncols() != block) {
+            blockInputs = columnMajorMatrix(dimension, block)
+            blockProducts = columnMajorMatrix(units.size, block)
+        }
+        val blockInputs = blockInputs!!
+        val blockProducts = blockProducts!!
+        for (start in inputs.indices step block) {
+            val rows = minOf(block, inputs.size - start)
+            for (r in 0 until rows) {
+                val input = inputs[start + r]
+                if (input.size != dimension) {
+                    throw IllegalArgumentException("Row ${start + r} has ${input.size} values but the SOM has " +
+                            "$dimension inputs")
+                }
+                for (i in 0 until dimension) {
+                    blockInputs[i, r] = input[i]
+                }
+            }
+            matrix.mm(Transpose.TRANSPOSE, Transpose.NO_TRANSPOSE, 1.0, blockInputs, 0.0, blockProducts)
+            IntStream.range(0, rows).parallel().forEach { r ->
+                var winDistance = Double.POSITIVE_INFINITY
+                for (j in units.indices) {
+                    val distance = norms[j] - 2 * blockProducts[j, r]
+                    if (distance < winDistance) {
+                        winDistance = distance
+                        winners[start + r] = j
+                    }
+                }
+            }
+        }
+        return winners
+    }
+
+    /**
+     * Write the weights of changed units to their synapses.
+     */
+    fun flush() {
+        for (j in units.indices) {
+            if (!dirty[j]) {
+                continue
+            }
+            val offset = j * dimension
+            for (i in 0 until dimension) {
+                val synapse = synapses[offset + i] ?: continue
+                synapse.strength = weights[offset + i]
+                // Bounds and frozen flags may have been edited since the last flush
+                weights[offset + i] = synapse.strength
+                readBounds(offset + i)
+            }
+            updateNorm(j)
+            dirty[j] = false
+        }
+    }
+
+    /**
+     * Weight vector of unit [j], for testing and display.
+     */
+    fun getWeights(j: Int) = weights.copyOfRange(j * dimension, (j + 1) * dimension)
+
+    private fun updateNorm(j: Int) {
+        var norm = 0.0
+        for (k in j * dimension until (j + 1) * dimension) {
+            norm += weights[k] * weights[k]
+        }
+        norms[j] = norm
+    }
+
+    companion object {
+        /**
+         * Rows whose winners are found with one matrix product in [findWinners].
+         */
+        const val BLOCK_SIZE = 256
+    }
+}
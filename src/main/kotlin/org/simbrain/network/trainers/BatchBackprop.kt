@@ -0,0 +1,376 @@
+/*
+ * Part of Simbrain--a java-based neural network kit Copyright (C) 2005,2007 The
+ * Authors. See http://www.simbrain.net/credits This program is free software;
+ * you can redistribute it and/or modify it under the terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version. This program is
+ * distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details. You
+ * should have received a copy of the GNU General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 59 Temple Place
+ * - Suite 330, Boston, MA 02111-1307, USA.
+ */
+package org.simbrain.network.trainers
+
+import org.simbrain.network.core.NeuronUpdateRule
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.neuron_update_rules.SigmoidalRule
+import org.simbrain.network.subnetworks.FeedForward
+import org.simbrain.network.util.BiasedMatrixData
+import smile.math.blas.Transpose
+import smile.math.matrix.Matrix
+import java.util.stream.IntStream
+
+/**
+ * Trains a chain of weight matrices between neuron arrays, e.g. those of a [FeedForward] network, with backprop on
+ * mini-batches.
+ *
+ * Each batch is fed forward and its error propagated back as matrix-matrix products over all of its rows at once,
+ * into buffers that are allocated once per batch size. Large batches are split into shards whose gradients are
+ * computed on separate cores and then summed. Training works on copies of the weights and biases, so the network
+ * itself (including the activations of its arrays) is only changed by [sync], e.g. at the end of each epoch.
+ *
+ * Layers must use a [LinearRule] or a [SigmoidalRule]. The biases of linear layers are trained; sigmoidal layers
+ * keep the single bias of their rule. Noise added by rules is ignored.
+ *
+ * @param weightMatrices the weight matrices from the input layer to the output layer, each one's target being the
+ * next one's source
+ */
+class BatchBackprop(val weightMatrices: List<WeightMatrix>) {
+
+    constructor(network: FeedForward) : this(network.modelList[WeightMatrix::class.java].toList())
+
+    var learningRate = 0.1
+
+    var momentum = 0.0
+
+    /**
+     * Number of rows used for each weight update in [trainEpoch].
+     */
+    var batchSize = 32
+
+    /**
+     * Maximum number of shards a batch is split into.
+     */
+    var threads = Runtime.getRuntime().availableProcessors()
+
+    /**
+     * Mean squared error of the most recent epoch or batch.
+     */
+    var error = 0.0
+        private set
+
+    private val layers = weightMatrices.mapIndexed { i, wm ->
+        val source = wm.source as? NeuronArray
+            ?: throw IllegalArgumentException("Weight matrix $i does not come from a neuron array")
+        val target = wm.target as? NeuronArray
+            ?: throw IllegalArgumentException("Weight matrix $i does not go to a neuron array")
+        if (i > 0 && source !== weightMatrices[i - 1].target) {
+            throw IllegalArgumentException("Weight matrix $i does not start where weight matrix ${i - 1} ends")
+        }
+        WeightLayer(wm, target)
+    }
+
+    private val inputSize = weightMatrices.first().source.outputSize()
+
+    private val outputSize = weightMatrices.last().target.inputSize()
+
+    private val shards = ArrayList<Shard>()
+
+    /**
+     * Train on every row of the dataset once, in the dataset's [MatrixDataset.order] after shuffling it unless
+     * [shuffle] is false, updating the weights after every [batchSize] rows. Returns the mean squared error over the
+     * epoch.
+     */
+    @JvmOverloads
+    fun trainEpoch(dataset: MatrixDataset, shuffle: Boolean = true): Double {
+        if (shuffle) {
+            dataset.shuffle()
+        }
+        val rows = dataset.order
+        var sse = 0.0
+        for (from in rows.indices step batchSize) {
+            sse += step(dataset, rows, from, minOf(from + batchSize, rows.size))
+        }
+        error = sse / (rows.size * outputSize)
+        return error
+    }
+
+    /**
+     * Train on every row of a dataset streamed from disk once, updating the weights after every [batchSize] rows.
+     * Batches are visited in a random order if [shuffle] is true and the source allows it. Returns the mean squared
+     * error over the epoch.
+     */
+    @JvmOverloads
+    fun trainEpoch(source: StreamingDataset, shuffle: Boolean = true): Double {
+        var sse = 0.0
+        var rows = 0L
+        source.forEachBatch(batchSize, shuffle) { batch ->
+            sse += step(batch, batch.order, 0, batch.size)
+            rows += batch.size
+        }
+        error = sse / (rows * outputSize)
+        return error
+    }
+
+    /**
+     * Update the weights once using the given rows of the dataset. Returns the mean squared error on those rows,
+     * before the update.
+     */
+    fun trainBatch(dataset: MatrixDataset, rows: IntArray): Double {
+        error = step(dataset, rows, 0, rows.size) / (rows.size * outputSize)
+        return error
+    }
+
+    /**
+     * Copy the trained weights and biases into the network.
+     */
+    fun sync() {
+        for (layer in layers) {
+            layer.weights.copyTo(layer.weightMatrix.weightMatrix)
+            layer.biasData?.let { layer.biases.copyInto(it.biases) }
+            layer.weightMatrix.events.updated.fireAndForget()
+        }
+    }
+
+    /**
+     * Copy the weights and biases of the network, e.g. after they have been randomized, and forget momentum.
+     */
+    fun reset() {
+        for (layer in layers) {
+            layer.weightMatrix.weightMatrix.copyTo(layer.weights)
+            layer.biasData?.biases?.copyInto(layer.biases)
+            layer.weightVelocity.fill(0.0)
+            layer.biasVelocity.fill(0.0)
+        }
+    }
+
+    /**
+     * Feed rows [from] until [to] of [rows] forward and back, and update the weights. Returns the summed squared
+     * error.
+     */
+    private fun step(dataset: MatrixDataset, rows: IntArray, from: Int, to: Int): Double {
+        if (dataset.inputs.ncols() != inputSize || dataset.targets.ncols() != outputSize) {
+            throw IllegalArgumentException("Dataset is ${dataset.inputs.ncols()} -> ${dataset.targets.ncols()} " +
+                    "but the network is $inputSize -> $outputSize")
+        }
+        val size = to - from
+        val shardCount = minOf(threads, size / MIN_SHARD_SIZE).coerceAtLeast(1)
+        while (shards.size < shardCount) {
+            shards.add(Shard())
+        }
+        if (shardCount == 1) {
+            shards[0].computeGradients(dataset, rows, from, to)
+        } else {
+            IntStream.range(0, shardCount).parallel().forEach { s ->
+                shards[s].computeGradients(dataset, rows, from + s * size / shardCount,
+                    from + (s + 1) * size / shardCount)
+            }
+        }
+
+        var sse = 0.0
+        for (s in 1 until shardCount) {
+            sse += shards[s].sse
+            for (l in layers.indices) {
+                shards[0].weightGradients[l].add(shards[s].weightGradients[l])
+                val biasGradients = shards[0].biasGradients[l]
+                shards[s].biasGradients[l].forEachIndexed { i, g -> biasGradients[i] += g }
+            }
+        }
+        sse += shards[0].sse
+
+        val rate = learningRate / size
+        layers.forEachIndexed { l, layer ->
+            layer.weightVelocity.mul(momentum).add(-rate, shards[0].weightGradients[l])
+            layer.weights.add(layer.weightVelocity)
+            if (layer.biasData != null) {
+                val gradients = shards[0].biasGradients[l]
+                for (i in layer.biases.indices) {
+                    layer.biasVelocity[i] = momentum * layer.biasVelocity[i] - rate * gradients[i]
+                    layer.biases[i] += layer.biasVelocity[i]
+                }
+            }
+        }
+        return sse
+    }
+
+    /**
+     * Training state for a weight matrix and the layer it feeds.
+     */
+    private class WeightLayer(val weightMatrix: WeightMatrix, target: NeuronArray) {
+        val weights: Matrix = weightMatrix.weightMatrix.clone()
+        val weightVelocity = Matrix(weights.nrows(), weights.ncols())
+        val activation = Activation.of(target.updateRule)
+        // Rules other than linear ones share a default bias holder that is not per neuron, so it is left alone
+        val biasData = if (activation is Activation.Linear) target.dataHolder as? BiasedMatrixData else null
+        val biases = biasData?.biases?.copyOf() ?: DoubleArray(weights.nrows())
+        val biasVelocity = DoubleArray(weights.nrows())
+    }
+
+    /**
+     * Activation function of a layer, computed along with its derivative.
+     */
+    private sealed class Activation {
+
+        /**
+         * Factor by which the net input is scaled relative to the bias. The derivative with respect to the net input
+         * is [gain] times the derivative with respect to the bias.
+         */
+        abstract val gain: Double
+
+        /**
+         * Return the activation for a net input and bias, and store the derivative with respect to the bias (or for
+         * layers without trainable biases, the net input divided by [gain]) in [derivative] at ([i], [j]).
+         */
+        abstract fun apply(netInput: Double, bias: Double, derivative: Matrix, i: Int, j: Int): Double
+
+        class Linear(rule: LinearRule) : Activation() {
+            override val gain = rule.slope
+            private val clipped = rule.isClipped
+            private val upper = rule.upperBound
+            private val lower = rule.lowerBound
+            override fun apply(netInput: Double, bias: Double, derivative: Matrix, i: Int, j: Int): Double {
+                val value = gain * netInput + bias
+                return if (clipped && (value >= upper || value <= lower)) {
+                    derivative[i, j] = 0.0
+                    value.coerceIn(lower, upper)
+                } else {
+                    derivative[i, j] = 1.0
+                    value
+                }
+            }
+        }
+
+        class Sigmoidal(rule: SigmoidalRule) : Activation() {
+            override val gain = 1.0
+            private val function = rule.squashFunctionType
+            private val upper = rule.upperBound
+            private val lower = rule.lowerBound
+            private val slope = rule.slope
+            private val ruleBias = rule.bias
+            override fun apply(netInput: Double, bias: Double, derivative: Matrix, i: Int, j: Int): Double {
+                val value = netInput + ruleBias
+                derivative[i, j] = function.derivVal(value, upper, lower, slope)
+                return function.valueOf(value, upper, lower, slope)
+            }
+        }
+
+        companion object {
+            fun of(rule: NeuronUpdateRule) = when (rule) {
+                is LinearRule -> Linear(rule)
+                is SigmoidalRule -> Sigmoidal(rule)
+                else -> throw IllegalArgumentException("Batch backprop does not support ${rule.name} layers")
+            }
+        }
+    }
+
+    /**
+     * Part of a batch, with its own gradients, and buffers for each number of rows it has been given.
+     */
+    private inner class Shard {
+
+        val weightGradients = layers.map { Matrix(it.weights.nrows(), it.weights.ncols()) }
+
+        val biasGradients = layers.map { DoubleArray(it.weights.nrows()) }
+
+        var sse = 0.0
+
+        private val buffers = HashMap<Int, Buffers>()
+
+        /**
+         * Activations of each layer, including the input layer, and for the other layers the derivatives of the
+         * activations and the errors, one column per row of the batch.
+         */
+        inner class Buffers(columns: Int) {
+            val activations = listOf(Matrix(inputSize, columns)) + layers.map { Matrix(it.weights.nrows(), columns) }
+            val derivatives = layers.map { Matrix(it.weights.nrows(), columns) }
+            val errors = layers.map { Matrix(it.weights.nrows(), columns) }
+            val targets = Matrix(outputSize, columns)
+        }
+
+        fun computeGradients(dataset: MatrixDataset, rows: IntArray, from: Int, to: Int) {
+            val columns = to - from
+            val b = buffers.getOrPut(columns) { Buffers(columns) }
+            val inputs = b.activations[0]
+            for (c in 0 until columns) {
+                val row = rows[from + c]
+                for (j in 0 until inputSize) {
+                    inputs[j, c] = dataset.inputs[row, j]
+                }
+                for (j in 0 until outputSize) {
+                    b.targets[j, c] = dataset.targets[row, j]
+                }
+            }
+
+            // Forward
+            layers.forEachIndexed { l, layer ->
+                val output = b.activations[l + 1]
+                layer.weights.mm(Transpose.NO_TRANSPOSE, b.activations[l], Transpose.NO_TRANSPOSE, output)
+                val derivative = b.derivatives[l]
+                for (c in 0 until columns) {
+                    for (i in 0 until output.nrows()) {
+                        output[i, c] = layer.activation.apply(output[i, c], layer.biases[i], derivative, i, c)
+                    }
+                }
+            }
+
+            // Output error
+            var sse = 0.0
+            val outputs = b.activations.last()
+            val outputErrors = b.errors.last()
+            for (c in 0 until columns) {
+                for (i in 0 until outputSize) {
+                    val e = outputs[i, c] - b.targets[i, c]
+                    outputErrors[i, c] = e
+                    sse += e * e
+                }
+            }
+            this.sse = sse
+
+            // Backward
+            for (l in layers.indices.reversed()) {
+                val layer = layers[l]
+                val errors = b.errors[l]
+                val derivative = b.derivatives[l]
+                val biasGradients = biasGradients[l]
+                biasGradients.fill(0.0)
+                for (c in 0 until columns) {
+                    for (i in 0 until errors.nrows()) {
+                        val delta = errors[i, c] * derivative[i, c]
+                        biasGradients[i] += delta
+                        errors[i, c] = delta * layer.activation.gain
+                    }
+                }
+                errors.mm(Transpose.NO_TRANSPOSE, b.activations[l], Transpose.TRANSPOSE, weightGradients[l])
+                if (l > 0) {
+                    layer.weights.mm(Transpose.TRANSPOSE, errors, Transpose.NO_TRANSPOSE, b.errors[l - 1])
+                }
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Batches are only split into shards of at least this many rows.
+         */
+        const val MIN_SHARD_SIZE = 32
+    }
+}
+
+/**
+ * Matrix product into [result] without allocating: result = op(this) * op(other).
+ */
+private fun Matrix.mm(transposeThis: Transpose, other: Matrix, transposeOther: Transpose, result: Matrix) {
+    mm(transposeThis, transposeOther, 1.0, other, 0.0, result)
+}
+
+private fun Matrix.copyTo(other: Matrix) {
+    for (j in 0 until ncols()) {
+        for (i in 0 until nrows()) {
+            other[i, j] = this[i, j]
+        }
+    }
+}
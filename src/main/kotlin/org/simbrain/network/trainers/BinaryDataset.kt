@@ -0,0 +1,189 @@
+package org.simbrain.network.trainers
+
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption.*
+
+/**
+ * A binary file of rows streamed a batch at a time. Rows are fetched with positional reads, so batches can be read in
+ * any order, and the file can be any size.
+ *
+ * The file starts with a header of the int [MAGIC], the int number of inputs, the int number of outputs and the long
+ * number of rows. Each row follows as its inputs and then its targets, as big-endian doubles, which is what
+ * [java.io.DataOutputStream] writes. Use [write] to create a file.
+ */
+class BinaryDataset(val file: File) : StreamingDataset() {
+
+    private val channel = FileChannel.open(file.toPath(), READ)
+
+    override val nInputs: Int
+
+    override val nOutputs: Int
+
+    val rows: Long
+
+    private val rowBytes: Int
+
+    init {
+        try {
+            val header = ByteBuffer.allocate(HEADER_BYTES)
+            readFully(header, 0)
+            header.flip()
+            if (header.int != MAGIC) {
+                throw IOException("$file is not a binary dataset")
+            }
+            nInputs = header.int
+            nOutputs = header.int
+            rows = header.long
+            rowBytes = (nInputs + nOutputs) * Double.SIZE_BYTES
+            if (channel.size() < HEADER_BYTES + rows * rowBytes) {
+                throw IOException("$file has fewer than the $rows rows in its header")
+            }
+        } catch (e: IOException) {
+            channel.close()
+            throw e
+        }
+    }
+
+    /**
+     * Read [count] rows starting with row [start] into the first rows of [into].
+     */
+    @JvmOverloads
+    fun read(start: Long, count: Int, into: MatrixDataset, buffer: ByteBuffer = ByteBuffer.allocate(count * rowBytes)) {
+        if (start < 0 || count < 0 || start + count > rows) {
+            throw IndexOutOfBoundsException("Rows $start until ${start + count} are not in 0 until $rows")
+        }
+        buffer.clear().limit(count * rowBytes)
+        readFully(buffer, HEADER_BYTES + start * rowBytes)
+        buffer.flip()
+        val values = buffer.asDoubleBuffer()
+        for (i in 0 until count) {
+            for (j in 0 until nInputs) {
+                into.inputs[i, j] = values.get()
+            }
+            for (j in 0 until nOutputs) {
+                into.targets[i, j] = values.get()
+            }
+        }
+    }
+
+    private fun readFully(buffer: ByteBuffer, position: Long) {
+        var offset = position
+        while (buffer.hasRemaining()) {
+            val read = channel.read(buffer, offset)
+            if (read < 0) {
+                throw IOException("Unexpected end of $file")
+            }
+            offset += read
+        }
+    }
+
+    override fun openReader(batchSize: Int, shuffle: Boolean): BatchReader {
+        val batches = ((rows + batchSize - 1) / batchSize).toInt()
+        val order = IntArray(batches) { it }
+        if (shuffle) {
+            order.shuffle()
+        }
+        val buffer = ByteBuffer.allocateDirect(batchSize * rowBytes)
+        return object : BatchReader {
+            var next = 0
+
+            override fun read(into: MatrixDataset): Int {
+                if (next == batches) {
+                    return 0
+                }
+                val start = order[next++].toLong() * batchSize
+                val count = minOf(batchSize.toLong(), rows - start).toInt()
+                read(start, count, into, buffer)
+                return count
+            }
+
+            override fun close() {}
+        }
+    }
+
+    override fun close() = channel.close()
+
+    companion object {
+
+        /**
+         * "SBDS" in ASCII.
+         */
+        const val MAGIC = 0x53424453
+
+        const val HEADER_BYTES = 3 * Int.SIZE_BYTES + Long.SIZE_BYTES
+
+        /**
+         * Write all rows of a dataset to a binary file.
+         */
+        @JvmStatic
+        fun write(file: File, dataset: MatrixDataset) {
+            Writer(file, dataset.inputs.ncols(), dataset.targets.ncols()).use { it.append(dataset) }
+        }
+
+        /**
+         * Write all rows of a streaming dataset to a binary file, e.g. to convert a [CsvDataset].
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun write(file: File, source: StreamingDataset, batchSize: Int = 1024) {
+            Writer(file, source.nInputs, source.nOutputs).use { writer ->
+                source.forEachBatch(batchSize) { writer.append(it) }
+            }
+        }
+    }
+
+    /**
+     * Writes rows after the header, and the final number of rows into the header when closed.
+     */
+    private class Writer(file: File, val nInputs: Int, val nOutputs: Int) : AutoCloseable {
+
+        private val channel = FileChannel.open(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)
+
+        private var rows = 0L
+
+        private var buffer = ByteBuffer.allocate(0)
+
+        init {
+            write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(nInputs).putInt(nOutputs).putLong(0))
+        }
+
+        fun append(dataset: MatrixDataset) {
+            val bytes = dataset.size * (nInputs + nOutputs) * Double.SIZE_BYTES
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes)
+            }
+            buffer.clear()
+            for (i in 0 until dataset.size) {
+                for (j in 0 until nInputs) {
+                    buffer.putDouble(dataset.inputs[i, j])
+                }
+                for (j in 0 until nOutputs) {
+                    buffer.putDouble(dataset.targets[i, j])
+                }
+            }
+            write(buffer)
+            rows += dataset.size
+        }
+
+        private fun write(buffer: ByteBuffer, position: Long? = null) {
+            buffer.flip()
+            var offset = position
+            while (buffer.hasRemaining()) {
+                if (offset == null) {
+                    channel.write(buffer)
+                } else {
+                    offset += channel.write(buffer, offset)
+                }
+            }
+        }
+
+        override fun close() {
+            channel.use {
+                write(ByteBuffer.allocate(Long.SIZE_BYTES).putLong(rows), HEADER_BYTES - Long.SIZE_BYTES.toLong())
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.simbrain.network.trainers
+
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+
+/**
+ * A CSV file streamed a batch at a time, each line holding [nInputs] inputs followed by [nOutputs] targets. Lines are
+ * read in order, so batches can not be shuffled; convert the file with [BinaryDataset.write] for that.
+ */
+class CsvDataset @JvmOverloads constructor(
+    val file: File,
+    override val nInputs: Int,
+    override val nOutputs: Int,
+    val skipHeader: Boolean = false,
+    val separator: Char = ','
+) : StreamingDataset() {
+
+    override fun openReader(batchSize: Int, shuffle: Boolean): BatchReader {
+        val reader = Files.newBufferedReader(file.toPath())
+        if (skipHeader) {
+            reader.readLine()
+        }
+        return object : BatchReader {
+            var lineNumber = if (skipHeader) 1 else 0
+
+            override fun read(into: MatrixDataset): Int {
+                var row = 0
+                while (row < into.size) {
+                    val line = reader.readLine() ?: break
+                    lineNumber++
+                    if (line.isNotBlank()) {
+                        parse(line, into, row)
+                        row++
+                    }
+                }
+                return row
+            }
+
+            private fun parse(line: String, into: MatrixDataset, row: Int) {
+                var start = 0
+                for (j in 0 until nInputs + nOutputs) {
+                    if (start > line.length) {
+                        throw IOException("Line $lineNumber of $file has $j values instead of ${nInputs + nOutputs}")
+                    }
+                    val end = line.indexOf(separator, start).let { if (it == -1) line.length else it }
+                    val value = line.substring(start, end).trim().toDoubleOrNull()
+                        ?: throw IOException("Line $lineNumber of $file has a non-numeric value in column ${j + 1}")
+                    if (j < nInputs) {
+                        into.inputs[row, j] = value
+                    } else {
+                        into.targets[row, j - nInputs] = value
+                    }
+                    start = end + 1
+                }
+            }
+
+            override fun close() = reader.close()
+        }
+    }
+
+    override fun close() {}
+}
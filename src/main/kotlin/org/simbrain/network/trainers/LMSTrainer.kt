@@ -15,10 +15,13 @@ package org.simbrain.network.trainers
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import org.simbrain.network.events.TrainerEvents2
+import org.simbrain.network.neuron_update_rules.LinearRule
 import org.simbrain.network.subnetworks.LMSNetwork
+import org.simbrain.network.util.BiasedMatrixData
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.rowMatrixTransposed
+import smile.math.matrix.Matrix
 import kotlin.random.Random
 
 
@@ -26,19 +29,41 @@ import kotlin.random.Random
 class LMSTrainer(val lmsNet: LMSNetwork) : EditableObject {
 
     @UserParameter(label = "Learning Rate", order = 1)
-    val learningRate = .01
+    var learningRate = .01
 
     @UserParameter(label = "Update type", order = 1)
-    val updateType = UpdateMethod.STOCHASTIC
+    var updateType = UpdateMethod.STOCHASTIC
+
+    @UserParameter(label = "Batch size", description = "Rows per update in mini-batch mode", minimumValue = 1.0,
+        order = 2)
+    var batchSize = 32
+
+    /**
+     * Minimum time in milliseconds between error updates while training runs, so that listeners like the error plot
+     * are not flooded when thousands of iterations run each second.
+     */
+    var errorUpdateInterval = 50L
 
     var iteration = 0
 
+    /**
+     * Mean squared error per output of the last iteration, over the rows it trained on.
+     */
     var error = 0.0
 
     var isRunning = false
 
     val events = TrainerEvents2()
 
+    /**
+     * Trains the weight matrix on whole batches in the epoch and mini-batch modes. Created when first needed.
+     */
+    @Transient
+    private var engine: BatchBackprop? = null
+
+    @Transient
+    private var lastErrorUpdate = 0L
+
     suspend fun startTraining() {
         isRunning = true
         events.beginTraining.fireAndForget()
@@ -52,15 +77,23 @@ class LMSTrainer(val lmsNet: LMSNetwork) : EditableObject {
     suspend fun stopTraining() {
         isRunning = false
         events.endTraining.fireAndForget()
+        events.errorUpdated.fireAndSuspend(error)
     }
 
     suspend fun iterate() {
         iteration++
-        // TODO: Other update types
-        if (updateType == UpdateMethod.STOCHASTIC) {
-            trainRow(Random.nextInt(lmsNet.trainingSet.inputs.nrows()))
+        val rows = lmsNet.trainingSet.inputs.nrows()
+        when (updateType) {
+            UpdateMethod.EPOCH -> trainBatches(rows)
+            UpdateMethod.MINI_BATCH -> trainBatches(batchSize)
+            UpdateMethod.STOCHASTIC -> trainRow(Random.nextInt(rows))
+            UpdateMethod.SINGLE -> trainRow((iteration - 1) % rows)
+        }
+        val now = System.currentTimeMillis()
+        if (!isRunning || now - lastErrorUpdate >= errorUpdateInterval) {
+            lastErrorUpdate = now
+            events.errorUpdated.fireAndSuspend(error)
         }
-        events.errorUpdated.fireAndSuspend(error)
     }
 
     fun trainRow(rowNum: Int) {
@@ -74,12 +107,100 @@ class LMSTrainer(val lmsNet: LMSNetwork) : EditableObject {
         val outputs = lmsNet.outputLayer.activations
         val rowError = targets.sub(outputs)
         lmsNet.weightMatrix.applyLMS(rowError, learningRate)
-        error = rowError.transpose().mm(rowError).sum()
+        (lmsNet.outputLayer.dataHolder as? BiasedMatrixData)?.biases?.let { biases ->
+            biases.indices.forEach { biases[it] += learningRate * rowError[it, 0] }
+        }
+        var sse = 0.0
+        for (i in 0 until rowError.nrows()) {
+            sse += rowError[i, 0] * rowError[i, 0]
+        }
+        error = sse / rowError.nrows()
+    }
+
+    /**
+     * Make one pass through the training set in batches of [size] rows, each of which updates the weights and biases
+     * once with the average of the LMS updates of its rows. The network is updated when the pass is done.
+     */
+    fun trainBatches(size: Int) {
+        val engine = prepareEngine(size)
+        error = engine.trainEpoch(lmsNet.trainingSet, size < lmsNet.trainingSet.inputs.nrows())
+        engine.sync()
+    }
+
+    /**
+     * Make one pass through a dataset streamed from disk, in batches of [batchSize] rows, instead of the training set.
+     */
+    suspend fun trainEpoch(source: StreamingDataset) {
+        val engine = prepareEngine(batchSize)
+        error = engine.trainEpoch(source)
+        engine.sync()
+        iteration++
+        events.errorUpdated.fireAndSuspend(error)
+    }
+
+    private fun prepareEngine(batchSize: Int): BatchBackprop {
+        val weightMatrix = lmsNet.weightMatrix
+        val engine = engine?.takeIf { it.weightMatrices.first() === weightMatrix }
+            ?: BatchBackprop(listOf(weightMatrix)).also { engine = it }
+        // Pick up changes made to the network since the last pass, e.g. randomization or stochastic updates
+        engine.reset()
+        engine.learningRate = learningRate
+        engine.batchSize = batchSize
+        return engine
+    }
+
+    /**
+     * Set the weights and output biases directly to the least squares solution for the training set, which is what
+     * LMS converges to with a small enough learning rate. Solves the normal equations with a pseudo-inverse, so that
+     * training sets with fewer rows than inputs or with redundant inputs get the minimum norm solution. Biases are only
+     * solved for if the output layer has them. Clipping of the outputs is ignored.
+     */
+    suspend fun solve() {
+        val rule = lmsNet.outputLayer.updateRule
+        if (rule !is LinearRule) {
+            throw IllegalStateException("Least squares needs linear outputs, not ${rule.name}")
+        }
+        val inputs = lmsNet.trainingSet.inputs
+        val targets = lmsNet.trainingSet.targets
+        val nInputs = inputs.ncols()
+        val biases = (lmsNet.outputLayer.dataHolder as? BiasedMatrixData)?.biases
+
+        // With biases, inputs get a column of ones whose coefficients are the biases
+        val augmented = if (biases == null) inputs else Matrix(inputs.nrows(), nInputs + 1).apply {
+            for (i in 0 until inputs.nrows()) {
+                for (j in 0 until nInputs) {
+                    this[i, j] = inputs[i, j]
+                }
+                this[i, nInputs] = 1.0
+            }
+        }
+        val solution = augmented.ata().svd().pinv().mm(augmented.tm(targets))
+
+        val weights = lmsNet.weightMatrix.weightMatrix
+        for (i in 0 until targets.ncols()) {
+            for (j in 0 until nInputs) {
+                weights[i, j] = solution[j, i] / rule.slope
+            }
+            biases?.set(i, solution[nInputs, i])
+        }
+        lmsNet.weightMatrix.events.updated.fireAndForget()
+
+        val residuals = augmented.mm(solution).sub(targets)
+        var sse = 0.0
+        for (j in 0 until residuals.ncols()) {
+            for (i in 0 until residuals.nrows()) {
+                sse += residuals[i, j] * residuals[i, j]
+            }
+        }
+        error = sse / (targets.nrows() * targets.ncols())
+        iteration++
+        events.errorUpdated.fireAndSuspend(error)
     }
 
     // TODO: Better name?
     enum class UpdateMethod {
         EPOCH { override fun toString() = "Epoch (whole dataset per iteration)" },
+        MINI_BATCH { override fun toString() = "Mini-batch (whole dataset in batches per iteration)" },
         STOCHASTIC { override fun toString() = "Stochastic (random row per iteration)" },
         SINGLE { override fun toString() = "Single (one row per iteration)" }
     }
@@ -1,12 +1,78 @@
 package org.simbrain.network.trainers
 
+import org.simbrain.util.columnMajorMatrix
 import smile.math.matrix.Matrix
+import kotlin.random.Random
 
+/**
+ * Inputs and targets for training, one row per sample. Each is a smile [Matrix] over a single column-major primitive
+ * array, which trainers read directly. The row views below fill buffers supplied by the caller rather than allocating,
+ * and [shuffle] permutes the [order] in which rows are visited instead of moving the data.
+ */
 class MatrixDataset(val inputs: Matrix, val targets: Matrix) {
 
-    // TODO: Validate same rows for inputs and targets on primary constructor
+    init {
+        if (inputs.nrows() != targets.nrows()) {
+            throw IllegalArgumentException("${inputs.nrows()} rows of inputs but ${targets.nrows()} rows of targets")
+        }
+    }
 
     constructor(nInputs: Int, nOutputs: Int, nrows: Int = 10)
             : this(Matrix.eye(nrows, nInputs), Matrix.eye(nrows, nOutputs))
 
-}
\ No newline at end of file
+    val size get() = inputs.nrows()
+
+    @Transient
+    private var permutation: IntArray? = null
+
+    /**
+     * Indices of the rows in the order they should be visited. Initially 0 until [size].
+     */
+    val order: IntArray
+        get() = permutation?.takeIf { it.size == size } ?: IntArray(size) { it }.also { permutation = it }
+
+    /**
+     * Shuffle the [order] of the rows. The rows themselves stay where they are.
+     */
+    fun shuffle(random: Random = Random.Default) {
+        order.shuffle(random)
+    }
+
+    fun inputRow(row: Int, into: DoubleArray = DoubleArray(inputs.ncols())) = inputs.copyRow(row, into)
+
+    fun targetRow(row: Int, into: DoubleArray = DoubleArray(targets.ncols())) = targets.copyRow(row, into)
+
+    fun floatInputRow(row: Int, into: FloatArray = FloatArray(inputs.ncols())) = inputs.copyRow(row, into)
+
+    fun floatTargetRow(row: Int, into: FloatArray = FloatArray(targets.ncols())) = targets.copyRow(row, into)
+
+    companion object {
+
+        /**
+         * Returns a dataset whose inputs and targets are the given column-major arrays, which are used without copying
+         * them, so that changes to the arrays show up in the dataset and vice versa.
+         */
+        @JvmStatic
+        fun wrap(
+            rows: Int,
+            nInputs: Int,
+            nOutputs: Int,
+            inputs: DoubleArray = DoubleArray(rows * nInputs),
+            targets: DoubleArray = DoubleArray(rows * nOutputs)
+        ) = MatrixDataset(columnMajorMatrix(rows, nInputs, inputs), columnMajorMatrix(rows, nOutputs, targets))
+    }
+}
+
+private fun Matrix.copyRow(row: Int, into: DoubleArray): DoubleArray {
+    for (j in 0 until ncols()) {
+        into[j] = this[row, j]
+    }
+    return into
+}
+
+private fun Matrix.copyRow(row: Int, into: FloatArray): FloatArray {
+    for (j in 0 until ncols()) {
+        into[j] = this[row, j].toFloat()
+    }
+    return into
+}
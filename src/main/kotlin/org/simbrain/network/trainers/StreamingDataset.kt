@@ -0,0 +1,107 @@
+package org.simbrain.network.trainers
+
+import java.io.Closeable
+import java.io.IOException
+import java.io.UncheckedIOException
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Threads that read batches of streaming datasets ahead of the training that uses them.
+ */
+internal val prefetchExecutor: ExecutorService = Executors.newCachedThreadPool { runnable ->
+    Thread(runnable, "Dataset prefetch").apply { isDaemon = true }
+}
+
+/**
+ * Training data that is read from a file a batch at a time, so that datasets larger than the heap can be trained on.
+ * Batches are read on a background thread while earlier ones are being trained on.
+ */
+abstract class StreamingDataset : Closeable {
+
+    abstract val nInputs: Int
+
+    abstract val nOutputs: Int
+
+    /**
+     * Number of batches read ahead of the one being trained on.
+     */
+    var prefetch = 2
+
+    /**
+     * Reads consecutive batches of a pass through the data.
+     */
+    protected interface BatchReader : Closeable {
+        /**
+         * Fill rows of [into] from the start, and return how many were filled, which is 0 once the data is used up.
+         */
+        fun read(into: MatrixDataset): Int
+    }
+
+    /**
+     * Start a pass through the data in batches of [batchSize] rows, in a random order of batches if [shuffle] is
+     * true and the format allows it.
+     */
+    protected abstract fun openReader(batchSize: Int, shuffle: Boolean): BatchReader
+
+    /**
+     * Pass all of the data to [action] in batches of up to [batchSize] rows, read [prefetch] batches ahead on another
+     * thread. Batches are reused once [action] returns, so it should not hold on to them.
+     */
+    fun forEachBatch(batchSize: Int, shuffle: Boolean = false, action: (MatrixDataset) -> Unit) {
+        val free = ArrayBlockingQueue<MatrixDataset>(prefetch + 1)
+        repeat(prefetch + 1) { free.add(MatrixDataset.wrap(batchSize, nInputs, nOutputs)) }
+        // One more place than there are buffers, for the end of the data or an error
+        val filled = ArrayBlockingQueue<Filled>(prefetch + 2)
+        val reader = openReader(batchSize, shuffle)
+        val task = prefetchExecutor.submit {
+            reader.use {
+                try {
+                    while (true) {
+                        val batch = free.take()
+                        val rows = reader.read(batch)
+                        filled.put(Filled(batch, rows))
+                        if (rows == 0) {
+                            break
+                        }
+                    }
+                } catch (e: InterruptedException) {
+                    // The pass was abandoned
+                } catch (e: Exception) {
+                    filled.put(Filled(null, 0, e))
+                }
+            }
+        }
+        try {
+            while (true) {
+                val (batch, rows, error) = filled.take()
+                if (error is IOException) {
+                    throw UncheckedIOException(error)
+                } else if (error != null) {
+                    throw IllegalStateException("Could not read batch", error)
+                }
+                if (batch == null || rows == 0) {
+                    break
+                }
+                action(if (rows == batchSize) batch else batch.head(rows))
+                free.put(batch)
+            }
+        } finally {
+            task.cancel(true)
+        }
+    }
+
+    private data class Filled(val batch: MatrixDataset?, val rows: Int, val error: Exception? = null)
+
+    private fun MatrixDataset.head(rows: Int) = MatrixDataset.wrap(rows, nInputs, nOutputs).also { head ->
+        for (i in 0 until rows) {
+            for (j in 0 until nInputs) {
+                head.inputs[i, j] = inputs[i, j]
+            }
+            for (j in 0 until nOutputs) {
+                head.targets[i, j] = targets[i, j]
+            }
+        }
+    }
+}
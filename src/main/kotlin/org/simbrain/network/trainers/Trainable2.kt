@@ -18,7 +18,7 @@ import org.simbrain.network.matrix.NeuronArray
 
 interface Trainable2 {
 
-    val trainingSet: MatrixDataset
+    var trainingSet: MatrixDataset
 
     val inputLayer: NeuronArray
 
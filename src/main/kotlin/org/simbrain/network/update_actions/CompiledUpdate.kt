@@ -0,0 +1,53 @@
+package org.simbrain.network.update_actions
+
+import org.simbrain.network.core.CompiledNetwork
+import org.simbrain.network.core.Network
+import org.simbrain.workspace.updater.UpdateAction
+
+/**
+ * Buffered update like [BufferedUpdate], but with the free neurons and synapses flattened into primitive arrays
+ * (see [CompiledNetwork]). Much faster for large networks of loose neurons. The compiled form is rebuilt when models
+ * are added or removed or when connectivity changes.
+ *
+ * Activations of linear neurons are only written back to the neurons when they are read (e.g. by couplings), and
+ * the corresponding GUI events are only fired when [fireEvents] is called.
+ */
+class CompiledUpdate(private val network: Network) : UpdateAction(
+    "Loose neurons (compiled) and synapses",
+    "Buffered update of loose items using compiled arrays"
+) {
+
+    @Transient
+    private var compiledNetwork: CompiledNetwork? = null
+
+    override suspend fun run() {
+        getCompiledNetwork().bufferedUpdate()
+    }
+
+    /**
+     * Returns the compiled network, recompiling it first if it is out of date.
+     */
+    fun getCompiledNetwork(): CompiledNetwork {
+        val current = compiledNetwork
+        if (current != null && current.isValid && current.version == network.structureVersion) {
+            return current
+        }
+        current?.release()
+        return CompiledNetwork(network).also { compiledNetwork = it }
+    }
+
+    /**
+     * Return compiled state to the model objects. The network is recompiled on the next update.
+     */
+    fun release() {
+        compiledNetwork?.release()
+        compiledNetwork = null
+    }
+
+    /**
+     * Fire events for activations that changed in compiled form.
+     */
+    fun fireEvents() {
+        compiledNetwork?.fireActivationEvents()
+    }
+}
@@ -0,0 +1,68 @@
+package org.simbrain.network.update_actions
+
+import org.simbrain.network.core.EventDrivenNetwork
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Synapse
+import org.simbrain.workspace.updater.UpdateAction
+
+/**
+ * Buffered update like [BufferedUpdate], but with spikes propagated as events (see [EventDrivenNetwork]). Much
+ * faster for large, sparsely firing spiking networks of loose neurons whose synapses use jump and decay or rise and
+ * decay responders. The event structure is rebuilt when models are added or removed, when synapse properties like
+ * responders or delays change, or when the time step changes.
+ *
+ * Post-synaptic responses of event synapses are only written back to the synapses when [sync] or [release] is called.
+ */
+class EventDrivenUpdate(private val network: Network) : UpdateAction(
+    "Loose neurons and synapses (event driven spikes)",
+    "Buffered update of loose items, propagating spikes as events"
+) {
+
+    @Transient
+    private var eventDrivenNetwork: EventDrivenNetwork? = null
+
+    override suspend fun run() {
+        getEventDrivenNetwork().bufferedUpdate()
+    }
+
+    /**
+     * Returns the event driven network, rebuilding it first if it is out of date. Spikes in flight are carried over
+     * to the rebuilt network for synapses that are still event synapses.
+     */
+    fun getEventDrivenNetwork(): EventDrivenNetwork {
+        val current = eventDrivenNetwork
+        if (current != null && current.version == network.structureVersion && current.timeStep == network.timeStep) {
+            return current
+        }
+        current?.sync()
+        return EventDrivenNetwork(network, current?.pendingSpikes() ?: emptyList()).also { eventDrivenNetwork = it }
+    }
+
+    /**
+     * Write responses back to the synapses, keeping the event structure and the spikes in flight.
+     */
+    fun sync() {
+        eventDrivenNetwork?.sync()
+    }
+
+    /**
+     * Spikes in flight. See [EventDrivenNetwork.pendingSpikes].
+     */
+    fun pendingSpikes() = eventDrivenNetwork?.pendingSpikes() ?: emptyList()
+
+    /**
+     * Rebuild the event structure from the synapses and schedule [pending] spikes, e.g. when a checkpoint is read.
+     */
+    fun restore(pending: List<Pair<Synapse, Int>>) {
+        eventDrivenNetwork = EventDrivenNetwork(network, pending)
+    }
+
+    /**
+     * Write responses back to the synapses. The event structure is rebuilt on the next update and spikes in flight
+     * are dropped.
+     */
+    fun release() {
+        eventDrivenNetwork?.sync()
+        eventDrivenNetwork = null
+    }
+}
@@ -0,0 +1,184 @@
+package org.simbrain.network.update_actions
+
+import org.simbrain.network.NetworkModel
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.neuron_update_rules.*
+import org.simbrain.network.neuron_update_rules.activity_generators.StochasticRule
+import org.simbrain.network.spikeresponders.ProbabilisticResponder
+import org.simbrain.network.spikeresponders.UDF
+import org.simbrain.workspace.updater.UpdateAction
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+
+/**
+ * Buffered update like [BufferedUpdate], with loose neurons and synapses split into chunks that are updated in
+ * parallel on the fork join pool of the [org.simbrain.network.core.NetworkUpdateManager]. Chunk size and thread
+ * count are set there.
+ *
+ * Results are identical to a serial buffered update: each neuron only writes to itself and its incoming synapses,
+ * and all chunks finish one phase before the next begins. Neurons whose update is not independent of the others
+ * (shared update rule instances, rules or spike responders drawing from global random numbers or keeping state in
+ * a shared responder) are updated serially, as are all other models, in network order. Neurons whose rule reads
+ * source activations during update, like [IACRule], are updated serially between the chunks before and after them.
+ */
+class ParallelBufferedUpdate(private val network: Network) : UpdateAction(
+    "Loose neurons (parallel) and synapses",
+    "Buffered update of loose items using multiple threads"
+) {
+
+    @Transient
+    private var partition: Partition? = null
+
+    override suspend fun run() {
+        val manager = network.updateManager
+        val current = partition.takeIf {
+            it != null && it.version == network.structureVersion && it.chunkSize == manager.parallelChunkSize &&
+                    it.rulesUnchanged()
+        } ?: Partition(network, manager.parallelChunkSize).also { partition = it }
+        current.blocks.forEach { it.updateInputs() }
+        current.blocks.forEach { it.update() }
+    }
+
+    /**
+     * Consecutive models of the network, in the order of [Network.allModels], with the parts that can run at the
+     * same time.
+     */
+    private inner class Block(val chunks: List<List<NetworkModel>>, val serial: List<NetworkModel>) {
+
+        fun updateInputs() = forEachModel { it.updateInputs() }
+
+        fun update() = forEachModel { it.update() }
+
+        private inline fun forEachModel(crossinline action: (NetworkModel) -> Unit) {
+            if (chunks.size == 1) {
+                chunks[0].forEach { action(it) }
+            } else if (chunks.size > 1) {
+                val futures = network.updateManager.forkJoinPool.invokeAll(chunks.map { chunk ->
+                    Callable { chunk.forEach { action(it) } }
+                })
+                try {
+                    futures.forEach { it.get() }
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+            serial.forEach { action(it) }
+        }
+    }
+
+    private inner class Partition(network: Network, val chunkSize: Int) {
+
+        val version = network.structureVersion
+
+        val blocks = ArrayList<Block>()
+
+        /**
+         * Neurons in parallel chunks and the rule each had when partitioned. A neuron given another neuron's rule
+         * would no longer be independent, so a change of rule forces a new partition.
+         */
+        private val neurons = ArrayList<Neuron>()
+        private val rules = ArrayList<Any>()
+
+        init {
+            val models = network.allModels
+            var start = 0
+            while (start < models.size) {
+                val type = blockType(models[start])
+                var end = start + 1
+                while (end < models.size && blockType(models[end]) == type) end++
+                val run = models.subList(start, end)
+                when (type) {
+                    Neuron::class.java -> blocks.addAll(neuronBlocks(run.map { it as Neuron }))
+                    Synapse::class.java -> blocks.add(chunk(run) { 1 })
+                    else -> blocks.add(Block(emptyList(), run))
+                }
+                start = end
+            }
+        }
+
+        fun rulesUnchanged() = neurons.indices.all { neurons[it].updateRule === rules[it] }
+
+        private fun blockType(model: NetworkModel) = when (model) {
+            is Neuron -> Neuron::class.java
+            is Synapse -> Synapse::class.java
+            else -> NetworkModel::class.java
+        }
+
+        /**
+         * Blocks for a run of neurons. Neurons whose rule reads source activations while updating are given blocks of
+         * their own, so that like the serial update they see new activations of the neurons before them and old
+         * activations of the neurons after them.
+         */
+        private fun neuronBlocks(run: List<Neuron>): List<Block> {
+            val ruleCounts = IdentityHashMap<Any, Int>()
+            run.forEach { ruleCounts.merge(it.updateRule, 1, Int::plus) }
+            val result = ArrayList<Block>()
+            val independent = ArrayList<Neuron>()
+            val dependent = ArrayList<NetworkModel>()
+            fun flush() {
+                if (independent.isNotEmpty() || dependent.isNotEmpty()) {
+                    result.add(chunk(independent.toList(), dependent.toList()) { 1 + it.fanInUnsafe.size })
+                    independent.clear()
+                    dependent.clear()
+                }
+            }
+            for (neuron in run) {
+                when {
+                    readsSources(neuron) -> {
+                        flush()
+                        result.add(Block(emptyList(), listOf(neuron)))
+                    }
+                    ruleCounts[neuron.updateRule] == 1 && neuron.updateRule !is StochasticRule &&
+                            neuron.fanInUnsafe.none {
+                                it.spikeResponder is UDF || it.spikeResponder is ProbabilisticResponder
+                            } -> {
+                        independent.add(neuron)
+                        neurons.add(neuron)
+                        rules.add(neuron.updateRule)
+                    }
+                    else -> dependent.add(neuron)
+                }
+            }
+            flush()
+            return result
+        }
+
+        /**
+         * True for neurons whose update rule reads the activations of other neurons in [Neuron.update], rather than
+         * only the input accumulated in [Neuron.updateInputs].
+         */
+        private fun readsSources(neuron: Neuron) = neuron.updateRule.let {
+            it is IACRule || it is KuramotoRule || it is AdditiveRule || it is ProductRule || it is PointNeuronRule ||
+                    it is TimedAccumulatorRule
+        }
+
+        /**
+         * Split models into consecutive chunks of about [chunkSize] work each.
+         */
+        private fun <T : NetworkModel> chunk(
+            models: List<T>,
+            serial: List<NetworkModel> = emptyList(),
+            work: (T) -> Int
+        ): Block {
+            val chunks = ArrayList<List<NetworkModel>>()
+            var current = ArrayList<NetworkModel>()
+            var currentWork = 0
+            for (model in models) {
+                current.add(model)
+                currentWork += work(model)
+                if (currentWork >= chunkSize) {
+                    chunks.add(current)
+                    current = ArrayList()
+                    currentWork = 0
+                }
+            }
+            if (current.isNotEmpty()) {
+                chunks.add(current)
+            }
+            return Block(chunks, serial)
+        }
+    }
+}
@@ -18,10 +18,16 @@
  */
 package org.simbrain.network.updaterules
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.SpikingNeuronUpdateRule
+import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
+import org.simbrain.network.util.IzhikData
+import org.simbrain.network.util.IzhikevichMatrixData
+import org.simbrain.network.util.MatrixDataHolder
 import org.simbrain.network.util.ScalarDataHolder
+import org.simbrain.network.util.SpikingScalarData
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.UniformRealDistribution
@@ -33,11 +39,6 @@ import org.simbrain.util.stats.distributions.UniformRealDistribution
  * faster/cooler. Just a thought.
  */
 class IzhikevichRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
-    /**
-     * Recovery.
-     */
-    private var recovery = 0.0
-
     /**
      * A.
      */
@@ -122,9 +123,6 @@ class IzhikevichRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
      */
     var refractoryPeriod = 0.0 //ms
 
-    //TODO
-    private var timeStep = 0.0
-    private var `val` = 0.0
     override fun deepCopy(): IzhikevichRule {
         val `in` = IzhikevichRule()
         `in`.a = a
@@ -138,24 +136,72 @@ class IzhikevichRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
     }
 
     override fun apply(neuron: Neuron, data: ScalarDataHolder) {
-        timeStep = neuron.network.timeStep
+        val izhikData = data as? IzhikData ?: migrate(neuron, data)
+        val timeStep = neuron.network.timeStep
         val activation = neuron.activation
-        var inputs = 0.0
-        inputs = neuron.input
+        var inputs = neuron.input
         if (addNoise) {
             inputs += noiseGenerator.sampleDouble()
         }
         inputs += iBg
-        recovery += timeStep * (a * (b * activation - recovery))
-        `val` = activation + timeStep * (.04 * (activation * activation) + 5 * activation + 140 - recovery + inputs)
-        if (`val` >= threshold) {
-            `val` = c
-            recovery += d
+        izhikData.recovery += timeStep * (a * (b * activation - izhikData.recovery))
+        var v = activation + timeStep * (.04 * (activation * activation) + 5 * activation + 140 - izhikData.recovery +
+                inputs)
+        if (v >= threshold) {
+            v = c
+            izhikData.recovery += d
             neuron.isSpike = true
         } else {
             neuron.isSpike = false
         }
-        neuron.activation = `val`
+        neuron.activation = v
+    }
+
+    override fun apply(na: Layer, data: MatrixDataHolder) {
+        if (na is NeuronArray && data is IzhikevichMatrixData) {
+            val dt = na.network.timeStep
+            val time = na.network.time
+            val activations = na.activations
+            val inputs = na.inputs
+            val recovery = data.recovery
+            for (i in 0 until na.size()) {
+                val activation = activations[i, 0]
+                var input = inputs[i, 0] + iBg
+                if (addNoise) {
+                    input += noiseGenerator.sampleDouble()
+                }
+                recovery[i] += dt * (a * (b * activation - recovery[i]))
+                var v = activation + dt * (.04 * (activation * activation) + 5 * activation + 140 - recovery[i] + input)
+                val spiked = v >= threshold
+                if (spiked) {
+                    v = c
+                    recovery[i] += d
+                }
+                data.setHasSpiked(i, spiked, time)
+                activations[i, 0] = v
+            }
+        }
+    }
+
+    override fun createScalarData(): ScalarDataHolder {
+        return IzhikData()
+    }
+
+    /**
+     * Give a neuron whose data holder is not an [IzhikData], e.g. one saved before the recovery variable moved off
+     * the rule, a new one, keeping its last spike time.
+     */
+    private fun migrate(neuron: Neuron, data: ScalarDataHolder): IzhikData {
+        val izhikData = createScalarData() as IzhikData
+        if (data is SpikingScalarData) {
+            izhikData.lastSpikeTime = data.lastSpikeTime
+        }
+        neuron.dataHolder = izhikData
+        return izhikData
+    }
+
+    override fun createMatrixData(size: Int): MatrixDataHolder {
+        return IzhikevichMatrixData(size)
     }
 
     override fun getRandomValue(): Double {
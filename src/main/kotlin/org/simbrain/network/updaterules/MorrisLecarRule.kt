@@ -1,10 +1,14 @@
 package org.simbrain.network.updaterules
 
+import org.simbrain.network.core.Layer
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.NeuronUpdateRule
 import org.simbrain.network.core.SpikingNeuronUpdateRule
+import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
+import org.simbrain.network.util.MatrixDataHolder
 import org.simbrain.network.util.MorrisLecarData
+import org.simbrain.network.util.MorrisLecarMatrixData
 import org.simbrain.network.util.ScalarDataHolder
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -209,6 +213,28 @@ class MorrisLecarRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         neuron.activation = vMembrane
     }
 
+    override fun apply(na: Layer, data: MatrixDataHolder) {
+        if (na is NeuronArray && data is MorrisLecarMatrixData) {
+            val dt = na.network.timeStep
+            val time = na.network.time
+            val activations = na.activations
+            val inputs = na.inputs
+            for (i in 0 until na.size()) {
+                val i_syn = inputs[i, 0]
+                val w_K = data.w_K[i]
+                var vMembrane = activations[i, 0]
+                val dVdt = dVdt(vMembrane, i_syn, w_K)
+                val dWdt = dWdt(vMembrane, w_K)
+                val vmFut = vMembrane + dt * dVdt
+                val wKFut = w_K + dt * dWdt
+                vMembrane += dt / 2 * (dVdt + dVdt(vmFut, i_syn, w_K))
+                data.w_K[i] = w_K + dt / 2 * (dWdt + dWdt(vMembrane, wKFut))
+                data.setHasSpiked(i, vMembrane > threshold, time)
+                activations[i, 0] = vMembrane
+            }
+        }
+    }
+
     private fun dVdt(vMembrane: Double, i_syn: Double, w_K: Double): Double {
         val i_Ca = g_Ca * membraneFunction(vMembrane) * (vMembrane - vRest_Ca)
         val i_K = g_K * w_K * (vMembrane - vRest_k)
@@ -229,6 +255,10 @@ class MorrisLecarRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         return MorrisLecarData()
     }
 
+    override fun createMatrixData(size: Int): MatrixDataHolder {
+        return MorrisLecarMatrixData(size)
+    }
+
     private fun membraneFunction(vMembrane: Double): Double {
         return 0.5 * (1 + Math.tanh((vMembrane - v_m1) / v_m2))
     }
@@ -52,6 +52,82 @@ class NakaMatrixData(var size: Int) : MatrixDataHolder {
     }
 }
 
+/**
+ * Net activations integrated by [org.simbrain.network.neuron_update_rules.ContinuousSigmoidalRule] before squashing.
+ */
+class ContinuousSigmoidalMatrixData(var size: Int) : MatrixDataHolder {
+    var netActivations = DoubleArray(size)
+    override fun copy() = ContinuousSigmoidalMatrixData(size).also {
+        it.netActivations = netActivations.copyOf()
+    }
+}
+
+/**
+ * Gating variables of [org.simbrain.network.neuron_update_rules.HodgkinHuxleyRule].
+ */
+class HodgkinHuxleyMatrixData(var size: Int) : MatrixDataHolder {
+    var n = DoubleArray(size)
+    var m = DoubleArray(size)
+    var h = DoubleArray(size)
+    override fun copy() = HodgkinHuxleyMatrixData(size).also {
+        it.n = n.copyOf()
+        it.m = m.copyOf()
+        it.h = h.copyOf()
+    }
+}
+
+/**
+ * Gating variables and currents of a single neuron using [org.simbrain.network.neuron_update_rules.HodgkinHuxleyRule].
+ */
+class HodgkinHuxleyScalarData(
+    @UserParameter(label = "n", description = "Potassium activation gate.")
+    var n: Double = 0.0,
+    @UserParameter(label = "m", description = "Sodium activation gate.")
+    var m: Double = 0.0,
+    @UserParameter(label = "h", description = "Sodium inactivation gate.")
+    var h: Double = 0.0
+) : ScalarDataHolder {
+    /**
+     * Sodium current at the last update, using H&H sign convention.
+     */
+    var naCurrent = 0.0
+
+    /**
+     * Potassium current at the last update, using H&H sign convention.
+     */
+    var kCurrent = 0.0
+
+    override fun copy() = HodgkinHuxleyScalarData(n, m, h).also {
+        it.naCurrent = naCurrent
+        it.kCurrent = kCurrent
+    }
+}
+
+/**
+ * Conductances and membrane potentials of [org.simbrain.network.neuron_update_rules.PointNeuronRule].
+ */
+class PointNeuronMatrixData(var size: Int) : MatrixDataHolder {
+    var excitatoryConductances = DoubleArray(size)
+    var inhibitoryConductances = DoubleArray(size)
+    var membranePotentials = DoubleArray(size)
+    override fun copy() = PointNeuronMatrixData(size).also {
+        it.excitatoryConductances = excitatoryConductances.copyOf()
+        it.inhibitoryConductances = inhibitoryConductances.copyOf()
+        it.membranePotentials = membranePotentials.copyOf()
+    }
+}
+
+/**
+ * Refractory states of [org.simbrain.network.neuron_update_rules.TimedAccumulatorRule].
+ */
+class TimedAccumulatorMatrixData(size: Int) : SpikingMatrixData(size) {
+    var states = IntArray(size)
+    override fun copy() = TimedAccumulatorMatrixData(size).also {
+        commonCopy(it)
+        it.states = states.copyOf()
+    }
+}
+
 /**
  * Holders for scalar data used in scalar update rules, like [NeuronUpdateRule] and [SynapseUpdateRule].
  */
@@ -109,14 +185,26 @@ class NakaScalarData(@UserParameter(label = "a") var a: Double = 0.0) : ScalarDa
     }
 }
 
+/**
+ * Recovery variables of [org.simbrain.network.updaterules.IzhikevichRule].
+ */
+class IzhikevichMatrixData(size: Int) : SpikingMatrixData(size) {
+    var recovery = DoubleArray(size)
+    override fun copy() = IzhikevichMatrixData(size).also {
+        commonCopy(it)
+        it.recovery = recovery.copyOf()
+    }
+}
+
+/**
+ * Recovery variable of a single neuron using [org.simbrain.network.updaterules.IzhikevichRule].
+ */
 class IzhikData(
-    @UserParameter(label = "a") var a: Double = 0.0,
-    @UserParameter(label = "b") var b: Double = 0.0,
-    @UserParameter(label = "c") var c: Double = 0.0,
-    @UserParameter(label = "d") var d: Double = 0.0
-) : ScalarDataHolder {
+    @UserParameter(label = "Recovery", description = "Recovery variable (u).")
+    var recovery: Double = 0.0
+) : SpikingScalarData() {
     override fun copy(): IzhikData {
-        return IzhikData(a, b, c, d)
+        return IzhikData(recovery)
     }
 }
 
@@ -130,3 +218,13 @@ class MorrisLecarData(
     }
 }
 
+/**
+ * Fractions of open potassium channels of [org.simbrain.network.updaterules.MorrisLecarRule].
+ */
+class MorrisLecarMatrixData(size: Int) : SpikingMatrixData(size) {
+    var w_K = DoubleArray(size)
+    override fun copy() = MorrisLecarMatrixData(size).also {
+        commonCopy(it)
+        it.w_K = w_K.copyOf()
+    }
+}
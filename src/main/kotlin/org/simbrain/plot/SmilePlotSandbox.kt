@@ -0,0 +1,23 @@
+package org.simbrain.plot
+
+import smile.io.Read
+import smile.plot.swing.BoxPlot
+
+// Smile plots, kept out of org.simbrain.network.smile so that the network model does not depend on Swing
+
+fun main() {
+    boxPlot()
+}
+
+fun boxPlot() {
+    val iris = Read.arff("simulations/tables/iris.arff")
+    // val canvas = ScatterPlot.of(iris, "sepallength", "sepalwidth", "class", '*').canvas();
+    val canvas = BoxPlot.of(
+        iris.floatVector(0).toDoubleArray(),
+        iris.floatVector(1).toDoubleArray(),
+        iris.floatVector(2).toDoubleArray(),
+        iris.floatVector(3).toDoubleArray()
+    ).canvas();
+    // canvas.setAxisLabels("sepallength", "sepalwidth")
+    canvas.window()
+}
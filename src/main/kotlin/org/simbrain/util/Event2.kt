@@ -1,13 +1,26 @@
 package org.simbrain.util
 
 import kotlinx.coroutines.*
+import kotlin.coroutines.EmptyCoroutineContext
 import java.util.*
 import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.function.BiConsumer
 import java.util.function.Consumer
 
 val useEventDebug = false
 
+private val completedJob: Job = Job().apply { complete() }
+
+/**
+ * Time spent running and launching handlers, in [Metrics], for each subclass of [Events2].
+ */
+private val dispatchTimes = object : ClassValue<LatencyHistogram>() {
+    override fun computeValue(type: Class<*>) =
+        Metrics.histogram("Event Dispatch: ${type.simpleName.ifEmpty { type.name }}")
+}
+
 /**
  * Event objects corresponding to no-arg, adding, removing, and changing objects. Each object has a set of functions
  * on it that allow for firing them and waiting (via blocking in java or suspending in kotlin), and firing and
@@ -17,6 +30,9 @@ val useEventDebug = false
  * Provides for a convenient api. Just implement the events you need and all the event firing and handling functions
  * are provided.
  *
+ * Firing an event without handlers only reads a volatile field. Handlers that are plain functions without a dispatcher
+ * (e.g. java handlers) run inline on the thread that fires the event, and the others run as coroutines.
+ *
  * For examples see [TrainerEvents2]
  */
 open class Events2: CoroutineScope {
@@ -25,11 +41,6 @@ open class Events2: CoroutineScope {
 
     override val coroutineContext = Dispatchers.Default + job
 
-    /**
-     * Associates events to their listeners
-     */
-    private val eventMapping = HashMap<EventObject, ConcurrentLinkedQueue<EventObjectHandler>>()
-
     enum class TimingMode {
         Throttle, Debounce
     }
@@ -42,64 +53,205 @@ open class Events2: CoroutineScope {
 
         abstract var timingMode: TimingMode
 
+        /**
+         * Whether fires made during an [EventCoalescer.tick] are delivered once to handlers that do not run inline.
+         */
+        open val coalesce = false
+
         private val batchNew = ConcurrentLinkedQueue<Any?>()
         private val batchOld = ConcurrentLinkedQueue<Any?>()
 
         private var job: Job? = null
 
-        protected fun onSuspendHelper(dispatcher: CoroutineDispatcher?, wait: Boolean, run: suspend (new: Any?, old: Any?) -> Unit) {
-            val eventObjectHandler = EventObjectHandler(dispatcher, wait, run)
-            eventMapping.getOrPut(this@EventObject) { ConcurrentLinkedQueue() }.add(eventObjectHandler)
+        /**
+         * Handlers of this event. Copy on write, so firing an event without handlers only reads a volatile field.
+         */
+        private val handlers = CopyOnWriteArrayList<EventObjectHandler>()
+
+        /**
+         * Whether a handler that does not run inline must be waited for, in which case firing blocks.
+         */
+        @Volatile
+        private var hasWaitingHandlers = false
+
+        private var coalescedNew: Any? = null
+        private var coalescedOld: Any? = null
+        private val coalescePending = AtomicBoolean(false)
+
+        private fun addHandler(eventObjectHandler: EventObjectHandler): EventObjectHandler {
+            if (eventObjectHandler.inlineHandler == null && eventObjectHandler.wait) {
+                hasWaitingHandlers = true
+            }
+            handlers.add(eventObjectHandler)
+            return eventObjectHandler
         }
 
-        protected fun onHelper(dispatcher: CoroutineDispatcher?, wait: Boolean, run: (new: Any?, old: Any?) -> Unit) {
-            val eventObjectHandler = EventObjectHandler(dispatcher, wait, run)
-            eventMapping.getOrPut(this@EventObject) { ConcurrentLinkedQueue() }.add(eventObjectHandler)
+        /**
+         * Remove a handler returned by "on", e.g. when the object it updates is closed.
+         */
+        fun off(eventObjectHandler: EventObjectHandler) {
+            handlers.remove(eventObjectHandler)
+            hasWaitingHandlers = handlers.any { it.inlineHandler == null && it.wait }
         }
 
-        private suspend inline fun runAllHandlers(crossinline run: suspend (suspend (new: Any?, old: Any?) -> Unit) -> Unit) = eventMapping[this@EventObject]
-            ?.map { (dispatcher, wait, handler, stackTrace) ->
-                try {
-                    if (dispatcher != null) {
-                        launch(dispatcher) { run(handler) }.let { if (wait) withTimeout(5000) { it.join() } else it }
-                    } else {
-                        launch { run(handler) }.let { if (wait) withTimeout(5000) { it.join() } else it }
+        protected fun onSuspendHelper(
+            dispatcher: CoroutineDispatcher?,
+            wait: Boolean,
+            run: suspend (new: Any?, old: Any?) -> Unit
+        ): EventObjectHandler = addHandler(EventObjectHandler(dispatcher, wait, run))
+
+        /**
+         * Handlers that are plain functions without a dispatcher run inline on the thread that fires the event.
+         */
+        protected fun onHelper(
+            dispatcher: CoroutineDispatcher?,
+            wait: Boolean,
+            run: (new: Any?, old: Any?) -> Unit
+        ): EventObjectHandler = addHandler(
+            EventObjectHandler(dispatcher, wait, { new, old -> run(new, old) }, if (dispatcher == null) run else null)
+        )
+
+        /**
+         * Like handlers that run as coroutines, inline handlers report exceptions instead of throwing them to the code
+         * that fired the event.
+         */
+        private fun runInline(handler: (new: Any?, old: Any?) -> Unit, new: Any?, old: Any?) {
+            try {
+                handler(new, old)
+            } catch (e: Exception) {
+                Thread.currentThread().let { it.uncaughtExceptionHandler.uncaughtException(it, e) }
+            }
+        }
+
+        private fun launchHandler(eventObjectHandler: EventObjectHandler, new: Any?, old: Any?) =
+            launch(eventObjectHandler.dispatcher ?: EmptyCoroutineContext) { eventObjectHandler.handler(new, old) }
+
+        private suspend fun await(job: Job, eventObjectHandler: EventObjectHandler) {
+            try {
+                withTimeout(5000) { job.join() }
+            } catch (e: TimeoutCancellationException) {
+                throw IllegalStateException("Event time out on dispatcher ${eventObjectHandler.dispatcher}. Event handler created by ${eventObjectHandler.stackTraceElements.contentDeepToString()}")
+            }
+        }
+
+        /**
+         * If this event is fired during a tick, record the fire so the handlers that do not run inline get it when
+         * the tick ends.
+         *
+         * @return true if the fire was recorded.
+         */
+        private fun coalesceFire(new: Any?, old: Any?): Boolean {
+            if (!coalesce) return false
+            val coalescer = EventCoalescer.current.get() ?: return false
+            if (coalescePending.compareAndSet(false, true)) {
+                coalescedOld = old
+                coalescer.add(this)
+            }
+            coalescedNew = new
+            return true
+        }
+
+        /**
+         * Deliver the fires recorded during a tick, with the first old and the last new value.
+         */
+        internal fun deliverCoalesced() {
+            val new = coalescedNew
+            val old = coalescedOld
+            coalescedNew = null
+            coalescedOld = null
+            coalescePending.set(false)
+            if (new == old) return
+            if (hasWaitingHandlers) {
+                runBlocking { runAllHandlers(new, old, inline = false) }
+            } else {
+                handlers.forEach { if (it.inlineHandler == null) launchHandler(it, new, old) }
+            }
+        }
+
+        /**
+         * Run inline handlers and launch the others, waiting for those that must be waited for, or for all of them if
+         * [awaitAll] is set.
+         */
+        private suspend fun runAllHandlers(new: Any?, old: Any?, inline: Boolean = true, awaitAll: Boolean = false) {
+            val coalesced = inline && coalesceFire(new, old)
+            val launched = if (awaitAll) ArrayList<Job>() else null
+            Metrics.time(dispatchTimes.get(this@Events2.javaClass)) {
+                for (eventObjectHandler in handlers) {
+                    val inlineHandler = eventObjectHandler.inlineHandler
+                    if (inlineHandler != null) {
+                        if (inline) runInline(inlineHandler, new, old)
+                    } else if (!coalesced) {
+                        val job = launchHandler(eventObjectHandler, new, old)
+                        if (launched != null) {
+                            launched.add(job)
+                        } else if (eventObjectHandler.wait) {
+                            await(job, eventObjectHandler)
+                        }
                     }
-                } catch (e: TimeoutCancellationException) {
-                    throw IllegalStateException("Event time out on dispatcher $dispatcher. Event handler created by ${stackTrace.contentDeepToString()}")
                 }
-            }?.filterIsInstance<Job>()
+                launched?.joinAll()
+            }
+        }
 
-        protected suspend fun fireAndSuspendHelper(run: suspend (suspend (new: Any?, old: Any?) -> Unit) -> Unit) {
+        /**
+         * Fire without blocking unless a handler must be waited for or the event is throttled or debounced.
+         */
+        protected fun fireAndBlockHelper(new: Any?, old: Any?) {
+            if (handlers.isEmpty()) return
+            if (interval != 0 || hasWaitingHandlers) {
+                runBlocking { fireAndSuspendHelper(new, old) }
+                return
+            }
+            val coalesced = coalesceFire(new, old)
+            Metrics.time(dispatchTimes.get(this@Events2.javaClass)) {
+                for (eventObjectHandler in handlers) {
+                    val inlineHandler = eventObjectHandler.inlineHandler
+                    if (inlineHandler != null) {
+                        runInline(inlineHandler, new, old)
+                    } else if (!coalesced) {
+                        launchHandler(eventObjectHandler, new, old)
+                    }
+                }
+            }
+        }
+
+        protected suspend fun fireAndSuspendHelper(new: Any?, old: Any?) {
+            if (handlers.isEmpty()) return
             val now = System.currentTimeMillis()
             if (interval == 0) {
-                runAllHandlers(run)
+                runAllHandlers(new, old)
                 return
             }
             when (timingMode) {
                 TimingMode.Throttle -> {
                     if (now >= intervalEndTime) {
                         intervalEndTime = now + interval
-                        runAllHandlers(run)
+                        runAllHandlers(new, old)
                     }
                 }
                 TimingMode.Debounce -> {
                     job?.cancel()
                     job = launch {
                         delay(interval.toLong())
-                        runAllHandlers(run)
+                        runAllHandlers(new, old)
                     }
                 }
             }
         }
 
-        protected fun batchFireAndSuspendHelper(new: Any?, old: Any?): Job {
+        protected fun batchFireAndSuspendHelper(new: Any?, old: Any?) = batchFireAndSuspendHelper(
+            new?.let { listOf(it) } ?: emptyList(),
+            old?.let { listOf(it) } ?: emptyList()
+        )
+
+        protected fun batchFireAndSuspendHelper(new: Collection<Any?>, old: Collection<Any?>): Job {
+            if (handlers.isEmpty()) return completedJob
             val now = System.currentTimeMillis()
-            new?.let { batchNew.add(it) }
-            old?.let { batchOld.add(it) }
+            batchNew.addAll(new)
+            batchOld.addAll(old)
             if (interval == 0) {
                 return launch {
-                    runAllHandlers { handler -> handler(batchNew, batchOld) }?.joinAll()
+                    runAllHandlers(batchNew, batchOld, awaitAll = true)
                     batchNew.clear()
                     batchOld.clear()
                 }
@@ -108,7 +260,7 @@ open class Events2: CoroutineScope {
                 TimingMode.Throttle -> launch {
                     if (now >= intervalEndTime) {
                         intervalEndTime = now + interval
-                        runAllHandlers { handler -> handler(batchNew, batchOld) }?.joinAll()
+                        runAllHandlers(batchNew, batchOld, awaitAll = true)
                         batchNew.clear()
                         batchOld.clear()
                     }
@@ -117,7 +269,7 @@ open class Events2: CoroutineScope {
                     job?.cancel()
                     job = launch {
                         delay(interval.toLong())
-                        runAllHandlers { handler -> handler(batchNew, batchOld) }?.joinAll()
+                        runAllHandlers(batchNew, batchOld, awaitAll = true)
                         batchNew.clear()
                         batchOld.clear()
                     }
@@ -156,16 +308,13 @@ open class Events2: CoroutineScope {
         /**
          * Like java fireAndBlock() but suspends rather than blocking, so that the GUI remains responsive.
          */
-        suspend fun fireAndSuspend() = fireAndSuspendHelper { handler -> handler(null, null) }
+        suspend fun fireAndSuspend() = fireAndSuspendHelper(null, null)
 
         /**
-         * Java fire and block. Fire event and wait for it to terminate before continuing.
+         * Java fire and block. Fire event and wait for handlers that must be waited for to terminate before
+         * continuing.
          */
-        fun fireAndBlock() {
-            runBlocking {
-                fireAndSuspend()
-            }
-        }
+        fun fireAndBlock() = fireAndBlockHelper(null, null)
 
     }
 
@@ -189,13 +338,9 @@ open class Events2: CoroutineScope {
         @Deprecated(message = "Blocking is now determinate by `on`", replaceWith = ReplaceWith("fireAndBlock(new)"))
         fun fireAndForget(new: T) = fireAndBlock(new)
 
-        suspend fun fireAndSuspend(new: T) = fireAndSuspendHelper { handler -> handler(new, null) }
+        suspend fun fireAndSuspend(new: T) = fireAndSuspendHelper(new, null)
 
-        fun fireAndBlock(new: T) {
-            runBlocking {
-                fireAndSuspend(new)
-            }
-        }
+        fun fireAndBlock(new: T) = fireAndBlockHelper(new, null)
 
     }
 
@@ -217,9 +362,17 @@ open class Events2: CoroutineScope {
 
         fun fireAndSuspend(new: T) = batchFireAndSuspendHelper(new, null)
 
+        /**
+         * Add several objects to the batch at once, so that handlers are run once for all of them.
+         */
+        fun fireAllAndSuspend(new: Collection<T>) = batchFireAndSuspendHelper(new, emptyList())
+
         fun fireAndBlock(new: T) {
-            runBlocking {
-                fireAndSuspend(new).join()
+            val job = fireAndSuspend(new)
+            if (!job.isCompleted) {
+                runBlocking {
+                    job.join()
+                }
             }
         }
     }
@@ -232,7 +385,7 @@ open class Events2: CoroutineScope {
     inner class RemovedEvent<T>(override val interval: Int = 0, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject() {
 
         @Suppress("UNCHECKED_CAST")
-        fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: (old: T) -> Unit) = onSuspendHelper(dispatcher, wait) {
+        fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: (old: T) -> Unit) = onHelper(dispatcher, wait) {
                 _, old -> handler(old as T)
         }
 
@@ -245,25 +398,28 @@ open class Events2: CoroutineScope {
         @Deprecated(message = "Blocking is now determinate by `on`", replaceWith = ReplaceWith("fireAndBlock(old)"))
         fun fireAndForget(old: T) = fireAndBlock(old)
 
-        suspend fun fireAndSuspend(old: T) = fireAndSuspendHelper { handler -> handler(null, old) }
+        suspend fun fireAndSuspend(old: T) = fireAndSuspendHelper(null, old)
 
-        fun fireAndBlock(old: T) {
-            runBlocking {
-                fireAndSuspend(old)
-            }
-        }
+        fun fireAndBlock(old: T) = fireAndBlockHelper(null, old)
 
     }
 
     /**
-     * Changed events, e.g. updateRuleChanged.fire(oldRule, newRule), updateRuleChanged.on{ or, nr -> ...}.
+     * Changed events, e.g. updateRuleChanged.fire(newRule, oldRule), updateRuleChanged.on{ nr, or -> ...}.
      * Functions are the same as in the no-arg case.
+     *
+     * If [coalesce] is set, the fires made during an [EventCoalescer.tick] reach handlers that do not run inline as
+     * one fire when the tick ends.
      */
-    inner class ChangedEvent<T>(override val interval: Int = 0, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject() {
+    inner class ChangedEvent<T>(
+        override val interval: Int = 0,
+        override var timingMode: TimingMode =  TimingMode.Debounce,
+        override val coalesce: Boolean = false
+    ) : EventObject() {
 
         @Suppress("UNCHECKED_CAST")
 
-        fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: (new: T, old: T) -> Unit) = onSuspendHelper(dispatcher, wait) {
+        fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: (new: T, old: T) -> Unit) = onHelper(dispatcher, wait) {
                 new, old -> handler(new as T, old as T)
         }
 
@@ -276,12 +432,12 @@ open class Events2: CoroutineScope {
         @Deprecated(message = "Blocking is now determinate by `on`", replaceWith = ReplaceWith("fireAndBlock(new, old)"))
         fun fireAndForget(new: T, old: T) = fireAndBlock(new, old)
 
-        suspend fun fireAndSuspend(new: T, old: T) = fireAndSuspendHelper { handler -> if (new != old) handler(new, old) }
+        suspend fun fireAndSuspend(new: T, old: T) {
+            if (new != old) fireAndSuspendHelper(new, old)
+        }
 
         fun fireAndBlock(new: T, old: T) {
-            runBlocking {
-                fireAndSuspend(new, old)
-            }
+            if (new != old) fireAndBlockHelper(new, old)
         }
 
     }
@@ -302,12 +458,10 @@ open class Events2: CoroutineScope {
         @Deprecated(message = "Blocking is now determinate by `on`", replaceWith = ReplaceWith("fireAndBlock(new, old)"))
         fun fireAndForget(new: T, old: T) = fireAndBlock(new, old)
 
-        suspend fun fireAndSuspend(new: T, old: T) = batchFireAndSuspendHelper(new, old)
+        fun fireAndSuspend(new: T, old: T) = batchFireAndSuspendHelper(new, old)
 
         fun fireAndBlock(new: T, old: T) {
-            runBlocking {
-                fireAndSuspend(new, old)
-            }
+            fireAndSuspend(new, old)
         }
     }
 
@@ -317,6 +471,10 @@ data class EventObjectHandler(
     val dispatcher: CoroutineDispatcher?,
     val wait: Boolean,
     val handler: suspend (new: Any?, old: Any?) -> Unit,
+    /**
+     * Set for handlers that run inline on the thread that fires the event.
+     */
+    val inlineHandler: ((new: Any?, old: Any?) -> Unit)? = null,
     val stackTraceElements: Array<StackTraceElement>? = if (useEventDebug) Thread.getAllStackTraces()[Thread.currentThread()] else null
 ) {
     override fun equals(other: Any?): Boolean {
@@ -339,3 +497,50 @@ data class EventObjectHandler(
         return result
     }
 }
+
+/**
+ * Collects the fires of coalescing events (see [Events2.ChangedEvent]) made during a tick, e.g. one network update.
+ * Handlers that do not run inline, like those of the GUI, then get one fire per event when the tick ends, rather than
+ * one per change. Inline handlers still run on every fire.
+ */
+class EventCoalescer {
+
+    private val pending = ConcurrentLinkedQueue<Events2.EventObject>()
+
+    internal fun add(event: Events2.EventObject) {
+        pending.add(event)
+    }
+
+    /**
+     * Coalesce the events fired by [block] on this thread, and by coroutines it runs with [contextElement], and
+     * deliver them when it returns.
+     */
+    fun <T> tick(block: () -> T): T {
+        val previous = current.get()
+        current.set(this)
+        try {
+            return block()
+        } finally {
+            current.set(previous)
+            flush()
+        }
+    }
+
+    /**
+     * Makes a coroutine part of this coalescer's tick, whichever thread it runs on.
+     */
+    fun contextElement(): ThreadContextElement<EventCoalescer?> = current.asContextElement(this)
+
+    /**
+     * Deliver the fires collected so far.
+     */
+    fun flush() {
+        while (true) {
+            (pending.poll() ?: break).deliverCoalesced()
+        }
+    }
+
+    companion object {
+        internal val current = ThreadLocal<EventCoalescer?>()
+    }
+}
@@ -0,0 +1,245 @@
+package org.simbrain.util
+
+import java.io.File
+import java.io.Writer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Registry of latency histograms for update actions, component updates, coupling updates and event dispatch. Cheap
+ * enough to leave on: recording a time is a few uncontended atomic increments, with no allocation and no locks.
+ *
+ * Read by the [org.simbrain.workspace.gui.PerformanceMonitorPanel], and written out by [writeCsv] and [writeJson],
+ * e.g. by the headless runner.
+ */
+object Metrics {
+
+    /**
+     * Whether times are recorded.
+     */
+    @Volatile
+    @JvmStatic
+    var enabled = true
+
+    private val histograms = ConcurrentHashMap<String, LatencyHistogram>()
+
+    /**
+     * Return the histogram with the given name, creating it if needed.
+     */
+    @JvmStatic
+    fun histogram(name: String): LatencyHistogram = histograms[name] ?: histograms.computeIfAbsent(name) {
+        LatencyHistogram(it)
+    }
+
+    /**
+     * Run a block and record how long it took in the named histogram.
+     */
+    inline fun <T> time(name: String, block: () -> T): T = time(histogram(name), block)
+
+    /**
+     * Run a block and record how long it took in a histogram.
+     */
+    inline fun <T> time(histogram: LatencyHistogram, block: () -> T): T {
+        if (!enabled) {
+            return block()
+        }
+        val start = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            histogram.record(System.nanoTime() - start)
+        }
+    }
+
+    /**
+     * Snapshots of all histograms that have recorded times, sorted by name.
+     */
+    @JvmStatic
+    fun snapshot() = histograms.values.map { it.snapshot() }.filter { it.count > 0 }.sortedBy { it.name }
+
+    /**
+     * Clear all recorded times.
+     */
+    @JvmStatic
+    fun reset() {
+        histograms.values.forEach { it.reset() }
+    }
+
+    /**
+     * Write a snapshot as comma separated values, one histogram per row, with times in microseconds.
+     */
+    @JvmStatic
+    fun writeCsv(writer: Writer) {
+        writer.write("name,count,mean,p50,p90,p99,max\n")
+        for (s in snapshot()) {
+            val values = listOf(s.mean, s.percentile(50.0), s.percentile(90.0), s.percentile(99.0), s.max.toDouble())
+                .joinToString(",") { (it / 1e3).format(3) }
+            writer.write("\"${s.name.replace("\"", "\"\"")}\",${s.count},$values\n")
+        }
+        writer.flush()
+    }
+
+    /**
+     * Write a snapshot as a json array of histograms, with times in microseconds.
+     */
+    @JvmStatic
+    fun writeJson(writer: Writer) {
+        writer.write(snapshot().joinToString(",\n  ", "[\n  ", "\n]\n") { s ->
+            val name = s.name.replace("\\", "\\\\").replace("\"", "\\\"")
+            "{\"name\": \"$name\", \"count\": ${s.count}, \"mean\": ${(s.mean / 1e3).format(3)}, " +
+                    "\"p50\": ${(s.percentile(50.0) / 1e3).format(3)}, " +
+                    "\"p90\": ${(s.percentile(90.0) / 1e3).format(3)}, " +
+                    "\"p99\": ${(s.percentile(99.0) / 1e3).format(3)}, \"max\": ${(s.max / 1e3).format(3)}}"
+        })
+        writer.flush()
+    }
+
+    /**
+     * Write a snapshot to a file, as json if its name ends in ".json" and as comma separated values otherwise.
+     */
+    @JvmStatic
+    fun write(file: File) {
+        file.bufferedWriter().use { if (file.extension.equals("json", true)) writeJson(it) else writeCsv(it) }
+    }
+}
+
+/**
+ * A histogram of times in nanoseconds, with buckets whose width grows with the time they hold (as in HdrHistogram),
+ * so that each is within 12.5% of the times recorded in it.
+ *
+ * Threads record into one of several stripes, chosen by thread, so that threads updating in parallel do not contend
+ * for the same counters. Stripes are only allocated when first used.
+ */
+class LatencyHistogram(val name: String) {
+
+    private val stripes = AtomicReferenceArray<AtomicLongArray>(STRIPES)
+
+    /**
+     * Record a time in nanoseconds.
+     */
+    fun record(nanos: Long) {
+        val index = (Thread.currentThread().hashCode() * -0x61c88647 ushr 16) and (STRIPES - 1)
+        val stripe = stripes[index] ?: run {
+            stripes.compareAndSet(index, null, AtomicLongArray(BUCKETS + 2))
+            stripes[index]
+        }
+        val value = nanos.coerceAtLeast(0)
+        stripe.incrementAndGet(bucketOf(value))
+        stripe.addAndGet(SUM, value)
+        var max = stripe[MAX]
+        while (value > max && !stripe.compareAndSet(MAX, max, value)) {
+            max = stripe[MAX]
+        }
+    }
+
+    /**
+     * Sum the stripes into a snapshot. Times recorded while the snapshot is taken may be partly included.
+     */
+    fun snapshot(): HistogramSnapshot {
+        val counts = LongArray(BUCKETS)
+        var sum = 0L
+        var max = 0L
+        for (i in 0 until STRIPES) {
+            val stripe = stripes[i] ?: continue
+            for (b in 0 until BUCKETS) {
+                counts[b] += stripe[b]
+            }
+            sum += stripe[SUM]
+            max = maxOf(max, stripe[MAX])
+        }
+        return HistogramSnapshot(name, counts, sum, max)
+    }
+
+    fun reset() {
+        for (i in 0 until STRIPES) {
+            stripes[i]?.let { stripe -> for (b in 0 until stripe.length()) stripe[b] = 0 }
+        }
+    }
+
+    companion object {
+
+        /**
+         * Number of stripes, a power of two.
+         */
+        private val STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors().coerceIn(1, 16) * 2 - 1)
+
+        /**
+         * Each power of two is divided into 2^SUB_BITS buckets.
+         */
+        private const val SUB_BITS = 3
+
+        private const val SUB_BUCKETS = 1 shl SUB_BITS
+
+        /**
+         * Times from 2^MAX_EXPONENT ns (about 18 minutes) up share the last bucket.
+         */
+        private const val MAX_EXPONENT = 40
+
+        const val BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS
+
+        private const val SUM = BUCKETS
+
+        private const val MAX = BUCKETS + 1
+
+        /**
+         * Index of the bucket that holds a time.
+         */
+        fun bucketOf(nanos: Long): Int {
+            if (nanos < SUB_BUCKETS) {
+                return nanos.toInt()
+            }
+            val exponent = 63 - java.lang.Long.numberOfLeadingZeros(nanos)
+            if (exponent > MAX_EXPONENT) {
+                return BUCKETS - 1
+            }
+            val mantissa = (nanos ushr (exponent - SUB_BITS)).toInt() and (SUB_BUCKETS - 1)
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa
+        }
+
+        /**
+         * Smallest time that goes in a bucket.
+         */
+        fun lowerBound(bucket: Int): Long {
+            if (bucket < SUB_BUCKETS) {
+                return bucket.toLong()
+            }
+            val exponent = bucket / SUB_BUCKETS + SUB_BITS - 1
+            return (SUB_BUCKETS + bucket % SUB_BUCKETS).toLong() shl (exponent - SUB_BITS)
+        }
+    }
+}
+
+/**
+ * Times recorded by a [LatencyHistogram], in nanoseconds.
+ */
+class HistogramSnapshot(val name: String, private val counts: LongArray, val sum: Long, val max: Long) {
+
+    val count = counts.sum()
+
+    val mean get() = if (count == 0L) 0.0 else sum.toDouble() / count
+
+    /**
+     * The time that the given percentage of recorded times are at or below, to within the width of a bucket.
+     */
+    fun percentile(percent: Double): Double {
+        if (count == 0L) {
+            return 0.0
+        }
+        val rank = Math.ceil(percent / 100 * count).toLong().coerceIn(1, count)
+        var seen = 0L
+        for (b in counts.indices) {
+            seen += counts[b]
+            if (seen >= rank) {
+                val lower = LatencyHistogram.lowerBound(b)
+                val upper = if (b + 1 < counts.size) LatencyHistogram.lowerBound(b + 1) else lower
+                return minOf((lower + upper) / 2.0, max.toDouble())
+            }
+        }
+        return max.toDouble()
+    }
+
+    override fun toString() = "%s: n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus".format(
+        name, count, mean / 1e3, percentile(50.0) / 1e3, percentile(99.0) / 1e3, max / 1e3
+    )
+}
@@ -66,6 +66,16 @@ class SimpleIdManager @JvmOverloads constructor (
         return idMap[clazz]!!.andIncrement
     }
 
+    /**
+     * Get [count] consecutive ids for a class. Increments the id number by [count].
+     */
+    fun getAndIncrementIds(clazz: Class<*>, count: Int): List<String> {
+        if (!idMap.containsKey(clazz)) {
+            putClassIdMapping(clazz)
+        }
+        return idMap[clazz]!!.getAndIncrement(count)
+    }
+
     /**
      * Get the [SimpleId.getProposedId] associated with a class.
      */
@@ -100,6 +110,14 @@ class SimpleIdManager @JvmOverloads constructor (
         val andIncrement: String
             get() = rootName + delimeter + index.getAndIncrement()
 
+        /**
+         * Returns [count] consecutive identifiers and advances the id index past them.
+         */
+        fun getAndIncrement(count: Int): List<String> {
+            val start = index.getAndAdd(count)
+            return List(count) { rootName + delimeter + (start + it) }
+        }
+
         /**
          * "Peek" ahead the next id that will be made if [.getAndIncrement] is called.
          */
@@ -1,6 +1,7 @@
 package org.simbrain.util
 
 import smile.math.matrix.Matrix
+import java.nio.DoubleBuffer
 
 /**
  * Make sure the two matrices have the same shape
@@ -32,3 +33,14 @@ fun Matrix.rowMatrixTransposed(rowIndex: Int): Matrix {
 fun Matrix.rowMatrix(rowIndex: Int) = row(*intArrayOf(rowIndex))
 
 fun Matrix.colMatrix(rowIndex: Int) = col(*intArrayOf(rowIndex))
+
+/**
+ * Returns a matrix that reads and writes [data], in column-major order, without copying it. Only whole arrays can be
+ * wrapped: native BLAS does not honor the offset of a sliced buffer.
+ */
+fun columnMajorMatrix(rows: Int, cols: Int, data: DoubleArray = DoubleArray(rows * cols)): Matrix {
+    if (data.size != rows * cols) {
+        throw IllegalArgumentException("Array of size ${data.size} can not hold a ($rows,$cols) matrix")
+    }
+    return Matrix(rows, cols, rows, DoubleBuffer.wrap(data))
+}
@@ -0,0 +1,26 @@
+package org.simbrain.util
+
+import java.util.*
+
+/**
+ * A read-only list computed on demand and kept until the version it was computed for changes. Used to cache views
+ * of a structure that is expensive to traverse, like the flat neuron list of a
+ * [org.simbrain.network.core.Network].
+ */
+class VersionedList<T> {
+
+    private var version = -1L
+
+    private var list: List<T> = emptyList()
+
+    /**
+     * Returns the cached list if it was computed for the provided version, else computes it again.
+     */
+    fun get(currentVersion: Long, compute: () -> List<T>): List<T> {
+        if (version != currentVersion) {
+            list = Collections.unmodifiableList(compute())
+            version = currentVersion
+        }
+        return list
+    }
+}
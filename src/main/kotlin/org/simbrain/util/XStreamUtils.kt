@@ -29,7 +29,7 @@ fun getSimbrainXStream(): XStream {
             // be sure to sync these with the build.gradle simbrainJvmArgs --add-opens items
             arrayOf(
                 "org.simbrain.**", "java.awt.**", "java.awt.geom.**", "org.jfree.**", "javax.swing.event.**", "java.beans.**",
-                "smile.math.**", "java.util.concurrent.**"
+                "smile.math.**", "java.util.concurrent.**", "org.jetbrains.kotlinx.dl.**"
             )
         )
     }
@@ -37,6 +37,13 @@ class MatrixDataWrapper(
         }
     }
 
+    /**
+     * Returns the wrapped matrix itself, not a copy, when all columns are requested.
+     */
+    override fun getDoubleMatrix(colIndices: List<Int>): Matrix {
+        return if (colIndices == (0 until columnCount).toList()) data else super.getDoubleMatrix(colIndices)
+    }
+
     override fun insertRow(rowIndex: Int) {
         val newRowIndex = if (rowIndex == -1) rowCount else rowIndex
         if (newRowIndex in -1 .. rowCount) {
@@ -1,12 +1,14 @@
 package org.simbrain.util.table
 
 import org.simbrain.util.UserParameter
+import org.simbrain.util.columnMajorMatrix
 import org.simbrain.util.isIntegerValued
 import org.simbrain.util.isRealValued
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.UniformRealDistribution
 import smile.data.type.DataType
+import smile.math.matrix.Matrix
 import javax.swing.table.AbstractTableModel
 
 /**
@@ -136,6 +138,23 @@ abstract class SimbrainDataModel() : AbstractTableModel() {
             .toFloatArray()
     }
 
+    /**
+     * Returns the provided columns as a matrix, filled column by column into a single array without intermediate row
+     * arrays. Numeric types are cast to doubles.
+     */
+    open fun getDoubleMatrix(colIndices: List<Int> = (0 until columnCount).toList()): Matrix {
+        if (!columnsOfType(colIndices, Double::class.java, Int::class.java, Float::class.java)) {
+            throw Error("getDoubleMatrix called on a non-numeric column")
+        }
+        val matrix = columnMajorMatrix(rowCount, colIndices.size)
+        colIndices.forEachIndexed { j, colIndex ->
+            for (i in 0 until rowCount) {
+                matrix[i, j] = (getValueAt(i, colIndex) as Number).toDouble()
+            }
+        }
+        return matrix
+    }
+
     /**
      * Returns a 2d double array using provided column indices.
      *
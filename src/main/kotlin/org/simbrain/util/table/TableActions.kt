@@ -6,6 +6,7 @@ import kotlinx.coroutines.launch
 import org.simbrain.util.*
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor
 import smile.io.Read
+import smile.math.matrix.Matrix
 import smile.plot.swing.BoxPlot
 import smile.plot.swing.Histogram
 import smile.plot.swing.PlotGrid
@@ -218,6 +219,12 @@ fun DataViewerTable.importCSVAction(fixedColumns: Boolean = false) = createActio
                     it.data = importedData.data
                     it.fireTableStructureChanged()
                 }
+            } else if (it is MatrixDataWrapper) {
+                val data = Utils.getDoubleMatrix(csvFile)
+                if (checkColumns(data.firstOrNull()?.size ?: 0)) {
+                    it.data = Matrix(data)
+                    it.fireTableStructureChanged()
+                }
             } else if (it is DataFrameWrapper) {
                 val data = Read.csv(csvFile.absolutePath)
                 if (checkColumns(data.ncols())) {
@@ -235,7 +242,7 @@ val DataViewerTable.editColumnAction
         "Edit column...",
         "Edit column properties"
     ) {
-        if (model is BasicDataWrapper) {
+        if (model is BasicDataWrapper || model is MatrixDataWrapper) {
             if (selectedColumn >= 0) {
                 val editor = AnnotatedPropertyEditor(model.columns[selectedColumn])
                 val dialog: StandardDialog = editor.dialog
@@ -0,0 +1,144 @@
+package org.simbrain.workspace
+
+import kotlinx.coroutines.runBlocking
+import org.simbrain.util.Metrics
+import org.simbrain.workspace.serialization.WorkspaceSerializer
+import org.simbrain.workspace.updater.updateAction
+import java.io.File
+import java.io.Writer
+import kotlin.system.exitProcess
+
+/**
+ * Runs a workspace without a desktop, e.g. for batch jobs on machines without a display. No desktop components are
+ * created, and the network and workspace model do not load Swing (see ModelBoundaryTest), so many runs can share a
+ * host.
+ *
+ * Producers to record are given as "component/attribute container id/method", the triple used to save couplings,
+ * e.g. "Network1/Neuron_1/getActivation". Their values are written as comma separated rows, one per recorded
+ * iteration, after the workspace has updated.
+ */
+class HeadlessRunner(val workspace: Workspace) {
+
+    /**
+     * Producers whose values are recorded, in column order.
+     */
+    val producers = ArrayList<Producer>()
+
+    private val names = ArrayList<String>()
+
+    /**
+     * Record the producer identified by a "component/attribute container id/method" triple.
+     */
+    fun addProducer(spec: String) {
+        val parts = spec.split("/")
+        if (parts.size != 3) {
+            throw IllegalArgumentException("Producer $spec is not of the form component/attribute container id/method")
+        }
+        val (componentName, containerId, methodName) = parts
+        val component = workspace.getComponent(componentName)
+            ?: throw IllegalArgumentException("No component named $componentName")
+        val container = component.attributeContainers.find { it.id == containerId }
+            ?: throw IllegalArgumentException("No attribute container $containerId in $componentName")
+        producers.add(with(workspace.couplingManager) { container.getProducer(methodName) })
+        names.add(spec)
+    }
+
+    /**
+     * Update the workspace [iterations] times as fast as possible, writing the values of [producers] to [output]
+     * every [interval] iterations, preceded by a header row. Array values take one column per entry.
+     */
+    @JvmOverloads
+    fun run(iterations: Int, output: Writer? = null, interval: Int = 1) {
+        val recorder = if (output != null && producers.isNotEmpty()) {
+            updateAction("Record producers") {
+                val time = workspace.updater.time
+                if (time % interval == 0) {
+                    writeRow(output, time)
+                }
+            }
+        } else null
+        recorder?.let { workspace.addUpdateAction(it) }
+        try {
+            runBlocking { workspace.iterateSuspend(iterations) }
+        } finally {
+            recorder?.let { workspace.updater.updateManager.removeAction(it) }
+            output?.flush()
+        }
+    }
+
+    private var headerWritten = false
+
+    private fun writeRow(output: Writer, time: Int) {
+        val values = producers.map { it.value }
+        if (!headerWritten) {
+            val header = names.zip(values).flatMap { (name, value) ->
+                val size = arraySize(value)
+                if (size < 0) listOf(name) else List(size) { "$name[$it]" }
+            }
+            output.write((listOf("time") + header).joinToString(","))
+            output.write("\n")
+            headerWritten = true
+        }
+        output.write(time.toString())
+        for (value in values) {
+            when (value) {
+                is DoubleArray -> value.forEach { output.write(","); output.write(it.toString()) }
+                is IntArray -> value.forEach { output.write(","); output.write(it.toString()) }
+                is Array<*> -> value.forEach { output.write(","); output.write(it.toString()) }
+                else -> { output.write(","); output.write(value.toString()) }
+            }
+        }
+        output.write("\n")
+    }
+
+    private fun arraySize(value: Any?) = when (value) {
+        is DoubleArray -> value.size
+        is IntArray -> value.size
+        is Array<*> -> value.size
+        else -> -1
+    }
+
+    companion object {
+
+        /**
+         * Open a workspace file without a desktop.
+         */
+        @JvmStatic
+        fun open(file: File): HeadlessRunner {
+            val workspace = Workspace()
+            WorkspaceSerializer(workspace).apply { isHeadless = true }.deserialize(file)
+            return HeadlessRunner(workspace)
+        }
+    }
+}
+
+/**
+ * Sample invocation:
+ * gradle runHeadless --args="simulation.zip 10000 activations.csv Network1/Neuron_1/getActivation"
+ *
+ * Arguments are the workspace file, the number of iterations, and optionally an output file followed by the
+ * producers to record. Set the system property "interval" to record every n-th iteration, and "metrics" to a file
+ * name to write the update timings in [Metrics] to it (as json if it ends in ".json", otherwise as csv).
+ */
+fun main(args: Array<String>) {
+    System.setProperty("java.awt.headless", "true")
+    if (args.size < 2 || args.size == 3) {
+        System.err.println("Usage: HeadlessRunner <workspace file> <iterations> [<output file> <producer>...]")
+        exitProcess(1)
+    }
+    val runner = HeadlessRunner.open(File(args[0]))
+    args.drop(3).forEach { runner.addProducer(it) }
+    val interval = System.getProperty("interval")?.toInt() ?: 1
+    val metrics = System.getProperty("metrics")?.let { File(it) }
+    Metrics.reset()
+    val start = System.nanoTime()
+    if (args.size > 2) {
+        File(args[2]).bufferedWriter().use { runner.run(args[1].toInt(), it, interval) }
+    } else {
+        runner.run(args[1].toInt())
+    }
+    val seconds = (System.nanoTime() - start) / 1e9
+    println("%d iterations in %.2f s (%.0f iterations/s)".format(args[1].toInt(), seconds, args[1].toInt() / seconds))
+    metrics?.let { Metrics.write(it) }
+    exitProcess(0)
+}
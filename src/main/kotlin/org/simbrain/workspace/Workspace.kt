@@ -13,6 +13,12 @@ import org.simbrain.workspace.updater.WorkspaceUpdater
 import org.simbrain.workspace.updater.updateAction
 import java.io.*
 import java.util.*
+import kotlin.concurrent.thread
+
+/**
+ * Size of the pipe between the two threads of [Workspace.openFrom].
+ */
+private const val COPY_BUFFER_SIZE = 1 shl 16
 
 /**
  * A collection of components which interact via couplings. Neural networks,
@@ -378,7 +384,7 @@ class Workspace: CoroutineScope {
         try {
             if (theFile != null) {
                 clearWorkspace()
-                serializer.deserialize(FileInputStream(theFile))
+                serializer.deserialize(theFile)
                 currentFile = theFile
                 setWorkspaceChanged(false)
                 events.workspaceOpened.fireAndForget()
@@ -414,7 +420,7 @@ class Workspace: CoroutineScope {
 
     /**
      * Returns a "flat" representation of the workspace as a byte array from the zipped representation
-     * [WorkspaceSerializer] produces.
+     * [WorkspaceSerializer] produces. To copy a workspace without holding all of it in memory, use [openFrom].
      */
     val zipData: ByteArray?
         get() {
@@ -445,6 +451,31 @@ class Workspace: CoroutineScope {
         }
     }
 
+    /**
+     * Replace this workspace with a copy of [other]. The zipped representation [WorkspaceSerializer] produces is piped
+     * from a thread serializing [other] to this one as it is written, rather than held in memory as [zipData] is.
+     */
+    fun openFrom(other: Workspace) {
+        val input = PipedInputStream(COPY_BUFFER_SIZE)
+        val output = PipedOutputStream(input)
+        val writer = thread(name = "Workspace copy") {
+            try {
+                output.use { WorkspaceSerializer(other).serialize(it) }
+            } catch (e: IOException) {
+                // The pipe is closed once this workspace has read what it needs, before the end of the archive
+            }
+        }
+        try {
+            clearWorkspace()
+            WorkspaceSerializer(this).deserialize(input)
+        } catch (e: IOException) {
+            e.printStackTrace()
+        } finally {
+            input.close()
+            writer.join()
+        }
+    }
+
     /**
      * Convenience method for adding an update action to the workspace's action
      * list (the sequence of actions invoked on each iteration of the
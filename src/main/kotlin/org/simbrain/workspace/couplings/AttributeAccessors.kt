@@ -0,0 +1,130 @@
+package org.simbrain.workspace.couplings
+
+import java.lang.invoke.LambdaConversionException
+import java.lang.invoke.LambdaMetafactory
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+import java.lang.reflect.Method
+import java.util.function.BiConsumer
+import java.util.function.Function
+import java.util.function.ObjDoubleConsumer
+import java.util.function.ToDoubleFunction
+
+/**
+ * Compiles [Producible] and [Consumable] methods into lambdas using [LambdaMetafactory], so that couplings call them
+ * like ordinary code rather than through [Method.invoke], which boxes doubles and wraps arguments in arrays on every
+ * call. Compiling is slow, so [CouplingCache] does it once per method and shares the result between all producers
+ * and consumers of that method.
+ *
+ * Getters and setters of doubles also get primitive versions, which couplings use to pass doubles without boxing.
+ * Arrays like double[] are passed by reference and need no specialization.
+ *
+ * Methods that cannot be compiled, for example because their class was loaded by a script class loader that is not
+ * visible from here, fall back to reflection.
+ */
+object AttributeAccessors {
+
+    private val lookup = MethodHandles.lookup()
+
+    /**
+     * Return a function that calls a producible (getter) method on an attribute container.
+     */
+    @JvmStatic
+    fun getter(method: Method): Function<Any, Any?> {
+        return compile<Function<Any, Any?>>(method, Function::class.java, "apply",
+            MethodType.methodType(Any::class.java, Any::class.java),
+            MethodType.methodType(method.returnType.boxed(), method.declaringClass)
+        ) ?: Function { method.invoke(it) }
+    }
+
+    /**
+     * Return a function that calls a producible method that returns a double without boxing it, or null if the
+     * method does not return a double.
+     */
+    @JvmStatic
+    fun doubleGetter(method: Method): ToDoubleFunction<Any>? {
+        if (method.returnType != Double::class.javaPrimitiveType) {
+            return null
+        }
+        return compile<ToDoubleFunction<Any>>(method, ToDoubleFunction::class.java, "applyAsDouble",
+            MethodType.methodType(Double::class.javaPrimitiveType, Any::class.java),
+            MethodType.methodType(Double::class.javaPrimitiveType, method.declaringClass)
+        ) ?: ToDoubleFunction { method.invoke(it) as Double }
+    }
+
+    /**
+     * Return a function that calls a consumable (setter) method on an attribute container.
+     */
+    @JvmStatic
+    fun setter(method: Method): BiConsumer<Any, Any?> {
+        return compile<BiConsumer<Any, Any?>>(method, BiConsumer::class.java, "accept",
+            MethodType.methodType(Void.TYPE, Any::class.java, Any::class.java),
+            MethodType.methodType(Void.TYPE, method.declaringClass, method.parameterTypes[0].boxed())
+        ) ?: BiConsumer { container, value -> method.invoke(container, value) }
+    }
+
+    /**
+     * Return a function that calls a consumable method that takes a double without boxing it, or null if the method
+     * does not take a double.
+     */
+    @JvmStatic
+    fun doubleSetter(method: Method): ObjDoubleConsumer<Any>? {
+        if (method.parameterTypes[0] != Double::class.javaPrimitiveType) {
+            return null
+        }
+        return compile<ObjDoubleConsumer<Any>>(method, ObjDoubleConsumer::class.java, "accept",
+            MethodType.methodType(Void.TYPE, Any::class.java, Double::class.javaPrimitiveType),
+            MethodType.methodType(Void.TYPE, method.declaringClass, Double::class.javaPrimitiveType)
+        ) ?: ObjDoubleConsumer { container, value -> method.invoke(container, value) }
+    }
+
+    /**
+     * Create an instance of a functional interface whose single method [samName] calls [method]. Returns null if the
+     * method cannot be compiled.
+     */
+    private fun <T> compile(
+        method: Method,
+        functionalInterface: Class<*>,
+        samName: String,
+        samType: MethodType,
+        instantiatedType: MethodType
+    ): T? {
+        if (!isVisible(method.declaringClass) || !isVisible(method.returnType) ||
+            !method.parameterTypes.all { isVisible(it) }) {
+            return null
+        }
+        return try {
+            val handle: MethodHandle = lookup.unreflect(method)
+            val site = LambdaMetafactory.metafactory(
+                lookup, samName, MethodType.methodType(functionalInterface), samType, handle, instantiatedType
+            )
+            @Suppress("UNCHECKED_CAST")
+            site.target.invoke() as T
+        } catch (e: ReflectiveOperationException) {
+            null
+        } catch (e: LambdaConversionException) {
+            null
+        }
+    }
+
+    /**
+     * Whether the generated lambda classes, which are defined in this class's loader, can link against a type.
+     */
+    private fun isVisible(type: Class<*>): Boolean {
+        if (type.isPrimitive) {
+            return true
+        }
+        if (type.isArray) {
+            return isVisible(type.componentType)
+        }
+        return try {
+            Class.forName(type.name, false, lookup.lookupClass().classLoader) == type
+        } catch (e: ClassNotFoundException) {
+            false
+        }
+    }
+
+    private fun Class<*>.boxed(): Class<*> = if (isPrimitive) MethodType.methodType(this).wrap().returnType() else this
+
+}
@@ -0,0 +1,70 @@
+package org.simbrain.workspace.couplings
+
+import org.simbrain.workspace.AttributeContainer
+import org.simbrain.workspace.WorkspaceComponent
+import java.util.*
+
+/**
+ * The dependency graph that couplings create between workspace components. A coupling from a producer in component A
+ * to a consumer in component B reads A and writes B, so it must be updated before either is.
+ *
+ * This lets components be updated as soon as the couplings they depend on are done, instead of waiting for all
+ * couplings (see [org.simbrain.workspace.updater.PipelinedUpdateAction]), with the same results: couplings still
+ * read the values their producers had before the update.
+ *
+ * @param components the components of the workspace, in update order
+ * @param couplings the couplings between them
+ */
+class ComponentDependencies(val components: List<WorkspaceComponent>, couplings: Collection<Coupling>) {
+
+    /**
+     * Couplings that write to each component, batched by [batchByConsumer].
+     */
+    val incoming: Map<WorkspaceComponent, List<List<Coupling>>>
+
+    /**
+     * For each component, the components that couplings read it into. A component must not be updated until the
+     * couplings into its readers are done.
+     */
+    val readers: Map<WorkspaceComponent, Set<WorkspaceComponent>>
+
+    /**
+     * Couplings with a producer or consumer that is not in any of the components, e.g. because it was removed. Since
+     * it is not known what they depend on, they are updated before any component.
+     */
+    val unassigned: List<List<Coupling>>
+
+    init {
+        val containers = Collections.newSetFromMap(IdentityHashMap<AttributeContainer, Boolean>())
+        couplings.forEach {
+            containers.add(it.producer.baseObject)
+            containers.add(it.consumer.baseObject)
+        }
+        val componentOf = IdentityHashMap<AttributeContainer, WorkspaceComponent>()
+        for (component in components) {
+            for (container in component.attributeContainers) {
+                if (container in containers) {
+                    componentOf[container] = component
+                }
+            }
+        }
+
+        val incomingCouplings = LinkedHashMap<WorkspaceComponent, MutableList<Coupling>>()
+        val readerSets = LinkedHashMap<WorkspaceComponent, MutableSet<WorkspaceComponent>>()
+        val unassignedCouplings = ArrayList<Coupling>()
+        for (coupling in couplings) {
+            val source = componentOf[coupling.producer.baseObject]
+            val target = componentOf[coupling.consumer.baseObject]
+            if (source == null || target == null) {
+                unassignedCouplings.add(coupling)
+            } else {
+                incomingCouplings.getOrPut(target) { ArrayList() }.add(coupling)
+                readerSets.getOrPut(source) { LinkedHashSet() }.add(target)
+            }
+        }
+        incoming = incomingCouplings.mapValues { (_, list) -> batchByConsumer(list) }
+        readers = readerSets
+        unassigned = batchByConsumer(unassignedCouplings)
+    }
+
+}
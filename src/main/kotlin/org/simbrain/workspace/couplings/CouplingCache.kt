@@ -5,7 +5,8 @@ import java.lang.reflect.Method
 
 /**
  * Cache method objects for each [AttributeContainer]. Reflection is still used to create Method objects but they are
- * cached here for quick access.
+ * cached here for quick access, along with compiled accessors (see [AttributeAccessors]) that producers and consumers
+ * use to call them.
  *
  * A utility class for [CouplingManager]. Provides optimized ways to access specific sets of producers and consumers.
  * These methods should not be called directly and this class should not be instantiated outside of CouplingManager.
@@ -85,11 +86,14 @@ class CouplingCache(val couplingManager: CouplingManager) {
 
         val customDescription = javaClass.findMethod(annotation.customDescriptionMethod)
         val arrayDescriptionMethod = javaClass.findMethod(annotation.arrayDescriptionMethod)
+        val getter = AttributeAccessors.getter(method)
+        val doubleGetter = AttributeAccessors.doubleGetter(method)
 
         fun (attributeContainer: AttributeContainer) = Producer.builder(attributeContainer, method)
                 .description(annotation.description)
                 .customDescription(customDescription)
                 .arrayDescriptionMethod(arrayDescriptionMethod)
+                .accessors(getter, doubleGetter)
                 .build()
     }(this)
 
@@ -108,10 +112,13 @@ class CouplingCache(val couplingManager: CouplingManager) {
                 ?: throw IllegalArgumentException("Method ${method.name} is not consumable.")
 
         val customDescription = javaClass.findMethod(annotation.customDescriptionMethod)
+        val setter = AttributeAccessors.setter(method)
+        val doubleSetter = AttributeAccessors.doubleSetter(method)
 
         fun (attributeContainer: AttributeContainer) = Consumer.builder(attributeContainer, method)
                 .description(annotation.description)
                 .customDescription(customDescription)
+                .accessors(setter, doubleSetter)
                 .build()
     }(this)
 
@@ -39,6 +39,16 @@ class CouplingManager(val workspace: Workspace) {
      */
     val couplings: Set<Coupling> = _couplings
 
+    /**
+     * [couplings] divided into batches by [batchByConsumer], or null if couplings have changed since.
+     */
+    private var couplingBatches: List<List<Coupling>>? = null
+
+    /**
+     * Cached result of [getDependencies], or null if couplings have changed since.
+     */
+    private var dependencies: ComponentDependencies? = null
+
     /**
      * Couplings associated with an [AttributeContainer]. For faster lookup.
      */
@@ -191,6 +201,7 @@ class CouplingManager(val workspace: Workspace) {
      */
     fun createCoupling(producer: Producer?, consumer: Consumer?) = Coupling.create(producer, consumer).also {
         _couplings.add(it)
+        couplingsChanged()
         attributeContainerCouplings.getOrPut(it.producer.baseObject) { LinkedHashSet() }.add(it)
         attributeContainerCouplings.getOrPut(it.consumer.baseObject) { LinkedHashSet() }.add(it)
         events.couplingAdded.fireAndForget(it)
@@ -287,13 +298,42 @@ class CouplingManager(val workspace: Workspace) {
 
     /**
      * Update all couplings by setting the consumers to take the values of their producers.
+     *
+     * Couplings that write to the same attribute container are updated one after another in the order they were
+     * created, so that many-to-one couplings, e.g. to Neuron.addInputValue, do not race. Couplings to different
+     * containers are updated in parallel.
      */
     suspend fun updateCouplings() {
-        coroutineScope {
-            couplings.map { async { it.update() } }.awaitAll()
+        updateBatches(couplingBatches ?: batchByConsumer(couplings).also { couplingBatches = it })
+    }
+
+    /**
+     * Update batches of couplings made by [batchByConsumer], in parallel when there is more than one.
+     */
+    suspend fun updateBatches(batches: List<List<Coupling>>) {
+        when (batches.size) {
+            0 -> return
+            1 -> batches[0].forEach { it.update() }
+            else -> coroutineScope {
+                batches.map { batch -> async { batch.forEach { it.update() } } }.awaitAll()
+            }
         }
     }
 
+    /**
+     * Return which of the given components the couplings connect, for updating components as soon as the couplings
+     * they depend on have been updated. Cached until couplings or components change.
+     */
+    fun getDependencies(components: List<WorkspaceComponent>): ComponentDependencies {
+        return dependencies?.takeIf { it.components == components }
+            ?: ComponentDependencies(components, couplings).also { dependencies = it }
+    }
+
+    private fun couplingsChanged() {
+        couplingBatches = null
+        dependencies = null
+    }
+
     /**
      * Remove a specific coupling
      *
@@ -306,6 +346,7 @@ class CouplingManager(val workspace: Workspace) {
 
     private fun removeCouplingWithoutFiringEvent(coupling: Coupling) {
         _couplings.remove(coupling)
+        couplingsChanged()
         attributeContainerCouplings[coupling.producer.baseObject]?.let {
             it.remove(coupling)
             if (it.isEmpty()) {
@@ -322,6 +363,7 @@ class CouplingManager(val workspace: Workspace) {
 
     fun removeAttributeContainer(attributeContainer: AttributeContainer) {
         attributeContainerCouplings[attributeContainer]?.let {
+            couplingsChanged()
             it.forEach { coupling ->
                 _couplings.remove(coupling)
                 if (coupling.consumer.baseObject !== attributeContainer) {
@@ -337,3 +379,15 @@ class CouplingManager(val workspace: Workspace) {
     }
 
 }
+
+/**
+ * Group couplings by the attribute container they write to, and divide the groups into at most one batch per
+ * processor, with about the same number of couplings in each. Couplings in a batch keep their order, and a batch can be
+ * updated in parallel with the others.
+ */
+fun batchByConsumer(couplings: Collection<Coupling>): List<List<Coupling>> {
+    val groups = couplings.groupBy { it.consumer.baseObject }.values.sortedByDescending { it.size }
+    val batches = List(minOf(groups.size, Runtime.getRuntime().availableProcessors())) { ArrayList<Coupling>() }
+    groups.forEach { group -> batches.minBy { it.size }.addAll(group) }
+    return batches
+}
@@ -1,17 +1,12 @@
 package org.simbrain.workspace.gui
 
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
+import org.simbrain.util.Metrics
 import org.simbrain.util.format
 import org.simbrain.workspace.Workspace
-import org.simbrain.workspace.updater.*
+import org.simbrain.workspace.updater.PerformanceMonitor
 import java.awt.BorderLayout
 import java.awt.Font
-import java.lang.Long.max
-import java.lang.Long.min
-import java.util.*
 import javax.swing.*
-import kotlin.math.roundToLong
 
 /**
  * Display update action performance and thread monitor.
@@ -22,13 +17,6 @@ class PerformanceMonitorPanel(private val workspace: Workspace) : JPanel(BorderL
 
     private val contentPanel = JPanel()
 
-    data class TimerProperties(val identifier: String, val min: Long, val avg: Long, val max: Long, var markForDeletion: Boolean = true)
-    data class ThreadAction(val threadName: String, val actionName: String, var markForDeletion: Boolean = true)
-
-    private val timers: MutableMap<Any, TimerProperties> = LinkedHashMap()
-
-    private val threadActions: MutableMap<String, ThreadAction> = TreeMap()
-
     /**
      * Constructor for viewer panel.
      *
@@ -54,51 +42,34 @@ class PerformanceMonitorPanel(private val workspace: Workspace) : JPanel(BorderL
 
         this.add("Center", contentPanel)
 
-        workspace.launch(Dispatchers.Default) {
-            PerformanceMonitor.flow.collect { (identifier, name, threadName, nanoTime) ->
-                val properties = timers.getOrPut(identifier) { TimerProperties(name, nanoTime, nanoTime, nanoTime) }
-                val (_, min, avg, max) = properties
-                timers[identifier] = properties.copy(
-                    min = min(min, nanoTime),
-                    avg = (0.99 * avg + 0.01 * nanoTime).roundToLong(),
-                    max = max(max, nanoTime),
-                    markForDeletion = false
-                )
-                threadActions[threadName] = ThreadAction(threadName, name, markForDeletion = false)
-            }
-        }
-
         workspace.addNonRemovableAction("performance monitor") {
-            timers.entries.filter { (_, record) ->
-                record.markForDeletion
-            }.forEach { (key) -> timers.remove(key) }
-
-            threadActions.entries.filter { (_, record) ->
-                record.markForDeletion
-            }.forEach { (key) -> threadActions.remove(key) }
-
-            timersList.model = DefaultListModel<String>().apply { addAll(timers.values.map { record ->
-                record.markForDeletion = true
-                val (recordName, min, avg, max) = record
-                fun Long.toSecondString()  = (this / 1e9).format(5)
-                val minSeconds = min.toSecondString()
-                val avgSeconds = avg.toSecondString()
-                val maxSeconds = max.toSecondString()
+            if (!isShowing) return@addNonRemovableAction
+            val timers = Metrics.snapshot().map { snapshot ->
+                fun Double.toSecondString() = (this / 1e9).format(5)
                 val maxLabelLength = 50
+                val recordName = snapshot.name
                 val formattedRecordName = if (recordName.length > maxLabelLength - 3) {
                     recordName.substring(0, maxLabelLength - 3) + "..."
                 } else {
                     recordName
                 }
-                "%-${maxLabelLength}s min:%s avg:%s max:%s".format(formattedRecordName, minSeconds, avgSeconds, maxSeconds)
-            }) }
-            timersList.repaint()
-            threadsList.model = DefaultListModel<String>().apply { addAll(threadActions.values.map { record ->
-                record.markForDeletion = true
-                val (threadName, name) = record
+                "%-${maxLabelLength}s n:%-8d avg:%s p50:%s p99:%s max:%s".format(
+                    formattedRecordName,
+                    snapshot.count,
+                    snapshot.mean.toSecondString(),
+                    snapshot.percentile(50.0).toSecondString(),
+                    snapshot.percentile(99.0).toSecondString(),
+                    snapshot.max.toDouble().toSecondString()
+                )
+            }
+            val threads = PerformanceMonitor.threadActions.toSortedMap().map { (threadName, name) ->
                 "$threadName: $name"
-            }) }
+            }
+            SwingUtilities.invokeLater {
+                timersList.model = DefaultListModel<String>().apply { addAll(timers) }
+                threadsList.model = DefaultListModel<String>().apply { addAll(threads) }
+            }
         }
 
     }
-}
\ No newline at end of file
+}
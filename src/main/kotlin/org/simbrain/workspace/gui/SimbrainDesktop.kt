@@ -38,7 +38,6 @@ import org.simbrain.util.widgets.ShowHelpAction
 import org.simbrain.util.widgets.ToggleButton
 import org.simbrain.workspace.Workspace
 import org.simbrain.workspace.WorkspaceComponent
-import org.simbrain.workspace.updater.PerformanceMonitor.enabled
 import java.awt.*
 import java.awt.event.*
 import java.beans.PropertyVetoException
@@ -937,11 +936,9 @@ class SimbrainDesktop(val workspace: Workspace) {
         if (dockVisible) {
             dockVisible = false
             horizontalSplitter.bottomComponent.isVisible = false
-            enabled = false
         } else {
             dockVisible = true
             horizontalSplitter.bottomComponent.isVisible = true
-            enabled = true
             horizontalSplitter.dividerLocation = dividerLocation
         }
     }
@@ -0,0 +1,90 @@
+package org.simbrain.workspace.updater
+
+import org.pmw.tinylog.Logger
+import org.simbrain.workspace.Workspace
+import java.io.File
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Writes the numeric state of a workspace's components to a [WorkspaceCheckpoint] every [interval] iterations, so a
+ * long run can be resumed with [WorkspaceCheckpoint.restore] without saving or reopening the workspace.
+ *
+ * The state is copied on the update thread, which is all an update waits for, and written to the file on a
+ * background thread. If the previous checkpoint is still being written when the next one is due, the next one is
+ * skipped. Not saved with the workspace.
+ */
+class CheckpointAction @JvmOverloads constructor(
+    @Transient val workspace: Workspace,
+    file: File,
+    var interval: Int = 1000
+) : UpdateAction("Checkpoint", "Write the numeric state of the workspace to a checkpoint file") {
+
+    @Transient
+    val checkpoint = WorkspaceCheckpoint(file)
+
+    override val description get() = "Checkpoint every $interval iterations"
+
+    /**
+     * Copied component states, keyed by component name. Reused by every checkpoint.
+     */
+    @Transient
+    private val states = LinkedHashMap<String, CheckpointWriter>()
+
+    @Transient
+    private val writer: ExecutorService = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, "Checkpoint writer").apply { isDaemon = true }
+    }
+
+    @Transient
+    private var pending: Future<*>? = null
+
+    /**
+     * Number of checkpoints skipped because the previous one was still being written.
+     */
+    var skipped = 0
+        private set
+
+    override suspend fun run() {
+        val time = workspace.updater.time
+        if (interval <= 0 || time % interval != 0) {
+            return
+        }
+        if (pending?.isDone == false) {
+            skipped++
+            Logger.debug("Skipped checkpoint at $time")
+            return
+        }
+        flush()
+        val components = workspace.componentList
+        states.keys.retainAll(components.map { it.name }.toSet())
+        for (component in components) {
+            val state = states.getOrPut(component.name) { CheckpointWriter() }
+            state.clear()
+            component.writeCheckpoint(state)
+        }
+        pending = writer.submit { checkpoint.write(time, states) }
+    }
+
+    /**
+     * Wait until the last checkpoint has been written.
+     */
+    fun flush() {
+        try {
+            pending?.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    /**
+     * Write the last checkpoint and close the file.
+     */
+    fun close() {
+        flush()
+        writer.shutdown()
+        checkpoint.close()
+    }
+}
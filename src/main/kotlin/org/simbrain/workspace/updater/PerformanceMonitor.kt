@@ -1,66 +1,60 @@
 package org.simbrain.workspace.updater
 
-import kotlinx.coroutines.flow.MutableSharedFlow
-import kotlinx.coroutines.flow.asSharedFlow
+import org.simbrain.util.LatencyHistogram
+import org.simbrain.util.Metrics
 import org.simbrain.workspace.gui.PerformanceMonitorPanel
-import kotlin.system.measureNanoTime
+import java.util.concurrent.ConcurrentHashMap
 
 /**
- * A singleton object that can be used to track how long blocks of code take to execute. Used by the
- * [PerformanceMonitorPanel] to display performance statistics.
+ * A singleton object that can be used to track how long blocks of code take to execute. Times are recorded in the
+ * always-on [Metrics] registry, which the [PerformanceMonitorPanel] displays.
+ *
+ * Callers resolve the [LatencyHistogram] they record in once and keep it (see [UpdateAction.latency] and
+ * [org.simbrain.workspace.WorkspaceComponent.getUpdateLatency]), so recording does not build or look up a name.
  */
 object PerformanceMonitor {
 
     /**
-     * The monitor consumes resources so by default it is disabled. It is only enabled when the
-     * [PerformanceMonitorPanel] is visible.
+     * The histogram each thread last recorded in. A thread is added the first time it records, after which recording
+     * only sets its [ThreadAction.histogram].
      */
-    var enabled = false
+    private val threads = ConcurrentHashMap.newKeySet<ThreadAction>()
+
+    private val threadAction = ThreadLocal.withInitial { ThreadAction(Thread.currentThread()).also { threads.add(it) } }
+
+    private class ThreadAction(val thread: Thread) {
+        @Volatile
+        var histogram: LatencyHistogram? = null
+    }
 
     /**
-     * Asynchronously buffers measured events for tracking their performance stats.
+     * The name of the last action recorded on each live thread, by thread name. Read when the monitor is displayed.
      */
-    private val mutableSharedFlow = MutableSharedFlow<PerformanceMetrics>()
-    val flow = mutableSharedFlow.asSharedFlow()
+    val threadActions: Map<String, String>
+        get() {
+            threads.removeIf { !it.thread.isAlive }
+            return threads.mapNotNull { action -> action.histogram?.let { action.thread.name to it.name } }.toMap()
+        }
+
+    @PublishedApi
+    internal fun enter(histogram: LatencyHistogram) {
+        threadAction.get().histogram = histogram
+    }
 
     /**
-     * Record the time a provided block takes to execute.
+     * Record the time a provided block takes to execute in a histogram, shown in the [PerformanceMonitorPanel].
      */
-    suspend fun record(
-        /**
-         * An object which identifies the "type" of the event, so that statistics can be gathered like average, max,
-         * and min time it takes that type of event to execute.
-         */
-        identifier: Any,
-        /**
-         * String description for [PerformanceMonitorPanel].
-         */
-        name: String = identifier.toString(),
-        /**
-         * The block to be executed and measured.
-         */
-        block: suspend () -> Unit
-    ) {
-        if (enabled) {
-            val nanoTime = measureNanoTime {
-                block()
-            }
-            val thread = Thread.currentThread()
-
-            mutableSharedFlow.emit(PerformanceMetrics(identifier, name, thread.name, nanoTime))
-        } else {
-            block()
-        }
+    inline fun <T> record(histogram: LatencyHistogram, block: () -> T): T {
+        enter(histogram)
+        return Metrics.time(histogram, block)
     }
 
     /**
      * Convenient way to invoke actions and record their performance.
      */
     suspend operator fun UpdateAction.invoke() {
-        record(this, description?: "(Unnamed Action)") {
+        record(latency()) {
             run()
         }
     }
 }
-
-data class PerformanceMetrics(val identifier: Any, val name: String, val threadName: String, val nanoTime: Long);
\ No newline at end of file
@@ -0,0 +1,48 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+
+/**
+ * Updates couplings and components with the same results as [UpdateAllAction], but without waiting for all couplings
+ * before updating any component. Each component is updated as soon as the couplings into it, and the couplings that
+ * read from it, are done (see [org.simbrain.workspace.couplings.ComponentDependencies]). Components that are not
+ * coupled to each other are updated concurrently, and a component with no couplings does not wait at all.
+ */
+class PipelinedUpdateAction(@Transient val updater: WorkspaceUpdater) : UpdateAction(
+    description = "Pipelined Update of Components and Couplings",
+    longDescription = "Update each component as soon as the couplings it depends on are updated"
+) {
+
+    override suspend fun run(): Unit = coroutineScope {
+        val couplingManager = updater.workspace.couplingManager
+        val components = updater.components
+        val dependencies = couplingManager.getDependencies(components)
+        PerformanceMonitor.record(updater.couplingsLatency) {
+            couplingManager.updateBatches(dependencies.unassigned)
+        }
+        val inputsUpdated = components.associateWith { component ->
+            async {
+                val batches = dependencies.incoming[component] ?: return@async
+                PerformanceMonitor.record(component.couplingsLatency) {
+                    couplingManager.updateBatches(batches)
+                }
+            }
+        }
+        components
+            .filter { it.updateOn }
+            .map { component ->
+                async {
+                    inputsUpdated[component]!!.await()
+                    dependencies.readers[component]?.forEach { inputsUpdated[it]!!.await() }
+                    PerformanceMonitor.record(component.updateLatency) {
+                        component.update()
+                    }
+                }
+            }.awaitAll()
+        inputsUpdated.values.awaitAll()
+        updater.events.couplingsUpdates.fireAndForget()
+    }
+
+}
@@ -1,5 +1,8 @@
 package org.simbrain.workspace.updater
 
+import org.simbrain.util.LatencyHistogram
+import org.simbrain.util.Metrics
+
 /**
  * Classes that implement this interface describe individual actions that
  * together comprise a workspace update.
@@ -23,6 +26,27 @@ abstract class UpdateAction(
 
 ) {
     abstract suspend fun run()
+
+    @Transient
+    private var latency: LatencyHistogram? = null
+
+    /**
+     * The histogram the run times of this action are recorded in, named by its description, after the name of the
+     * component running it if there is one. Kept on the action and only looked up again when the name changes.
+     */
+    fun latency(componentName: String? = null): LatencyHistogram {
+        val description = description ?: "(Unnamed Action)"
+        latency?.let { if (it.isNamed(componentName, description)) return it }
+        val name = if (componentName == null) description else "$componentName:$description"
+        return Metrics.histogram(name).also { latency = it }
+    }
+
+    private fun LatencyHistogram.isNamed(componentName: String?, description: String) = if (componentName == null) {
+        name == description
+    } else {
+        name.length == componentName.length + 1 + description.length && name.startsWith(componentName) &&
+                name[componentName.length] == ':' && name.endsWith(description)
+    }
 }
 
 inline fun updateAction(description: String? = null, longDescription: String? = description, crossinline action: suspend () -> Unit): UpdateAction {
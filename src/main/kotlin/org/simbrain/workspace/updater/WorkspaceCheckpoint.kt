@@ -0,0 +1,345 @@
+package org.simbrain.workspace.updater
+
+import org.simbrain.workspace.Workspace
+import org.simbrain.workspace.WorkspaceComponent
+import smile.math.matrix.Matrix
+import java.io.Closeable
+import java.io.File
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.nio.ByteOrder
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Collects the numeric state of a workspace component as a flat list of doubles. See
+ * [WorkspaceComponent.writeCheckpoint]. Values must be read back in the same order by a [CheckpointReader].
+ */
+class CheckpointWriter internal constructor() {
+
+    internal var values = DoubleArray(1024)
+        private set
+
+    /**
+     * Number of values written so far.
+     */
+    var size = 0
+        private set
+
+    private fun ensureCapacity(added: Int) {
+        if (size + added > values.size) {
+            values = values.copyOf(maxOf(values.size * 2, size + added))
+        }
+    }
+
+    fun add(value: Double) {
+        ensureCapacity(1)
+        values[size++] = value
+    }
+
+    fun add(value: Int) = add(value.toDouble())
+
+    fun add(value: Boolean) = add(if (value) 1.0 else 0.0)
+
+    /**
+     * Add an array, preceded by its length.
+     */
+    fun add(array: DoubleArray) {
+        add(array.size)
+        ensureCapacity(array.size)
+        array.copyInto(values, size)
+        size += array.size
+    }
+
+    /**
+     * Add the entries of a matrix in column major order, preceded by its dimensions.
+     */
+    fun add(matrix: Matrix) {
+        add(matrix.nrows())
+        add(matrix.ncols())
+        ensureCapacity(matrix.nrows() * matrix.ncols())
+        for (j in 0 until matrix.ncols()) {
+            for (i in 0 until matrix.nrows()) {
+                values[size++] = matrix[i, j]
+            }
+        }
+    }
+
+    /**
+     * Add the numeric fields of an object, e.g. a [org.simbrain.network.util.ScalarDataHolder]. See
+     * [checkpointFields] for which fields are included.
+     */
+    fun addFields(obj: Any) {
+        for (field in checkpointFields(obj.javaClass)) {
+            when (val value = field.get(obj)) {
+                is Double -> add(value)
+                is Float -> add(value.toDouble())
+                is Int -> add(value)
+                is Short -> add(value.toInt())
+                is Byte -> add(value.toInt())
+                is Long -> add(java.lang.Double.longBitsToDouble(value))
+                is Boolean -> add(value)
+                is DoubleArray -> add(value)
+                is IntArray -> { add(value.size); value.forEach { add(it) } }
+                is BooleanArray -> { add(value.size); value.forEach { add(it) } }
+                is Matrix -> add(value)
+            }
+        }
+    }
+
+    internal fun clear() {
+        size = 0
+    }
+}
+
+/**
+ * Reads values written by a [CheckpointWriter] back into a workspace component. See
+ * [WorkspaceComponent.readCheckpoint]. Arrays and matrices are read into existing objects, whose sizes must match
+ * the checkpoint.
+ */
+class CheckpointReader internal constructor(private val values: DoubleArray) {
+
+    private var position = 0
+
+    /**
+     * Whether all values have been read.
+     */
+    val isFinished get() = position == values.size
+
+    fun readDouble(): Double {
+        if (position >= values.size) {
+            throw IllegalStateException("Checkpoint has fewer values than the component reads")
+        }
+        return values[position++]
+    }
+
+    fun readInt() = readDouble().toInt()
+
+    fun readBoolean() = readDouble() != 0.0
+
+    private fun checkLength(expected: Int, actual: Int) {
+        if (expected != actual) {
+            throw IllegalStateException("Checkpoint has an array of length $actual where $expected was expected")
+        }
+    }
+
+    /**
+     * Read an array written by [CheckpointWriter.add] into [array].
+     */
+    fun readInto(array: DoubleArray) {
+        checkLength(array.size, readInt())
+        if (position + array.size > values.size) {
+            throw IllegalStateException("Checkpoint has fewer values than the component reads")
+        }
+        values.copyInto(array, 0, position, position + array.size)
+        position += array.size
+    }
+
+    /**
+     * Read a matrix written by [CheckpointWriter.add] into [matrix].
+     */
+    fun readInto(matrix: Matrix) {
+        checkLength(matrix.nrows(), readInt())
+        checkLength(matrix.ncols(), readInt())
+        for (j in 0 until matrix.ncols()) {
+            for (i in 0 until matrix.nrows()) {
+                matrix[i, j] = readDouble()
+            }
+        }
+    }
+
+    /**
+     * Read fields written by [CheckpointWriter.addFields] into [obj].
+     */
+    fun readFields(obj: Any) {
+        for (field in checkpointFields(obj.javaClass)) {
+            when (field.type) {
+                Double::class.javaPrimitiveType -> field.setDouble(obj, readDouble())
+                Float::class.javaPrimitiveType -> field.setFloat(obj, readDouble().toFloat())
+                Int::class.javaPrimitiveType -> field.setInt(obj, readInt())
+                Short::class.javaPrimitiveType -> field.setShort(obj, readInt().toShort())
+                Byte::class.javaPrimitiveType -> field.setByte(obj, readInt().toByte())
+                Long::class.javaPrimitiveType -> field.setLong(obj, java.lang.Double.doubleToRawLongBits(readDouble()))
+                Boolean::class.javaPrimitiveType -> field.setBoolean(obj, readBoolean())
+                DoubleArray::class.java -> readInto(field.get(obj) as DoubleArray)
+                IntArray::class.java -> (field.get(obj) as IntArray).let { array ->
+                    checkLength(array.size, readInt())
+                    for (i in array.indices) array[i] = readInt()
+                }
+                BooleanArray::class.java -> (field.get(obj) as BooleanArray).let { array ->
+                    checkLength(array.size, readInt())
+                    for (i in array.indices) array[i] = readBoolean()
+                }
+                Matrix::class.java -> readInto(field.get(obj) as Matrix)
+            }
+        }
+    }
+}
+
+private val fieldCache = ConcurrentHashMap<Class<*>, List<Field>>()
+
+private val arrayTypes = setOf(DoubleArray::class.java, IntArray::class.java, BooleanArray::class.java, Matrix::class.java)
+
+/**
+ * The fields of a class, including inherited ones, that [CheckpointWriter.addFields] writes: non-final primitive
+ * fields, and primitive arrays and matrices, which are read back in place. Static and transient fields are
+ * skipped.
+ */
+private fun checkpointFields(cls: Class<*>): List<Field> = fieldCache.getOrPut(cls) {
+    generateSequence(cls) { it.superclass }
+        .takeWhile { it != Any::class.java }
+        .flatMap { it.declaredFields.asSequence() }
+        .filter { !Modifier.isStatic(it.modifiers) && !Modifier.isTransient(it.modifiers) && !it.isSynthetic }
+        .filter { (it.type.isPrimitive && !Modifier.isFinal(it.modifiers)) || it.type in arrayTypes }
+        .onEach { it.isAccessible = true }
+        .toList()
+}
+
+/**
+ * A memory-mapped file holding the most recent checkpoint of a workspace's numeric state, which can be restored
+ * into the workspace without reopening it. Written by [CheckpointAction].
+ *
+ * The file has two slots, and a checkpoint is written to the slot that does not hold the current one before the
+ * header is switched to it, so an interrupted write leaves the previous checkpoint intact. A slot that is too small
+ * is moved to the end of the file.
+ */
+class WorkspaceCheckpoint(val file: File) : Closeable {
+
+    private val channel = FileChannel.open(
+        file.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+    )
+
+    private val header: MappedByteBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE.toLong())
+        .apply { order(ByteOrder.LITTLE_ENDIAN) }
+
+    private val slots = arrayOfNulls<MappedByteBuffer>(2)
+
+    init {
+        if (header.getInt(0) != MAGIC) {
+            header.putInt(0, MAGIC)
+            header.putInt(4, VERSION)
+            header.putInt(ACTIVE, -1)
+            header.putLong(SEQUENCE, 0)
+            for (slot in 0..1) {
+                header.putLong(slotOffset(slot), 0)
+                header.putLong(slotOffset(slot) + 8, 0)
+            }
+            header.force()
+        } else if (header.getInt(4) != VERSION) {
+            throw IllegalStateException("Unsupported checkpoint version ${header.getInt(4)} in $file")
+        }
+    }
+
+    /**
+     * Number of checkpoints written to this file.
+     */
+    val sequence get() = header.getLong(SEQUENCE)
+
+    /**
+     * Whether the file holds a checkpoint.
+     */
+    val hasCheckpoint get() = header.getInt(ACTIVE) >= 0
+
+    private fun slotOffset(slot: Int) = SLOTS + slot * 16
+
+    private fun slotBuffer(slot: Int, minimumSize: Long): MappedByteBuffer {
+        var start = header.getLong(slotOffset(slot))
+        var capacity = header.getLong(slotOffset(slot) + 8)
+        if (capacity < minimumSize) {
+            val end = (0..1).maxOf { header.getLong(slotOffset(it)) + header.getLong(slotOffset(it) + 8) }
+            start = maxOf(HEADER_SIZE.toLong(), end)
+            capacity = minimumSize + minimumSize / 2
+            if (capacity > Int.MAX_VALUE) {
+                throw IllegalStateException("Checkpoint of $minimumSize bytes is too large")
+            }
+            header.putLong(slotOffset(slot), start)
+            header.putLong(slotOffset(slot) + 8, capacity)
+            slots[slot] = null
+        }
+        return slots[slot] ?: channel.map(FileChannel.MapMode.READ_WRITE, start, capacity)
+            .apply { order(ByteOrder.LITTLE_ENDIAN) }
+            .also { slots[slot] = it }
+    }
+
+    /**
+     * Write a checkpoint of the given states, keyed by component name, and make it the current one. Components
+     * without state are left out.
+     */
+    @Synchronized
+    internal fun write(time: Int, states: Map<String, CheckpointWriter>) {
+        val written = states.filterValues { it.size > 0 }
+        val names = written.keys.map { it.toByteArray(Charsets.UTF_8) }
+        val size = 8L + names.sumOf { 8L + (it.size + 7) / 8 * 8 } + written.values.sumOf { 8L * it.size }
+        val slot = 1 - maxOf(header.getInt(ACTIVE), 0)
+        val buffer = slotBuffer(slot, size)
+        buffer.clear()
+        buffer.putInt(time)
+        buffer.putInt(written.size)
+        names.zip(written.values).forEach { (name, state) ->
+            buffer.putInt(name.size)
+            buffer.putInt(state.size)
+            buffer.put(name)
+            buffer.position(buffer.position() + (8 - name.size % 8) % 8)
+            buffer.asDoubleBuffer().put(state.values, 0, state.size)
+            buffer.position(buffer.position() + 8 * state.size)
+        }
+        buffer.force()
+        header.putInt(ACTIVE, slot)
+        header.putLong(SEQUENCE, sequence + 1)
+        header.force()
+    }
+
+    /**
+     * Restore the current checkpoint into the components of [workspace] with the same names, and set the update
+     * time to that of the checkpoint. Components must have the structure they had when the checkpoint was written,
+     * e.g. because the workspace was opened from the file it was saved to before the run. Should not be called
+     * while the workspace is running.
+     *
+     * @return false if the file holds no checkpoint.
+     */
+    @Synchronized
+    fun restore(workspace: Workspace): Boolean {
+        val slot = header.getInt(ACTIVE)
+        if (slot < 0) {
+            return false
+        }
+        val buffer = slotBuffer(slot, 0)
+        buffer.clear()
+        val time = buffer.getInt()
+        val count = buffer.getInt()
+        repeat(count) {
+            val name = ByteArray(buffer.getInt())
+            val values = DoubleArray(buffer.getInt())
+            buffer.get(name)
+            buffer.position(buffer.position() + (8 - name.size % 8) % 8)
+            buffer.asDoubleBuffer().get(values)
+            buffer.position(buffer.position() + 8 * values.size)
+            val componentName = String(name, Charsets.UTF_8)
+            val component = workspace.getComponent(componentName)
+                ?: throw IllegalStateException("Checkpoint has state for missing component $componentName")
+            val reader = CheckpointReader(values)
+            component.readCheckpoint(reader)
+            if (!reader.isFinished) {
+                throw IllegalStateException("Checkpoint has more values than $componentName reads")
+            }
+        }
+        workspace.updater.time = time
+        return true
+    }
+
+    override fun close() {
+        channel.close()
+    }
+
+    companion object {
+        private const val MAGIC = 0x50434253 // "SBCP"
+        private const val VERSION = 1
+        private const val ACTIVE = 8
+        private const val SEQUENCE = 16
+        private const val SLOTS = 24
+        private const val HEADER_SIZE = 64
+    }
+}
@@ -2,6 +2,7 @@ package org.simbrain.workspace.updater
 
 import kotlinx.coroutines.*
 import org.pmw.tinylog.Logger
+import org.simbrain.util.Metrics
 import org.simbrain.workspace.Workspace
 import org.simbrain.workspace.WorkspaceComponent
 import org.simbrain.workspace.events.WorkspaceUpdaterEvents
@@ -28,6 +29,12 @@ class WorkspaceUpdater(val workspace: Workspace) {
 
     val events = WorkspaceUpdaterEvents()
 
+    /**
+     * Histograms of the time taken by each workspace update, and by updating the couplings.
+     */
+    internal val updateLatency = Metrics.histogram("Workspace Update")
+    internal val couplingsLatency = Metrics.histogram("Updating Couplings")
+
     /**
      * Whether updates should continue to run.
      */
@@ -150,9 +157,11 @@ class WorkspaceUpdater(val workspace: Workspace) {
         time++
         Logger.trace("starting: $time")
         withContext(workspace.coroutineContext) {
-            for (action in updateManager.actionList + updateManager.nonRemovableActions) {
-                with(PerformanceMonitor) {
-                    action()
+            PerformanceMonitor.record(updateLatency) {
+                for (action in updateManager.actionList + updateManager.nonRemovableActions) {
+                    with(PerformanceMonitor) {
+                        action()
+                    }
                 }
             }
         }
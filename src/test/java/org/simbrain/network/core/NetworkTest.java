@@ -13,6 +13,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class NetworkTest {
     Network net;
@@ -125,4 +126,36 @@ public class NetworkTest {
         // (2 in neuron collection are free neurons)
         assertEquals(22, net.getFlatNeuronList().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFlatListsUpdatedOnChange() {
+        List<Neuron> before = net.getFlatNeuronList();
+        assertSame(before, net.getFlatNeuronList());
+
+        Neuron n3 = new Neuron(net);
+        net.addNetworkModel(n3);
+        assertEquals(23, net.getFlatNeuronList().size());
+        assertEquals(22, before.size());
+
+        net.addNetworkModel(new Synapse(n1, n3));
+        assertEquals(102, net.getFlatSynapseList().size());
+        sg1.removeSynapse(sg1.getSynapses().get(0));
+        assertEquals(101, net.getFlatSynapseList().size());
+    }
+
+    @Test
+    public void testPriorityOrder() {
+        n2.setUpdatePriority(-1);
+        ng1.getNeuron(0).setUpdatePriority(5);
+        List<Neuron> sorted = net.getPrioritySortedNeuronList();
+        assertEquals(22, sorted.size());
+        assertSame(n2, sorted.get(0));
+        assertSame(n1, sorted.get(1));
+        assertSame(ng1.getNeuron(0), sorted.get(21));
+
+        Neuron n3 = new Neuron(net);
+        n3.setUpdatePriority(-2);
+        net.addNetworkModel(n3);
+        assertSame(n3, net.getPrioritySortedNeuronList().get(0));
+    }
+}
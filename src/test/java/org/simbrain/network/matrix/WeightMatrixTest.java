@@ -109,6 +109,17 @@ public class WeightMatrixTest {
         // TODO: Test with spike responders so that we can check for positive inhib outputs, the more standard case
     }
 
+    @Test
+    public void testSignedOutputsFollowWeightChanges() {
+        na1.setActivations(new double[]{1, 2});
+        wm.setWeights(new double[]{1, -1, -1, 1});
+        assertArrayEquals(new double[]{1, 2}, wm.getExcitatoryOutputs());
+        // Change a weight directly, without an updated event
+        wm.getWeightMatrix().set(0, 1, 3);
+        assertArrayEquals(new double[]{7, 2}, wm.getExcitatoryOutputs());
+        assertArrayEquals(new double[]{0, -1}, wm.getInhibitoryOutputs());
+    }
+
     @Test
     public void testArrayToNeuronGroup() {
         na1.setActivations(new double[]{.5, -.5});
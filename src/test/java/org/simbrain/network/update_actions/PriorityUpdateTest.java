@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
 
 import java.util.List;
 
@@ -49,4 +50,33 @@ class PriorityUpdateTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPriorityListFollowsChanges() {
+        net = new Network();
+        n1 = new Neuron(net);
+        n1.setUpdatePriority(2);
+        n2 = new Neuron(net);
+        n2.setUpdatePriority(1);
+        n3 = new Neuron(net);
+        n3.setUpdatePriority(2);
+        net.addNetworkModels(List.of(n1, n2, n3));
+        assertEquals(List.of(n2, n1, n3), net.getPrioritySortedNeuronList());
+
+        n1.setUpdatePriority(0);
+        assertEquals(List.of(n1, n2, n3), net.getPrioritySortedNeuronList());
+
+        Neuron grouped = new Neuron(net);
+        grouped.setUpdatePriority(1);
+        NeuronGroup group = new NeuronGroup(net, List.of(grouped));
+        net.addNetworkModel(group);
+        assertEquals(List.of(n1, n2, grouped, n3), net.getPrioritySortedNeuronList());
+
+        n2.delete();
+        group.delete();
+        assertEquals(List.of(n1, n3), net.getPrioritySortedNeuronList());
+
+        net.updatePriorityList();
+        assertEquals(List.of(n1, n3), net.getPrioritySortedNeuronList());
+    }
+}
@@ -12,6 +12,9 @@ import org.simbrain.world.odorworld.OdorWorldComponent;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -112,4 +115,46 @@ public class WorkspaceTest {
         assertEquals(.8, newN2.getActivation(), .0001);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testOpenFrom() {
+        Workspace copy = new Workspace();
+        copy.openFrom(workspace);
+        assertEquals(4, copy.getComponentList().size());
+        assertEquals(1, copy.getCouplingManager().getCouplings().size());
+
+        Neuron newN1 = (Neuron) ((NetworkComponent) copy.getComponent("Net1")).getNetwork().getAllModels().get(0);
+        Neuron newN2 = (Neuron) ((NetworkComponent) copy.getComponent("Net2")).getNetwork().getAllModels().get(0);
+        newN1.forceSetActivation(.8);
+        copy.simpleIterate();
+        assertEquals(.8, newN2.getActivation(), .0001);
+    }
+
+    @Test
+    public void testDeserializeStreamWithContentsLast() throws IOException {
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        new WorkspaceSerializer(workspace).serialize(saved);
+
+        // Older archives put contents.xml after the components, in a directory
+        ByteArrayOutputStream reordered = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(saved.toByteArray()));
+             ZipOutputStream out = new ZipOutputStream(reordered)) {
+            byte[] contents = null;
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                if (entry.getName().equals("contents.xml")) {
+                    contents = in.readAllBytes();
+                } else {
+                    out.putNextEntry(new ZipEntry("sim/" + entry.getName()));
+                    in.transferTo(out);
+                }
+            }
+            out.putNextEntry(new ZipEntry("sim/contents.xml"));
+            out.write(contents);
+        }
+
+        workspace.clearWorkspace();
+        new WorkspaceSerializer(workspace).deserialize(new ByteArrayInputStream(reordered.toByteArray()));
+        assertEquals(4, workspace.getComponentList().size());
+        assertEquals(1, workspace.getCouplingManager().getCouplings().size());
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.simbrain
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.workspace.Workspace
+import org.simbrain.workspace.serialization.WorkspaceSerializer
+import java.io.DataInputStream
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.util.concurrent.TimeUnit
+
+/**
+ * Checks that the network and workspace model can run without Swing, so that workspaces can be run headless (see
+ * [org.simbrain.workspace.HeadlessRunner]).
+ */
+class ModelBoundaryTest {
+
+    @TempDir
+    lateinit var dir: File
+
+    /**
+     * Gui toolkit classes. java.awt.geom is allowed, since models use its points and shapes for locations.
+     */
+    private val guiClass = Regex("""^(javax/swing/|java/awt/(?!geom/)|org/piccolo2d/|org/simbrain/.*/(gui|desktop)/)""")
+
+    /**
+     * Awt classes that may be loaded at runtime without a display. XStream probes for its Color, Font and LookAndFeel
+     * converters, and Color's static initializer loads Toolkit and the (headless) GraphicsEnvironment, but none of
+     * these create windows.
+     */
+    private val headlessSafe = setOf(
+        "java/awt/Color", "java/awt/Font", "java/awt/font/TextAttribute", "javax/swing/LookAndFeel",
+        "java/awt/font/JavaAWTFontAccessImpl", "java/awt/Toolkit", "java/awt/GraphicsEnvironment",
+        "java/awt/Transparency", "java/awt/Paint", "java/awt/PaintContext"
+    )
+
+    /**
+     * Packages that must not refer to gui classes. Gui and desktop subpackages are excluded.
+     */
+    private val modelPackages = listOf(
+        "org/simbrain/network",
+        "org/simbrain/workspace/couplings",
+        "org/simbrain/workspace/events",
+        "org/simbrain/workspace/updater"
+    )
+
+    /**
+     * Names of classes referred to in the constant pool of a class file, including those in type descriptors.
+     */
+    private fun referencedClasses(file: File): Set<String> = DataInputStream(file.inputStream().buffered()).use { input ->
+        input.skipBytes(8)
+        val count = input.readUnsignedShort()
+        val strings = ArrayList<String>()
+        var i = 1
+        while (i < count) {
+            when (input.readUnsignedByte()) {
+                1 -> strings.add(input.readUTF())
+                3, 4, 9, 10, 11, 12, 17, 18 -> input.skipBytes(4)
+                5, 6 -> { input.skipBytes(8); i++ }
+                7, 8, 16, 19, 20 -> input.skipBytes(2)
+                15 -> input.skipBytes(3)
+                else -> throw IllegalStateException("Unknown constant in $file")
+            }
+            i++
+        }
+        strings.flatMap { string ->
+            if (string.contains(';') || string.startsWith("(")) {
+                Regex("L([\\w/$]+)[;<]").findAll(string).map { it.groupValues[1] }.toList()
+            } else {
+                listOf(string)
+            }
+        }.toSet()
+    }
+
+    @Test
+    fun `model classes do not refer to gui classes`() {
+        val roots = listOf(Network::class.java, Neuron::class.java)
+            .map { File(it.protectionDomain.codeSource.location.toURI()) }
+            .distinct()
+        val violations = roots.flatMap { root ->
+            modelPackages.map { File(root, it) }.filter { it.isDirectory }.flatMap { packageDir ->
+                packageDir.walk()
+                    .filter { it.extension == "class" }
+                    .filter { !it.relativeTo(root).path.contains(Regex("""(^|/)(gui|desktop)/""")) }
+                    .flatMap { file ->
+                        referencedClasses(file).filter { guiClass.containsMatchIn(it) }
+                            .map { "${file.relativeTo(root)} -> $it" }
+                    }
+            }
+        }
+        assertEquals(emptyList<String>(), violations)
+    }
+
+    @Test
+    fun `headless runner does not load gui classes`() {
+        val workspace = Workspace()
+        val net = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net", net))
+        net.addNetworkModels(List(10) { Neuron(net) })
+        val zip = File(dir, "workspace.zip")
+        zip.outputStream().use { WorkspaceSerializer(workspace).serialize(it) }
+        val output = File(dir, "output.csv")
+
+        val java = File(System.getProperty("java.home"), "bin/java").path
+        val jvmArgs = ManagementFactory.getRuntimeMXBean().inputArguments.filter { it.startsWith("--add-opens") }
+        val process = ProcessBuilder(
+            listOf(java) + jvmArgs + listOf(
+                "-Djava.awt.headless=true", "-Xlog:class+load=info", "-cp", System.getProperty("java.class.path"),
+                "org.simbrain.workspace.HeadlessRunnerKt", zip.path, "10", output.path, "net/Neuron_1/getActivation"
+            )
+        ).redirectErrorStream(true).start()
+        val log = process.inputStream.bufferedReader().readLines()
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES))
+        assertEquals(0, process.exitValue(), log.takeLast(20).joinToString("\n"))
+        assertEquals(11, output.readLines().size)
+
+        val loaded = log.mapNotNull { Regex("""\[class,load] (\S+)""").find(it)?.groupValues?.get(1) }
+        assertTrue(loaded.size > 100)
+        val guiClasses = loaded.map { it.replace('.', '/') }
+            .filter { guiClass.containsMatchIn(it) && it.substringBefore('$') !in headlessSafe }
+        assertEquals(emptyList<String>(), guiClasses)
+    }
+}
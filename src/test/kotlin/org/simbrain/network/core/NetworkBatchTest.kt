@@ -0,0 +1,45 @@
+package org.simbrain.network.core
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.NetworkModel
+
+class NetworkBatchTest {
+
+    @Test
+    fun `adding a collection fires one event`() {
+        val net = Network()
+        val batches = ArrayList<List<NetworkModel>>()
+        net.events.modelAdded.on { batches.add(it.toList()) }
+        val neurons = List(100) { Neuron(net) }
+        runBlocking { net.addNetworkModels(neurons)?.join() }
+        assertEquals(1, batches.size)
+        assertEquals(neurons, batches[0])
+        assertEquals(100, net.freeNeurons.size)
+    }
+
+    @Test
+    fun `ids are assigned in order`() {
+        val net = Network()
+        net.addNetworkModel(Neuron(net))
+        val neurons = List(3) { Neuron(net) }
+        net.addNetworkModels(neurons)
+        assertEquals(listOf("Neuron_2", "Neuron_3", "Neuron_4"), neurons.map { it.id })
+        assertEquals("Neuron_5", net.addNeuron().id)
+    }
+
+    @Test
+    fun `models added in nested batches are all added`() {
+        val net = Network()
+        val neuron = net.batch {
+            val n1 = addNeuron()
+            val n2 = addNeuron()
+            assertNull(addNetworkModels(listOf(Synapse(n1, n2))))
+            batch { addNeuron() }
+        }
+        assertEquals(3, net.freeNeurons.size)
+        assertEquals(1, net.freeSynapses.size)
+        assertEquals("Neuron_3", neuron.id)
+    }
+}
@@ -0,0 +1,143 @@
+package org.simbrain.network.core
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.groups.NeuronCollection
+import org.simbrain.network.neuron_update_rules.SigmoidalRule
+import org.simbrain.network.spikeresponders.JumpAndDecay
+import org.simbrain.network.synapse_update_rules.HebbianRule
+import org.simbrain.network.updaterules.IzhikevichRule
+import org.simbrain.network.util.IzhikData
+import org.simbrain.workspace.Workspace
+import org.simbrain.workspace.serialization.WorkspaceSerializer
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import kotlin.random.Random
+
+class NetworkSnapshotTest {
+
+    private fun buildNetwork(net: Network, neurons: Int, synapses: Int) {
+        val random = Random(1)
+        net.batch {
+            val list = List(neurons) { i ->
+                Neuron(net).apply {
+                    when (i % 3) {
+                        0 -> updateRule = SigmoidalRule().apply { slope = 1.0 + i % 4 }
+                        1 -> updateRule = IzhikevichRule()
+                    }
+                    label = "n$i"
+                    forceSetActivation(random.nextDouble())
+                    auxValue = i.toDouble()
+                }
+            }
+            addNetworkModels(list)
+            list.forEachIndexed { i, neuron -> neuron.setLocation(i * 10.0, i * 5.0) }
+            repeat(synapses) { i ->
+                val synapse = Synapse(list[random.nextInt(neurons)], list[random.nextInt(neurons)],
+                    random.nextDouble(-1.0, 1.0))
+                when (i % 5) {
+                    0 -> synapse.learningRule = HebbianRule().apply { learningRate = .1 * (i % 3) }
+                    1 -> synapse.spikeResponder = JumpAndDecay().apply { timeConstant = 2.0 + i % 2 }
+                    2 -> synapse.delay = 1 + i % 3
+                    3 -> synapse.isFrozen = true
+                }
+                addNetworkModel(synapse)
+            }
+        }
+    }
+
+    private fun roundTrip(workspace: Workspace, snapshots: Boolean): ByteArray {
+        val serializer = WorkspaceSerializer(workspace)
+        serializer.isSnapshotsEnabled = snapshots
+        val bytes = ByteArrayOutputStream().also { serializer.serialize(it) }.toByteArray()
+        workspace.clearWorkspace()
+        serializer.deserialize(ByteArrayInputStream(bytes))
+        return bytes
+    }
+
+    @Test
+    fun `loose neurons and synapses survive a snapshot round trip`() {
+        val workspace = Workspace()
+        val net = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net", net))
+        buildNetwork(net, 30, 200)
+        net.update()
+        (net.freeNeurons.elementAt(1).dataHolder as IzhikData).recovery = 3.0
+        net.freeNeurons.elementAt(2).addInputValue(2.5)
+        net.freeNeurons.elementAt(4).isSpike = true
+
+        // Neurons in a collection stay in the xml, synapses connected to them do not
+        val collected = List(2) { net.addNeuron() }
+        net.addNetworkModel(NeuronCollection(net, collected))
+        val toCollected = net.addSynapse(net.freeNeurons.elementAt(0), collected[0])
+
+        val snapshot = NetworkSnapshot.of(net)
+        assertFalse(collected[0] in snapshot.models)
+        assertTrue(toCollected in snapshot.models)
+        assertTrue(net.freeNeurons.elementAt(1) in snapshot.models)
+
+        val neurons = net.freeNeurons.associateBy { it.id }
+        val synapses = net.freeSynapses.associateBy { it.id }
+        roundTrip(workspace, true)
+        val restored = (workspace.getComponent("net") as NetworkComponent).network
+
+        assertEquals(neurons.keys, restored.freeNeurons.map { it.id }.toSet())
+        assertEquals(synapses.keys, restored.freeSynapses.map { it.id }.toSet())
+        restored.freeNeurons.forEach { neuron ->
+            val original = neurons[neuron.id]!!
+            assertEquals(original.activation, neuron.activation)
+            assertEquals(original.label, neuron.label)
+            assertEquals(original.x, neuron.x)
+            assertEquals(original.auxValue, neuron.auxValue)
+            assertEquals(original.input, neuron.input)
+            assertEquals(original.lastActivation, neuron.lastActivation)
+            assertEquals(original.isSpike, neuron.isSpike)
+            assertEquals(original.updateRule.javaClass, neuron.updateRule.javaClass)
+        }
+        val izhikevich = restored.freeNeurons.first { it.id == net.freeNeurons.elementAt(1).id }
+        assertEquals(3.0, (izhikevich.dataHolder as IzhikData).recovery)
+        assertEquals(2.5, restored.freeNeurons.first { it.id == net.freeNeurons.elementAt(2).id }.input)
+        assertTrue(restored.freeNeurons.first { it.id == net.freeNeurons.elementAt(4).id }.isSpike)
+        assertEquals(4.0, (restored.freeNeurons.first { it.id == "Neuron_4" }.updateRule as SigmoidalRule).slope)
+        restored.freeSynapses.forEach { synapse ->
+            val original = synapses[synapse.id]!!
+            assertEquals(original.source.id, synapse.source.id)
+            assertEquals(original.target.id, synapse.target.id)
+            assertEquals(original.strength, synapse.strength)
+            assertEquals(original.delay, synapse.delay)
+            assertEquals(original.isFrozen, synapse.isFrozen)
+            assertEquals(original.learningRule.javaClass, synapse.learningRule.javaClass)
+            assertEquals(original.spikeResponder.javaClass, synapse.spikeResponder.javaClass)
+            assertTrue(synapse in synapse.target.fanIn)
+        }
+        assertEquals(1, restored.getModels<NeuronCollection>().size)
+
+        // Ids of new models continue from the restored ones
+        assertFalse(restored.addNeuron().id in neurons.keys)
+    }
+
+    @Test
+    fun `snapshot is smaller than xml and restores all synapses`() {
+        val workspace = Workspace()
+        val net = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net", net))
+        buildNetwork(net, 200, 5_000)
+        val synapseCount = net.freeSynapses.size
+
+        fun size(snapshots: Boolean): Int {
+            val serializer = WorkspaceSerializer(workspace)
+            serializer.isSnapshotsEnabled = snapshots
+            val out = ByteArrayOutputStream()
+            serializer.serialize(out)
+            workspace.clearWorkspace()
+            serializer.deserialize(ByteArrayInputStream(out.toByteArray()))
+            return out.size()
+        }
+
+        val xmlSize = size(false)
+        val snapshotSize = size(true)
+        assertTrue(snapshotSize < xmlSize)
+        assertEquals(synapseCount, (workspace.getComponent("net") as NetworkComponent).network.freeSynapses.size)
+    }
+}
@@ -1,10 +1,12 @@
 package org.simbrain.network.core
 
+import kotlinx.coroutines.Dispatchers
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
 import org.simbrain.network.neuron_update_rules.LinearRule
 import org.simbrain.network.util.BiasedScalarData
 import org.simbrain.util.SimbrainConstants
+import org.simbrain.workspace.updater.updateAction
 
 class NeuronTest {
 
@@ -81,4 +83,24 @@ class NeuronTest {
         assertNotEquals(data1.bias, data2.bias)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `activation events reach dispatched handlers once per update when coalescing`() {
+        val delivered = mutableListOf<Pair<Double, Double>>()
+        n1.events.activationChanged.on(Dispatchers.Default, wait = true) { new, old -> delivered.add(new to old) }
+        net.updateManager.addAction(updateAction("set activation") {
+            n1.forceSetActivation(1.0)
+            n1.forceSetActivation(2.0)
+            n1.forceSetActivation(3.0)
+        })
+        net.isCoalesceEvents = true
+        net.update()
+        assertEquals(listOf(3.0 to 0.0), delivered)
+
+        net.isCoalesceEvents = false
+        n1.forceSetActivation(0.0)
+        delivered.clear()
+        net.update()
+        assertEquals(3, delivered.size)
+    }
+
+}
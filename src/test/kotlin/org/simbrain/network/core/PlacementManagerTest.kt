@@ -1,9 +1,7 @@
-package org.simbrain.network.gui
+package org.simbrain.network.core
 
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
-import org.simbrain.network.core.Network
-import org.simbrain.network.core.Neuron
 import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.util.point
 
@@ -0,0 +1,47 @@
+package org.simbrain.network.gui.nodes
+
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+
+class NeuronNodeTest {
+
+    /**
+     * Snapshot and render the node, as the render scheduler does once per frame.
+     */
+    private fun NeuronNode.frame(): Boolean {
+        snapshot()
+        return render()
+    }
+
+    @Test
+    fun `render only redraws neurons that changed since the last frame`() {
+        val net = Network()
+        val neuron = Neuron(net)
+        net.addNetworkModel(neuron)
+        val node = NeuronNode(null, neuron)
+
+        assertFalse(node.frame())
+        neuron.forceSetActivation(.1)
+        neuron.forceSetActivation(.5)
+        assertTrue(node.frame())
+        assertFalse(node.frame())
+        neuron.forceSetActivation(0.0)
+        assertTrue(node.frame())
+    }
+
+    @Test
+    fun `a spike between two frames is drawn and then erased`() {
+        val net = Network()
+        val neuron = Neuron(net)
+        net.addNetworkModel(neuron)
+        val node = NeuronNode(null, neuron)
+        neuron.isSpike = true
+        neuron.isSpike = false
+        assertTrue(node.frame())
+        assertTrue(node.frame())
+        assertFalse(node.frame())
+    }
+}
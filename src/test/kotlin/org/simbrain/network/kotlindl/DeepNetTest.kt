@@ -0,0 +1,56 @@
+package org.simbrain.network.kotlindl
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.getNetworkXStream
+
+class DeepNetTest {
+
+    private fun deepNetXml() = getNetworkXStream().toXML(
+        DeepNet(Network(), arrayListOf(TFInputLayer(3, 1), TFDenseLayer(2)))
+    )
+
+    /**
+     * The xml of a deep net saved before training data was kept in a single dataset.
+     */
+    private fun legacyXml(legacyData: String) = deepNetXml()
+        .replace(Regex("<trainingData>.*</trainingData>", RegexOption.DOT_MATCHES_ALL), legacyData)
+        .also { assert("trainingData" !in it) }
+
+    @Test
+    fun `training data is restored`() {
+        val deepNet = DeepNet(Network(), arrayListOf(TFInputLayer(3, 1), TFDenseLayer(2)))
+        deepNet.trainingData.inputs[1, 2] = 0.5
+        deepNet.trainingData.targets[1, 0] = 1.0
+        val fromXml = getNetworkXStream().fromXML(getNetworkXStream().toXML(deepNet)) as DeepNet
+        assertEquals(0.5, fromXml.trainingData.inputs[1, 2])
+        assertEquals(1.0, fromXml.trainingData.targets[1, 0])
+        assertEquals(2, fromXml.outputSize())
+    }
+
+    @Test
+    fun `training data is read from old input and target data`() {
+        val fromXml = getNetworkXStream().fromXML(legacyXml("""
+            <inputData>
+              <float-array><float>1.0</float><float>2.0</float><float>3.0</float></float-array>
+              <float-array><float>4.0</float><float>5.0</float><float>6.0</float></float-array>
+            </inputData>
+            <targetData><float>1.0</float><float>0.0</float></targetData>
+        """.trimIndent())) as DeepNet
+        val data = fromXml.trainingData
+        assertEquals(2, data.size)
+        assertArrayEquals(doubleArrayOf(1.0, 2.0, 3.0), data.inputRow(0))
+        assertArrayEquals(doubleArrayOf(4.0, 5.0, 6.0), data.inputRow(1))
+        assertArrayEquals(doubleArrayOf(1.0, 0.0), data.targets.col(0))
+    }
+
+    @Test
+    fun `training data is empty when an old save has none`() {
+        val data = (getNetworkXStream().fromXML(legacyXml("")) as DeepNet).trainingData
+        assertEquals(0, data.size)
+        assertEquals(3, data.inputs.ncols())
+        assertEquals(1, data.targets.ncols())
+    }
+}
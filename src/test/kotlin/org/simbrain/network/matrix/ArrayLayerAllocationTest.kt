@@ -0,0 +1,93 @@
+package org.simbrain.network.matrix
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.groups.NeuronCollection
+import java.lang.management.ManagementFactory
+
+/**
+ * Checks that the input pathway between layers does not allocate once it has warmed up.
+ */
+class ArrayLayerAllocationTest {
+
+    val net = Network()
+    val na1 = NeuronArray(net, 1000)
+    val na2 = NeuronArray(net, 1000)
+    val wm = WeightMatrix(net, na1, na2)
+    val sparse = SparseWeightMatrix(net, na1, na2, IntArray(1000) { it }, IntArray(1000) { 999 - it },
+        DoubleArray(1000) { 1.0 })
+
+    /**
+     * Bytes allocated by the current thread while running [block] [iterations] times. The smallest of a few rounds
+     * is returned, since allocations can remain until the JIT has compiled the block.
+     */
+    private fun allocatedBytes(iterations: Int, block: () -> Unit): Long {
+        val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val thread = Thread.currentThread().id
+        repeat(20_000) { block() } // warm up
+        return (0 until 5).minOf {
+            val start = bean.getThreadAllocatedBytes(thread)
+            repeat(iterations) { block() }
+            bean.getThreadAllocatedBytes(thread) - start
+        }
+    }
+
+    @Test
+    fun `accumulated inputs match connector outputs`() {
+        na1.randomize()
+        wm.randomize()
+        val expected = wm.output.add(sparse.output).col(0)
+        na2.inputs.fill(0.0)
+        na2.updateInputs()
+        assertArrayEquals(expected, na2.inputs.col(0), 1e-9)
+    }
+
+    @Test
+    fun `array layer input and update do not allocate`() {
+        val iterations = 1000
+        val bytes = allocatedBytes(iterations) {
+            na2.updateInputs()
+            na2.update()
+        }
+        assertTrue(bytes < iterations, "Allocated $bytes bytes in $iterations updates")
+    }
+
+    /**
+     * The update action allocates a little for its coroutines in every update, but nothing that grows with the layers.
+     */
+    @Test
+    fun `network updates of array layers allocate the same for any layer size`() {
+        fun bytesPerUpdate(size: Int): Long {
+            val net = Network()
+            val source = NeuronArray(net, size)
+            val target = NeuronArray(net, size)
+            net.addNetworkModels(source, target, WeightMatrix(net, source, target),
+                SparseWeightMatrix(net, source, target, IntArray(size) { it }, IntArray(size) { size - 1 - it },
+                    DoubleArray(size) { 1.0 }))
+            val iterations = 1000
+            return allocatedBytes(iterations) { net.update() } / iterations
+        }
+        // A single vector of 1000 doubles would take 8000 bytes
+        val small = bytesPerUpdate(10)
+        val large = bytesPerUpdate(1000)
+        assertTrue(large - small < 1000, "Allocated $small bytes per update with 10 units and $large with 1000")
+    }
+
+    @Test
+    fun `neuron collection inputs from a weight matrix do not allocate`() {
+        val nc = NeuronCollection(net, List(100) { Neuron(net) })
+        val source = NeuronArray(net, 100)
+        WeightMatrix(net, source, nc)
+        val iterations = 1000
+        val bytes = allocatedBytes(iterations) {
+            nc.updateInputs()
+            for (i in 0 until nc.size()) {
+                nc.neuronList[i].clearInput()
+            }
+        }
+        assertTrue(bytes < iterations, "Allocated $bytes bytes in $iterations updates")
+    }
+}
@@ -0,0 +1,132 @@
+package org.simbrain.network.matrix
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.simbrain.network.connections.AllToAll
+import org.simbrain.network.connections.Direction
+import org.simbrain.network.connections.FixedDegree
+import org.simbrain.network.connections.OneToOne
+import org.simbrain.network.connections.Sparse
+import org.simbrain.network.core.Network
+import org.simbrain.network.neuron_update_rules.SpikingThresholdRule
+import org.simbrain.network.spikeresponders.ProbabilisticResponder
+import org.simbrain.network.synapse_update_rules.HebbianRule
+import smile.math.matrix.Matrix
+
+class SparseWeightMatrixTest {
+
+    val net = Network()
+    val na1 = NeuronArray(net, 3)
+    val na2 = NeuronArray(net, 2)
+
+    /**
+     * (0, 0) = 1, (0, 2) = 2, (1, 1) = -1, entered out of order.
+     */
+    val swm = SparseWeightMatrix(
+        net, na1, na2,
+        intArrayOf(0, 1, 0),
+        intArrayOf(2, 1, 0),
+        doubleArrayOf(2.0, -1.0, 1.0)
+    )
+
+    @Test
+    fun `entries are stored by row in column order`() {
+        assertArrayEquals(intArrayOf(0, 2, 3), swm.rowStarts)
+        assertArrayEquals(intArrayOf(0, 2, 1), swm.columnIndices)
+        assertArrayEquals(doubleArrayOf(1.0, 2.0, -1.0), swm.values)
+        assertEquals(2.0, swm.get(0, 2))
+        assertEquals(0.0, swm.get(1, 2))
+        assertThrows<IllegalArgumentException> { swm.set(1, 2, 1.0) }
+    }
+
+    @Test
+    fun `duplicate entries are merged`() {
+        val merged = SparseWeightMatrix(net, na1, na2,
+            intArrayOf(1, 0, 1, 0, 1),
+            intArrayOf(2, 1, 2, 1, 0),
+            doubleArrayOf(1.0, 2.0, 3.0, 4.0, 5.0))
+        assertArrayEquals(intArrayOf(0, 1, 3), merged.rowStarts)
+        assertArrayEquals(intArrayOf(1, 0, 2), merged.columnIndices)
+        assertArrayEquals(doubleArrayOf(6.0, 5.0, 4.0), merged.values)
+        assertEquals(3, merged.psrs.size)
+    }
+
+    @Test
+    fun `output equals dense matrix times source activations`() {
+        na1.activations = Matrix(doubleArrayOf(1.0, 2.0, 3.0))
+        val dense = swm.toDense().mm(na1.activations)
+        assertArrayEquals(dense.col(0), swm.output.col(0), 1e-12)
+        assertArrayEquals(doubleArrayOf(7.0, -2.0), swm.output.col(0), 1e-12)
+    }
+
+    @Test
+    fun `hebbian rule only changes stored entries`() {
+        swm.prototypeRule = HebbianRule().apply { learningRate = 1.0 }
+        na1.activations = Matrix(doubleArrayOf(1.0, 1.0, 1.0))
+        na2.activations = Matrix(doubleArrayOf(1.0, 1.0))
+        swm.update()
+        assertArrayEquals(doubleArrayOf(2.0, 3.0, 0.0), swm.values, 1e-12)
+        assertEquals(0.0, swm.get(0, 1))
+        assertEquals(3, swm.entryCount)
+    }
+
+    @Test
+    fun `spike responder uses sparse entries`() {
+        na1.setUpdateRule(SpikingThresholdRule())
+        swm.setSpikeResponder(ProbabilisticResponder().apply { activationProbability = 1.0 })
+        net.addNetworkModels(na1, na2, swm)
+        na1.addInputs(Matrix(doubleArrayOf(1.0, 1.0, 1.0)))
+        net.update()
+        net.update()
+        assertArrayEquals(doubleArrayOf(1.0, -1.0), na2.activationArray, 1e-12)
+    }
+
+    @Test
+    fun `sparse strategy creates about the requested density without self connections`() {
+        val layer = NeuronArray(net, 200)
+        val density = 0.1
+        val recurrent = Sparse(density, false, false).connectLayers(net, layer, layer, false)
+        val expected = density * 200 * 199
+        assertEquals(expected, recurrent.entryCount.toDouble(), expected * 0.2)
+        for (i in 0 until 200) {
+            assertEquals(-1, recurrent.indexOf(i, i))
+        }
+
+        val equalized = Sparse(density, true, false).connectLayers(net, layer, na2, false)
+        val perSource = IntArray(200)
+        equalized.columnIndices.forEach { perSource[it]++ }
+        assertTrue(perSource.all { it == perSource[0] })
+    }
+
+    @Test
+    fun `fixed indegree gives every target the same number of sources`() {
+        val source = NeuronArray(net, 50)
+        val target = NeuronArray(net, 20)
+        val matrix = FixedDegree(degree = 5, direction = Direction.IN).connectLayers(net, source, target, false)
+        for (i in 0 until 20) {
+            assertEquals(5, matrix.rowStarts[i + 1] - matrix.rowStarts[i])
+        }
+        assertThrows<IllegalArgumentException> {
+            FixedDegree(useRadius = true).connectLayers(net, source, target, false)
+        }
+    }
+
+    @Test
+    fun `other strategies connect layers through their synapses`() {
+        val matrix = AllToAll(allowSelfConnection = false).connectLayers(net, na1, na1, false)
+        assertEquals(6, matrix.entryCount)
+        for (i in 0 until 3) {
+            assertEquals(-1, matrix.indexOf(i, i))
+        }
+        val oneToOne = OneToOne().connectLayers(net, na1, NeuronArray(net, 3), false)
+        assertArrayEquals(intArrayOf(0, 1, 2), oneToOne.columnIndices)
+    }
+
+    @Test
+    fun `sparse matrices are included in excitatory and inhibitory inputs`() {
+        na1.activations = Matrix(doubleArrayOf(1.0, 2.0, 3.0))
+        assertArrayEquals(doubleArrayOf(7.0, 0.0), na2.excitatoryInputs, 1e-12)
+        assertArrayEquals(doubleArrayOf(0.0, -2.0), na2.inhibitoryInputs, 1e-12)
+    }
+}
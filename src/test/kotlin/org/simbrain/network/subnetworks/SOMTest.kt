@@ -1,7 +1,7 @@
 package org.simbrain.network.subnetworks
 
 import kotlinx.coroutines.runBlocking
-import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
 import org.simbrain.network.NetworkComponent
 import org.simbrain.network.core.Network
@@ -35,4 +35,95 @@ class SOMTest {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * A SOM whose neuron i has weights (i, i) / 19.
+     */
+    private fun diagonalSOM() = SOMNetwork(Network(), 20, 2).apply {
+        parentNetwork.addNetworkModel(this)
+        som.neuronList.forEachIndexed { i, neuron -> neuron.fanIn.forEach { it.strength = i / 19.0 } }
+    }
+
+    private val rows = Array(10) { i ->
+        if (i < 5) doubleArrayOf(0.001 * i, 0.002 * i) else doubleArrayOf(1 - 0.001 * (i - 5), 1 - 0.003 * (i - 5))
+    }
+
+    @Test
+    fun `strengths edited between updates are trained from`() {
+        val network = diagonalSOM()
+        network.som.initNeighborhoodSize = 1e6
+        network.som.update()
+        val synapse = network.som.neuronList[19].fanIn[0]
+        synapse.strength = 0.0
+        network.inputLayer.forceSetActivations(doubleArrayOf(1.0, 1.0))
+        val alpha = network.som.alpha
+        network.som.update()
+        // Moved from 0 towards the input, rather than from the weight before the edit
+        assertEquals(alpha, synapse.strength, 1e-9)
+    }
+
+    @Test
+    fun `winner is the neuron closest to the input`() {
+        val som = SOMNetwork(net, 30, 3)
+        net.addNetworkModel(som)
+        som.som.randomizeIncomingWeights()
+        som.inputLayer.forceSetActivations(doubleArrayOf(0.2, 0.9, 0.4))
+        val closest = som.som.neuronList.minByOrNull { neuron ->
+            neuron.fanIn.sumOf { (it.strength - it.source.activation).let { d -> d * d } }
+        }
+        som.som.update()
+        assertSame(closest, som.som.winner)
+        assertEquals(1.0, closest!!.activation)
+    }
+
+    @Test
+    fun `training on a data set matches presenting rows one at a time`() {
+        val stepped = diagonalSOM()
+        rows.forEach {
+            stepped.inputLayer.forceSetActivations(it)
+            stepped.som.update()
+        }
+        val trained = diagonalSOM()
+        trained.som.train(rows, trained.inputLayer.neuronList)
+        assertEquals(stepped.som.alpha, trained.som.alpha, 1e-12)
+        assertEquals(stepped.som.neighborhoodSize, trained.som.neighborhoodSize, 1e-12)
+        stepped.som.neuronList.zip(trained.som.neuronList).forEach { (a, b) ->
+            assertArrayEquals(a.fanIn.map { it.strength }.toDoubleArray(),
+                b.fanIn.map { it.strength }.toDoubleArray(), 1e-12)
+        }
+    }
+
+    @Test
+    fun `batch training moves winners to the mean of the rows they win`() {
+        val network = diagonalSOM()
+        network.som.setInitNeighborhoodSize(0.0)
+        network.som.trainBatch(rows, network.inputLayer.neuronList)
+        val first = network.som.neuronList.first().fanIn.map { it.strength }
+        val last = network.som.neuronList.last().fanIn.map { it.strength }
+        assertEquals(0.002, first[0], 1e-12)
+        assertEquals(0.004, first[1], 1e-12)
+        assertEquals(0.998, last[0], 1e-12)
+        assertEquals(0.994, last[1], 1e-12)
+        assertEquals(5.0 / 19, network.som.neuronList[5].fanIn[0].strength, 1e-12)
+        assertArrayEquals(doubleArrayOf(0.998, 0.994), network.som.prototypes.getWeights(19), 1e-12)
+    }
+
+    @Test
+    fun `training leaves frozen synapses alone and respects bounds`() {
+        listOf(false, true).forEach { batch ->
+            val network = diagonalSOM()
+            network.som.setInitNeighborhoodSize(0.0)
+            val (frozen, bounded) = network.som.neuronList.last().fanIn
+            frozen.isFrozen = true
+            bounded.upperBound = 0.99
+            if (batch) {
+                network.som.trainBatch(rows, network.inputLayer.neuronList)
+            } else {
+                network.som.train(rows, network.inputLayer.neuronList)
+            }
+            assertEquals(1.0, frozen.strength)
+            assertTrue(bounded.strength <= 0.99)
+            assertArrayEquals(doubleArrayOf(1.0, bounded.strength), network.som.prototypes.getWeights(19))
+        }
+    }
+
+}
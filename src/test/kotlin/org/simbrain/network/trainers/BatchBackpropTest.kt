@@ -0,0 +1,115 @@
+package org.simbrain.network.trainers
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.neuron_update_rules.SigmoidalRule
+import org.simbrain.network.subnetworks.BackpropNetwork
+import org.simbrain.network.util.BiasedMatrixData
+import org.simbrain.util.rowMatrixTransposed
+import smile.math.matrix.Matrix
+import kotlin.math.sin
+import kotlin.random.Random
+
+class BatchBackpropTest {
+
+    val net = Network()
+
+    /**
+     * A feed forward chain of neuron arrays with unclipped linear rules, and randomized weight matrices between them.
+     */
+    private fun chain(vararg sizes: Int): List<WeightMatrix> {
+        val arrays = sizes.map { size ->
+            NeuronArray(net, size).apply { updateRule = LinearRule().apply { isClipped = false } }
+        }
+        return arrays.zipWithNext { source, target -> WeightMatrix(net, source, target).apply { randomize() } }
+    }
+
+    private fun dataset(rows: Int, inputs: Int, targets: (DoubleArray) -> DoubleArray): MatrixDataset {
+        val random = Random(1)
+        val inputData = Array(rows) { DoubleArray(inputs) { random.nextDouble(-1.0, 1.0) } }
+        return MatrixDataset(Matrix(inputData), Matrix(inputData.map(targets).toTypedArray()))
+    }
+
+    private fun Matrix.toArrays() = Array(nrows()) { i -> DoubleArray(ncols()) { j -> this[i, j] } }
+
+    @Test
+    fun `a batch of one row on a single layer is an lms step`() {
+        val data = dataset(1, 2) { doubleArrayOf(it[0], it[1], 1.0) }
+        val (trained, lms) = List(2) { chain(2, 3).first().apply { weightMatrix.fill(0.0) } }
+        BatchBackprop(listOf(trained)).run {
+            learningRate = 0.5
+            trainBatch(data, intArrayOf(0))
+            sync()
+        }
+        // With zero weights and biases the outputs are zero, so the error is the target
+        (lms.source as NeuronArray).setActivations(data.inputs.row(0))
+        lms.applyLMS(data.targets.rowMatrixTransposed(0), 0.5)
+        assertArrayEquals(lms.weightMatrix.toArrays(), trained.weightMatrix.toArrays())
+        val biases = ((trained.target as NeuronArray).dataHolder as BiasedMatrixData).biases
+        assertArrayEquals(data.targets.row(0).map { 0.5 * it }.toDoubleArray(), biases, 1e-12)
+    }
+
+    @Test
+    fun `batches split across threads give the same weights`() {
+        val data = dataset(512, 3) { doubleArrayOf(it[0] - it[1], it[2] * 0.5) }
+        val results = listOf(1, 8).map { threads ->
+            val wms = chain(3, 5, 2)
+            wms.forEachIndexed { l, wm -> wm.weightMatrix.fill(0.1 * (l + 1)) }
+            BatchBackprop(wms).run {
+                this.threads = threads
+                batchSize = 256
+                trainEpoch(data, false)
+                sync()
+            }
+            wms.map { it.weightMatrix.toArrays() }
+        }
+        results[0].zip(results[1]).forEach { (a, b) ->
+            a.zip(b).forEach { (rowA, rowB) -> assertArrayEquals(rowA, rowB, 1e-10) }
+        }
+    }
+
+    @Test
+    fun `network is only changed by sync`() {
+        val wms = chain(2, 2)
+        val before = wms.first().weightMatrix.toArrays()
+        val engine = BatchBackprop(wms)
+        engine.trainEpoch(dataset(64, 2) { doubleArrayOf(it[1], it[0]) })
+        assertArrayEquals(before, wms.first().weightMatrix.toArrays())
+        engine.sync()
+        assertFalse(before.contentDeepEquals(wms.first().weightMatrix.toArrays()))
+    }
+
+    @Test
+    fun `learns a nonlinear function with a sigmoidal hidden layer`() {
+        val wms = chain(2, 8, 1)
+        (wms.first().target as NeuronArray).updateRule = SigmoidalRule()
+        val data = dataset(400, 2) { doubleArrayOf(sin(3 * it[0])) }
+        val engine = BatchBackprop(wms).apply {
+            learningRate = 0.05
+            momentum = 0.9
+            batchSize = 16
+        }
+        val initial = engine.trainEpoch(data)
+        repeat(300) { engine.trainEpoch(data) }
+        assertTrue(engine.error < initial / 10, "Error went from $initial to ${engine.error}")
+    }
+
+    @Test
+    fun `backprop trainer reduces error in mini-batches`() {
+        val bp = BackpropNetwork(net, intArrayOf(2, 4, 2), null)
+        net.addNetworkModel(bp)
+        val trainer = BackpropTrainer(bp).apply {
+            setUpdateMethod(BackpropTrainer.UpdateMethod.MINI_BATCH)
+            batchSize = 2
+            learningRate = 0.05
+        }
+        trainer.apply()
+        val initial = trainer.error
+        repeat(200) { trainer.apply() }
+        assertTrue(trainer.error < initial, "Error went from $initial to ${trainer.error}")
+    }
+}
@@ -0,0 +1,116 @@
+package org.simbrain.network.trainers
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.subnetworks.LMSNetwork
+import org.simbrain.network.util.BiasedMatrixData
+import org.simbrain.network.util.EmptyMatrixData
+import kotlin.random.Random
+
+class LMSTrainerTest {
+
+    val net = Network()
+
+    /**
+     * An LMS network with 3 inputs and 2 outputs, zero weights, and 5 rows of inputs whose targets are an affine
+     * function of them.
+     */
+    val lms = LMSNetwork(net, 3, 2).also { lms ->
+        net.addNetworkModel(lms)
+        lms.weightMatrix.weightMatrix.fill(0.0)
+        val random = Random(1)
+        for (i in 0 until lms.trainingSet.inputs.nrows()) {
+            val x = DoubleArray(3) { random.nextDouble(-0.5, 0.5) }
+            x.forEachIndexed { j, value -> lms.trainingSet.inputs[i, j] = value }
+            lms.trainingSet.targets[i, 0] = 0.5 * x[0] - 0.25 * x[2] + 0.1
+            lms.trainingSet.targets[i, 1] = 0.3 * x[1] - 0.2
+        }
+    }
+
+    val trainer = lms.trainer
+
+    private val biases get() = (lms.outputLayer.dataHolder as BiasedMatrixData).biases
+
+    @Test
+    fun `solve finds the affine map exactly`() {
+        runBlocking { trainer.solve() }
+        val weights = lms.weightMatrix.weightMatrix
+        assertArrayEquals(doubleArrayOf(0.5, 0.0, -0.25), weights.row(0), 1e-9)
+        assertArrayEquals(doubleArrayOf(0.0, 0.3, 0.0), weights.row(1), 1e-9)
+        assertArrayEquals(doubleArrayOf(0.1, -0.2), biases, 1e-9)
+        assertEquals(0.0, trainer.error, 1e-12)
+    }
+
+    @Test
+    fun `solve handles fewer rows than inputs`() {
+        val wide = LMSNetwork(net, 6, 2)
+        runBlocking { wide.trainer.solve() }
+        assertEquals(0.0, wide.trainer.error, 1e-12)
+    }
+
+    @Test
+    fun `solve leaves out the biases when the outputs have none`() {
+        lms.outputLayer.dataHolder = EmptyMatrixData()
+        runBlocking { trainer.solve() }
+        // Least squares without an intercept leaves residuals orthogonal to every input column
+        val inputs = lms.trainingSet.inputs
+        val residuals = lms.trainingSet.targets.clone().sub(inputs.mt(lms.weightMatrix.weightMatrix))
+        val products = inputs.tm(residuals)
+        for (j in 0 until 3) {
+            assertArrayEquals(DoubleArray(2), products.row(j), 1e-9)
+        }
+        assertTrue(trainer.error > 0)
+    }
+
+    @Test
+    fun `row and batch errors are both mean squared errors per output`() {
+        trainer.trainRow(0)
+        val targets = lms.trainingSet.targets
+        assertEquals((targets[0, 0] * targets[0, 0] + targets[0, 1] * targets[0, 1]) / 2, trainer.error, 1e-12)
+
+        lms.weightMatrix.weightMatrix.fill(0.0)
+        biases.fill(0.0)
+        trainer.learningRate = 0.0
+        trainer.trainBatches(5)
+        var sse = 0.0
+        for (i in 0 until 5) {
+            for (j in 0 until 2) {
+                sse += targets[i, j] * targets[i, j]
+            }
+        }
+        assertEquals(sse / 10, trainer.error, 1e-12)
+    }
+
+    @Test
+    fun `epoch and mini-batch updates converge to the solution`() {
+        for (method in listOf(LMSTrainer.UpdateMethod.EPOCH, LMSTrainer.UpdateMethod.MINI_BATCH)) {
+            lms.weightMatrix.weightMatrix.fill(0.0)
+            biases.fill(0.0)
+            trainer.updateType = method
+            trainer.learningRate = 0.5
+            trainer.batchSize = 2
+            runBlocking { repeat(2000) { trainer.iterate() } }
+            assertArrayEquals(doubleArrayOf(0.1, -0.2), biases, 1e-3, "$method")
+            assertEquals(0.5, lms.weightMatrix.weightMatrix[0, 0], 1e-2, "$method")
+        }
+    }
+
+    @Test
+    fun `error updates are throttled while running`() {
+        trainer.updateType = LMSTrainer.UpdateMethod.EPOCH
+        trainer.errorUpdateInterval = 100
+        var updates = 0
+        trainer.events.errorUpdated.on(wait = true) { updates++ }
+        runBlocking {
+            launch { trainer.startTraining() }
+            delay(500)
+            trainer.stopTraining()
+        }
+        assertTrue(trainer.iteration > 100, "Only ${trainer.iteration} iterations")
+        assertTrue(updates in 1..8, "$updates error updates")
+    }
+}
@@ -0,0 +1,69 @@
+package org.simbrain.network.trainers
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.kotlindl.MatrixDatasetView
+import org.simbrain.util.table.MatrixDataWrapper
+import org.simbrain.util.table.createFromDoubleArray
+import kotlin.random.Random
+
+class MatrixDatasetTest {
+
+    /**
+     * Ten rows, with inputs (i, 10 + i) and target i % 3.
+     */
+    val inputs = DoubleArray(20) { it.toDouble() }
+    val targets = DoubleArray(10) { (it % 3).toDouble() }
+    val dataset = MatrixDataset.wrap(10, 2, 1, inputs, targets)
+
+    @Test
+    fun `wrapped arrays are shared with the dataset`() {
+        assertEquals(13.0, dataset.inputs[3, 1])
+        inputs[13] = -1.0
+        assertEquals(-1.0, dataset.inputs[3, 1])
+        dataset.targets[4, 0] = 7.0
+        assertEquals(7.0, targets[4])
+    }
+
+    @Test
+    fun `rows are read into the buffers they are given`() {
+        val buffer = DoubleArray(2)
+        assertSame(buffer, dataset.inputRow(4, buffer))
+        assertArrayEquals(doubleArrayOf(4.0, 14.0), buffer)
+        assertArrayEquals(floatArrayOf(5f, 15f), dataset.floatInputRow(5))
+        assertArrayEquals(doubleArrayOf(2.0), dataset.targetRow(8))
+    }
+
+    @Test
+    fun `shuffling permutes the order but not the data`() {
+        dataset.shuffle(Random(1))
+        assertFalse(dataset.order.contentEquals(IntArray(10) { it }))
+        assertArrayEquals(IntArray(10) { it }, dataset.order.sortedArray())
+        assertArrayEquals(DoubleArray(20) { it.toDouble() }, inputs)
+    }
+
+    @Test
+    fun `kotlindl view splits and batches rows without copying the dataset`() {
+        val (train, test) = MatrixDatasetView(dataset).shuffle().split(.7)
+        assertEquals(7, train.xSize())
+        assertEquals(3, test.xSize())
+        val seen = (0 until 7).map { train.getX(it)[0].toInt() } + (0 until 3).map { test.getX(it)[0].toInt() }
+        assertEquals((0 until 10).toList(), seen.sorted())
+
+        val batches = train.batchIterator(4).asSequence().filterNotNull().toList()
+        assertEquals(listOf(4, 3), batches.map { it.size })
+        val first = batches[0]
+        repeat(4) { assertEquals(first.x[it][0] % 3, first.y[it]) }
+    }
+
+    @Test
+    fun `tables fill a single column major matrix`() {
+        val table = createFromDoubleArray(arrayOf(doubleArrayOf(1.0, 2.0, 3.0), doubleArrayOf(4.0, 5.0, 6.0)))
+        val matrix = table.getDoubleMatrix(listOf(2, 0))
+        assertArrayEquals(doubleArrayOf(3.0, 1.0), matrix.row(0))
+        assertArrayEquals(doubleArrayOf(6.0, 4.0), matrix.row(1))
+
+        val wrapper = MatrixDataWrapper(dataset.inputs)
+        assertSame(dataset.inputs, wrapper.getDoubleMatrix())
+    }
+}
@@ -0,0 +1,108 @@
+package org.simbrain.network.trainers
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.network.core.Network
+import org.simbrain.network.kotlindl.BinaryDatasetView
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.LinearRule
+import java.io.File
+import java.io.UncheckedIOException
+
+class StreamingDatasetTest {
+
+    @TempDir
+    lateinit var dir: File
+
+    /**
+     * Ten rows, with inputs (i, -i) and target 2i.
+     */
+    val dataset = MatrixDataset.wrap(10, 2, 1).apply {
+        for (i in 0 until size) {
+            inputs[i, 0] = i.toDouble()
+            inputs[i, 1] = (-i).toDouble()
+            targets[i, 0] = 2.0 * i
+        }
+    }
+
+    private fun StreamingDataset.firstInputs(batchSize: Int, shuffle: Boolean = false) = buildList {
+        forEachBatch(batchSize, shuffle) { batch -> add((0 until batch.size).map { batch.inputs[it, 0].toInt() }) }
+    }
+
+    private fun binaryFile() = File(dir, "data.bin").also { BinaryDataset.write(it, dataset) }
+
+    @Test
+    fun `binary files are read back in batches`() {
+        BinaryDataset(binaryFile()).use { binary ->
+            assertEquals(10, binary.rows)
+            assertEquals(listOf(listOf(0, 1, 2, 3), listOf(4, 5, 6, 7), listOf(8, 9)), binary.firstInputs(4))
+            binary.forEachBatch(10) { batch ->
+                assertArrayEquals(doubleArrayOf(3.0, -3.0), batch.inputRow(3))
+                assertArrayEquals(doubleArrayOf(6.0), batch.targetRow(3))
+            }
+        }
+    }
+
+    @Test
+    fun `shuffling binary files reorders whole batches`() {
+        BinaryDataset(binaryFile()).use { binary ->
+            val batches = binary.firstInputs(2, shuffle = true)
+            assertEquals(5, batches.size)
+            batches.forEach { assertEquals(it[0] + 1, it[1]) }
+            assertEquals((0 until 10).toList(), batches.flatten().sorted())
+        }
+    }
+
+    @Test
+    fun `csv files are parsed and converted to binary`() {
+        val csv = File(dir, "data.csv")
+        csv.writeText("x,y,target\n" + (0 until 10).joinToString("\n") { "$it, ${-it}, ${2 * it}" } + "\n\n")
+        val converted = File(dir, "converted.bin")
+        CsvDataset(csv, 2, 1, skipHeader = true).use { BinaryDataset.write(converted, it, batchSize = 3) }
+        assertArrayEquals(binaryFile().readBytes(), converted.readBytes())
+    }
+
+    @Test
+    fun `read errors are thrown on the training thread`() {
+        val csv = File(dir, "bad.csv")
+        csv.writeText("1,2,3\n4,five,6\n")
+        val error = assertThrows<UncheckedIOException> { CsvDataset(csv, 2, 1).firstInputs(1) }
+        assertTrue("Line 2" in error.cause!!.message!!)
+    }
+
+    @Test
+    fun `streaming an epoch trains like the dataset in memory`() {
+        val net = Network()
+        val (streamed, inMemory) = List(2) {
+            val source = NeuronArray(net, 2)
+            val target = NeuronArray(net, 1).apply { updateRule = LinearRule().apply { isClipped = false } }
+            BatchBackprop(listOf(WeightMatrix(net, source, target).apply { weightMatrix.fill(0.1) })).apply {
+                learningRate = 0.001
+                batchSize = 4
+            }
+        }
+        BinaryDataset(binaryFile()).use { streamed.trainEpoch(it, false) }
+        inMemory.trainEpoch(dataset, false)
+        assertEquals(inMemory.error, streamed.error, 1e-12)
+        streamed.sync()
+        inMemory.sync()
+        assertArrayEquals(inMemory.weightMatrices[0].weightMatrix.toArray()[0],
+            streamed.weightMatrices[0].weightMatrix.toArray()[0], 1e-12)
+    }
+
+    @Test
+    fun `kotlindl view reads batches from disk`() {
+        BinaryDataset(binaryFile()).use { binary ->
+            val (train, test) = BinaryDatasetView(binary).split(.7)
+            assertEquals(7, train.xSize())
+            assertArrayEquals(floatArrayOf(7f, -7f), test.getX(0))
+            val batches = train.batchIterator(3).asSequence().filterNotNull().toList()
+            assertEquals(listOf(3, 3, 1), batches.map { it.size })
+            assertEquals(listOf(6f), batches[2].x.map { it[0] })
+            assertEquals(listOf(12f), batches[2].y.toList())
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.simbrain.network.update_actions
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.neuron_update_rules.BinaryRule
+import kotlin.random.Random
+
+class CompiledUpdateTest {
+
+    /**
+     * Build a random network of loose neurons, mostly linear, with a few delayed and disabled synapses.
+     */
+    private fun buildNetwork(seed: Int, compiled: Boolean): Network {
+        val random = Random(seed)
+        val net = Network()
+        if (compiled) {
+            net.updateManager.clear()
+            net.updateManager.addAction(CompiledUpdate(net))
+        }
+        val neurons = List(50) { i ->
+            Neuron(net).apply {
+                if (i % 10 == 0) updateRule = BinaryRule()
+                if (i % 7 == 0) isClamped = true
+                forceSetActivation(random.nextDouble(-1.0, 1.0))
+            }
+        }
+        net.addNetworkModels(neurons)
+        repeat(400) { i ->
+            val synapse = Synapse(neurons[random.nextInt(50)], neurons[random.nextInt(50)],
+                random.nextDouble(-1.0, 1.0))
+            if (i % 50 == 0) synapse.delay = 2
+            if (i % 60 == 0) synapse.isEnabled = false
+            net.addNetworkModel(synapse)
+        }
+        neurons.forEachIndexed { i, n -> if (i % 3 == 0) n.addInputValue(random.nextDouble()) }
+        return net
+    }
+
+    @Test
+    fun `compiled update matches buffered update`() {
+        val buffered = buildNetwork(1, false)
+        val compiled = buildNetwork(1, true)
+        repeat(20) {
+            buffered.bufferedUpdate()
+            compiled.update()
+            buffered.flatNeuronList.zip(compiled.flatNeuronList).forEach { (b, c) ->
+                assertEquals(b.activation, c.activation)
+            }
+        }
+    }
+
+    @Test
+    fun `changes to the network are picked up`() {
+        val net = Network()
+        net.updateManager.clear()
+        net.updateManager.addAction(CompiledUpdate(net))
+        val n1 = net.addNeuron { isClamped = true }
+        val n2 = net.addNeuron()
+        n1.forceSetActivation(.5)
+        val s1 = net.addSynapse(n1, n2) { strength = 1.0 }
+        net.update()
+        assertEquals(.5, n2.activation)
+
+        // Strength change after compiling
+        s1.strength = .5
+        net.update()
+        assertEquals(.25, n2.activation)
+
+        // New neuron and synapse
+        val n3 = net.addNeuron()
+        net.addSynapse(n2, n3) { strength = 2.0 }
+        net.update()
+        assertEquals(.5, n3.activation)
+        assertEquals(.25, n2.activation)
+
+        // Deleting a synapse
+        s1.delete()
+        net.update()
+        assertEquals(0.0, n2.activation)
+
+        // Setting an activation directly
+        n2.forceSetActivation(-.1)
+        net.update()
+        assertEquals(-.2, n3.activation, 1e-12)
+    }
+
+    @Test
+    fun `activation events fired on request`() {
+        val net = Network()
+        net.updateManager.clear()
+        val compiledUpdate = CompiledUpdate(net)
+        net.updateManager.addAction(compiledUpdate)
+        val n1 = net.addNeuron()
+        var events = 0
+        n1.events.activationChanged.on(wait = true) { _, _ -> events++ }
+        n1.addInputValue(.3)
+        net.update()
+        assertEquals(0, events)
+        net.fireCompiledUpdateEvents()
+        assertEquals(1, events)
+        assertEquals(.3, n1.activation)
+    }
+}
@@ -0,0 +1,189 @@
+package org.simbrain.network.update_actions
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.neuron_update_rules.SpikingThresholdRule
+import org.simbrain.network.spikeresponders.ConvolvedJumpAndDecay
+import org.simbrain.network.spikeresponders.JumpAndDecay
+import org.simbrain.network.spikeresponders.NonResponder
+import org.simbrain.network.spikeresponders.RiseAndDecay
+import org.simbrain.workspace.updater.CheckpointReader
+import org.simbrain.workspace.updater.CheckpointWriter
+import kotlin.random.Random
+
+class EventDrivenUpdateTest {
+
+    /**
+     * Build a random network of loose spiking neurons, with a few linear neurons to read out graded responses, and
+     * synapses using a mix of responders.
+     */
+    private fun buildNetwork(seed: Int, eventDriven: Boolean): Network {
+        val random = Random(seed)
+        val net = Network()
+        if (eventDriven) {
+            net.updateManager.clear()
+            net.updateManager.addAction(EventDrivenUpdate(net))
+        }
+        val neurons = List(60) { i ->
+            Neuron(net).apply {
+                if (i % 10 != 0) updateRule = SpikingThresholdRule()
+            }
+        }
+        net.addNetworkModels(neurons)
+        repeat(500) { i ->
+            val synapse = Synapse(neurons[random.nextInt(60)], neurons[random.nextInt(60)],
+                random.nextDouble(-1.0, 1.0))
+            when (i % 4) {
+                0 -> synapse.spikeResponder = JumpAndDecay().apply { timeConstant = 2.0 + i % 3; baseLine = .1 }
+                1 -> synapse.spikeResponder = ConvolvedJumpAndDecay().apply { timeConstant = 4.0 }
+                2 -> synapse.spikeResponder = RiseAndDecay()
+                // Responders are not delayed here; a delay queue feeds its output back into the responder
+                3 -> if (i % 7 == 0) synapse.delay = 1 + i % 3
+            }
+            if (i % 60 == 0) synapse.isEnabled = false
+            net.addNetworkModel(synapse)
+        }
+        return net
+    }
+
+    @Test
+    fun `event driven update matches buffered update`() {
+        val buffered = buildNetwork(1, false)
+        val eventDriven = buildNetwork(1, true)
+        val inputs = Random(2)
+        repeat(100) {
+            buffered.flatNeuronList.zip(eventDriven.flatNeuronList).forEach { (b, e) ->
+                val input = inputs.nextDouble(0.0, .8)
+                b.addInputValue(input)
+                e.addInputValue(input)
+            }
+            buffered.bufferedUpdate()
+            eventDriven.update()
+            buffered.flatNeuronList.zip(eventDriven.flatNeuronList).forEach { (b, e) ->
+                assertEquals(b.activation, e.activation, 1e-9)
+                assertEquals(b.isSpike, e.isSpike)
+            }
+        }
+        eventDriven.updateManager.actionList.filterIsInstance<EventDrivenUpdate>().first().release()
+        buffered.flatSynapseList.zip(eventDriven.flatSynapseList).forEach { (b, e) ->
+            assertEquals(b.psr, e.psr, 1e-9)
+        }
+    }
+
+    @Test
+    fun `delays shift the response`() {
+        val net = Network()
+        net.updateManager.clear()
+        net.updateManager.addAction(EventDrivenUpdate(net))
+        val source = net.addNeuron { updateRule = SpikingThresholdRule() }
+        val direct = net.addNeuron()
+        val delayed = net.addNeuron()
+        net.addSynapse(source, direct) { spikeResponder = JumpAndDecay() }
+        net.addSynapse(source, delayed) { spikeResponder = JumpAndDecay(); delay = 3 }
+        source.addInputValue(1.0)
+        val responses = List(20) { net.update(); direct.activation to delayed.activation }
+        assertEquals(1.0, responses[1].first)
+        for (t in 0 until 17) {
+            assertEquals(responses[t].first, responses[t + 3].second, 1e-12)
+        }
+    }
+
+    @Test
+    fun `only spiking responder synapses between loose neurons are event driven`() {
+        val net = Network()
+        val action = EventDrivenUpdate(net)
+        val n1 = net.addNeuron { updateRule = SpikingThresholdRule() }
+        val n2 = net.addNeuron()
+        val s1 = net.addSynapse(n1, n2) { spikeResponder = JumpAndDecay() }
+        net.addSynapse(n2, n1)
+        assertEquals(1, action.getEventDrivenNetwork().eventSynapseCount)
+
+        // Changing a responder rebuilds the event structure
+        s1.spikeResponder = NonResponder()
+        assertEquals(0, action.getEventDrivenNetwork().eventSynapseCount)
+    }
+
+    /**
+     * Build a network of loose spiking neurons connected by delayed event synapses.
+     */
+    private fun buildDelayedNetwork(): Network {
+        val random = Random(3)
+        val net = Network()
+        net.updateManager.clear()
+        net.updateManager.addAction(EventDrivenUpdate(net))
+        val neurons = List(40) { Neuron(net).apply { updateRule = SpikingThresholdRule() } }
+        net.addNetworkModels(neurons)
+        repeat(300) { i ->
+            net.addNetworkModel(Synapse(neurons[random.nextInt(40)], neurons[random.nextInt(40)],
+                random.nextDouble(0.0, 1.0)).apply {
+                spikeResponder = if (i % 2 == 0) JumpAndDecay() else RiseAndDecay()
+                delay = 1 + i % 5
+            })
+        }
+        return net
+    }
+
+    /**
+     * Drive some neurons of each network with the same input and update them.
+     */
+    private fun step(networks: List<Network>, t: Int) = networks.forEach { net ->
+        net.flatNeuronList.forEachIndexed { i, neuron -> if ((t + i) % 7 == 0) neuron.addInputValue(1.0) }
+        net.update()
+    }
+
+    private fun Network.eventDrivenUpdate() = updateManager.actionList.filterIsInstance<EventDrivenUpdate>().first()
+
+    @Test
+    fun `checkpoints keep spikes in flight and do not disturb the run`() {
+        val reference = buildDelayedNetwork()
+        val checkpointed = buildDelayedNetwork()
+        val restored = buildDelayedNetwork()
+        for (t in 0 until 20) {
+            step(listOf(reference, checkpointed), t)
+        }
+        assertTrue(checkpointed.eventDrivenUpdate().pendingSpikes().isNotEmpty())
+
+        val writer = CheckpointWriter()
+        checkpointed.writeCheckpoint(writer)
+        restored.readCheckpoint(CheckpointReader(writer.values.copyOf(writer.size)))
+        assertEquals(checkpointed.eventDrivenUpdate().pendingSpikes().map { it.second },
+            restored.eventDrivenUpdate().pendingSpikes().map { it.second })
+
+        for (t in 20 until 50) {
+            step(listOf(reference, checkpointed, restored), t)
+            reference.flatNeuronList.forEachIndexed { i, neuron ->
+                assertEquals(neuron.activation, checkpointed.flatNeuronList[i].activation)
+                assertEquals(neuron.isSpike, checkpointed.flatNeuronList[i].isSpike)
+                assertEquals(neuron.activation, restored.flatNeuronList[i].activation, 1e-9)
+                assertEquals(neuron.isSpike, restored.flatNeuronList[i].isSpike)
+            }
+        }
+    }
+
+    @Test
+    fun `spikes in flight are delivered after the network is edited`() {
+        val reference = buildDelayedNetwork()
+        val edited = buildDelayedNetwork()
+        for (t in 0 until 20) {
+            step(listOf(reference, edited), t)
+        }
+        val before = edited.eventDrivenUpdate().getEventDrivenNetwork()
+        assertTrue(before.pendingSpikes().isNotEmpty())
+
+        // An unconnected neuron changes the structure but not the dynamics of the other neurons
+        val added = edited.addNeuron()
+        val neurons = edited.flatNeuronList.filter { it !== added }
+        for (t in 20 until 50) {
+            step(listOf(reference, edited), t)
+            reference.flatNeuronList.forEachIndexed { i, neuron ->
+                assertEquals(neuron.activation, neurons[i].activation, 1e-9)
+                assertEquals(neuron.isSpike, neurons[i].isSpike)
+            }
+        }
+        assertTrue(before !== edited.eventDrivenUpdate().getEventDrivenNetwork())
+    }
+}
@@ -0,0 +1,112 @@
+package org.simbrain.network.update_actions
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.neuron_update_rules.BinaryRule
+import org.simbrain.network.neuron_update_rules.IACRule
+import org.simbrain.network.neuron_update_rules.KuramotoRule
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.neuron_update_rules.SigmoidalRule
+import org.simbrain.network.spikeresponders.JumpAndDecay
+import kotlin.random.Random
+
+class ParallelBufferedUpdateTest {
+
+    private fun buildNetwork(seed: Int, parallel: Boolean): Network {
+        val random = Random(seed)
+        val net = Network()
+        if (parallel) {
+            net.updateManager.clear()
+            net.updateManager.addAction(ParallelBufferedUpdate(net))
+            net.updateManager.parallelChunkSize = 50
+            net.updateManager.parallelThreadCount = 4
+        }
+        val sharedRule = BinaryRule()
+        val neurons = List(200) { i ->
+            Neuron(net).apply {
+                when {
+                    i % 10 == 0 -> updateRule = SigmoidalRule()
+                    i % 15 == 0 -> changeUpdateRule(sharedRule, sharedRule.createScalarData())
+                }
+                if (i % 7 == 0) isClamped = true
+                forceSetActivation(random.nextDouble(-1.0, 1.0))
+            }
+        }
+        net.addNetworkModels(neurons)
+        repeat(2000) { i ->
+            val synapse = Synapse(neurons[random.nextInt(200)], neurons[random.nextInt(200)],
+                random.nextDouble(-1.0, 1.0))
+            if (i % 50 == 0) synapse.delay = 2
+            if (i % 70 == 0) synapse.spikeResponder = JumpAndDecay()
+            net.addNetworkModel(synapse)
+        }
+        return net
+    }
+
+    @Test
+    fun `parallel update matches buffered update`() {
+        val buffered = buildNetwork(1, false)
+        val parallel = buildNetwork(1, true)
+        repeat(20) {
+            buffered.bufferedUpdate()
+            parallel.update()
+            buffered.flatNeuronList.zip(parallel.flatNeuronList).forEach { (b, p) ->
+                assertEquals(b.activation, p.activation)
+            }
+        }
+    }
+
+    @Test
+    fun `rules reading source activations match buffered update bit for bit`() {
+        fun build(parallel: Boolean) = Network().apply {
+            if (parallel) {
+                updateManager.clear()
+                updateManager.addAction(ParallelBufferedUpdate(this))
+                updateManager.parallelChunkSize = 10
+                updateManager.parallelThreadCount = 4
+            }
+            val random = Random(2)
+            val neurons = List(120) { i ->
+                Neuron(this).apply {
+                    updateRule = when (i % 3) {
+                        0 -> IACRule()
+                        1 -> KuramotoRule()
+                        else -> LinearRule()
+                    }
+                    forceSetActivation(random.nextDouble(-1.0, 1.0))
+                }
+            }
+            addNetworkModels(neurons)
+            repeat(1000) {
+                addNetworkModel(Synapse(neurons[random.nextInt(120)], neurons[random.nextInt(120)],
+                    random.nextDouble(-1.0, 1.0)))
+            }
+        }
+        val buffered = build(false)
+        val parallel = build(true)
+        repeat(20) {
+            buffered.bufferedUpdate()
+            parallel.update()
+            buffered.flatNeuronList.zip(parallel.flatNeuronList).forEach { (b, p) ->
+                assertEquals(b.activation.toRawBits(), p.activation.toRawBits())
+            }
+        }
+    }
+
+    @Test
+    fun `network changes are picked up`() {
+        val net = Network()
+        net.updateManager.clear()
+        net.updateManager.addAction(ParallelBufferedUpdate(net))
+        val n1 = net.addNeuron { isClamped = true; forceSetActivation(1.0) }
+        val n2 = net.addNeuron()
+        net.update()
+        assertEquals(0.0, n2.activation)
+        net.addNetworkModel(Synapse(n1, n2, 0.5))
+        net.update()
+        assertEquals(0.5, n2.activation)
+    }
+}
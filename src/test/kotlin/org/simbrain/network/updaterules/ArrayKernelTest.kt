@@ -0,0 +1,125 @@
+package org.simbrain.network.updaterules
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.NeuronUpdateRule
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.*
+import kotlin.math.cos
+import kotlin.math.sin
+
+class ArrayKernelTest {
+
+    val net = Network()
+
+    /**
+     * Connect a loose neuron using [scalarRule] and a neuron array of three elements using [arrayRule] to clamped
+     * sources with the same [weights]. In each update set the sources to [sources] and add [input] to the neuron and
+     * each element, then check that every element follows the neuron, and that the neuron's activation changes.
+     */
+    private fun assertArrayFollowsNeuron(
+        scalarRule: NeuronUpdateRule,
+        arrayRule: NeuronUpdateRule,
+        weights: DoubleArray = DoubleArray(0),
+        sources: (Int) -> DoubleArray = { DoubleArray(weights.size) },
+        input: (Int) -> Double = { 0.0 },
+        steps: Int = 100
+    ) {
+        val neuron = Neuron(net, scalarRule)
+        // Arrays start with random activations
+        val array = NeuronArray(net, 3).apply {
+            setUpdateRule(arrayRule)
+            setActivations(DoubleArray(3))
+        }
+        net.addNetworkModels(neuron, array)
+        val sourceNeurons = List(weights.size) { Neuron(net).apply { isClamped = true } }
+        val sourceArray = NeuronArray(net, weights.size.coerceAtLeast(1)).apply { isClamped = true }
+        if (weights.isNotEmpty()) {
+            net.addNetworkModels(sourceNeurons)
+            sourceNeurons.forEachIndexed { j, source -> net.addNetworkModel(Synapse(source, neuron, weights[j])) }
+            net.addNetworkModels(sourceArray, WeightMatrix(net, sourceArray, array).apply {
+                for (i in 0 until 3) {
+                    weights.forEachIndexed { j, w -> weightMatrix[i, j] = w }
+                }
+            })
+        }
+        (scalarRule as? PointNeuronRule)?.init(neuron)
+
+        val activations = HashSet<Double>()
+        repeat(steps) { t ->
+            val values = sources(t)
+            if (weights.isNotEmpty()) {
+                sourceNeurons.forEachIndexed { j, source -> source.forceSetActivation(values[j]) }
+                sourceArray.setActivations(values)
+            }
+            neuron.addInputValue(input(t))
+            array.addInputs(DoubleArray(3) { input(t) })
+            net.update()
+            for (i in 0 until 3) {
+                assertEquals(neuron.activation, array.activations[i, 0], 1e-9, "Element $i at step $t")
+            }
+            activations.add(neuron.activation)
+        }
+        assertTrue(activations.size > 1)
+    }
+
+    @Test
+    fun `hodgkin huxley array follows the scalar rule`() {
+        assertArrayFollowsNeuron(HodgkinHuxleyRule(), HodgkinHuxleyRule(), input = { 10.0 })
+    }
+
+    @Test
+    fun `sigmoidal array follows the scalar rule`() {
+        assertArrayFollowsNeuron(SigmoidalRule(), SigmoidalRule(), input = { t -> 3 * sin(t * .3) })
+    }
+
+    @Test
+    fun `iac array counts only active sources like the scalar rule`() {
+        assertArrayFollowsNeuron(IACRule(), IACRule(),
+            weights = doubleArrayOf(.5, -.8, .3),
+            sources = { t -> doubleArrayOf(sin(t * .2), cos(t * .3), -.5) },
+            input = { .1 })
+    }
+
+    @Test
+    fun `kuramoto array follows the scalar rule`() {
+        assertArrayFollowsNeuron(KuramotoRule(), KuramotoRule(),
+            weights = doubleArrayOf(1.0, .5, -.3),
+            sources = { t -> DoubleArray(3) { j -> t * .1 + j } })
+    }
+
+    @Test
+    fun `product array follows the scalar rule`() {
+        listOf(false, true).forEach { useWeights ->
+            assertArrayFollowsNeuron(ProductRule().apply { this.useWeights = useWeights },
+                ProductRule().apply { this.useWeights = useWeights },
+                weights = doubleArrayOf(.5, 2.0, 1.5),
+                sources = { t -> doubleArrayOf(sin(t * .2), .8, cos(t * .1)) })
+        }
+    }
+
+    @Test
+    fun `point neuron array follows the scalar rule`() {
+        assertArrayFollowsNeuron(PointNeuronRule(), PointNeuronRule(),
+            weights = doubleArrayOf(.6, -.4, .8),
+            sources = { t -> doubleArrayOf((t % 5) / 4.0, (t % 3) / 2.0, (t % 7) / 6.0) })
+    }
+
+    @Test
+    fun `timed accumulator array fires from its inputs like the scalar rule`() {
+        // Certain to fire when a source is at 1, and never spontaneously
+        fun rule() = TimedAccumulatorRule().apply {
+            baseProb = 0.0
+            kappa = 1e9
+            maxState = 4
+        }
+        assertArrayFollowsNeuron(rule(), rule(),
+            weights = doubleArrayOf(.5, 1.0),
+            sources = { t -> doubleArrayOf(if (t % 15 == 0) 1.0 else 0.0, if (t % 23 == 0) 1.0 else 0.0) })
+    }
+}
@@ -0,0 +1,33 @@
+package org.simbrain.network.updaterules
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.neuron_update_rules.HodgkinHuxleyRule
+import org.simbrain.network.util.EmptyScalarData
+import org.simbrain.network.util.HodgkinHuxleyScalarData
+
+class HodgkinHuxleyTest {
+
+    val net = Network()
+    val n = Neuron(net, HodgkinHuxleyRule())
+    init {
+        net.addNetworkModels(n)
+    }
+
+    @Test
+    fun `neurons with another data holder get gating variables`() {
+        val old = Neuron(net, HodgkinHuxleyRule()).apply { dataHolder = EmptyScalarData() }
+        net.addNetworkModels(old)
+        repeat(10) {
+            n.addInputValue(5.0)
+            old.addInputValue(5.0)
+            net.update()
+        }
+        assertTrue(old.dataHolder is HodgkinHuxleyScalarData)
+        assertEquals((n.dataHolder as HodgkinHuxleyScalarData).n, (old.dataHolder as HodgkinHuxleyScalarData).n, 1e-9)
+        assertEquals(n.activation, old.activation, 1e-9)
+    }
+}
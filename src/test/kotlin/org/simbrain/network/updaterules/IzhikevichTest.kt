@@ -0,0 +1,70 @@
+package org.simbrain.network.updaterules
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.util.IzhikData
+import org.simbrain.network.util.IzhikevichMatrixData
+import org.simbrain.network.util.SpikingScalarData
+
+class IzhikevichTest {
+
+    val net = Network()
+    val n = Neuron(net, IzhikevichRule())
+    val na = NeuronArray(net, 3).apply { setUpdateRule(IzhikevichRule()) }
+    init {
+        net.addNetworkModels(n, na)
+    }
+
+    @Test
+    fun `array kernel follows the scalar rule for every element`() {
+        na.activations.fill(0.0)
+        var spikes = 0
+        repeat(200) {
+            n.addInputValue(10.0)
+            na.addInputs(DoubleArray(3) { 10.0 })
+            net.update()
+            if ((na.dataHolder as IzhikevichMatrixData).spikes[0]) spikes++
+            for (i in 0 until 3) {
+                assertEquals(n.activation, na.activations[i, 0], 1e-9)
+            }
+        }
+        assertTrue(spikes > 0)
+    }
+
+    @Test
+    fun `neurons sharing a rule keep their own recovery`() {
+        val shared = IzhikevichRule()
+        val quiet = Neuron(net, shared)
+        val driven = Neuron(net, shared)
+        net.addNetworkModels(quiet, driven)
+        repeat(100) {
+            driven.addInputValue(20.0)
+            net.update()
+            assertEquals(n.activation, quiet.activation, 1e-9)
+        }
+        assertEquals((n.dataHolder as IzhikData).recovery, (quiet.dataHolder as IzhikData).recovery, 1e-9)
+        assertNotEquals((quiet.dataHolder as IzhikData).recovery, (driven.dataHolder as IzhikData).recovery)
+    }
+
+    @Test
+    fun `neurons with another data holder get an izhikevich one`() {
+        val old = Neuron(net, IzhikevichRule()).apply { dataHolder = SpikingScalarData(lastSpikeTime = 2.0) }
+        net.addNetworkModels(old)
+        repeat(10) { i ->
+            n.addInputValue(10.0)
+            old.addInputValue(10.0)
+            net.update()
+            if (i == 0) {
+                // No spike yet, so the old spike time is kept
+                assertTrue(old.dataHolder is IzhikData)
+                assertEquals(2.0, (old.dataHolder as IzhikData).lastSpikeTime)
+            }
+            assertEquals(n.activation, old.activation, 1e-9)
+        }
+    }
+}
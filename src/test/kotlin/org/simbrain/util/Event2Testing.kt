@@ -5,6 +5,8 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.runBlocking
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
+import java.util.function.BiConsumer
+import java.util.function.Consumer
 import kotlin.system.measureTimeMillis
 
 
@@ -15,6 +17,8 @@ class TestEvents : Events2() {
     val blockingEvent = NoArgEvent()
     val longFireAndForgetEvent = NoArgEvent()
     val changedEvent = ChangedEvent<String>()
+    val inlineEvent = AddedEvent<Int>()
+    val coalescingEvent = ChangedEvent<Int>(coalesce = true)
 }
 
 class Event2Testing {
@@ -115,4 +119,49 @@ class Event2Testing {
         testEvents2.changedEvent.fireAndBlock("test", "test2")
         assert(fired) { "event should have fired" }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `handlers without a dispatcher run inline`() {
+        val threads = mutableListOf<Thread>()
+        testEvents2.inlineEvent.on(handler = Consumer { threads.add(Thread.currentThread()) })
+        repeat(3) { testEvents2.inlineEvent.fireAndBlock(it) }
+        assertEquals(List(3) { Thread.currentThread() }, threads)
+    }
+
+    @Test
+    fun `coalesced events reach coroutine handlers once per tick`() {
+        var inlineFires = 0
+        val delivered = mutableListOf<Pair<Int, Int>>()
+        testEvents2.coalescingEvent.on(handler = BiConsumer { _, _ -> inlineFires++ })
+        testEvents2.coalescingEvent.on(Dispatchers.Default, true, BiConsumer { new, old -> delivered.add(new to old) })
+
+        EventCoalescer().tick {
+            for (i in 1..5) {
+                testEvents2.coalescingEvent.fireAndBlock(i, i - 1)
+            }
+            assertEquals(0, delivered.size)
+        }
+        assertEquals(5, inlineFires)
+        assertEquals(listOf(5 to 0), delivered)
+
+        // Changes that cancel out are not delivered
+        EventCoalescer().tick {
+            testEvents2.coalescingEvent.fireAndBlock(1, 0)
+            testEvents2.coalescingEvent.fireAndBlock(0, 1)
+        }
+        assertEquals(1, delivered.size)
+
+        testEvents2.coalescingEvent.fireAndBlock(2, 1)
+        assertEquals(listOf(5 to 0, 2 to 1), delivered)
+    }
+
+    @Test
+    fun `handlers that are turned off are not run`() {
+        val fired = mutableListOf<Int>()
+        val handler = testEvents2.inlineEvent.on(handler = Consumer { fired.add(it) })
+        testEvents2.inlineEvent.fireAndBlock(1)
+        testEvents2.inlineEvent.off(handler)
+        testEvents2.inlineEvent.fireAndBlock(2)
+        assertEquals(listOf(1), fired)
+    }
+}
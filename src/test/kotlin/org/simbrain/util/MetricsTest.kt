@@ -0,0 +1,57 @@
+package org.simbrain.util
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.io.StringWriter
+import kotlin.concurrent.thread
+
+class MetricsTest {
+
+    @Test
+    fun `buckets hold times within an eighth of their lower bound`() {
+        var previous = -1
+        for (nanos in listOf(0L, 1L, 7L, 8L, 9L, 15L, 16L, 1000L, 123_456L, 1_000_000_000L, 1L shl 40)) {
+            val bucket = LatencyHistogram.bucketOf(nanos)
+            assertTrue(bucket >= previous)
+            previous = bucket
+            val lower = LatencyHistogram.lowerBound(bucket)
+            assertTrue(lower <= nanos && nanos < lower + maxOf(1L, lower / 8 + 1), "$nanos in bucket from $lower")
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE))
+    }
+
+    @Test
+    fun `percentiles are close to recorded times`() {
+        val histogram = LatencyHistogram("test")
+        (1..1000).forEach { histogram.record(it * 1000L) }
+        val snapshot = histogram.snapshot()
+        assertEquals(1000, snapshot.count)
+        assertEquals(500_500.0, snapshot.mean)
+        assertEquals(1_000_000, snapshot.max)
+        assertEquals(500_000.0, snapshot.percentile(50.0), 500_000 * 0.125)
+        assertEquals(990_000.0, snapshot.percentile(99.0), 990_000 * 0.125)
+        assertEquals(1_000_000.0, snapshot.percentile(100.0), 1_000_000 * 0.125)
+    }
+
+    @Test
+    fun `times recorded from several threads are all counted`() {
+        val histogram = LatencyHistogram("concurrent")
+        (1..8).map { thread { repeat(10_000) { histogram.record(it.toLong()) } } }.forEach { it.join() }
+        val snapshot = histogram.snapshot()
+        assertEquals(80_000, snapshot.count)
+        assertEquals(8L * 9_999 * 10_000 / 2, snapshot.sum)
+        assertEquals(9_999, snapshot.max)
+        histogram.reset()
+        assertEquals(0, histogram.snapshot().count)
+    }
+
+    @Test
+    fun `snapshots are written as csv and json`() {
+        Metrics.time("MetricsTest \"quoted\"") { Thread.sleep(1) }
+        val csv = StringWriter().also { Metrics.writeCsv(it) }.toString().lines()
+        assertEquals("name,count,mean,p50,p90,p99,max", csv[0])
+        assertTrue(csv.any { it.startsWith("\"MetricsTest \"\"quoted\"\"\",1,") })
+        val json = StringWriter().also { Metrics.writeJson(it) }.toString()
+        assertTrue(json.contains("{\"name\": \"MetricsTest \\\"quoted\\\"\", \"count\": 1, \"mean\": "))
+    }
+}
@@ -1,13 +1,17 @@
 package org.simbrain.workspace
 
 
+import org.junit.jupiter.api.Assertions.assertArrayEquals
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.simbrain.network.NetworkComponent
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
+import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.util.complement
+import org.simbrain.workspace.couplings.AttributeAccessors
 import org.simbrain.workspace.couplings.Coupling
 
 class CouplingTest {
@@ -241,4 +245,32 @@ class CouplingTest {
         assertEquals(.5, neuron2.activation, 0.0)
         assertEquals(.5, neuron3.activation, 0.0)
     }
+
+    @Test
+    fun `compiled accessors match reflective calls`() {
+        val neuron = Neuron(network)
+        neuron.forceSetActivation(.7)
+        val getActivation = Neuron::class.java.getMethod("getActivation")
+        val forceSetActivation = Neuron::class.java.getMethod("forceSetActivation", Double::class.javaPrimitiveType)
+        assertEquals(getActivation.invoke(neuron), AttributeAccessors.getter(getActivation).apply(neuron))
+        assertEquals(.7, AttributeAccessors.doubleGetter(getActivation)!!.applyAsDouble(neuron))
+        AttributeAccessors.doubleSetter(forceSetActivation)!!.accept(neuron, .2)
+        assertEquals(.2, neuron.activation)
+        AttributeAccessors.setter(forceSetActivation).accept(neuron, .3)
+        assertEquals(.3, neuron.activation)
+        assertNull(AttributeAccessors.doubleGetter(Neuron::class.java.getMethod("getLabel")))
+    }
+
+    @Test
+    fun `double array couplings pass values`() {
+        val array1 = NeuronArray(network, 3)
+        val array2 = NeuronArray(network, 3)
+        network.addNetworkModels(listOf(array1, array2))
+        array1.setActivations(doubleArrayOf(1.0, 2.0, 3.0))
+        val coupling = with(couplingManager) {
+            array1.getProducer("getActivationArray") couple array2.getConsumer("addInputs")
+        }
+        coupling.update()
+        assertArrayEquals(doubleArrayOf(1.0, 2.0, 3.0), array2.inputs.col(0))
+    }
 }
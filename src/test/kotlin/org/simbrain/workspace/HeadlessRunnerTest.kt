@@ -0,0 +1,65 @@
+package org.simbrain.workspace
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.util.BiasedScalarData
+import org.simbrain.workspace.serialization.WorkspaceSerializer
+import java.io.File
+import java.io.StringWriter
+
+class HeadlessRunnerTest {
+
+    @TempDir
+    lateinit var dir: File
+
+    private fun saveWorkspace(): File {
+        val workspace = Workspace()
+        val net = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net", net))
+        // Counts up by one each update
+        val neuron = Neuron(net).apply {
+            updateRule = LinearRule().apply { upperBound = 100.0 }
+            (dataHolder as BiasedScalarData).bias = 1.0
+        }
+        net.addNetworkModels(listOf(neuron, NeuronArray(net, 3)))
+        net.addNetworkModel(Synapse(neuron, neuron, 1.0))
+        return File(dir, "workspace.zip").also { file ->
+            file.outputStream().use { WorkspaceSerializer(workspace).serialize(it) }
+        }
+    }
+
+    @Test
+    fun `producers are recorded after each update`() {
+        val runner = HeadlessRunner.open(saveWorkspace())
+        runner.addProducer("net/Neuron_1/getActivation")
+        runner.addProducer("net/NeuronArray_1/getActivationArray")
+        val output = StringWriter()
+        runner.run(4, output, 2)
+        val rows = output.toString().lines().filter { it.isNotEmpty() }
+        assertEquals(
+            "time,net/Neuron_1/getActivation,net/NeuronArray_1/getActivationArray[0]," +
+                    "net/NeuronArray_1/getActivationArray[1],net/NeuronArray_1/getActivationArray[2]",
+            rows[0]
+        )
+        assertEquals(listOf("2", "4"), rows.drop(1).map { it.substringBefore(",") })
+        assertEquals(listOf(2.0, 4.0), rows.drop(1).map { it.split(",")[1].toDouble() })
+        assertEquals(4, runner.workspace.updater.time)
+        assertTrue(runner.workspace.updater.updateManager.actionList.none { it.description == "Record producers" })
+    }
+
+    @Test
+    fun `unknown producers are rejected`() {
+        val runner = HeadlessRunner.open(saveWorkspace())
+        assertThrows<IllegalArgumentException> { runner.addProducer("net/Neuron_9/getActivation") }
+        assertThrows<IllegalArgumentException> { runner.addProducer("net/Neuron_1") }
+    }
+}
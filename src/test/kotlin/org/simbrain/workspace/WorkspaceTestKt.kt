@@ -3,6 +3,9 @@ package org.simbrain.workspace
 import kotlinx.coroutines.runBlocking
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import java.io.File
 
 /**
  * Also see [WorkspaceTest] for java based test
@@ -51,4 +54,31 @@ class WorkspaceTestKt {
         assertEquals(11, counter)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `components keep their order and couplings when saved to and opened from a file`() {
+        val networks = List(6) { i ->
+            Network().also { net ->
+                workspace.addWorkspaceComponent(NetworkComponent("net$i", net))
+                repeat(i + 1) { net.addNeuron() }
+            }
+        }
+        val source = networks[0].freeNeurons.first()
+        val target = networks[5].freeNeurons.first()
+        with(workspace.couplingManager) {
+            createCoupling(source.getProducer("getActivation"), target.getConsumer("addInputValue"))
+        }
+
+        val file = File.createTempFile("workspace", ".zip").apply { deleteOnExit() }
+        workspace.save(file)
+        workspace.openWorkspace(file)
+
+        val components = workspace.componentList.filterIsInstance<NetworkComponent>()
+        assertEquals((0 until 6).map { "net$it" }, components.map { it.name })
+        components.forEachIndexed { i, component -> assertEquals(i + 1, component.network.freeNeurons.size) }
+        assertEquals(1, workspace.couplingManager.couplings.size)
+        components[0].network.freeNeurons.first().forceSetActivation(.8)
+        workspace.simpleIterate()
+        assertEquals(.8, components[5].network.freeNeurons.first().activation, .0001)
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.SigmoidalRule
+import org.simbrain.network.synapse_update_rules.HebbianRule
+import org.simbrain.network.updaterules.IzhikevichRule
+import org.simbrain.workspace.Workspace
+import org.simbrain.workspace.serialization.WorkspaceSerializer
+import org.simbrain.world.odorworld.OdorWorldComponent
+import org.simbrain.world.odorworld.entities.EntityType
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import kotlin.random.Random
+
+class CheckpointActionTest {
+
+    @TempDir
+    lateinit var dir: File
+
+    private fun buildWorkspace(): Workspace {
+        val workspace = Workspace()
+        val net = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net", net))
+        val random = Random(1)
+        val neurons = List(20) { i ->
+            Neuron(net).apply {
+                updateRule = if (i % 2 == 0) SigmoidalRule() else IzhikevichRule()
+                forceSetActivation(random.nextDouble())
+            }
+        }
+        net.addNetworkModels(neurons)
+        repeat(60) { i ->
+            net.addNetworkModel(Synapse(neurons[random.nextInt(20)], neurons[random.nextInt(20)],
+                random.nextDouble(-1.0, 1.0)).apply {
+                learningRule = HebbianRule().apply { learningRate = .01 }
+                delay = i % 3
+            })
+        }
+        val source = NeuronArray(net, 5)
+        val target = NeuronArray(net, 5)
+        net.addNetworkModels(listOf(source, target))
+        source.setActivations(DoubleArray(5) { random.nextDouble() })
+        net.addNetworkModel(WeightMatrix(net, source, target))
+
+        val worldComponent = OdorWorldComponent("world")
+        workspace.addWorkspaceComponent(worldComponent)
+        worldComponent.world.addEntity(100, 100, EntityType.MOUSE).apply {
+            isEffectorsEnabled = false
+            speed = 2.0
+            dtheta = 3.0
+        }
+        return workspace
+    }
+
+    private fun state(workspace: Workspace): List<Double> {
+        val net = (workspace.getComponent("net") as NetworkComponent).network
+        net.releaseCompiledState()
+        val entity = (workspace.getComponent("world") as OdorWorldComponent).world.entityList.first()
+        return net.flatNeuronList.map { it.activation } +
+                net.flatSynapseList.flatMap { listOf(it.strength, it.psr) } +
+                net.getModels<NeuronArray>().flatMap { it.activationArray.toList() } +
+                net.getModels<WeightMatrix>().flatMap { it.weights.toList() } +
+                listOf(entity.x, entity.y, entity.heading, net.time, workspace.updater.time.toDouble())
+    }
+
+    @Test
+    fun `restoring a checkpoint into the opened workspace resumes the run`() {
+        val workspace = buildWorkspace()
+        val saved = ByteArrayOutputStream().also { WorkspaceSerializer(workspace).serialize(it) }.toByteArray()
+        val file = File(dir, "run.checkpoint")
+        val action = CheckpointAction(workspace, file, 5)
+        workspace.addUpdateAction(action)
+        runBlocking {
+            workspace.iterateSuspend(5)
+            // A checkpoint that is due while the previous one is being written is skipped
+            action.flush()
+            workspace.iterateSuspend(5)
+        }
+        action.close()
+        workspace.updater.updateManager.removeAction(action)
+        assertEquals(2, action.checkpoint.sequence)
+
+        val resumed = Workspace()
+        WorkspaceSerializer(resumed).deserialize(ByteArrayInputStream(saved))
+        assertNotEquals(state(workspace), state(resumed))
+        WorkspaceCheckpoint(file).use { assertTrue(it.restore(resumed)) }
+        assertEquals(10, resumed.updater.time)
+        assertEquals(state(workspace), state(resumed))
+
+        runBlocking {
+            workspace.iterateSuspend(5)
+            resumed.iterateSuspend(5)
+        }
+        assertEquals(state(workspace), state(resumed))
+    }
+
+    @Test
+    fun `restoring into a workspace with a different structure fails`() {
+        val workspace = buildWorkspace()
+        val file = File(dir, "run.checkpoint")
+        val action = CheckpointAction(workspace, file, 1)
+        workspace.addUpdateAction(action)
+        runBlocking { workspace.iterateSuspend(1) }
+        action.close()
+
+        val other = buildWorkspace()
+        (other.getComponent("net") as NetworkComponent).network.addNeuron()
+        WorkspaceCheckpoint(file).use { checkpoint ->
+            assertThrows<IllegalStateException> { checkpoint.restore(other) }
+        }
+        WorkspaceCheckpoint(File(dir, "empty.checkpoint")).use { assertFalse(it.restore(other)) }
+    }
+
+    @Test
+    fun `checkpoint actions are not reopened with the workspace`() {
+        val workspace = buildWorkspace()
+        val action = CheckpointAction(workspace, File(dir, "run.checkpoint"), 1)
+        workspace.addUpdateAction(action)
+        val saved = ByteArrayOutputStream().also { WorkspaceSerializer(workspace).serialize(it) }.toByteArray()
+        action.close()
+
+        val reopened = Workspace()
+        WorkspaceSerializer(reopened).deserialize(ByteArrayInputStream(saved))
+        assertTrue(reopened.updater.updateManager.actionList.none { it == null || it is CheckpointAction })
+        runBlocking { reopened.iterateSuspend(1) }
+    }
+}
@@ -0,0 +1,40 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import org.simbrain.workspace.updater.PerformanceMonitor.invoke
+
+class PerformanceMonitorTest {
+
+    @Test
+    fun `actions keep their histogram until it is renamed`() {
+        val action = updateAction("PerformanceMonitorTest action") { }
+        val latency = action.latency()
+        assertSame(latency, action.latency())
+        assertEquals("PerformanceMonitorTest action", latency.name)
+        assertSame(action.latency("net"), action.latency("net"))
+        assertEquals("net:PerformanceMonitorTest action", action.latency("net").name)
+        assertEquals("other:PerformanceMonitorTest action", action.latency("other").name)
+    }
+
+    @Test
+    fun `components keep their histograms until renamed`() {
+        val component = NetworkComponent("PerformanceMonitorTest", Network())
+        assertSame(component.updateLatency, component.updateLatency)
+        assertEquals("Updating Component PerformanceMonitorTest", component.updateLatency.name)
+        component.name = "Renamed"
+        assertEquals("Updating Component Renamed", component.updateLatency.name)
+        assertEquals("Updating Couplings into Renamed", component.couplingsLatency.name)
+    }
+
+    @Test
+    fun `the last action on each thread is recorded`() {
+        val action = updateAction("PerformanceMonitorTest thread") { }
+        runBlocking { action() }
+        assertEquals(1, action.latency().snapshot().count)
+        assertEquals("PerformanceMonitorTest thread", PerformanceMonitor.threadActions[Thread.currentThread().name])
+    }
+}
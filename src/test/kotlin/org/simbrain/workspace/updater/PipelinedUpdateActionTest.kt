@@ -0,0 +1,83 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.NetworkComponent
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.network.util.BiasedScalarData
+import org.simbrain.workspace.Workspace
+import org.simbrain.workspace.couplings.batchByConsumer
+
+class PipelinedUpdateActionTest {
+
+    /**
+     * Two networks coupled to each other and a third that is not coupled.
+     */
+    private fun buildWorkspace(): Workspace {
+        val workspace = Workspace()
+        val neurons = (1..3).map { i ->
+            val net = Network()
+            workspace.addWorkspaceComponent(NetworkComponent("net$i", net))
+            Neuron(net).apply {
+                updateRule = LinearRule().apply { upperBound = 1000.0 }
+                (dataHolder as BiasedScalarData).bias = i.toDouble()
+                net.addNetworkModel(this)
+            }
+        }
+        with(workspace.couplingManager) {
+            neurons[0].getProducer("getActivation") couple neurons[1].getConsumer("addInputValue")
+            neurons[1].getProducer("getActivation") couple neurons[0].getConsumer("addInputValue")
+        }
+        return workspace
+    }
+
+    private fun Workspace.activations() = componentList.map {
+        (it as NetworkComponent).network.getModels<Neuron>().first().activation
+    }.toDoubleArray()
+
+    @Test
+    fun `pipelined update matches the default update`() {
+        val expected = buildWorkspace().apply { runBlocking { iterateSuspend(5) } }.activations()
+        val workspace = buildWorkspace()
+        with(workspace.updater.updateManager) {
+            clear()
+            addAction(PipelinedUpdateAction(workspace.updater))
+        }
+        runBlocking { workspace.iterateSuspend(5) }
+        assertArrayEquals(expected, workspace.activations())
+        // Each coupled neuron adds the other's previous activation to its bias, the third just has its bias
+        assertArrayEquals(doubleArrayOf(7.0, 8.0, 3.0), expected)
+    }
+
+    @Test
+    fun `dependencies follow couplings`() {
+        val workspace = buildWorkspace()
+        val (net1, net2, net3) = workspace.componentList
+        val dependencies = workspace.couplingManager.getDependencies(workspace.componentList)
+        assertEquals(setOf(net2), dependencies.readers[net1])
+        assertEquals(setOf(net1), dependencies.readers[net2])
+        assertEquals(null, dependencies.readers[net3])
+        assertEquals(1, dependencies.incoming[net1]!!.flatten().size)
+        assertEquals(0, dependencies.unassigned.size)
+    }
+
+    @Test
+    fun `couplings to the same container are batched together in order`() {
+        val workspace = buildWorkspace()
+        val net = (workspace.componentList[2] as NetworkComponent).network
+        val target = Neuron(net)
+        val sources = List(10) { Neuron(net) }
+        net.addNetworkModels(sources + target)
+        val toTarget = with(workspace.couplingManager) {
+            sources.map { it.getProducer("getActivation") couple target.getConsumer("addInputValue") }
+        }
+        val batches = batchByConsumer(workspace.couplingManager.couplings)
+        val batchesToTarget = batches.map { batch -> batch.filter { it in toTarget } }.filter { it.isNotEmpty() }
+        assertEquals(listOf(toTarget), batchesToTarget)
+        assertEquals(12, batches.sumOf { it.size })
+    }
+}